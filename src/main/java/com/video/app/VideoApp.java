@@ -95,6 +95,7 @@ public class VideoApp {
             \tLocal: \t\t{}://localhost:{}{}
             \tExternal: \t{}://{}:{}{}
             \tProfile(s): \t{}
+            \tRole: \t\t{}
             ----------------------------------------------------------""",
             applicationName,
             protocol,
@@ -104,7 +105,8 @@ public class VideoApp {
             hostAddress,
             serverPort,
             contextPath,
-            env.getActiveProfiles().length == 0 ? env.getDefaultProfiles() : env.getActiveProfiles()
+            env.getActiveProfiles().length == 0 ? env.getDefaultProfiles() : env.getActiveProfiles(),
+            env.getProperty("application.role")
         );
     }
 }
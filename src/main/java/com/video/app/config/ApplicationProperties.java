@@ -1,6 +1,12 @@
 package com.video.app.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Video.
@@ -10,7 +16,1477 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
     // jhipster-needle-application-properties-property
+
+    private Role role = Role.ALL;
+
+    private final Render render = new Render();
+
+    private final Python python = new Python();
+
+    private final Upload upload = new Upload();
+
+    private final Storage storage = new Storage();
+
     // jhipster-needle-application-properties-property-getter
+
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+
+    public Render getRender() {
+        return render;
+    }
+
+    public Python getPython() {
+        return python;
+    }
+
+    public Upload getUpload() {
+        return upload;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
     // jhipster-needle-application-properties-property-class
+
+    /**
+     * What a node does. API and worker nodes share the database and the shared-data volume, so each kind
+     * can be scaled on its own.
+     */
+    public enum Role {
+        /**
+         * Accepts uploads and enqueues their renders; never renders.
+         */
+        API,
+        /**
+         * Takes renders from the queue and runs them. Only Python callbacks and management endpoints are served.
+         */
+        WORKER,
+        /**
+         * Both, in a single process.
+         */
+        ALL;
+
+        public boolean servesApi() {
+            return this != WORKER;
+        }
+
+        public boolean renders() {
+            return this != API;
+        }
+    }
+
+    /**
+     * Where the images, audio and rendered files of the videos are kept. Python reads and writes local files, so
+     * every node works on a local copy under {@code root}; with the {@code LOCAL} backend that copy is the store.
+     */
+    public static class Storage {
+
+        private Type type = Type.LOCAL;
+
+        /**
+         * Store of the {@code LOCAL} backend, shared by every node; local working copy of the {@code S3} backend.
+         */
+        private String root = "/app/shared-data";
+
+        private final S3 s3 = new S3();
+
+        private final Migration migration = new Migration();
+
+        public Type getType() {
+            return type;
+        }
+
+        public void setType(Type type) {
+            this.type = type;
+        }
+
+        public String getRoot() {
+            return root;
+        }
+
+        public void setRoot(String root) {
+            this.root = root;
+        }
+
+        public S3 getS3() {
+            return s3;
+        }
+
+        public Migration getMigration() {
+            return migration;
+        }
+
+        public enum Type {
+            LOCAL,
+            S3,
+        }
+
+        /**
+         * Moves the videos stored directly under {@code videos/{id}} to the sharded layout, {@code batch-size} videos
+         * every {@code interval}. Both layouts are read while it runs; enable it on a single node.
+         */
+        public static class Migration {
+
+            private boolean enabled = false;
+
+            private int batchSize = 100;
+
+            private Duration interval = Duration.ofSeconds(10);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public Duration getInterval() {
+                return interval;
+            }
+
+            public void setInterval(Duration interval) {
+                this.interval = interval;
+            }
+        }
+
+        /**
+         * S3-compatible object store (AWS S3, MinIO...).
+         */
+        public static class S3 {
+
+            /**
+             * Empty for AWS; the URL of the server otherwise.
+             */
+            private String endpoint;
+
+            /**
+             * Endpoint used in the download links given to clients, when they cannot reach {@code endpoint}.
+             */
+            private String publicEndpoint;
+
+            private String region = "us-east-1";
+
+            private String bucket = "videos";
+
+            /**
+             * Empty to use the default AWS credentials chain.
+             */
+            private String accessKey;
+
+            private String secretKey;
+
+            private boolean pathStyleAccess = true;
+
+            /**
+             * Files larger than this are sent with multipart uploads and fetched with parallel ranged GETs, in parts of
+             * this size. S3 does not accept parts smaller than 5MB.
+             */
+            private DataSize partSize = DataSize.ofMegabytes(8);
+
+            /**
+             * Parts and files transferred at the same time by one operation.
+             */
+            private int concurrency = 4;
+
+            private Duration downloadLinkExpiration = Duration.ofMinutes(15);
+
+            public String getEndpoint() {
+                return endpoint;
+            }
+
+            public void setEndpoint(String endpoint) {
+                this.endpoint = endpoint;
+            }
+
+            public String getPublicEndpoint() {
+                return publicEndpoint;
+            }
+
+            public void setPublicEndpoint(String publicEndpoint) {
+                this.publicEndpoint = publicEndpoint;
+            }
+
+            public String getRegion() {
+                return region;
+            }
+
+            public void setRegion(String region) {
+                this.region = region;
+            }
+
+            public String getBucket() {
+                return bucket;
+            }
+
+            public void setBucket(String bucket) {
+                this.bucket = bucket;
+            }
+
+            public String getAccessKey() {
+                return accessKey;
+            }
+
+            public void setAccessKey(String accessKey) {
+                this.accessKey = accessKey;
+            }
+
+            public String getSecretKey() {
+                return secretKey;
+            }
+
+            public void setSecretKey(String secretKey) {
+                this.secretKey = secretKey;
+            }
+
+            public boolean isPathStyleAccess() {
+                return pathStyleAccess;
+            }
+
+            public void setPathStyleAccess(boolean pathStyleAccess) {
+                this.pathStyleAccess = pathStyleAccess;
+            }
+
+            public DataSize getPartSize() {
+                return partSize;
+            }
+
+            public void setPartSize(DataSize partSize) {
+                this.partSize = partSize;
+            }
+
+            public int getConcurrency() {
+                return concurrency;
+            }
+
+            public void setConcurrency(int concurrency) {
+                this.concurrency = concurrency;
+            }
+
+            public Duration getDownloadLinkExpiration() {
+                return downloadLinkExpiration;
+            }
+
+            public void setDownloadLinkExpiration(Duration downloadLinkExpiration) {
+                this.downloadLinkExpiration = downloadLinkExpiration;
+            }
+        }
+    }
+
+    /**
+     * Multipart uploads of new videos. File parts are streamed into a staging directory on the same volume as
+     * the video files, so placing them is a rename instead of a second copy.
+     */
+    public static class Upload {
+
+        private String stagingDirectory = "/app/shared-data/staging";
+
+        /**
+         * Largest non-file part (form field) kept in memory.
+         */
+        private DataSize maxInMemorySize = DataSize.ofKilobytes(256);
+
+        private int maxParts = 128;
+
+        /**
+         * Largest single file written to the staging directory.
+         */
+        private DataSize maxPartSize = DataSize.ofMegabytes(20);
+
+        /**
+         * Largest request body, checked against {@code Content-Length} and against the bytes written to disk.
+         */
+        private DataSize maxRequestSize = DataSize.ofMegabytes(512);
+
+        private final Resumable resumable = new Resumable();
+
+        private final Blobs blobs = new Blobs();
+
+        public String getStagingDirectory() {
+            return stagingDirectory;
+        }
+
+        public void setStagingDirectory(String stagingDirectory) {
+            this.stagingDirectory = stagingDirectory;
+        }
+
+        public DataSize getMaxInMemorySize() {
+            return maxInMemorySize;
+        }
+
+        public void setMaxInMemorySize(DataSize maxInMemorySize) {
+            this.maxInMemorySize = maxInMemorySize;
+        }
+
+        public int getMaxParts() {
+            return maxParts;
+        }
+
+        public void setMaxParts(int maxParts) {
+            this.maxParts = maxParts;
+        }
+
+        public DataSize getMaxPartSize() {
+            return maxPartSize;
+        }
+
+        public void setMaxPartSize(DataSize maxPartSize) {
+            this.maxPartSize = maxPartSize;
+        }
+
+        public DataSize getMaxRequestSize() {
+            return maxRequestSize;
+        }
+
+        public void setMaxRequestSize(DataSize maxRequestSize) {
+            this.maxRequestSize = maxRequestSize;
+        }
+
+        public Resumable getResumable() {
+            return resumable;
+        }
+
+        public Blobs getBlobs() {
+            return blobs;
+        }
+
+        /**
+         * Content-addressed store of uploaded images and audio: each distinct file is kept once, under its SHA-256, and
+         * hard-linked into the directories of the videos that use it. Must be on the same volume as the videos.
+         */
+        public static class Blobs {
+
+            private boolean enabled = true;
+
+            private String directory = "/app/shared-data/blobs";
+
+            private Duration gcInterval = Duration.ofHours(1);
+
+            /**
+             * Minimum age of an unreferenced file before it is collected, so a file just stored is not collected before
+             * it is linked.
+             */
+            private Duration gcGracePeriod = Duration.ofHours(1);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public Duration getGcInterval() {
+                return gcInterval;
+            }
+
+            public void setGcInterval(Duration gcInterval) {
+                this.gcInterval = gcInterval;
+            }
+
+            public Duration getGcGracePeriod() {
+                return gcGracePeriod;
+            }
+
+            public void setGcGracePeriod(Duration gcGracePeriod) {
+                this.gcGracePeriod = gcGracePeriod;
+            }
+        }
+
+        /**
+         * Resumable uploads ({@code /api/uploads}): sessions whose files are sent in chunks and finalized into a video.
+         * The same {@code max-parts}, {@code max-part-size} and {@code max-request-size} limits apply to a session.
+         */
+        public static class Resumable {
+
+            /**
+             * Time a session is kept after its last chunk.
+             */
+            private Duration expiration = Duration.ofDays(1);
+
+            /**
+             * How long a node may hold a file while writing one chunk; a node that dies mid-chunk releases it after this.
+             */
+            private Duration lockTimeout = Duration.ofMinutes(5);
+
+            private Duration purgeInterval = Duration.ofHours(1);
+
+            private int purgeBatchSize = 500;
+
+            public Duration getExpiration() {
+                return expiration;
+            }
+
+            public void setExpiration(Duration expiration) {
+                this.expiration = expiration;
+            }
+
+            public Duration getLockTimeout() {
+                return lockTimeout;
+            }
+
+            public void setLockTimeout(Duration lockTimeout) {
+                this.lockTimeout = lockTimeout;
+            }
+
+            public Duration getPurgeInterval() {
+                return purgeInterval;
+            }
+
+            public void setPurgeInterval(Duration purgeInterval) {
+                this.purgeInterval = purgeInterval;
+            }
+
+            public int getPurgeBatchSize() {
+                return purgeBatchSize;
+            }
+
+            public void setPurgeBatchSize(int purgeBatchSize) {
+                this.purgeBatchSize = purgeBatchSize;
+            }
+        }
+    }
+
+    public static class Render {
+
+        private int maxConcurrency = 10;
+
+        private final Queue queue = new Queue();
+
+        private final Admission admission = new Admission();
+
+        private final Fairness fairness = new Fairness();
+
+        private final Cache cache = new Cache();
+
+        private final Recovery recovery = new Recovery();
+
+        private final Events events = new Events();
+
+        private final Progress progress = new Progress();
+
+        private final Scheduling scheduling = new Scheduling();
+
+        private final Deadline deadline = new Deadline();
+
+        private final DeadLetter deadLetter = new DeadLetter();
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public Queue getQueue() {
+            return queue;
+        }
+
+        public Admission getAdmission() {
+            return admission;
+        }
+
+        public Fairness getFairness() {
+            return fairness;
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public Recovery getRecovery() {
+            return recovery;
+        }
+
+        public Events getEvents() {
+            return events;
+        }
+
+        public Progress getProgress() {
+            return progress;
+        }
+
+        public Scheduling getScheduling() {
+            return scheduling;
+        }
+
+        public Deadline getDeadline() {
+            return deadline;
+        }
+
+        public DeadLetter getDeadLetter() {
+            return deadLetter;
+        }
+
+        /**
+         * Durable render job queue backed by the {@code render_job} table.
+         */
+        public static class Queue {
+
+            private boolean enabled = true;
+
+            private Duration pollInterval = Duration.ofSeconds(2);
+
+            private int batchSize = 20;
+
+            private Duration leaseDuration = Duration.ofMinutes(15);
+
+            private Duration heartbeatInterval = Duration.ofMinutes(1);
+
+            private int maxAttempts = 3;
+
+            /**
+             * How long a stopping node lets its in-flight renders finish before handing them over to other nodes.
+             * Keep {@code spring.lifecycle.timeout-per-shutdown-phase} above it.
+             */
+            private Duration drainTimeout = Duration.ofMinutes(5);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getPollInterval() {
+                return pollInterval;
+            }
+
+            public void setPollInterval(Duration pollInterval) {
+                this.pollInterval = pollInterval;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public Duration getLeaseDuration() {
+                return leaseDuration;
+            }
+
+            public void setLeaseDuration(Duration leaseDuration) {
+                this.leaseDuration = leaseDuration;
+            }
+
+            public Duration getHeartbeatInterval() {
+                return heartbeatInterval;
+            }
+
+            public void setHeartbeatInterval(Duration heartbeatInterval) {
+                this.heartbeatInterval = heartbeatInterval;
+            }
+
+            public int getMaxAttempts() {
+                return maxAttempts;
+            }
+
+            public void setMaxAttempts(int maxAttempts) {
+                this.maxAttempts = maxAttempts;
+            }
+
+            public Duration getDrainTimeout() {
+                return drainTimeout;
+            }
+
+            public void setDrainTimeout(Duration drainTimeout) {
+                this.drainTimeout = drainTimeout;
+            }
+        }
+
+        /**
+         * Server-Sent Events stream of video status ({@code GET /api/videos/{id}/events}).
+         */
+        public static class Events {
+
+            /**
+             * Interval of comment heartbeats, keeping idle connections open through proxies.
+             */
+            private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+            /**
+             * Relays status changes to the other nodes through PostgreSQL {@code LISTEN/NOTIFY}.
+             */
+            private boolean crossNode = true;
+
+            private String channel = "video_status";
+
+            /**
+             * Delay before listening again after the listener connection is lost.
+             */
+            private Duration reconnectDelay = Duration.ofSeconds(5);
+
+            public Duration getHeartbeatInterval() {
+                return heartbeatInterval;
+            }
+
+            public void setHeartbeatInterval(Duration heartbeatInterval) {
+                this.heartbeatInterval = heartbeatInterval;
+            }
+
+            public boolean isCrossNode() {
+                return crossNode;
+            }
+
+            public void setCrossNode(boolean crossNode) {
+                this.crossNode = crossNode;
+            }
+
+            public String getChannel() {
+                return channel;
+            }
+
+            public void setChannel(String channel) {
+                this.channel = channel;
+            }
+
+            public Duration getReconnectDelay() {
+                return reconnectDelay;
+            }
+
+            public void setReconnectDelay(Duration reconnectDelay) {
+                this.reconnectDelay = reconnectDelay;
+            }
+        }
+
+        /**
+         * Progress and ETA of running renders, estimated from past render times when Python reports no progress.
+         */
+        public static class Progress {
+
+            /**
+             * Weight of the newest render time in the moving average, between 0 and 1.
+             */
+            private double smoothing = 0.2;
+
+            /**
+             * Render time per image assumed until renders of that kind have been observed.
+             */
+            private Duration initialTimePerImage = Duration.ofSeconds(5);
+
+            /**
+             * Upper bound of the {@code Retry-After} hint returned by the status endpoint.
+             */
+            private Duration maxRetryAfter = Duration.ofSeconds(30);
+
+            /**
+             * Minimum time between two progress updates of a render pushed to its watchers and to the other nodes.
+             */
+            private Duration publishInterval = Duration.ofSeconds(2);
+
+            public double getSmoothing() {
+                return smoothing;
+            }
+
+            public void setSmoothing(double smoothing) {
+                this.smoothing = smoothing;
+            }
+
+            public Duration getInitialTimePerImage() {
+                return initialTimePerImage;
+            }
+
+            public void setInitialTimePerImage(Duration initialTimePerImage) {
+                this.initialTimePerImage = initialTimePerImage;
+            }
+
+            public Duration getMaxRetryAfter() {
+                return maxRetryAfter;
+            }
+
+            public void setMaxRetryAfter(Duration maxRetryAfter) {
+                this.maxRetryAfter = maxRetryAfter;
+            }
+
+            public Duration getPublishInterval() {
+                return publishInterval;
+            }
+
+            public void setPublishInterval(Duration publishInterval) {
+                this.publishInterval = publishInterval;
+            }
+        }
+
+        /**
+         * Per-render deadline, shared with Python: {@code safetyFactor} times the expected render time,
+         * {@code base + perImage × images + perVideoSecond × video length}, bounded by {@code min} and {@code max}.
+         * The video length is the audio length, or images times the transition without audio.
+         */
+        public static class Deadline {
+
+            /**
+             * Fixed cost of a render: starting the encoder, reading the inputs, writing the container.
+             */
+            private Duration base = Duration.ofSeconds(20);
+
+            private Duration perImage = Duration.ofSeconds(2);
+
+            /**
+             * Encoding time per second of generated video.
+             */
+            private Duration perVideoSecond = Duration.ofSeconds(1);
+
+            private double safetyFactor = 3.0;
+
+            private Duration min = Duration.ofMinutes(1);
+
+            /**
+             * Also the deadline of renders whose length is unknown, such as audio that could not be probed.
+             */
+            private Duration max = Duration.ofHours(1);
+
+            public Duration getBase() {
+                return base;
+            }
+
+            public void setBase(Duration base) {
+                this.base = base;
+            }
+
+            public Duration getPerImage() {
+                return perImage;
+            }
+
+            public void setPerImage(Duration perImage) {
+                this.perImage = perImage;
+            }
+
+            public Duration getPerVideoSecond() {
+                return perVideoSecond;
+            }
+
+            public void setPerVideoSecond(Duration perVideoSecond) {
+                this.perVideoSecond = perVideoSecond;
+            }
+
+            public double getSafetyFactor() {
+                return safetyFactor;
+            }
+
+            public void setSafetyFactor(double safetyFactor) {
+                this.safetyFactor = safetyFactor;
+            }
+
+            public Duration getMin() {
+                return min;
+            }
+
+            public void setMin(Duration min) {
+                this.min = min;
+            }
+
+            public Duration getMax() {
+                return max;
+            }
+
+            public void setMax(Duration max) {
+                this.max = max;
+            }
+        }
+
+        /**
+         * Order in which pending renders are taken, using a cost model fitted to observed render times.
+         */
+        public static class Scheduling {
+
+            private Policy policy = Policy.FIFO;
+
+            /**
+             * Seconds of expected cost forgiven per second waited in the queue, with the {@code AGING} policy.
+             */
+            private double agingWeight = 1.0;
+
+            /**
+             * Oldest pending renders of each user compared by expected cost when fairness is enabled.
+             */
+            private int candidatesPerUser = 20;
+
+            /**
+             * How often the cost model is fitted again from the {@code render_stat} table.
+             */
+            private Duration refreshInterval = Duration.ofMinutes(5);
+
+            /**
+             * Minimum weight of a new render time in the per-bucket moving average, between 0 and 1.
+             */
+            private double smoothing = 0.1;
+
+            /**
+             * Expected cost of a render until enough render times have been observed.
+             */
+            private Duration defaultCost = Duration.ofMinutes(1);
+
+            public Policy getPolicy() {
+                return policy;
+            }
+
+            public void setPolicy(Policy policy) {
+                this.policy = policy;
+            }
+
+            public double getAgingWeight() {
+                return agingWeight;
+            }
+
+            public void setAgingWeight(double agingWeight) {
+                this.agingWeight = agingWeight;
+            }
+
+            public int getCandidatesPerUser() {
+                return candidatesPerUser;
+            }
+
+            public void setCandidatesPerUser(int candidatesPerUser) {
+                this.candidatesPerUser = candidatesPerUser;
+            }
+
+            public Duration getRefreshInterval() {
+                return refreshInterval;
+            }
+
+            public void setRefreshInterval(Duration refreshInterval) {
+                this.refreshInterval = refreshInterval;
+            }
+
+            public double getSmoothing() {
+                return smoothing;
+            }
+
+            public void setSmoothing(double smoothing) {
+                this.smoothing = smoothing;
+            }
+
+            public Duration getDefaultCost() {
+                return defaultCost;
+            }
+
+            public void setDefaultCost(Duration defaultCost) {
+                this.defaultCost = defaultCost;
+            }
+
+            public enum Policy {
+                /**
+                 * First come, first served.
+                 */
+                FIFO,
+                /**
+                 * Shortest expected job first: cheapest predicted render first.
+                 */
+                SEJF,
+                /**
+                 * Shortest expected job first, with the expected cost reduced by the time already waited so that long renders are not
+                 * starved.
+                 */
+                AGING,
+            }
+        }
+
+        /**
+         * Failed renders kept in {@code render_dead_letter}, with their files, so that they can be replayed.
+         */
+        public static class DeadLetter {
+
+            /**
+             * Failed renders put back in the queue per second during a bulk replay.
+             */
+            private double replayRate = 20;
+
+            private int maxReplay = 10_000;
+
+            /**
+             * Time the files of a failed render are kept waiting for a replay.
+             */
+            private Duration retention = Duration.ofDays(7);
+
+            private Duration purgeInterval = Duration.ofHours(1);
+
+            private int purgeBatchSize = 500;
+
+            public double getReplayRate() {
+                return replayRate;
+            }
+
+            public void setReplayRate(double replayRate) {
+                this.replayRate = replayRate;
+            }
+
+            public int getMaxReplay() {
+                return maxReplay;
+            }
+
+            public void setMaxReplay(int maxReplay) {
+                this.maxReplay = maxReplay;
+            }
+
+            public Duration getRetention() {
+                return retention;
+            }
+
+            public void setRetention(Duration retention) {
+                this.retention = retention;
+            }
+
+            public Duration getPurgeInterval() {
+                return purgeInterval;
+            }
+
+            public void setPurgeInterval(Duration purgeInterval) {
+                this.purgeInterval = purgeInterval;
+            }
+
+            public int getPurgeBatchSize() {
+                return purgeBatchSize;
+            }
+
+            public void setPurgeBatchSize(int purgeBatchSize) {
+                this.purgeBatchSize = purgeBatchSize;
+            }
+        }
+
+        /**
+         * Recovery of renders left behind by a crashed node: expired leases and in-progress videos without a job.
+         */
+        public static class Recovery {
+
+            private boolean enabled = true;
+
+            private Duration interval = Duration.ofMinutes(1);
+
+            private int batchSize = 500;
+
+            /**
+             * Minimum age of an orphaned video, and time an output file must be left untouched to be reused.
+             */
+            private Duration gracePeriod = Duration.ofMinutes(2);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getInterval() {
+                return interval;
+            }
+
+            public void setInterval(Duration interval) {
+                this.interval = interval;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public Duration getGracePeriod() {
+                return gracePeriod;
+            }
+
+            public void setGracePeriod(Duration gracePeriod) {
+                this.gracePeriod = gracePeriod;
+            }
+        }
+
+        /**
+         * Weighted fair scheduling (deficit round-robin) of render jobs across users.
+         */
+        public static class Fairness {
+
+            private boolean enabled = true;
+
+            private int defaultWeight = 1;
+
+            /**
+             * Weight per authority (e.g. {@code ROLE_PREMIUM: 4}); a user gets the highest weight among its authorities.
+             */
+            private Map<String, Integer> weights = new HashMap<>();
+
+            private int maxCandidates = 200;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getDefaultWeight() {
+                return defaultWeight;
+            }
+
+            public void setDefaultWeight(int defaultWeight) {
+                this.defaultWeight = defaultWeight;
+            }
+
+            public Map<String, Integer> getWeights() {
+                return weights;
+            }
+
+            public void setWeights(Map<String, Integer> weights) {
+                this.weights = weights;
+            }
+
+            public int getMaxCandidates() {
+                return maxCandidates;
+            }
+
+            public void setMaxCandidates(int maxCandidates) {
+                this.maxCandidates = maxCandidates;
+            }
+        }
+
+        /**
+         * Content-addressed cache of render outputs, shared by all nodes through the storage volume.
+         */
+        public static class Cache {
+
+            private boolean enabled = true;
+
+            private String directory = "/app/shared-data/render-cache";
+
+            private DataSize maxSize = DataSize.ofGigabytes(20);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getDirectory() {
+                return directory;
+            }
+
+            public void setDirectory(String directory) {
+                this.directory = directory;
+            }
+
+            public DataSize getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(DataSize maxSize) {
+                this.maxSize = maxSize;
+            }
+        }
+
+        /**
+         * Admission control for new video submissions, evaluated before the multipart body is read.
+         */
+        public static class Admission {
+
+            private boolean enabled = true;
+
+            private long maxBacklog = 500;
+
+            private Duration maxEstimatedWait = Duration.ofMinutes(30);
+
+            private Duration rateWindow = Duration.ofMinutes(15);
+
+            private Duration refreshInterval = Duration.ofSeconds(2);
+
+            private Duration defaultRetryAfter = Duration.ofMinutes(1);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMaxBacklog() {
+                return maxBacklog;
+            }
+
+            public void setMaxBacklog(long maxBacklog) {
+                this.maxBacklog = maxBacklog;
+            }
+
+            public Duration getMaxEstimatedWait() {
+                return maxEstimatedWait;
+            }
+
+            public void setMaxEstimatedWait(Duration maxEstimatedWait) {
+                this.maxEstimatedWait = maxEstimatedWait;
+            }
+
+            public Duration getRateWindow() {
+                return rateWindow;
+            }
+
+            public void setRateWindow(Duration rateWindow) {
+                this.rateWindow = rateWindow;
+            }
+
+            public Duration getRefreshInterval() {
+                return refreshInterval;
+            }
+
+            public void setRefreshInterval(Duration refreshInterval) {
+                this.refreshInterval = refreshInterval;
+            }
+
+            public Duration getDefaultRetryAfter() {
+                return defaultRetryAfter;
+            }
+
+            public void setDefaultRetryAfter(Duration defaultRetryAfter) {
+                this.defaultRetryAfter = defaultRetryAfter;
+            }
+        }
+    }
+
+    /**
+     * Calls to the Python video generation service.
+     */
+    public static class Python {
+
+        /**
+         * Base URLs of the Python render servers.
+         */
+        private List<String> backends = new ArrayList<>(List.of("http://video-python:9094"));
+
+        private String healthCheckPath = "/health";
+
+        private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+        private Duration healthCheckTimeout = Duration.ofSeconds(2);
+
+        private Protocol protocol = Protocol.SYNC;
+
+        private final Async async = new Async();
+
+        private final Limiter limiter = new Limiter();
+
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        private final Retry retry = new Retry();
+
+        public List<String> getBackends() {
+            return backends;
+        }
+
+        public void setBackends(List<String> backends) {
+            this.backends = backends;
+        }
+
+        public String getHealthCheckPath() {
+            return healthCheckPath;
+        }
+
+        public void setHealthCheckPath(String healthCheckPath) {
+            this.healthCheckPath = healthCheckPath;
+        }
+
+        public Duration getHealthCheckInterval() {
+            return healthCheckInterval;
+        }
+
+        public void setHealthCheckInterval(Duration healthCheckInterval) {
+            this.healthCheckInterval = healthCheckInterval;
+        }
+
+        public Duration getHealthCheckTimeout() {
+            return healthCheckTimeout;
+        }
+
+        public void setHealthCheckTimeout(Duration healthCheckTimeout) {
+            this.healthCheckTimeout = healthCheckTimeout;
+        }
+
+        public Protocol getProtocol() {
+            return protocol;
+        }
+
+        public void setProtocol(Protocol protocol) {
+            this.protocol = protocol;
+        }
+
+        public Async getAsync() {
+            return async;
+        }
+
+        public Limiter getLimiter() {
+            return limiter;
+        }
+
+        public CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public Retry getRetry() {
+            return retry;
+        }
+
+        public enum Protocol {
+            /**
+             * One HTTP request held open for the whole render.
+             */
+            SYNC,
+            /**
+             * Submit the render, then track it with status polls and callbacks.
+             */
+            ASYNC,
+        }
+
+        /**
+         * Submit-and-poll protocol settings.
+         */
+        public static class Async {
+
+            private String submitPath = "/render_jobs/";
+
+            private Duration pollInterval = Duration.ofSeconds(5);
+
+            /**
+             * Public base URL of this application for Python callbacks; callbacks are disabled when empty.
+             */
+            private String callbackBaseUrl = "";
+
+            private String callbackToken = "";
+
+            public String getSubmitPath() {
+                return submitPath;
+            }
+
+            public void setSubmitPath(String submitPath) {
+                this.submitPath = submitPath;
+            }
+
+            public Duration getPollInterval() {
+                return pollInterval;
+            }
+
+            public void setPollInterval(Duration pollInterval) {
+                this.pollInterval = pollInterval;
+            }
+
+            public String getCallbackBaseUrl() {
+                return callbackBaseUrl;
+            }
+
+            public void setCallbackBaseUrl(String callbackBaseUrl) {
+                this.callbackBaseUrl = callbackBaseUrl;
+            }
+
+            public String getCallbackToken() {
+                return callbackToken;
+            }
+
+            public void setCallbackToken(String callbackToken) {
+                this.callbackToken = callbackToken;
+            }
+        }
+
+        /**
+         * AIMD limit on concurrent calls to each Python backend.
+         */
+        public static class Limiter {
+
+            private int initialLimit = 4;
+
+            private int minLimit = 1;
+
+            private int maxLimit = 20;
+
+            private double backoffRatio = 0.7;
+
+            /**
+             * A synchronous render is slow when it takes longer than this many times its expected time.
+             */
+            private double slowCallRatio = 1.5;
+
+            /**
+             * Threshold for the calls whose expected time is unknown.
+             */
+            private Duration slowCallThreshold = Duration.ofMinutes(5);
+
+            /**
+             * An asynchronous render is slow when Python takes longer than this to answer its submit or one of its polls.
+             */
+            private Duration slowResponseThreshold = Duration.ofSeconds(10);
+
+            public int getInitialLimit() {
+                return initialLimit;
+            }
+
+            public void setInitialLimit(int initialLimit) {
+                this.initialLimit = initialLimit;
+            }
+
+            public int getMinLimit() {
+                return minLimit;
+            }
+
+            public void setMinLimit(int minLimit) {
+                this.minLimit = minLimit;
+            }
+
+            public int getMaxLimit() {
+                return maxLimit;
+            }
+
+            public void setMaxLimit(int maxLimit) {
+                this.maxLimit = maxLimit;
+            }
+
+            public double getBackoffRatio() {
+                return backoffRatio;
+            }
+
+            public void setBackoffRatio(double backoffRatio) {
+                this.backoffRatio = backoffRatio;
+            }
+
+            public Duration getSlowCallThreshold() {
+                return slowCallThreshold;
+            }
+
+            public void setSlowCallThreshold(Duration slowCallThreshold) {
+                this.slowCallThreshold = slowCallThreshold;
+            }
+
+            public double getSlowCallRatio() {
+                return slowCallRatio;
+            }
+
+            public void setSlowCallRatio(double slowCallRatio) {
+                this.slowCallRatio = slowCallRatio;
+            }
+
+            public Duration getSlowResponseThreshold() {
+                return slowResponseThreshold;
+            }
+
+            public void setSlowResponseThreshold(Duration slowResponseThreshold) {
+                this.slowResponseThreshold = slowResponseThreshold;
+            }
+        }
+
+        /**
+         * Circuit breaker that fails fast while Python is unhealthy.
+         */
+        public static class CircuitBreaker {
+
+            private int failureThreshold = 5;
+
+            private Duration openDuration = Duration.ofSeconds(30);
+
+            private int halfOpenCalls = 1;
+
+            public int getFailureThreshold() {
+                return failureThreshold;
+            }
+
+            public void setFailureThreshold(int failureThreshold) {
+                this.failureThreshold = failureThreshold;
+            }
+
+            public Duration getOpenDuration() {
+                return openDuration;
+            }
+
+            public void setOpenDuration(Duration openDuration) {
+                this.openDuration = openDuration;
+            }
+
+            public int getHalfOpenCalls() {
+                return halfOpenCalls;
+            }
+
+            public void setHalfOpenCalls(int halfOpenCalls) {
+                this.halfOpenCalls = halfOpenCalls;
+            }
+        }
+
+        /**
+         * Retries of renders that failed for a transient reason: connection errors and 502/503/504 responses.
+         */
+        public static class Retry {
+
+            /**
+             * Calls per render, including the first one; 1 disables retries.
+             */
+            private int maxAttempts = 3;
+
+            private Duration initialBackoff = Duration.ofSeconds(2);
+
+            private Duration maxBackoff = Duration.ofSeconds(30);
+
+            /**
+             * Random fraction of each backoff added or removed, so that renders failed together do not retry together.
+             */
+            private double jitter = 0.5;
+
+            public int getMaxAttempts() {
+                return maxAttempts;
+            }
+
+            public void setMaxAttempts(int maxAttempts) {
+                this.maxAttempts = maxAttempts;
+            }
+
+            public Duration getInitialBackoff() {
+                return initialBackoff;
+            }
+
+            public void setInitialBackoff(Duration initialBackoff) {
+                this.initialBackoff = initialBackoff;
+            }
+
+            public Duration getMaxBackoff() {
+                return maxBackoff;
+            }
+
+            public void setMaxBackoff(Duration maxBackoff) {
+                this.maxBackoff = maxBackoff;
+            }
+
+            public double getJitter() {
+                return jitter;
+            }
+
+            public void setJitter(double jitter) {
+                this.jitter = jitter;
+            }
+        }
+    }
 }
@@ -4,6 +4,8 @@ import static org.springframework.security.config.Customizer.withDefaults;
 import static org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers.pathMatchers;
 
 import com.video.app.security.AuthoritiesConstants;
+import com.video.app.service.RenderAdmissionService;
+import com.video.app.web.filter.RenderAdmissionWebFilter;
 import com.video.app.web.filter.SpaWebFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -28,8 +30,18 @@ public class SecurityConfiguration {
 
     private final JHipsterProperties jHipsterProperties;
 
-    public SecurityConfiguration(JHipsterProperties jHipsterProperties) {
+    private final RenderAdmissionService renderAdmissionService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public SecurityConfiguration(
+        JHipsterProperties jHipsterProperties,
+        RenderAdmissionService renderAdmissionService,
+        ApplicationProperties applicationProperties
+    ) {
         this.jHipsterProperties = jHipsterProperties;
+        this.renderAdmissionService = renderAdmissionService;
+        this.applicationProperties = applicationProperties;
     }
 
     @Bean
@@ -48,6 +60,9 @@ public class SecurityConfiguration {
 
     @Bean
     public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+        if (!applicationProperties.getRole().servesApi()) {
+            return workerSecurityFilterChain(http);
+        }
         http
             .securityMatcher(
                 new NegatedServerWebExchangeMatcher(
@@ -57,6 +72,7 @@ public class SecurityConfiguration {
             .cors(withDefaults())
             .csrf(csrf -> csrf.disable())
             .addFilterAfter(new SpaWebFilter(), SecurityWebFiltersOrder.HTTPS_REDIRECT)
+            .addFilterAfter(new RenderAdmissionWebFilter(renderAdmissionService), SecurityWebFiltersOrder.AUTHORIZATION)
             .headers(headers ->
                 headers
                     .contentSecurityPolicy(csp -> csp.policyDirectives(jHipsterProperties.getSecurity().getContentSecurityPolicy()))
@@ -80,6 +96,7 @@ public class SecurityConfiguration {
                     .pathMatchers("/api/activate").permitAll()
                     .pathMatchers("/api/account/reset-password/init").permitAll()
                     .pathMatchers("/api/account/reset-password/finish").permitAll()
+                    .pathMatchers("/api/internal/render-callbacks/**").permitAll()
                     .pathMatchers("/api/admin/**").hasAuthority(AuthoritiesConstants.ADMIN)
                     .pathMatchers("/api/**").authenticated()
                     .pathMatchers("/services/**").authenticated()
@@ -94,4 +111,27 @@ public class SecurityConfiguration {
             .oauth2ResourceServer(oauth2 -> oauth2.jwt(withDefaults()));
         return http.build();
     }
+
+    /**
+     * Worker nodes only receive Python render callbacks and management requests: no SPA, static content or user API.
+     */
+    private SecurityWebFilterChain workerSecurityFilterChain(ServerHttpSecurity http) {
+        http
+            .csrf(csrf -> csrf.disable())
+            .headers(headers -> headers.frameOptions(frameOptions -> frameOptions.mode(Mode.DENY)))
+            .authorizeExchange(authz ->
+                // prettier-ignore
+                authz
+                    .pathMatchers("/api/internal/render-callbacks/**").permitAll()
+                    .pathMatchers("/management/health").permitAll()
+                    .pathMatchers("/management/health/**").permitAll()
+                    .pathMatchers("/management/info").permitAll()
+                    .pathMatchers("/management/prometheus").permitAll()
+                    .pathMatchers("/management/**").hasAuthority(AuthoritiesConstants.ADMIN)
+                    .anyExchange().denyAll()
+            )
+            .httpBasic(basic -> basic.disable())
+            .oauth2ResourceServer(oauth2 -> oauth2.jwt(withDefaults()));
+        return http.build();
+    }
 }
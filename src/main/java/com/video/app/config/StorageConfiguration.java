@@ -0,0 +1,31 @@
+package com.video.app.config;
+
+import com.video.app.service.storage.LocalVideoStorage;
+import com.video.app.service.storage.S3VideoStorage;
+import com.video.app.service.storage.VideoStorage;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the {@link VideoStorage} backend from {@code application.storage.type}.
+ */
+@Configuration
+public class StorageConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StorageConfiguration.class);
+
+    @Bean
+    public VideoStorage videoStorage(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Storage storage = applicationProperties.getStorage();
+        Path root = Path.of(storage.getRoot());
+        if (storage.getType() == ApplicationProperties.Storage.Type.S3) {
+            LOG.info("Storing video files in bucket {} ({})", storage.getS3().getBucket(), storage.getS3().getEndpoint());
+            return S3VideoStorage.create(storage.getS3(), root);
+        }
+        LOG.debug("Storing video files in {}", root);
+        return new LocalVideoStorage(root);
+    }
+}
@@ -1,6 +1,7 @@
 package com.video.app.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.video.app.web.multipart.StagingPartHttpMessageReader;
 import com.video.app.web.rest.errors.ExceptionTranslator;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
@@ -12,6 +13,8 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.core.annotation.Order;
 import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
 import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.multipart.MultipartHttpMessageReader;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
@@ -34,8 +37,21 @@ public class WebConfigurer implements WebFluxConfigurer {
 
     private final JHipsterProperties jHipsterProperties;
 
-    public WebConfigurer(JHipsterProperties jHipsterProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    public WebConfigurer(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         this.jHipsterProperties = jHipsterProperties;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Streams uploaded files into the staging directory on the shared-data volume, see {@link StagingPartHttpMessageReader}.
+     */
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        StagingPartHttpMessageReader partReader = new StagingPartHttpMessageReader(applicationProperties.getUpload());
+        LOG.debug("Staging multipart uploads in {}", partReader.getStagingDirectory());
+        configurer.defaultCodecs().multipartReader(new MultipartHttpMessageReader(partReader));
     }
 
     @Bean
@@ -0,0 +1,368 @@
+package com.video.app.domain;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.video.app.domain.enumeration.DeadLetterStatus;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Render fallido de un video ("dead letter"): la causa, los parámetros del render y el historial de
+ * intentos. Los archivos del video se conservan para poder reintentarlo sin que el usuario los vuelva a subir.
+ */
+@Table("render_dead_letter")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class RenderDeadLetter implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column("id")
+    private Long id;
+
+    @Column("video_id")
+    private Long videoId;
+
+    @Column("user_id")
+    private Long userId;
+
+    @Column("status")
+    private DeadLetterStatus status;
+
+    /**
+     * Clase de la excepción final, sin paquete.
+     */
+    @Column("error_type")
+    private String errorType;
+
+    /**
+     * Código HTTP de Python, si la causa fue una respuesta de error.
+     */
+    @Column("http_status")
+    private Integer httpStatus;
+
+    @Column("error_message")
+    private String errorMessage;
+
+    @Column("formato")
+    private String formato;
+
+    @Column("tiene_audio")
+    private Boolean tieneAudio;
+
+    @Column("duracion_transicion")
+    private Integer duracionTransicion;
+
+    @Column("duracion_audio")
+    private Double duracionAudio;
+
+    /**
+     * Veces que el render del video terminó en ERROR.
+     */
+    @Column("failures")
+    private Integer failures;
+
+    @Column("replays")
+    private Integer replays;
+
+    /**
+     * Historial JSON: un elemento por fallo, con los errores de cada intento contra Python.
+     */
+    @Column("history")
+    private String history;
+
+    /**
+     * Los archivos del video ya se borraron: no se puede reintentar.
+     */
+    @Column("files_purged")
+    private Boolean filesPurged;
+
+    @Column("first_failed_at")
+    private Instant firstFailedAt;
+
+    @Column("last_failed_at")
+    private Instant lastFailedAt;
+
+    @Column("replayed_at")
+    private Instant replayedAt;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public RenderDeadLetter id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getVideoId() {
+        return this.videoId;
+    }
+
+    public RenderDeadLetter videoId(Long videoId) {
+        this.setVideoId(videoId);
+        return this;
+    }
+
+    public void setVideoId(Long videoId) {
+        this.videoId = videoId;
+    }
+
+    public Long getUserId() {
+        return this.userId;
+    }
+
+    public RenderDeadLetter userId(Long userId) {
+        this.setUserId(userId);
+        return this;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public DeadLetterStatus getStatus() {
+        return this.status;
+    }
+
+    public RenderDeadLetter status(DeadLetterStatus status) {
+        this.setStatus(status);
+        return this;
+    }
+
+    public void setStatus(DeadLetterStatus status) {
+        this.status = status;
+    }
+
+    public String getErrorType() {
+        return this.errorType;
+    }
+
+    public RenderDeadLetter errorType(String errorType) {
+        this.setErrorType(errorType);
+        return this;
+    }
+
+    public void setErrorType(String errorType) {
+        this.errorType = errorType;
+    }
+
+    public Integer getHttpStatus() {
+        return this.httpStatus;
+    }
+
+    public RenderDeadLetter httpStatus(Integer httpStatus) {
+        this.setHttpStatus(httpStatus);
+        return this;
+    }
+
+    public void setHttpStatus(Integer httpStatus) {
+        this.httpStatus = httpStatus;
+    }
+
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+
+    public RenderDeadLetter errorMessage(String errorMessage) {
+        this.setErrorMessage(errorMessage);
+        return this;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getFormato() {
+        return this.formato;
+    }
+
+    public RenderDeadLetter formato(String formato) {
+        this.setFormato(formato);
+        return this;
+    }
+
+    public void setFormato(String formato) {
+        this.formato = formato;
+    }
+
+    public Boolean getTieneAudio() {
+        return this.tieneAudio;
+    }
+
+    public RenderDeadLetter tieneAudio(Boolean tieneAudio) {
+        this.setTieneAudio(tieneAudio);
+        return this;
+    }
+
+    public void setTieneAudio(Boolean tieneAudio) {
+        this.tieneAudio = tieneAudio;
+    }
+
+    public Integer getDuracionTransicion() {
+        return this.duracionTransicion;
+    }
+
+    public RenderDeadLetter duracionTransicion(Integer duracionTransicion) {
+        this.setDuracionTransicion(duracionTransicion);
+        return this;
+    }
+
+    public void setDuracionTransicion(Integer duracionTransicion) {
+        this.duracionTransicion = duracionTransicion;
+    }
+
+    public Double getDuracionAudio() {
+        return this.duracionAudio;
+    }
+
+    public RenderDeadLetter duracionAudio(Double duracionAudio) {
+        this.setDuracionAudio(duracionAudio);
+        return this;
+    }
+
+    public void setDuracionAudio(Double duracionAudio) {
+        this.duracionAudio = duracionAudio;
+    }
+
+    public Integer getFailures() {
+        return this.failures;
+    }
+
+    public RenderDeadLetter failures(Integer failures) {
+        this.setFailures(failures);
+        return this;
+    }
+
+    public void setFailures(Integer failures) {
+        this.failures = failures;
+    }
+
+    public Integer getReplays() {
+        return this.replays;
+    }
+
+    public RenderDeadLetter replays(Integer replays) {
+        this.setReplays(replays);
+        return this;
+    }
+
+    public void setReplays(Integer replays) {
+        this.replays = replays;
+    }
+
+    @JsonRawValue
+    public String getHistory() {
+        return this.history;
+    }
+
+    public RenderDeadLetter history(String history) {
+        this.setHistory(history);
+        return this;
+    }
+
+    public void setHistory(String history) {
+        this.history = history;
+    }
+
+    public Boolean getFilesPurged() {
+        return this.filesPurged;
+    }
+
+    public RenderDeadLetter filesPurged(Boolean filesPurged) {
+        this.setFilesPurged(filesPurged);
+        return this;
+    }
+
+    public void setFilesPurged(Boolean filesPurged) {
+        this.filesPurged = filesPurged;
+    }
+
+    public Instant getFirstFailedAt() {
+        return this.firstFailedAt;
+    }
+
+    public RenderDeadLetter firstFailedAt(Instant firstFailedAt) {
+        this.setFirstFailedAt(firstFailedAt);
+        return this;
+    }
+
+    public void setFirstFailedAt(Instant firstFailedAt) {
+        this.firstFailedAt = firstFailedAt;
+    }
+
+    public Instant getLastFailedAt() {
+        return this.lastFailedAt;
+    }
+
+    public RenderDeadLetter lastFailedAt(Instant lastFailedAt) {
+        this.setLastFailedAt(lastFailedAt);
+        return this;
+    }
+
+    public void setLastFailedAt(Instant lastFailedAt) {
+        this.lastFailedAt = lastFailedAt;
+    }
+
+    public Instant getReplayedAt() {
+        return this.replayedAt;
+    }
+
+    public RenderDeadLetter replayedAt(Instant replayedAt) {
+        this.setReplayedAt(replayedAt);
+        return this;
+    }
+
+    public void setReplayedAt(Instant replayedAt) {
+        this.replayedAt = replayedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RenderDeadLetter)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((RenderDeadLetter) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RenderDeadLetter{" +
+            "id=" + getId() +
+            ", videoId=" + getVideoId() +
+            ", userId=" + getUserId() +
+            ", status='" + getStatus() + "'" +
+            ", errorType='" + getErrorType() + "'" +
+            ", httpStatus=" + getHttpStatus() +
+            ", errorMessage='" + getErrorMessage() + "'" +
+            ", formato='" + getFormato() + "'" +
+            ", tieneAudio='" + getTieneAudio() + "'" +
+            ", duracionTransicion=" + getDuracionTransicion() +
+            ", duracionAudio=" + getDuracionAudio() +
+            ", failures=" + getFailures() +
+            ", replays=" + getReplays() +
+            ", filesPurged='" + getFilesPurged() + "'" +
+            ", firstFailedAt='" + getFirstFailedAt() + "'" +
+            ", lastFailedAt='" + getLastFailedAt() + "'" +
+            ", replayedAt='" + getReplayedAt() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,314 @@
+package com.video.app.domain;
+
+import com.video.app.domain.enumeration.RenderJobStatus;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Trabajo de renderizado persistido en la cola {@code render_job}.
+ * Un nodo lo toma con un lease temporal; si el lease expira sin completarse,
+ * cualquier otro nodo puede volver a tomarlo.
+ */
+@Table("render_job")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class RenderJob implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column("id")
+    private Long id;
+
+    @Column("video_id")
+    private Long videoId;
+
+    @Column("user_id")
+    private Long userId;
+
+    @Column("weight")
+    private Integer weight;
+
+    @Column("status")
+    private RenderJobStatus status;
+
+    @Column("attempts")
+    private Integer attempts;
+
+    @Column("available_at")
+    private Instant availableAt;
+
+    @Column("lease_owner")
+    private String leaseOwner;
+
+    @Column("lease_expires_at")
+    private Instant leaseExpiresAt;
+
+    @Column("last_error")
+    private String lastError;
+
+    @Column("created_at")
+    private Instant createdAt;
+
+    @Column("updated_at")
+    private Instant updatedAt;
+
+    @Column("formato")
+    private String formato;
+
+    @Column("image_count")
+    private Integer imageCount;
+
+    @Column("has_audio")
+    private Boolean hasAudio;
+
+    /**
+     * Tiempo de render esperado, calculado al elegir qué trabajos tomar.
+     */
+    @org.springframework.data.annotation.Transient
+    private Duration expectedCost;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public RenderJob id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getVideoId() {
+        return this.videoId;
+    }
+
+    public RenderJob videoId(Long videoId) {
+        this.setVideoId(videoId);
+        return this;
+    }
+
+    public void setVideoId(Long videoId) {
+        this.videoId = videoId;
+    }
+
+    public Long getUserId() {
+        return this.userId;
+    }
+
+    public RenderJob userId(Long userId) {
+        this.setUserId(userId);
+        return this;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Integer getWeight() {
+        return this.weight;
+    }
+
+    public RenderJob weight(Integer weight) {
+        this.setWeight(weight);
+        return this;
+    }
+
+    public void setWeight(Integer weight) {
+        this.weight = weight;
+    }
+
+    public RenderJobStatus getStatus() {
+        return this.status;
+    }
+
+    public RenderJob status(RenderJobStatus status) {
+        this.setStatus(status);
+        return this;
+    }
+
+    public void setStatus(RenderJobStatus status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return this.attempts;
+    }
+
+    public RenderJob attempts(Integer attempts) {
+        this.setAttempts(attempts);
+        return this;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getAvailableAt() {
+        return this.availableAt;
+    }
+
+    public RenderJob availableAt(Instant availableAt) {
+        this.setAvailableAt(availableAt);
+        return this;
+    }
+
+    public void setAvailableAt(Instant availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public String getLeaseOwner() {
+        return this.leaseOwner;
+    }
+
+    public RenderJob leaseOwner(String leaseOwner) {
+        this.setLeaseOwner(leaseOwner);
+        return this;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public Instant getLeaseExpiresAt() {
+        return this.leaseExpiresAt;
+    }
+
+    public RenderJob leaseExpiresAt(Instant leaseExpiresAt) {
+        this.setLeaseExpiresAt(leaseExpiresAt);
+        return this;
+    }
+
+    public void setLeaseExpiresAt(Instant leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public String getLastError() {
+        return this.lastError;
+    }
+
+    public RenderJob lastError(String lastError) {
+        this.setLastError(lastError);
+        return this;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedAt() {
+        return this.createdAt;
+    }
+
+    public RenderJob createdAt(Instant createdAt) {
+        this.setCreatedAt(createdAt);
+        return this;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return this.updatedAt;
+    }
+
+    public RenderJob updatedAt(Instant updatedAt) {
+        this.setUpdatedAt(updatedAt);
+        return this;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public String getFormato() {
+        return this.formato;
+    }
+
+    public RenderJob formato(String formato) {
+        this.setFormato(formato);
+        return this;
+    }
+
+    public void setFormato(String formato) {
+        this.formato = formato;
+    }
+
+    public Integer getImageCount() {
+        return this.imageCount;
+    }
+
+    public RenderJob imageCount(Integer imageCount) {
+        this.setImageCount(imageCount);
+        return this;
+    }
+
+    public void setImageCount(Integer imageCount) {
+        this.imageCount = imageCount;
+    }
+
+    public Boolean getHasAudio() {
+        return this.hasAudio;
+    }
+
+    public RenderJob hasAudio(Boolean hasAudio) {
+        this.setHasAudio(hasAudio);
+        return this;
+    }
+
+    public void setHasAudio(Boolean hasAudio) {
+        this.hasAudio = hasAudio;
+    }
+
+    public Duration getExpectedCost() {
+        return this.expectedCost;
+    }
+
+    public void setExpectedCost(Duration expectedCost) {
+        this.expectedCost = expectedCost;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RenderJob)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((RenderJob) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RenderJob{" +
+            "id=" + getId() +
+            ", videoId=" + getVideoId() +
+            ", userId=" + getUserId() +
+            ", weight=" + getWeight() +
+            ", status='" + getStatus() + "'" +
+            ", attempts=" + getAttempts() +
+            ", availableAt='" + getAvailableAt() + "'" +
+            ", leaseOwner='" + getLeaseOwner() + "'" +
+            ", leaseExpiresAt='" + getLeaseExpiresAt() + "'" +
+            ", formato='" + getFormato() + "'" +
+            ", imageCount=" + getImageCount() +
+            ", hasAudio='" + getHasAudio() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,181 @@
+package com.video.app.domain;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Tiempos de render observados, agregados por formato, número de imágenes y audio.
+ * Una fila por combinación mantiene la tabla pequeña sin importar cuántos videos se rendericen.
+ */
+@Table("render_stat")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class RenderStat implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column("id")
+    private Long id;
+
+    @Column("formato")
+    private String formato;
+
+    @Column("images")
+    private Integer images;
+
+    @Column("has_audio")
+    private Boolean hasAudio;
+
+    @Column("samples")
+    private Long samples;
+
+    @Column("mean_render_millis")
+    private Double meanRenderMillis;
+
+    @Column("mean_video_seconds")
+    private Double meanVideoSeconds;
+
+    @Column("updated_at")
+    private Instant updatedAt;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public RenderStat id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFormato() {
+        return this.formato;
+    }
+
+    public RenderStat formato(String formato) {
+        this.setFormato(formato);
+        return this;
+    }
+
+    public void setFormato(String formato) {
+        this.formato = formato;
+    }
+
+    public Integer getImages() {
+        return this.images;
+    }
+
+    public RenderStat images(Integer images) {
+        this.setImages(images);
+        return this;
+    }
+
+    public void setImages(Integer images) {
+        this.images = images;
+    }
+
+    public Boolean getHasAudio() {
+        return this.hasAudio;
+    }
+
+    public RenderStat hasAudio(Boolean hasAudio) {
+        this.setHasAudio(hasAudio);
+        return this;
+    }
+
+    public void setHasAudio(Boolean hasAudio) {
+        this.hasAudio = hasAudio;
+    }
+
+    public Long getSamples() {
+        return this.samples;
+    }
+
+    public RenderStat samples(Long samples) {
+        this.setSamples(samples);
+        return this;
+    }
+
+    public void setSamples(Long samples) {
+        this.samples = samples;
+    }
+
+    public Double getMeanRenderMillis() {
+        return this.meanRenderMillis;
+    }
+
+    public RenderStat meanRenderMillis(Double meanRenderMillis) {
+        this.setMeanRenderMillis(meanRenderMillis);
+        return this;
+    }
+
+    public void setMeanRenderMillis(Double meanRenderMillis) {
+        this.meanRenderMillis = meanRenderMillis;
+    }
+
+    public Double getMeanVideoSeconds() {
+        return this.meanVideoSeconds;
+    }
+
+    public RenderStat meanVideoSeconds(Double meanVideoSeconds) {
+        this.setMeanVideoSeconds(meanVideoSeconds);
+        return this;
+    }
+
+    public void setMeanVideoSeconds(Double meanVideoSeconds) {
+        this.meanVideoSeconds = meanVideoSeconds;
+    }
+
+    public Instant getUpdatedAt() {
+        return this.updatedAt;
+    }
+
+    public RenderStat updatedAt(Instant updatedAt) {
+        this.setUpdatedAt(updatedAt);
+        return this;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RenderStat)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((RenderStat) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RenderStat{" +
+            "id=" + getId() +
+            ", formato='" + getFormato() + "'" +
+            ", images=" + getImages() +
+            ", hasAudio='" + getHasAudio() + "'" +
+            ", samples=" + getSamples() +
+            ", meanRenderMillis=" + getMeanRenderMillis() +
+            ", meanVideoSeconds=" + getMeanVideoSeconds() +
+            ", updatedAt='" + getUpdatedAt() + "'" +
+            "}";
+    }
+}
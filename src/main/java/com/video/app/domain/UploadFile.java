@@ -0,0 +1,190 @@
+package com.video.app.domain;
+
+import com.video.app.domain.enumeration.UploadFileKind;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Archivo de una subida reanudable: su tamaño declarado y cuántos bytes ya están en disco.
+ */
+@Table("upload_file")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class UploadFile implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column("id")
+    private Long id;
+
+    @Column("session_id")
+    private Long sessionId;
+
+    /**
+     * Orden del archivo en la subida; las imágenes se guardan en este orden.
+     */
+    @Column("position")
+    private Integer position;
+
+    @Column("kind")
+    private UploadFileKind kind;
+
+    @Column("filename")
+    private String filename;
+
+    @Column("length")
+    private Long length;
+
+    /**
+     * Bytes contiguos desde el principio que ya están escritos; el siguiente fragmento empieza aquí.
+     */
+    @Column("upload_offset")
+    private Long uploadOffset;
+
+    /**
+     * Mientras un nodo escribe un fragmento, ningún otro puede escribir en el archivo.
+     */
+    @Column("locked_until")
+    private Instant lockedUntil;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public UploadFile id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSessionId() {
+        return this.sessionId;
+    }
+
+    public UploadFile sessionId(Long sessionId) {
+        this.setSessionId(sessionId);
+        return this;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public Integer getPosition() {
+        return this.position;
+    }
+
+    public UploadFile position(Integer position) {
+        this.setPosition(position);
+        return this;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
+    public UploadFileKind getKind() {
+        return this.kind;
+    }
+
+    public UploadFile kind(UploadFileKind kind) {
+        this.setKind(kind);
+        return this;
+    }
+
+    public void setKind(UploadFileKind kind) {
+        this.kind = kind;
+    }
+
+    public String getFilename() {
+        return this.filename;
+    }
+
+    public UploadFile filename(String filename) {
+        this.setFilename(filename);
+        return this;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public Long getLength() {
+        return this.length;
+    }
+
+    public UploadFile length(Long length) {
+        this.setLength(length);
+        return this;
+    }
+
+    public void setLength(Long length) {
+        this.length = length;
+    }
+
+    public Long getUploadOffset() {
+        return this.uploadOffset;
+    }
+
+    public UploadFile uploadOffset(Long uploadOffset) {
+        this.setUploadOffset(uploadOffset);
+        return this;
+    }
+
+    public void setUploadOffset(Long uploadOffset) {
+        this.uploadOffset = uploadOffset;
+    }
+
+    public Instant getLockedUntil() {
+        return this.lockedUntil;
+    }
+
+    public UploadFile lockedUntil(Instant lockedUntil) {
+        this.setLockedUntil(lockedUntil);
+        return this;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UploadFile)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((UploadFile) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UploadFile{" +
+            "id=" + getId() +
+            ", sessionId=" + getSessionId() +
+            ", position=" + getPosition() +
+            ", kind='" + getKind() + "'" +
+            ", filename='" + getFilename() + "'" +
+            ", length=" + getLength() +
+            ", uploadOffset=" + getUploadOffset() +
+            ", lockedUntil='" + getLockedUntil() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,194 @@
+package com.video.app.domain;
+
+import com.video.app.domain.enumeration.UploadStatus;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Subida reanudable de las imágenes y el audio de un video. El estado está en la base de datos para que
+ * cualquier nodo pueda continuarla; los bytes, en el directorio de staging del volumen compartido.
+ */
+@Table("upload_session")
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class UploadSession implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column("id")
+    private Long id;
+
+    /**
+     * Identificador público y no adivinable de la subida, el de las URLs.
+     */
+    @Column("token")
+    private String token;
+
+    @Column("user_login")
+    private String userLogin;
+
+    @Column("status")
+    private UploadStatus status;
+
+    /**
+     * Datos del video a crear al finalizar, en JSON ({@code VideoDTO}).
+     */
+    @Column("video")
+    private String video;
+
+    /**
+     * Video creado al finalizar, para que repetir la finalización no cree otro.
+     */
+    @Column("video_id")
+    private Long videoId;
+
+    @Column("created_at")
+    private Instant createdAt;
+
+    /**
+     * Cada fragmento recibido la extiende; pasada, la subida y sus archivos se borran.
+     */
+    @Column("expires_at")
+    private Instant expiresAt;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public UploadSession id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getToken() {
+        return this.token;
+    }
+
+    public UploadSession token(String token) {
+        this.setToken(token);
+        return this;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getUserLogin() {
+        return this.userLogin;
+    }
+
+    public UploadSession userLogin(String userLogin) {
+        this.setUserLogin(userLogin);
+        return this;
+    }
+
+    public void setUserLogin(String userLogin) {
+        this.userLogin = userLogin;
+    }
+
+    public UploadStatus getStatus() {
+        return this.status;
+    }
+
+    public UploadSession status(UploadStatus status) {
+        this.setStatus(status);
+        return this;
+    }
+
+    public void setStatus(UploadStatus status) {
+        this.status = status;
+    }
+
+    public String getVideo() {
+        return this.video;
+    }
+
+    public UploadSession video(String video) {
+        this.setVideo(video);
+        return this;
+    }
+
+    public void setVideo(String video) {
+        this.video = video;
+    }
+
+    public Long getVideoId() {
+        return this.videoId;
+    }
+
+    public UploadSession videoId(Long videoId) {
+        this.setVideoId(videoId);
+        return this;
+    }
+
+    public void setVideoId(Long videoId) {
+        this.videoId = videoId;
+    }
+
+    public Instant getCreatedAt() {
+        return this.createdAt;
+    }
+
+    public UploadSession createdAt(Instant createdAt) {
+        this.setCreatedAt(createdAt);
+        return this;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return this.expiresAt;
+    }
+
+    public UploadSession expiresAt(Instant expiresAt) {
+        this.setExpiresAt(expiresAt);
+        return this;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UploadSession)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((UploadSession) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UploadSession{" +
+            "id=" + getId() +
+            ", token='" + getToken() + "'" +
+            ", userLogin='" + getUserLogin() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", video='" + getVideo() + "'" +
+            ", videoId=" + getVideoId() +
+            ", createdAt='" + getCreatedAt() + "'" +
+            ", expiresAt='" + getExpiresAt() + "'" +
+            "}";
+    }
+}
@@ -69,8 +69,11 @@ public class Video implements Serializable {
     @Column("formato")
     private String formato;
 
-    @org.springframework.data.annotation.Transient
-    private String videoPath;
+    /**
+     * Duración del audio en segundos, leída al subirlo; {@code null} sin audio o si no se pudo leer.
+     */
+    @Column("duracion_audio")
+    private Double duracionAudio;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
@@ -240,12 +243,12 @@ public class Video implements Serializable {
         this.formato = formato;
     }
 
-    public String getVideoPath() {
-        return this.videoPath;
+    public Double getDuracionAudio() {
+        return this.duracionAudio;
     }
 
-    public void setVideoPath(String videoPath) {
-        this.videoPath = videoPath;
+    public void setDuracionAudio(Double duracionAudio) {
+        this.duracionAudio = duracionAudio;
     }
 
     // Getters y setters
@@ -295,7 +298,7 @@ public class Video implements Serializable {
             ", fechaCreacion='" + getFechaCreacion() + "'" +
             ", fechaDescarga='" + getFechaDescarga() + "'" +
             ", formato='" + getFormato() + "'" +
-            ", videoPath='" + getVideoPath() + "'" +
+            ", duracionAudio=" + getDuracionAudio() +
             "}";
     }
 }
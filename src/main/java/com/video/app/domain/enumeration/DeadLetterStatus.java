@@ -0,0 +1,9 @@
+package com.video.app.domain.enumeration;
+
+/**
+ * The DeadLetterStatus enumeration.
+ */
+public enum DeadLetterStatus {
+    OPEN,
+    REPLAYED,
+}
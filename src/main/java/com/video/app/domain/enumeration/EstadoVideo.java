@@ -8,4 +8,5 @@ public enum EstadoVideo {
     COMPLETADO,
     DESCARGADO,
     ERROR,
+    CANCELADO,
 }
@@ -0,0 +1,12 @@
+package com.video.app.domain.enumeration;
+
+/**
+ * The RenderJobStatus enumeration.
+ */
+public enum RenderJobStatus {
+    PENDING,
+    LEASED,
+    DONE,
+    FAILED,
+    CANCELLED,
+}
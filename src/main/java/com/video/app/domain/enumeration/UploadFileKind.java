@@ -0,0 +1,9 @@
+package com.video.app.domain.enumeration;
+
+/**
+ * The UploadFileKind enumeration.
+ */
+public enum UploadFileKind {
+    IMAGE,
+    AUDIO,
+}
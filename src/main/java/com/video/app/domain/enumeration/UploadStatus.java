@@ -0,0 +1,11 @@
+package com.video.app.domain.enumeration;
+
+/**
+ * The UploadStatus enumeration.
+ */
+public enum UploadStatus {
+    OPEN,
+    FINALIZING,
+    FINALIZED,
+    FAILED,
+}
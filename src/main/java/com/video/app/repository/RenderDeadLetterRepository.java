@@ -0,0 +1,105 @@
+package com.video.app.repository;
+
+import com.video.app.domain.RenderDeadLetter;
+import java.time.Instant;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the RenderDeadLetter entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface RenderDeadLetterRepository extends R2dbcRepository<RenderDeadLetter, Long> {
+    /**
+     * Registra el fallo de un video en una sola sentencia. Si el video ya tenía una fila (falló de
+     * nuevo tras un reintento) la vuelve a abrir con la nueva causa y añade {@code history}, un array
+     * JSON con el fallo, a su historial. {@code filesPurged} indica que el video ya no tiene archivos.
+     */
+    @Query(
+        "INSERT INTO render_dead_letter (video_id, user_id, status, error_type, http_status, error_message, formato, tiene_audio, " +
+        "duracion_transicion, duracion_audio, failures, replays, history, files_purged, first_failed_at, last_failed_at) " +
+        "SELECT v.id, v.user_id, 'OPEN', :errorType, :httpStatus, :errorMessage, v.formato, v.tiene_audio, " +
+        "v.duracion_transicion, v.duracion_audio, 1, 0, :history, :filesPurged, timezone('utc', now()), timezone('utc', now()) " +
+        "FROM video v WHERE v.id = :videoId " +
+        "ON CONFLICT (video_id) DO UPDATE SET status = 'OPEN', error_type = EXCLUDED.error_type, " +
+        "http_status = EXCLUDED.http_status, error_message = EXCLUDED.error_message, formato = EXCLUDED.formato, " +
+        "tiene_audio = EXCLUDED.tiene_audio, duracion_transicion = EXCLUDED.duracion_transicion, " +
+        "duracion_audio = EXCLUDED.duracion_audio, failures = render_dead_letter.failures + 1, " +
+        "history = (CAST(render_dead_letter.history AS jsonb) || CAST(EXCLUDED.history AS jsonb))::text, " +
+        "files_purged = EXCLUDED.files_purged, last_failed_at = EXCLUDED.last_failed_at " +
+        "RETURNING *"
+    )
+    Mono<RenderDeadLetter> record(
+        Long videoId,
+        String errorType,
+        Integer httpStatus,
+        String errorMessage,
+        String history,
+        boolean filesPurged
+    );
+
+    Flux<RenderDeadLetter> findAllBy(Pageable pageable);
+
+    /**
+     * Fallos abiertos que aún conservan sus archivos, filtrados por causa y por cuándo fallaron por
+     * última vez; los filtros {@code null} no se aplican. Las columnas guardan UTC sin zona, así que los
+     * instantes se pasan a UTC en la base de datos.
+     */
+    @Query(
+        "SELECT * FROM render_dead_letter " +
+        "WHERE status = 'OPEN' AND NOT files_purged " +
+        "AND (CAST(:errorType AS varchar) IS NULL OR error_type = :errorType) " +
+        "AND (CAST(:httpStatus AS integer) IS NULL OR http_status = :httpStatus) " +
+        "AND (CAST(:failedAfter AS timestamptz) IS NULL OR last_failed_at >= timezone('utc', CAST(:failedAfter AS timestamptz))) " +
+        "AND (CAST(:failedBefore AS timestamptz) IS NULL OR last_failed_at < timezone('utc', CAST(:failedBefore AS timestamptz))) " +
+        "ORDER BY last_failed_at, id " +
+        "LIMIT :limit"
+    )
+    Flux<RenderDeadLetter> findReplayable(String errorType, Integer httpStatus, Instant failedAfter, Instant failedBefore, int limit);
+
+    /**
+     * Marca el fallo como reintentado si sigue abierto, para que dos reintentos simultáneos no lo
+     * encolen dos veces.
+     *
+     * @return la fila actualizada, vacía si otro reintento la tomó antes.
+     */
+    @Query(
+        "UPDATE render_dead_letter SET status = 'REPLAYED', replays = replays + 1, replayed_at = timezone('utc', now()) " +
+        "WHERE id = :id AND status = 'OPEN' AND NOT files_purged " +
+        "RETURNING *"
+    )
+    Mono<RenderDeadLetter> claimForReplay(Long id);
+
+    /**
+     * Fallos abiertos cuyos archivos llevan más de {@code retentionSeconds} sin reintentarse.
+     */
+    @Query(
+        "SELECT * FROM render_dead_letter " +
+        "WHERE status = 'OPEN' AND NOT files_purged " +
+        "AND last_failed_at < timezone('utc', now()) - :retentionSeconds * interval '1 second' " +
+        "ORDER BY last_failed_at, id " +
+        "LIMIT :limit"
+    )
+    Flux<RenderDeadLetter> findExpired(long retentionSeconds, int limit);
+
+    @Modifying
+    @Query("UPDATE render_dead_letter SET files_purged = true WHERE id = :id AND status = 'OPEN'")
+    Mono<Long> markFilesPurged(Long id);
+
+    /**
+     * Borra los fallos reintentados hace más de {@code retentionSeconds}: el reintento terminó bien o
+     * el video volvió a fallar y su fila está abierta de nuevo.
+     */
+    @Modifying
+    @Query(
+        "DELETE FROM render_dead_letter WHERE status = 'REPLAYED' " +
+        "AND replayed_at < timezone('utc', now()) - :retentionSeconds * interval '1 second'"
+    )
+    Mono<Long> deleteReplayedBefore(long retentionSeconds);
+}
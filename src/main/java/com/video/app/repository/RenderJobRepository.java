@@ -0,0 +1,190 @@
+package com.video.app.repository;
+
+import com.video.app.domain.RenderJob;
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the RenderJob entity.
+ * <p>
+ * Todas las marcas de tiempo se calculan en la base de datos (UTC) para que los
+ * leases sean coherentes entre nodos con relojes distintos.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface RenderJobRepository extends R2dbcRepository<RenderJob, Long> {
+    /**
+     * Encola el video con el usuario dueño y el peso indicado; si ya tenía un trabajo terminado
+     * (DONE/FAILED/CANCELLED) lo vuelve a dejar pendiente. No emite nada si el video ya tiene un trabajo
+     * pendiente o en curso. El formato y el audio se copian del video para estimar el coste del
+     * trabajo; {@code imageCount} puede ser {@code null} si no se conoce, y entonces se conserva el anterior.
+     */
+    @Query(
+        "INSERT INTO render_job (video_id, user_id, weight, status, attempts, available_at, created_at, updated_at, " +
+        "formato, image_count, has_audio) " +
+        "SELECT v.id, v.user_id, :weight, 'PENDING', 0, timezone('utc', now()), timezone('utc', now()), timezone('utc', now()), " +
+        "v.formato, :imageCount, v.tiene_audio " +
+        "FROM video v WHERE v.id = :videoId " +
+        "ON CONFLICT (video_id) DO UPDATE SET status = 'PENDING', attempts = 0, last_error = NULL, lease_owner = NULL, " +
+        "user_id = EXCLUDED.user_id, weight = EXCLUDED.weight, formato = EXCLUDED.formato, has_audio = EXCLUDED.has_audio, " +
+        "image_count = COALESCE(EXCLUDED.image_count, render_job.image_count), " +
+        "available_at = EXCLUDED.available_at, updated_at = EXCLUDED.updated_at " +
+        "WHERE render_job.status IN ('DONE', 'FAILED', 'CANCELLED') " +
+        "RETURNING *"
+    )
+    Mono<RenderJob> enqueue(Long videoId, int weight, Integer imageCount);
+
+    /**
+     * Toma hasta {@code limit} trabajos pendientes sin bloquear a otros nodos que estén haciendo
+     * lo mismo ({@code FOR UPDATE SKIP LOCKED}). Los leases expirados los recupera {@code RenderRecoveryService}.
+     */
+    @Query(
+        "UPDATE render_job SET status = 'LEASED', lease_owner = :owner, attempts = attempts + 1, " +
+        "lease_expires_at = timezone('utc', now()) + :leaseSeconds * interval '1 second', " +
+        "updated_at = timezone('utc', now()) " +
+        "WHERE id IN (" +
+        "SELECT id FROM render_job " +
+        "WHERE status = 'PENDING' AND available_at <= timezone('utc', now()) " +
+        "ORDER BY available_at, id " +
+        "LIMIT :limit " +
+        "FOR UPDATE SKIP LOCKED" +
+        ") RETURNING *"
+    )
+    Flux<RenderJob> lease(String owner, int limit, long leaseSeconds);
+
+    /**
+     * Candidatos disponibles para tomar, como mucho {@code perUser} por usuario y en orden de llegada,
+     * para que el planificador justo elija entre ellos.
+     */
+    @Query(
+        "SELECT * FROM (" +
+        "SELECT rj.*, row_number() OVER (PARTITION BY rj.user_id ORDER BY rj.available_at, rj.id) AS user_rank " +
+        "FROM render_job rj " +
+        "WHERE rj.status = 'PENDING' AND rj.available_at <= timezone('utc', now())" +
+        ") candidates WHERE user_rank <= :perUser " +
+        "ORDER BY available_at, id " +
+        "LIMIT :limit"
+    )
+    Flux<RenderJob> findLeaseCandidates(int perUser, int limit);
+
+    /**
+     * Toma los trabajos indicados que sigan disponibles; los que otro nodo haya tomado entretanto se omiten.
+     */
+    @Query(
+        "UPDATE render_job SET status = 'LEASED', lease_owner = :owner, attempts = attempts + 1, " +
+        "lease_expires_at = timezone('utc', now()) + :leaseSeconds * interval '1 second', " +
+        "updated_at = timezone('utc', now()) " +
+        "WHERE id IN (" +
+        "SELECT id FROM render_job " +
+        "WHERE id IN (:ids) AND status = 'PENDING' AND available_at <= timezone('utc', now()) " +
+        "FOR UPDATE SKIP LOCKED" +
+        ") RETURNING *"
+    )
+    Flux<RenderJob> leaseByIds(Collection<Long> ids, String owner, long leaseSeconds);
+
+    /**
+     * Reclama para {@code owner} hasta {@code limit} trabajos cuyo lease expiró (su nodo murió o dejó de
+     * renovarlo), sin contar un nuevo intento, para que la recuperación decida si se reencolan o fallan.
+     */
+    @Query(
+        "UPDATE render_job SET lease_owner = :owner, " +
+        "lease_expires_at = timezone('utc', now()) + :leaseSeconds * interval '1 second', " +
+        "updated_at = timezone('utc', now()) " +
+        "WHERE id IN (" +
+        "SELECT id FROM render_job " +
+        "WHERE status = 'LEASED' AND lease_expires_at < timezone('utc', now()) " +
+        "ORDER BY lease_expires_at, id " +
+        "LIMIT :limit " +
+        "FOR UPDATE SKIP LOCKED" +
+        ") RETURNING *"
+    )
+    Flux<RenderJob> claimExpiredLeases(String owner, int limit, long leaseSeconds);
+
+    /**
+     * Videos EN_PROCESO sin trabajo pendiente ni en curso (creados antes de la cola, o cuyo encolado se
+     * perdió), creados hace más de {@code graceSeconds}, en orden de id a partir de {@code afterId}.
+     */
+    @Query(
+        "SELECT v.id FROM video v " +
+        "WHERE v.estado = 'EN_PROCESO' AND v.id > :afterId " +
+        "AND (v.fecha_creacion IS NULL OR v.fecha_creacion < timezone('utc', now()) - :graceSeconds * interval '1 second') " +
+        "AND NOT EXISTS (SELECT 1 FROM render_job rj WHERE rj.video_id = v.id AND rj.status IN ('PENDING', 'LEASED')) " +
+        "ORDER BY v.id " +
+        "LIMIT :limit"
+    )
+    Flux<Long> findOrphanedVideoIds(long afterId, long graceSeconds, int limit);
+
+    @Modifying
+    @Query(
+        "UPDATE render_job SET lease_expires_at = timezone('utc', now()) + :leaseSeconds * interval '1 second', " +
+        "updated_at = timezone('utc', now()) " +
+        "WHERE lease_owner = :owner AND status = 'LEASED'"
+    )
+    Mono<Long> extendLeases(String owner, long leaseSeconds);
+
+    @Modifying
+    @Query(
+        "UPDATE render_job SET status = 'DONE', lease_owner = NULL, lease_expires_at = NULL, updated_at = timezone('utc', now()) " +
+        "WHERE id = :id AND lease_owner = :owner AND status = 'LEASED'"
+    )
+    Mono<Long> complete(Long id, String owner);
+
+    @Modifying
+    @Query(
+        "UPDATE render_job SET status = 'FAILED', lease_owner = NULL, lease_expires_at = NULL, last_error = :error, " +
+        "updated_at = timezone('utc', now()) " +
+        "WHERE id = :id AND lease_owner = :owner AND status = 'LEASED'"
+    )
+    Mono<Long> fail(Long id, String owner, String error);
+
+    @Modifying
+    @Query(
+        "UPDATE render_job SET status = 'PENDING', lease_owner = NULL, lease_expires_at = NULL, " +
+        "available_at = timezone('utc', now()) + :delaySeconds * interval '1 second', updated_at = timezone('utc', now()) " +
+        "WHERE id = :id AND lease_owner = :owner AND status = 'LEASED'"
+    )
+    Mono<Long> release(Long id, String owner, long delaySeconds);
+
+    /**
+     * Devuelve a la cola un trabajo que este nodo deja a medias al apagarse, sin contar el intento interrumpido.
+     */
+    @Modifying
+    @Query(
+        "UPDATE render_job SET status = 'PENDING', lease_owner = NULL, lease_expires_at = NULL, attempts = GREATEST(attempts - 1, 0), " +
+        "available_at = timezone('utc', now()), updated_at = timezone('utc', now()) " +
+        "WHERE id = :id AND lease_owner = :owner AND status = 'LEASED'"
+    )
+    Mono<Long> handOver(Long id, String owner);
+
+    /**
+     * Cancela el trabajo pendiente o en curso del video. Conserva {@code lease_owner} para saber qué
+     * nodo lo estaba renderizando; {@code complete}, {@code fail} y {@code release} ya no lo tocan.
+     *
+     * @return el trabajo cancelado, vacío si el video no tenía trabajo activo.
+     */
+    @Query(
+        "UPDATE render_job SET status = 'CANCELLED', lease_expires_at = NULL, updated_at = timezone('utc', now()) " +
+        "WHERE video_id = :videoId AND status IN ('PENDING', 'LEASED') " +
+        "RETURNING *"
+    )
+    Mono<RenderJob> cancel(Long videoId);
+
+    @Query("SELECT count(*) FROM render_job WHERE status IN ('PENDING', 'LEASED')")
+    Mono<Long> countBacklog();
+
+    /**
+     * Trabajos terminados (DONE o FAILED) en los últimos {@code windowSeconds} segundos, en todo el clúster.
+     */
+    @Query(
+        "SELECT count(*) FROM render_job WHERE status IN ('DONE', 'FAILED') " +
+        "AND updated_at > timezone('utc', now()) - :windowSeconds * interval '1 second'"
+    )
+    Mono<Long> countFinishedWithin(long windowSeconds);
+
+    Mono<RenderJob> findByVideoId(Long videoId);
+}
@@ -0,0 +1,34 @@
+package com.video.app.repository;
+
+import com.video.app.domain.RenderStat;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the RenderStat entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface RenderStatRepository extends R2dbcRepository<RenderStat, Long> {
+    /**
+     * Suma un render a su combinación de formato, imágenes y audio en una sola sentencia, sin
+     * carreras entre nodos. Las medias son acumuladas hasta {@code 1 / smoothing} muestras y
+     * móviles (EWMA con peso {@code smoothing}) a partir de ahí, para seguir los cambios de hardware.
+     */
+    @Modifying
+    @Query(
+        "INSERT INTO render_stat (formato, images, has_audio, samples, mean_render_millis, mean_video_seconds, updated_at) " +
+        "VALUES (:formato, :images, :hasAudio, 1, :renderMillis, :videoSeconds, timezone('utc', now())) " +
+        "ON CONFLICT (formato, images, has_audio) DO UPDATE SET samples = render_stat.samples + 1, " +
+        "mean_render_millis = render_stat.mean_render_millis + " +
+        "(EXCLUDED.mean_render_millis - render_stat.mean_render_millis) * GREATEST(1.0 / (render_stat.samples + 1), :smoothing), " +
+        "mean_video_seconds = COALESCE(render_stat.mean_video_seconds + " +
+        "(EXCLUDED.mean_video_seconds - render_stat.mean_video_seconds) * GREATEST(1.0 / (render_stat.samples + 1), :smoothing), " +
+        "EXCLUDED.mean_video_seconds, render_stat.mean_video_seconds), " +
+        "updated_at = EXCLUDED.updated_at"
+    )
+    Mono<Long> record(String formato, int images, boolean hasAudio, double renderMillis, Double videoSeconds, double smoothing);
+}
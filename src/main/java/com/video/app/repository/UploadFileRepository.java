@@ -0,0 +1,51 @@
+package com.video.app.repository;
+
+import com.video.app.domain.UploadFile;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the UploadFile entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface UploadFileRepository extends R2dbcRepository<UploadFile, Long> {
+    Flux<UploadFile> findAllBySessionIdOrderByPosition(Long sessionId);
+
+    /**
+     * Archivo de una subida abierta y no caducada del usuario.
+     */
+    @Query(
+        "SELECT f.* FROM upload_file f JOIN upload_session s ON s.id = f.session_id " +
+        "WHERE s.token = :token AND s.user_login = :userLogin AND s.status = 'OPEN' " +
+        "AND s.expires_at > timezone('utc', now()) AND f.position = :position"
+    )
+    Mono<UploadFile> findOpen(String token, String userLogin, int position);
+
+    /**
+     * Reserva el archivo para escribir un fragmento que empieza en {@code offset}: solo si es el siguiente byte
+     * que falta y ningún nodo está escribiendo en él. La reserva caduca sola por si el nodo se cae a mitad.
+     *
+     * @return el archivo reservado, vacío si no existe, el offset no coincide o ya está reservado.
+     */
+    @Query(
+        "UPDATE upload_file f SET locked_until = timezone('utc', now()) + :lockSeconds * interval '1 second' " +
+        "FROM upload_session s " +
+        "WHERE s.id = f.session_id AND s.token = :token AND s.user_login = :userLogin AND s.status = 'OPEN' " +
+        "AND s.expires_at > timezone('utc', now()) AND f.position = :position AND f.upload_offset = :offset " +
+        "AND (f.locked_until IS NULL OR f.locked_until < timezone('utc', now())) " +
+        "RETURNING f.*"
+    )
+    Mono<UploadFile> lock(String token, String userLogin, int position, long offset, long lockSeconds);
+
+    /**
+     * Guarda los bytes escritos y libera la reserva; no hace nada si otro nodo movió el offset entretanto.
+     */
+    @Modifying
+    @Query("UPDATE upload_file SET upload_offset = :newOffset, locked_until = NULL WHERE id = :id AND upload_offset = :offset")
+    Mono<Long> commit(Long id, long offset, long newOffset);
+}
@@ -0,0 +1,61 @@
+package com.video.app.repository;
+
+import com.video.app.domain.UploadSession;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spring Data R2DBC repository for the UploadSession entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface UploadSessionRepository extends R2dbcRepository<UploadSession, Long> {
+    Mono<UploadSession> findOneByTokenAndUserLogin(String token, String userLogin);
+
+    /**
+     * Aleja la caducidad de una subida abierta tras recibir un fragmento.
+     */
+    @Modifying
+    @Query(
+        "UPDATE upload_session SET expires_at = timezone('utc', now()) + :expirationSeconds * interval '1 second' " +
+        "WHERE id = :id AND status = 'OPEN'"
+    )
+    Mono<Long> touch(Long id, long expirationSeconds);
+
+    /**
+     * Pasa la subida a FINALIZING si sigue abierta, para que dos finalizaciones simultáneas no creen dos videos.
+     *
+     * @return la subida, vacía si otra finalización la tomó antes.
+     */
+    @Query(
+        "UPDATE upload_session SET status = 'FINALIZING', " +
+        "expires_at = timezone('utc', now()) + :expirationSeconds * interval '1 second' " +
+        "WHERE id = :id AND status = 'OPEN' " +
+        "RETURNING *"
+    )
+    Mono<UploadSession> claimForFinalize(Long id, long expirationSeconds);
+
+    @Modifying
+    @Query("UPDATE upload_session SET status = 'FINALIZED', video_id = :videoId WHERE id = :id")
+    Mono<Long> markFinalized(Long id, Long videoId);
+
+    @Modifying
+    @Query("UPDATE upload_session SET status = 'FAILED' WHERE id = :id")
+    Mono<Long> markFailed(Long id);
+
+    /**
+     * Borra un lote de subidas caducadas (sus archivos se borran en cascada).
+     *
+     * @return las subidas borradas, para borrar sus datos del disco.
+     */
+    @Query(
+        "DELETE FROM upload_session WHERE id IN (" +
+        "SELECT id FROM upload_session WHERE expires_at < timezone('utc', now()) ORDER BY expires_at LIMIT :limit" +
+        ") RETURNING *"
+    )
+    Flux<UploadSession> deleteExpired(int limit);
+}
@@ -31,6 +31,18 @@ public interface VideoRepository extends ReactiveCrudRepository<Video, Long>, Vi
     @Query("SELECT * FROM video entity WHERE entity.user_id IS NULL")
     Flux<Video> findAllWhereUserIsNull();
 
+    /**
+     * Saca el video de EN_PROCESO con su resultado, solo si sigue EN_PROCESO: de dos transiciones concurrentes
+     * (cancelar y completar) gana una y la otra no escribe nada.
+     *
+     * @return el video actualizado, vacío si ya había salido de EN_PROCESO.
+     */
+    @Query(
+        "UPDATE video SET estado = :estado, output_filename = :outputFilename, duracion_transicion = :duracionTransicion " +
+        "WHERE id = :id AND estado = 'EN_PROCESO' RETURNING *"
+    )
+    Mono<Video> finishProcessing(Long id, String estado, String outputFilename, Integer duracionTransicion);
+
     @Override
     <S extends Video> Mono<S> save(S entity);
 
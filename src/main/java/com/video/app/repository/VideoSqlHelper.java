@@ -24,6 +24,7 @@ public class VideoSqlHelper {
         columns.add(Column.aliased("output_filename", table, columnPrefix + "_output_filename"));
         columns.add(Column.aliased("download_url", table, columnPrefix + "_download_url"));
         columns.add(Column.aliased("formato", table, columnPrefix + "_formato"));
+        columns.add(Column.aliased("duracion_audio", table, columnPrefix + "_duracion_audio"));
 
         return columns;
     }
@@ -40,6 +40,7 @@ public class VideoRowMapper implements BiFunction<Row, String, Video> {
         entity.setOutputFilename(converter.fromRow(row, prefix + "_output_filename", String.class));
         entity.setDownloadUrl(converter.fromRow(row, prefix + "_download_url", String.class));
         entity.setFormato(converter.fromRow(row, prefix + "_formato", String.class));
+        entity.setDuracionAudio(converter.fromRow(row, prefix + "_duracion_audio", Double.class));
 
         return entity;
     }
@@ -1,6 +1,7 @@
 package com.video.app.security;
 
 import java.util.Arrays;
+import java.util.List;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
@@ -73,6 +74,17 @@ public final class SecurityUtils {
             .map(principal -> principal.getClaim(USER_ID_CLAIM));
     }
 
+    /**
+     * Get the authorities carried by a JWT.
+     *
+     * @param jwt the token.
+     * @return the authorities in its {@link #AUTHORITIES_CLAIM} claim, empty if it has none.
+     */
+    public static List<String> getAuthorities(Jwt jwt) {
+        String authorities = jwt.getClaimAsString(AUTHORITIES_CLAIM);
+        return authorities == null || authorities.isBlank() ? List.of() : List.of(authorities.split(" "));
+    }
+
     /**
      * Check if a user is authenticated.
      *
@@ -0,0 +1,258 @@
+package com.video.app.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Límite de concurrencia adaptativo AIMD (additive increase, multiplicative decrease).
+ * <p>
+ * Cada llamada toma un {@link Permit} y al terminar informa si fue rápida, lenta o fallida:
+ * <ul>
+ *     <li>por cada {@code limit} llamadas rápidas completadas con el límite en uso, el límite sube en 1;</li>
+ *     <li>una llamada fallida o lenta multiplica el límite por {@code backoffRatio}.</li>
+ * </ul>
+ * Una llamada es lenta si tarda más de {@code slowCallRatio} veces su tiempo esperado ({@link Permit#expect}),
+ * o más de {@code slowCallNanos} si no se conoce. Si la llamada informa de sus respuestas ({@link Permit#responded}),
+ * como un render asíncrono que retiene el permiso mientras Python trabaja, cuenta la respuesta más lenta
+ * frente a {@code slowResponseNanos} en lugar de la duración total.
+ * Cuando no hay hueco, {@link #acquire()} espera sin bloquear ningún hilo hasta que se libere un permiso.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long slowCallNanos;
+
+    private final double slowCallRatio;
+
+    private final long slowResponseNanos;
+
+    private final LongSupplier nanoTime;
+
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    private double limit;
+
+    private int inFlight;
+
+    private int fastCallsSinceIncrease;
+
+    public AdaptiveConcurrencyLimiter(
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        double backoffRatio,
+        long slowCallNanos,
+        double slowCallRatio,
+        long slowResponseNanos
+    ) {
+        this(initialLimit, minLimit, maxLimit, backoffRatio, slowCallNanos, slowCallRatio, slowResponseNanos, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        double backoffRatio,
+        long slowCallNanos,
+        double slowCallRatio,
+        long slowResponseNanos,
+        LongSupplier nanoTime
+    ) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.slowCallNanos = slowCallNanos;
+        this.slowCallRatio = slowCallRatio;
+        this.slowResponseNanos = slowResponseNanos;
+        this.nanoTime = nanoTime;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Obtiene un permiso, esperando (sin bloquear) a que haya hueco si el límite está ocupado.
+     */
+    public Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            boolean granted;
+            synchronized (this) {
+                granted = inFlight < currentLimit();
+                if (granted) {
+                    inFlight++;
+                } else {
+                    waiters.addLast(waiter);
+                }
+            }
+            if (granted) {
+                waiter.grant();
+            } else {
+                sink.onCancel(() -> {
+                    if (waiter.cancel()) {
+                        synchronized (this) {
+                            waiters.remove(waiter);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    public synchronized int getLimit() {
+        return currentLimit();
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiters.size();
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private void release(Outcome outcome, boolean slow) {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            boolean limitInUse = inFlight * 2 >= currentLimit();
+            inFlight--;
+            if (outcome == Outcome.DROPPED || (outcome != Outcome.IGNORED && slow)) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                fastCallsSinceIncrease = 0;
+            } else if (outcome == Outcome.SUCCESS && limitInUse && ++fastCallsSinceIncrease >= currentLimit()) {
+                limit = Math.min(maxLimit, limit + 1);
+                fastCallsSinceIncrease = 0;
+            }
+            while (inFlight < currentLimit() && !waiters.isEmpty()) {
+                Waiter waiter = waiters.pollFirst();
+                if (waiter.claim()) {
+                    inFlight++;
+                    granted.add(waiter);
+                }
+            }
+        }
+        granted.forEach(Waiter::grant);
+    }
+
+    private enum Outcome {
+        SUCCESS,
+        TIMED_OUT,
+        DROPPED,
+        IGNORED,
+    }
+
+    /**
+     * Permiso para una llamada. Se libera una única vez con {@link #success()}, {@link #timedOut()}, {@link #dropped()}
+     * o {@link #ignore()}.
+     */
+    public final class Permit {
+
+        private final long startNanos = nanoTime.getAsLong();
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private volatile long expectedNanos = -1;
+
+        private final AtomicLong slowestResponseNanos = new AtomicLong(-1);
+
+        /**
+         * Tiempo que se espera que tarde la llamada: es lenta si supera {@code slowCallRatio} veces este tiempo.
+         */
+        public void expect(Duration expected) {
+            expectedNanos = expected.toNanos();
+        }
+
+        /**
+         * Python respondió a una petición de la llamada en {@code latency}; desde entonces la llamada se juzga por
+         * su respuesta más lenta y no por su duración.
+         */
+        public void responded(Duration latency) {
+            slowestResponseNanos.accumulateAndGet(latency.toNanos(), Math::max);
+        }
+
+        /**
+         * La llamada terminó bien; su latencia alimenta el límite.
+         */
+        public void success() {
+            releaseOnce(Outcome.SUCCESS);
+        }
+
+        /**
+         * Se cumplió el plazo de la llamada. No indica por sí solo sobrecarga: el límite baja solo si la llamada fue lenta.
+         */
+        public void timedOut() {
+            releaseOnce(Outcome.TIMED_OUT);
+        }
+
+        /**
+         * La llamada falló por sobrecarga o indisponibilidad (5xx, conexión): el límite baja.
+         */
+        public void dropped() {
+            releaseOnce(Outcome.DROPPED);
+        }
+
+        /**
+         * La llamada terminó sin decir nada sobre la carga (cancelada, error del cliente).
+         */
+        public void ignore() {
+            releaseOnce(Outcome.IGNORED);
+        }
+
+        private void releaseOnce(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                release(outcome, isSlow());
+            }
+        }
+
+        private boolean isSlow() {
+            long slowestResponse = slowestResponseNanos.get();
+            if (slowestResponse >= 0) {
+                return slowestResponse > slowResponseNanos;
+            }
+            long expected = expectedNanos;
+            return nanoTime.getAsLong() - startNanos > (expected >= 0 ? (long) (expected * slowCallRatio) : slowCallNanos);
+        }
+    }
+
+    private final class Waiter {
+
+        private static final int WAITING = 0;
+        private static final int CLAIMED = 1;
+        private static final int CANCELLED = 2;
+
+        private final MonoSink<Permit> sink;
+
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        boolean claim() {
+            return state.compareAndSet(WAITING, CLAIMED);
+        }
+
+        boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+
+        void grant() {
+            sink.success(new Permit());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.video.app.service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Duración de un archivo de audio sin herramientas externas.
+ * <p>
+ * WAV, AIFF y AU se leen con {@code javax.sound}. En MP3 se lee el primer frame tras la etiqueta ID3v2:
+ * si lleva cabecera Xing/Info o VBRI se usa su número de frames (VBR); si no, se asume bitrate
+ * constante y se divide el tamaño por el bitrate. Otros formatos (OGG, M4A) devuelven vacío.
+ */
+final class AudioDurationProbe {
+
+    /**
+     * Bytes en los que se busca el primer frame tras la etiqueta ID3v2.
+     */
+    private static final int SCAN_BYTES = 64 * 1024;
+
+    private static final int[][] BITRATES_KBPS = {
+        // MPEG-1 Layer I, II, III
+        { 0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448 },
+        { 0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384 },
+        { 0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320 },
+        // MPEG-2 y 2.5 Layer I, y Layer II/III
+        { 0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256 },
+        { 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 },
+    };
+
+    private static final int[] SAMPLE_RATES = { 44100, 48000, 32000 };
+
+    private AudioDurationProbe() {}
+
+    /**
+     * @return la duración del audio, vacía si el formato no se reconoce.
+     */
+    static Optional<Duration> probe(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".mp3")) {
+            return probeMp3(file);
+        }
+        try {
+            AudioFileFormat format = AudioSystem.getAudioFileFormat(file.toFile());
+            float frameRate = format.getFormat().getFrameRate();
+            if (format.getFrameLength() <= 0 || frameRate <= 0) {
+                return Optional.empty();
+            }
+            return Optional.of(seconds(format.getFrameLength() / (double) frameRate));
+        } catch (UnsupportedAudioFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Duration> probeMp3(Path file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+            long start = id3v2Size(in);
+            byte[] buffer = new byte[(int) Math.min(SCAN_BYTES, Math.max(0, in.length() - start))];
+            in.seek(start);
+            in.readFully(buffer);
+            for (int offset = 0; offset + 4 <= buffer.length; offset++) {
+                Optional<FrameHeader> header = FrameHeader.parse(buffer, offset);
+                if (header.isPresent()) {
+                    return Optional.of(header.get().duration(buffer, offset, in.length() - start - offset));
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Tamaño de la etiqueta ID3v2 al principio del archivo, 0 si no tiene.
+     */
+    private static long id3v2Size(RandomAccessFile in) throws IOException {
+        byte[] header = new byte[10];
+        if (in.length() < header.length) {
+            return 0;
+        }
+        in.readFully(header);
+        if (!"ID3".equals(new String(header, 0, 3, StandardCharsets.ISO_8859_1))) {
+            return 0;
+        }
+        // tamaño "syncsafe": 7 bits por byte
+        long size = ((header[6] & 0x7f) << 21) | ((header[7] & 0x7f) << 14) | ((header[8] & 0x7f) << 7) | (header[9] & 0x7f);
+        boolean footer = (header[5] & 0x10) != 0;
+        return header.length + size + (footer ? 10 : 0);
+    }
+
+    private static Duration seconds(double seconds) {
+        return Duration.ofMillis(Math.round(seconds * 1000));
+    }
+
+    private record FrameHeader(boolean mpeg1, int layer, int bitrateKbps, int sampleRate, boolean mono) {
+        static Optional<FrameHeader> parse(byte[] buffer, int offset) {
+            int b1 = buffer[offset + 1] & 0xff;
+            int b2 = buffer[offset + 2] & 0xff;
+            int b3 = buffer[offset + 3] & 0xff;
+            if ((buffer[offset] & 0xff) != 0xff || (b1 & 0xe0) != 0xe0) {
+                return Optional.empty();
+            }
+            int version = (b1 >> 3) & 0x3; // 3: MPEG-1, 2: MPEG-2, 0: MPEG-2.5
+            int layerBits = (b1 >> 1) & 0x3; // 3: Layer I, 2: Layer II, 1: Layer III
+            int bitrateIndex = b2 >> 4;
+            int sampleRateIndex = (b2 >> 2) & 0x3;
+            if (version == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                return Optional.empty();
+            }
+            boolean mpeg1 = version == 3;
+            int layer = 4 - layerBits;
+            int table = mpeg1 ? layer - 1 : (layer == 1 ? 3 : 4);
+            int sampleRate = SAMPLE_RATES[sampleRateIndex] >> (mpeg1 ? 0 : version == 2 ? 1 : 2);
+            return Optional.of(new FrameHeader(mpeg1, layer, BITRATES_KBPS[table][bitrateIndex], sampleRate, (b3 >> 6) == 3));
+        }
+
+        int samplesPerFrame() {
+            if (layer == 1) {
+                return 384;
+            }
+            return layer == 3 && !mpeg1 ? 576 : 1152;
+        }
+
+        /**
+         * Duración según la cabecera VBR del primer frame o, sin ella, según el bitrate.
+         *
+         * @param audioBytes bytes desde este frame hasta el final del archivo.
+         */
+        Duration duration(byte[] buffer, int offset, long audioBytes) {
+            long frames = vbrFrames(buffer, offset);
+            if (frames > 0) {
+                return seconds(frames * samplesPerFrame() / (double) sampleRate);
+            }
+            return seconds(audioBytes * 8.0 / (bitrateKbps * 1000.0));
+        }
+
+        private long vbrFrames(byte[] buffer, int offset) {
+            // la cabecera Xing/Info va tras la "side information" del frame, que depende de versión y canales
+            int sideInfo = mpeg1 ? (mono ? 17 : 32) : (mono ? 9 : 17);
+            int xing = offset + 4 + sideInfo;
+            String tag = tag(buffer, xing);
+            if (("Xing".equals(tag) || "Info".equals(tag)) && (readInt(buffer, xing + 4) & 0x1) != 0) {
+                return readInt(buffer, xing + 8);
+            }
+            int vbri = offset + 4 + 32;
+            if ("VBRI".equals(tag(buffer, vbri))) {
+                return readInt(buffer, vbri + 14);
+            }
+            return 0;
+        }
+
+        private static String tag(byte[] buffer, int offset) {
+            return offset + 4 <= buffer.length ? new String(buffer, offset, 4, StandardCharsets.ISO_8859_1) : "";
+        }
+
+        private static long readInt(byte[] buffer, int offset) {
+            if (offset + 4 > buffer.length) {
+                return 0;
+            }
+            return (
+                ((long) (buffer[offset] & 0xff) << 24) |
+                ((buffer[offset + 1] & 0xff) << 16) |
+                ((buffer[offset + 2] & 0xff) << 8) |
+                (buffer[offset + 3] & 0xff)
+            );
+        }
+    }
+}
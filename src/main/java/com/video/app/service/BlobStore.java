@@ -0,0 +1,294 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Almacén de imágenes y audios subidos direccionado por contenido.
+ * <p>
+ * Cada archivo distinto se guarda una sola vez en {@code {directory}/{sha256[0..2]}/{sha256}} y se enlaza con un
+ * enlace duro en el directorio de cada video que lo usa; si ya estaba, el archivo subido se descarta sin escribir
+ * nada más. El número de enlaces del archivo es su contador de referencias: lo mantiene el sistema de archivos al
+ * enlazar y al borrar los directorios de los videos, así que no se desajusta si un nodo se cae a mitad. Cada
+ * {@code gc-interval} se borran los archivos cuyo único enlace es el del almacén. Borrar ese enlace nunca borra los
+ * datos de un video que lo enlazó entretanto: como mucho, la siguiente subida igual se guarda de nuevo.
+ */
+@Service
+public class BlobStore implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BlobStore.class);
+
+    public static final String DEDUPLICATED_METER_NAME = "video.upload.blobs.deduplicated";
+    public static final String STORED_METER_NAME = "video.upload.blobs.stored";
+    public static final String BYTES_SAVED_METER_NAME = "video.upload.blobs.bytes-saved";
+    public static final String COLLECTED_METER_NAME = "video.upload.blobs.collected";
+
+    private static final String TEMP_DIRECTORY = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ApplicationProperties.Upload.Blobs properties;
+
+    private final ApplicationProperties.Role role;
+
+    private final Path directory;
+
+    private final Counter deduplicated;
+
+    private final Counter stored;
+
+    private final Counter collected;
+
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    private final AtomicBoolean linksUnsupportedWarned = new AtomicBoolean();
+
+    private Disposable subscription;
+
+    private volatile boolean running;
+
+    public BlobStore(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getUpload().getBlobs();
+        this.role = applicationProperties.getRole();
+        this.directory = Path.of(properties.getDirectory());
+        this.deduplicated = Counter.builder(DEDUPLICATED_METER_NAME)
+            .description("Archivos subidos que ya estaban en el almacén")
+            .register(meterRegistry);
+        this.stored = Counter.builder(STORED_METER_NAME).description("Archivos subidos guardados en el almacén").register(meterRegistry);
+        this.collected = Counter.builder(COLLECTED_METER_NAME)
+            .description("Archivos del almacén borrados por no usarlos ningún video")
+            .register(meterRegistry);
+        FunctionCounter.builder(BYTES_SAVED_METER_NAME, bytesSaved, AtomicLong::get)
+            .description("Bytes subidos que no se escribieron en disco porque ya estaban en el almacén")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled() || !role.servesApi()) {
+            return;
+        }
+        subscription = Flux.interval(properties.getGcInterval(), properties.getGcInterval())
+            .onBackpressureDrop()
+            .concatMap(tick ->
+                collectGarbage().onErrorResume(error -> {
+                    LOG.warn("Error borrando archivos sin uso del almacén: {}", error.getMessage());
+                    return Mono.empty();
+                })
+            )
+            .subscribe();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Coloca un archivo subido en {@code target}: lo enlaza desde el almacén si ya estaba y si no, lo guarda en él y
+     * lo enlaza. Con el almacén deshabilitado, o sin enlaces duros, equivale a {@link FilePart#transferTo(Path)}.
+     */
+    public Mono<Void> storeAndLink(FilePart part, Path target) {
+        if (!properties.isEnabled()) {
+            return part.transferTo(target);
+        }
+        Mono<Path> file = part instanceof StagedFilePart staged ? Mono.just(staged.file()) : stageTemporary(part);
+        return file.flatMap(source ->
+            Mono.fromCallable(() -> {
+                String sha256 = part instanceof StagedFilePart staged && staged.sha256() != null ? staged.sha256() : hash(source);
+                link(source, sha256, target);
+                return target;
+            }).subscribeOn(Schedulers.boundedElastic())
+        ).then();
+    }
+
+    /**
+     * Borra los archivos que ya no enlaza ningún video, con más de {@code gc-grace-period} desde que se usaron.
+     *
+     * @return el número de archivos borrados.
+     */
+    public Mono<Long> collectGarbage() {
+        return Mono.fromCallable(() -> {
+            if (!Files.isDirectory(directory)) {
+                return 0L;
+            }
+            Instant usedBefore = Instant.now().minus(properties.getGcGracePeriod());
+            long count = 0;
+            long bytes = 0;
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(directory, 2)) {
+                files = paths.filter(Files::isRegularFile).toList();
+            }
+            for (Path file : files) {
+                try {
+                    boolean temporary = file.getParent().getFileName().toString().equals(TEMP_DIRECTORY);
+                    if (Files.getLastModifiedTime(file).toInstant().isAfter(usedBefore) || (!temporary && linkCount(file) > 1)) {
+                        continue;
+                    }
+                    long size = Files.size(file);
+                    if (Files.deleteIfExists(file)) {
+                        count++;
+                        bytes += size;
+                    }
+                } catch (NoSuchFileException e) {
+                    // otro nodo lo borró primero
+                } catch (UnsupportedOperationException e) {
+                    LOG.warn("El sistema de archivos de {} no informa del número de enlaces: no se borran archivos", directory);
+                    return count;
+                }
+            }
+            collected.increment(count);
+            if (count > 0) {
+                LOG.info("🧹 {} archivos sin uso borrados del almacén ({} bytes)", count, bytes);
+            }
+            return count;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    Path blobPath(String sha256) {
+        return directory.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private void link(Path source, String sha256, Path target) throws IOException {
+        Path blob = blobPath(sha256);
+        long size = Files.size(source);
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, blob);
+            // ya estaba: el archivo subido sobra
+            Files.delete(source);
+            touch(blob);
+            deduplicated.increment();
+            bytesSaved.addAndGet(size);
+            LOG.debug("♻️ {} reutilizado del almacén para {}", sha256, target);
+            return;
+        } catch (NoSuchFileException e) {
+            // no estaba, o el GC lo acaba de borrar: se guarda
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            moveWithoutLinks(source, target, e);
+            return;
+        }
+        Files.createDirectories(blob.getParent());
+        move(source, blob);
+        readOnly(blob);
+        try {
+            Files.createLink(target, blob);
+        } catch (UnsupportedOperationException | IOException e) {
+            moveWithoutLinks(blob, target, e);
+            return;
+        }
+        stored.increment();
+        LOG.debug("💾 {} guardado en el almacén para {}", sha256, target);
+    }
+
+    /**
+     * Sistemas de archivos distintos o sin enlaces duros: el archivo va directamente al video.
+     */
+    private void moveWithoutLinks(Path source, Path target, Exception cause) throws IOException {
+        if (linksUnsupportedWarned.compareAndSet(false, true)) {
+            LOG.warn("⚠️ No se pueden enlazar archivos de {} en {}: las subidas no se deduplican", directory, target, cause);
+        }
+        move(source, target);
+    }
+
+    private Mono<Path> stageTemporary(FilePart part) {
+        Path temporary = directory.resolve(TEMP_DIRECTORY).resolve(UUID.randomUUID().toString());
+        return Mono.fromCallable(() -> Files.createDirectories(temporary.getParent()))
+            .subscribeOn(Schedulers.boundedElastic())
+            .then(part.transferTo(temporary))
+            .thenReturn(temporary);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Lo comparten varios videos: nadie debe poder modificarlo a través de uno de ellos.
+     */
+    private static void readOnly(Path blob) {
+        try {
+            Files.setPosixFilePermissions(blob, PosixFilePermissions.fromString("r--r--r--"));
+        } catch (UnsupportedOperationException | IOException e) {
+            LOG.debug("No se pudo marcar {} como solo lectura", blob, e);
+        }
+    }
+
+    private static void touch(Path blob) {
+        try {
+            // el periodo de gracia del GC cuenta desde el último uso
+            Files.setLastModifiedTime(blob, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            LOG.debug("No se pudo actualizar la fecha de uso de {}", blob, e);
+        }
+    }
+
+    private static int linkCount(Path file) throws IOException {
+        return (Integer) Files.getAttribute(file, "unix:nlink");
+    }
+
+    static String hash(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
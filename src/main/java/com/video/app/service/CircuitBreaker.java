@@ -0,0 +1,99 @@
+package com.video.app.service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker con estado semiabierto.
+ * <p>
+ * Tras {@code failureThreshold} fallos consecutivos se abre y rechaza llamadas durante
+ * {@code openNanos}; después deja pasar {@code halfOpenCalls} llamadas de prueba: si una
+ * termina bien se cierra, si falla vuelve a abrirse.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN,
+    }
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private final int halfOpenCalls;
+
+    private final LongSupplier nanoTime;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private int halfOpenInFlight;
+
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, long openNanos, int halfOpenCalls) {
+        this(failureThreshold, openNanos, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, long openNanos, int halfOpenCalls, LongSupplier nanoTime) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Indica si la llamada puede hacerse. Cada {@code true} debe terminar con
+     * {@link #onSuccess()}, {@link #onFailure()} o {@link #onIgnored()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoTime.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenInFlight = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+        }
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = nanoTime.getAsLong();
+        }
+    }
+
+    /**
+     * La llamada terminó sin indicar si Python está sano (por ejemplo, cancelada).
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && halfOpenInFlight > 0) {
+            halfOpenInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        // un breaker abierto cuyo plazo venció ya admite llamadas de prueba
+        if (state == State.OPEN && nanoTime.getAsLong() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,124 @@
+package com.video.app.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Deficit round-robin (Shreedhar &amp; Varghese) entre flujos identificados por una clave.
+ * <p>
+ * Cada vez que un flujo llega al frente de la ronda suma {@code quantum × peso} a su déficit y
+ * despacha elementos mientras el coste del siguiente quepa en él. El estado (orden de la ronda y
+ * déficits) se conserva entre llamadas a {@link #select(Collection, int)}, de modo que el reparto
+ * es justo a lo largo de muchas selecciones pequeñas. Un flujo que se queda sin elementos pierde
+ * su déficit acumulado.
+ *
+ * @param <K> tipo de la clave del flujo (por ejemplo el id de usuario).
+ * @param <T> tipo de los elementos a planificar.
+ */
+public class DeficitRoundRobin<K, T> {
+
+    private final Function<T, K> flowKey;
+
+    private final ToIntFunction<T> weight;
+
+    private final ToLongFunction<T> cost;
+
+    private final long quantum;
+
+    private final ArrayDeque<K> round = new ArrayDeque<>();
+
+    private final Map<K, Long> deficits = new HashMap<>();
+
+    /**
+     * Si el flujo al frente de la ronda ya recibió su quantum en este turno.
+     */
+    private boolean headCredited;
+
+    public DeficitRoundRobin(Function<T, K> flowKey, ToIntFunction<T> weight, ToLongFunction<T> cost, long quantum) {
+        this.flowKey = flowKey;
+        this.weight = weight;
+        this.cost = cost;
+        this.quantum = quantum;
+    }
+
+    /**
+     * Elige hasta {@code limit} elementos de {@code candidates}. Los candidatos de un mismo flujo
+     * deben venir en el orden en que ese flujo quiere ser servido.
+     *
+     * @return los elementos elegidos, en orden de despacho.
+     */
+    public synchronized List<T> select(Collection<T> candidates, int limit) {
+        Map<K, ArrayDeque<T>> flows = new LinkedHashMap<>();
+        for (T candidate : candidates) {
+            flows.computeIfAbsent(flowKey.apply(candidate), key -> new ArrayDeque<>()).add(candidate);
+        }
+        syncRound(flows);
+
+        List<T> selected = new ArrayList<>(Math.min(limit, candidates.size()));
+        while (selected.size() < limit && !round.isEmpty()) {
+            K key = round.peekFirst();
+            ArrayDeque<T> flow = flows.get(key);
+            long deficit = deficits.getOrDefault(key, 0L);
+            if (!headCredited) {
+                deficit += quantum * Math.max(1, weight.applyAsInt(flow.peekFirst()));
+                headCredited = true;
+            }
+            while (!flow.isEmpty() && selected.size() < limit && cost.applyAsLong(flow.peekFirst()) <= deficit) {
+                T next = flow.pollFirst();
+                deficit -= cost.applyAsLong(next);
+                selected.add(next);
+            }
+            if (flow.isEmpty()) {
+                removeHead(key);
+            } else if (selected.size() < limit || cost.applyAsLong(flow.peekFirst()) > deficit) {
+                // turno agotado: el flujo pasa al final de la ronda conservando el déficit restante
+                deficits.put(key, deficit);
+                round.addLast(round.pollFirst());
+                headCredited = false;
+            } else {
+                // se alcanzó el límite a mitad de turno: la próxima selección continúa este turno
+                deficits.put(key, deficit);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Déficit acumulado del flujo, visible para tests.
+     */
+    synchronized long deficit(K key) {
+        return deficits.getOrDefault(key, 0L);
+    }
+
+    private void syncRound(Map<K, ArrayDeque<T>> flows) {
+        if (!round.isEmpty() && !flows.containsKey(round.peekFirst())) {
+            headCredited = false;
+        }
+        round.removeIf(key -> {
+            boolean idle = !flows.containsKey(key);
+            if (idle) {
+                deficits.remove(key);
+            }
+            return idle;
+        });
+        for (K key : flows.keySet()) {
+            if (!round.contains(key)) {
+                round.addLast(key);
+            }
+        }
+    }
+
+    private void removeHead(K key) {
+        round.pollFirst();
+        deficits.remove(key);
+        headCredited = false;
+    }
+}
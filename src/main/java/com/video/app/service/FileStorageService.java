@@ -1,9 +1,14 @@
 package com.video.app.service;
 
 import com.video.app.service.dto.FileSystemPaths;
+import com.video.app.service.storage.VideoStorage;
+import com.video.app.service.storage.VideoStorageKeys;
+import com.video.app.service.storage.VideoStorageResolver;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Stream;
@@ -13,18 +18,31 @@ import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Service
 public class FileStorageService {
 
     private static final Logger LOG = LoggerFactory.getLogger(FileStorageService.class);
-    private static final String BASE_STORAGE_PATH = "/app/shared-data/videos";
+
+    private final BlobStore blobStore;
+
+    private final VideoStorage videoStorage;
+
+    private final VideoStorageResolver videoStorageResolver;
+
+    public FileStorageService(BlobStore blobStore, VideoStorage videoStorage, VideoStorageResolver videoStorageResolver) {
+        this.blobStore = blobStore;
+        this.videoStorage = videoStorage;
+        this.videoStorageResolver = videoStorageResolver;
+    }
 
     /**
-     * Guarda archivos en disco usando el ID del video como identificador único.
-     * Estructura: /app/shared-data/videos/{videoId}/images/
-     *            /app/shared-data/videos/{videoId}/audio/
-     *            /app/shared-data/videos/{videoId}/output/
+     * Guarda archivos usando el ID del video como identificador único, con las claves de {@link VideoStorageKeys}:
+     * videos/sharded/{aa}/{bb}/{videoId}/images/, .../audio/ y .../output/.
+     * Las partes llegan ya escritas en el directorio de staging del mismo volumen. Cada archivo se
+     * enlaza desde {@link BlobStore} en la copia de trabajo: si otro video ya subió el mismo contenido no se guarda
+     * otra copia. Después se publican en {@link VideoStorage}.
      */
     public Mono<FileSystemPaths> saveFilesToDisk(Long videoId, List<FilePart> images, FilePart audio) {
         LOG.info("=== Guardando archivos para video ID: {} ===", videoId);
@@ -36,18 +54,19 @@ public class FileStorageService {
             return Mono.error(new RuntimeException("No se recibieron imágenes"));
         }
 
-        String baseDir = BASE_STORAGE_PATH + "/" + videoId;
-        String imagesDir = baseDir + "/images";
-        String audioDir = baseDir + "/audio";
-        String outputDir = baseDir + "/output";
+        VideoStorageKeys keys = videoStorageResolver.forNewVideo(videoId);
+        Path baseDir = videoStorage.workspace(keys.video());
+        Path imagesDir = videoStorage.workspace(keys.images());
+        Path audioDir = videoStorage.workspace(keys.audios());
+        Path outputDir = videoStorage.workspace(keys.output());
 
         Mono<Void> createDirs = Mono.fromCallable(() -> {
-            Files.createDirectories(Path.of(imagesDir));
-            Files.createDirectories(Path.of(audioDir));
-            Files.createDirectories(Path.of(outputDir));
+            Files.createDirectories(imagesDir);
+            Files.createDirectories(audioDir);
+            Files.createDirectories(outputDir);
             return true;
         })
-            .subscribeOn(reactor.core.scheduler.Schedulers.boundedElastic())
+            .subscribeOn(Schedulers.boundedElastic())
             .then()
             .doOnSuccess(v -> LOG.info("✅ Directorios creados: {}", baseDir));
 
@@ -56,10 +75,9 @@ public class FileStorageService {
             .flatMap(tuple -> {
                 long i = tuple.getT1();
                 FilePart image = tuple.getT2();
-                String filename = String.format("image_%03d.jpg", i);
-                Path imagePath = Path.of(imagesDir, filename);
-                LOG.debug("Guardando imagen {}/{}: {}", i + 1, images.size(), filename);
-                return image.transferTo(imagePath);
+                Path imagePath = videoStorage.workspace(keys.image(i));
+                LOG.debug("Guardando imagen {}/{}: {}", i + 1, images.size(), imagePath.getFileName());
+                return blobStore.storeAndLink(image, imagePath);
             });
 
         Mono<Void> audioSave = Mono.empty();
@@ -67,9 +85,9 @@ public class FileStorageService {
 
         if (audio != null) {
             String audioFilename = audio.filename();
-            Path audioPath = Path.of(audioDir, audioFilename);
+            Path audioPath = videoStorage.workspace(keys.audio(audioFilename));
             LOG.info("Guardando audio: {}", audioFilename);
-            audioSave = audio.transferTo(audioPath);
+            audioSave = blobStore.storeAndLink(audio, audioPath);
             finalAudioPath = audioPath.toString();
         }
 
@@ -78,7 +96,8 @@ public class FileStorageService {
         return createDirs
             .thenMany(saveImages)
             .then(audioSave)
-            .thenReturn(new FileSystemPaths(imagesDir, audioPathFinal, outputDir))
+            .then(videoStorage.publish(keys.video()))
+            .thenReturn(new FileSystemPaths(imagesDir.toString(), audioPathFinal, outputDir.toString()))
             .doOnSuccess(paths -> {
                 LOG.info("✅ Archivos guardados exitosamente para video: {}", videoId);
                 LOG.info("   - Imágenes: {}", imagesDir);
@@ -89,46 +108,130 @@ public class FileStorageService {
     }
 
     /**
-     * Limpia los archivos temporales de un video (útil en caso de error)
+     * Deja los archivos guardados de un video en la copia de trabajo de este nodo, donde Python los lee.
+     *
+     * @return las rutas locales de las imágenes, el audio ({@code null} sin audio) y el directorio de salida.
+     */
+    public Mono<FileSystemPaths> checkout(Long videoId, String audioFilename) {
+        return videoStorageResolver
+            .resolve(videoId)
+            .flatMap(keys -> {
+                Path imagesDir = videoStorage.workspace(keys.images());
+                Path outputDir = videoStorage.workspace(keys.output());
+                String audioPath = audioFilename != null ? videoStorage.workspace(keys.audio(audioFilename)).toString() : null;
+                return videoStorage
+                    .fetch(keys.video())
+                    .then(Mono.fromCallable(() -> Files.createDirectories(outputDir)).subscribeOn(Schedulers.boundedElastic()))
+                    .thenReturn(new FileSystemPaths(imagesDir.toString(), audioPath, outputDir.toString()));
+            });
+    }
+
+    /**
+     * Guarda el video generado en {@link VideoStorage} y libera la copia de trabajo del video en este nodo.
+     */
+    public Mono<Void> publishOutput(Long videoId) {
+        return videoStorageResolver
+            .resolve(videoId)
+            .flatMap(keys -> videoStorage.publish(keys.output()).then(videoStorage.release(keys.video())));
+    }
+
+    /**
+     * Libera la copia de trabajo de un video en este nodo; lo guardado en {@link VideoStorage} se conserva.
+     */
+    public Mono<Void> releaseWorkspace(Long videoId) {
+        return videoStorageResolver.resolve(videoId).flatMap(keys -> videoStorage.release(keys.video()));
+    }
+
+    /**
+     * Limpia los archivos de un video (útil en caso de error), guardados y en la copia de trabajo, en cualquiera
+     * de las dos organizaciones de {@link VideoStorageKeys}
      */
     public Mono<Void> cleanupFiles(String videoId) {
-        return Mono.fromRunnable(() -> {
-            String baseDir = BASE_STORAGE_PATH + "/" + videoId;
-            Path basePath = Path.of(baseDir);
-
-            try {
-                if (Files.exists(basePath)) {
-                    LOG.info("Limpiando archivos del video: {}", videoId);
-
-                    // Eliminar recursivamente todos los archivos y directorios
-                    try (Stream<Path> walk = Files.walk(basePath)) {
-                        walk
-                            .sorted(Comparator.reverseOrder())
-                            .forEach(path -> {
-                                try {
-                                    Files.delete(path);
-                                } catch (IOException e) {
-                                    LOG.warn("No se pudo eliminar: {}", path, e);
-                                }
-                            });
-                    }
-
-                    LOG.info("✅ Archivos limpiados para video: {}", videoId);
-                } else {
-                    LOG.warn("No existe directorio para limpiar: {}", baseDir);
-                }
-            } catch (IOException e) {
-                LOG.error("Error limpiando archivos del video: {}", videoId, e);
-                throw new RuntimeException("Error limpiando archivos", e);
+        Long id = Long.valueOf(videoId);
+        LOG.info("Limpiando archivos del video: {}", videoId);
+        return Flux.just(VideoStorageKeys.flat(id), VideoStorageKeys.sharded(id))
+            .concatMap(keys -> videoStorage.delete(keys.video()).then(videoStorage.release(keys.video())))
+            .then()
+            .doOnSuccess(v -> LOG.info("✅ Archivos limpiados para video: {}", videoId))
+            .onErrorMap(error -> {
+                LOG.error("Error limpiando archivos del video: {}", videoId, error);
+                return new RuntimeException("Error limpiando archivos", error);
+            });
+    }
+
+    /**
+     * Busca un video que Python ya terminó de escribir en {@code output}: el archivo más reciente,
+     * no vacío y sin modificaciones desde hace al menos {@code settle}.
+     *
+     * @return la ruta del video, vacío si no hay ninguno terminado.
+     */
+    public Mono<Path> findFinishedOutput(Long videoId, Duration settle) {
+        return videoStorageResolver.resolve(videoId).flatMap(keys -> findFinishedOutput(videoStorage.workspace(keys.output()), settle));
+    }
+
+    private Mono<Path> findFinishedOutput(Path outputDir, Duration settle) {
+        return Mono.fromCallable(() -> {
+            if (!Files.isDirectory(outputDir)) {
+                return null;
+            }
+            Instant settledBefore = Instant.now().minus(settle);
+            try (Stream<Path> files = Files.list(outputDir)) {
+                return files
+                    .filter(Files::isRegularFile)
+                    .filter(path -> isFinished(path, settledBefore))
+                    .max(Comparator.comparing(FileStorageService::lastModified))
+                    .orElse(null);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Cuenta las imágenes guardadas de un video; 0 si el directorio no existe.
+     */
+    public Mono<Integer> countImages(Path imagesDir) {
+        return Mono.fromCallable(() -> {
+            if (!Files.isDirectory(imagesDir)) {
+                return 0;
+            }
+            try (Stream<Path> files = Files.list(imagesDir)) {
+                return (int) files.filter(Files::isRegularFile).count();
             }
-        });
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Duración en segundos de un audio guardado; vacío si no se puede leer o su formato no se reconoce.
+     */
+    public Mono<Double> probeAudioDuration(Path audio) {
+        return Mono.fromCallable(() -> AudioDurationProbe.probe(audio).orElse(null))
+            .map(duration -> duration.toMillis() / 1000.0)
+            .onErrorResume(IOException.class, error -> {
+                LOG.warn("No se pudo leer la duración del audio {}: {}", audio, error.getMessage());
+                return Mono.empty();
+            })
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static boolean isFinished(Path path, Instant settledBefore) {
+        try {
+            return Files.size(path) > 0 && lastModified(path).isBefore(settledBefore);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Instant lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant();
+        } catch (IOException e) {
+            return Instant.EPOCH;
+        }
     }
 
     /**
-     * Verifica si los directorios de un video existen
+     * Verifica si quedan archivos guardados de un video
      */
-    public boolean videoDirectoryExists(String videoId) {
-        String baseDir = BASE_STORAGE_PATH + "/" + videoId;
-        return Files.exists(Path.of(baseDir));
+    public Mono<Boolean> videoFilesExist(Long videoId) {
+        return videoStorageResolver.resolve(videoId).flatMap(keys -> videoStorage.exists(keys.video()));
     }
 }
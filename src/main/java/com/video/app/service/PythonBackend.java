@@ -0,0 +1,149 @@
+package com.video.app.service;
+
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeoutException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Un servidor Python de render del pool, con su propio {@link CircuitBreaker} y su
+ * {@link AdaptiveConcurrencyLimiter}.
+ */
+public class PythonBackend {
+
+    /**
+     * Clave del contexto de Reactor con el {@link AdaptiveConcurrencyLimiter.Permit} de la llamada en curso, para que
+     * la llamada informe de su tiempo esperado y de la latencia de sus respuestas.
+     */
+    public static final String PERMIT_CONTEXT_KEY = PythonBackend.class.getName() + ".permit";
+
+    private final String baseUrl;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private volatile boolean up = true;
+
+    public PythonBackend(String baseUrl, AdaptiveConcurrencyLimiter limiter, CircuitBreaker circuitBreaker) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.limiter = limiter;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * URL absoluta de {@code path} en este backend.
+     */
+    public String url(String path) {
+        return baseUrl + (path.startsWith("/") ? path : "/" + path);
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    void setUp(boolean up) {
+        this.up = up;
+    }
+
+    /**
+     * El backend puede recibir llamadas: pasa los health checks y su circuit breaker no está abierto.
+     */
+    public boolean isAvailable() {
+        return up && circuitBreaker.getState() != CircuitBreaker.State.OPEN;
+    }
+
+    /**
+     * Llamadas en curso más las que esperan hueco en el limitador.
+     */
+    public int getOutstanding() {
+        return limiter.getInFlight() + limiter.getWaiting();
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Ejecuta la llamada solo si el circuit breaker lo permite y cuando el limitador tiene hueco.
+     * Errores de conexión y 5xx cuentan como fallo; un 4xx indica que Python está respondiendo. Un plazo
+     * cumplido ({@link TimeoutException}) no cuenta para el circuit breaker, porque un render largo no significa que
+     * Python esté caído; el limitador lo juzga por su latencia.
+     */
+    public <T> Mono<T> call(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                return Mono.error(new PythonUnavailableException("Circuit breaker de Python abierto en " + baseUrl));
+            }
+            return limiter
+                .acquire()
+                .doOnCancel(circuitBreaker::onIgnored)
+                .flatMap(permit ->
+                    call
+                        .doOnSuccess(response -> {
+                            permit.success();
+                            circuitBreaker.onSuccess();
+                        })
+                        .doOnError(error -> {
+                            if (error instanceof TimeoutException) {
+                                permit.timedOut();
+                                circuitBreaker.onIgnored();
+                            } else if (isOverload(error)) {
+                                permit.dropped();
+                                circuitBreaker.onFailure();
+                            } else {
+                                permit.ignore();
+                                circuitBreaker.onSuccess();
+                            }
+                            if (isNotStarted(error)) {
+                                up = false;
+                            }
+                        })
+                        .doOnCancel(() -> {
+                            permit.ignore();
+                            circuitBreaker.onIgnored();
+                        })
+                        .contextWrite(Context.of(PERMIT_CONTEXT_KEY, permit))
+                );
+        });
+    }
+
+    static boolean isOverload(Throwable error) {
+        return (
+            error instanceof WebClientRequestException || (error instanceof PythonCallException pythonError && pythonError.isServerError())
+        );
+    }
+
+    /**
+     * La llamada falló sin llegar a Python (no se pudo conectar o fue rechazada localmente),
+     * así que el render no empezó y puede reintentarse en otro backend.
+     */
+    static boolean isNotStarted(Throwable error) {
+        if (error instanceof PythonUnavailableException) {
+            return true;
+        }
+        if (error instanceof WebClientRequestException) {
+            for (Throwable cause = error.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof ConnectException || cause instanceof UnknownHostException) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "PythonBackend{" + "baseUrl='" + baseUrl + "'" + ", up=" + up + ", state=" + circuitBreaker.getState() + "}";
+    }
+}
@@ -0,0 +1,217 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Pool de servidores Python de render ({@code application.python.backends}).
+ * <p>
+ * Cada llamada va al backend con menos llamadas pendientes de dos elegidos al azar entre los
+ * disponibles (power of two choices). Un backend se marca caído cuando no acepta conexiones o
+ * falla su health check, y deja de recibir llamadas mientras su circuit breaker está abierto.
+ * Si una llamada falla antes de que el render empiece, se reintenta en otro backend.
+ */
+@Service
+public class PythonBackendPool implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PythonBackendPool.class);
+
+    public static final String LIMIT_METER_NAME = "video.python.limit";
+    public static final String IN_FLIGHT_METER_NAME = "video.python.in-flight";
+    public static final String CIRCUIT_STATE_METER_NAME = "video.python.circuit.state";
+    public static final String UP_METER_NAME = "video.python.up";
+    public static final String REJECTED_METER_NAME = "video.python.rejected";
+
+    private final List<PythonBackend> backends;
+
+    private final ApplicationProperties.Python properties;
+
+    private final ApplicationProperties.Role role;
+
+    private final WebClient webClient;
+
+    private final Counter rejected;
+
+    private Disposable healthChecks;
+
+    private volatile boolean running;
+
+    public PythonBackendPool(WebClient.Builder webClientBuilder, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getPython();
+        this.role = applicationProperties.getRole();
+        this.webClient = webClientBuilder.build();
+        this.backends = properties.getBackends().stream().map(this::newBackend).toList();
+        this.backends.forEach(backend -> registerMeters(backend, meterRegistry));
+        this.rejected = Counter.builder(REJECTED_METER_NAME)
+            .description("Llamadas a Python rechazadas sin enviarse por no haber backend disponible")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta {@code request} contra un backend del pool, reintentando en otro si falla antes de que el render empiece.
+     */
+    public <T> Mono<T> call(Function<PythonBackend, Mono<T>> request) {
+        return attempt(request, new HashSet<>());
+    }
+
+    public List<PythonBackend> getBackends() {
+        return backends;
+    }
+
+    private <T> Mono<T> attempt(Function<PythonBackend, Mono<T>> request, Set<PythonBackend> tried) {
+        return Mono.defer(() -> {
+            PythonBackend backend = select(tried);
+            if (backend == null) {
+                rejected.increment();
+                return Mono.error(new PythonUnavailableException("Ningún backend de Python disponible"));
+            }
+            tried.add(backend);
+            return backend
+                .call(request.apply(backend))
+                .onErrorResume(
+                    error -> PythonBackend.isNotStarted(error) && tried.size() < backends.size(),
+                    error -> {
+                        LOG.warn(
+                            "⚠️ Backend Python {} no disponible ({}); reintentando en otro",
+                            backend.getBaseUrl(),
+                            error.getMessage()
+                        );
+                        return attempt(request, tried);
+                    }
+                );
+        });
+    }
+
+    /**
+     * Power of two choices sobre los backends disponibles que aún no se intentaron.
+     */
+    PythonBackend select(Set<PythonBackend> exclude) {
+        List<PythonBackend> candidates = backends.stream().filter(backend -> !exclude.contains(backend) && backend.isAvailable()).toList();
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        PythonBackend a = candidates.get(first);
+        PythonBackend b = candidates.get(second);
+        return a.getOutstanding() <= b.getOutstanding() ? a : b;
+    }
+
+    @Override
+    public void start() {
+        if (!role.renders()) {
+            // los nodos api no llaman a Python
+            return;
+        }
+        healthChecks = Flux.interval(properties.getHealthCheckInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> checkHealth())
+            .subscribe();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (healthChecks != null) {
+            healthChecks.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Consulta el health check de todos los backends. Cualquier respuesta HTTP por debajo de 500 cuenta como sano.
+     */
+    Mono<Void> checkHealth() {
+        return Flux.fromIterable(backends)
+            .flatMap(backend ->
+                webClient
+                    .get()
+                    .uri(backend.url(properties.getHealthCheckPath()))
+                    .exchangeToMono(response -> Mono.just(!response.statusCode().is5xxServerError()))
+                    .timeout(properties.getHealthCheckTimeout())
+                    .onErrorReturn(false)
+                    .doOnNext(healthy -> {
+                        if (healthy != backend.isUp()) {
+                            LOG.info(
+                                "{} Backend Python {} {}",
+                                healthy ? "✅" : "❌",
+                                backend.getBaseUrl(),
+                                healthy ? "disponible" : "caído"
+                            );
+                        }
+                        backend.setUp(healthy);
+                    })
+            )
+            .then();
+    }
+
+    private PythonBackend newBackend(String baseUrl) {
+        ApplicationProperties.Python.Limiter limiter = properties.getLimiter();
+        ApplicationProperties.Python.CircuitBreaker circuitBreaker = properties.getCircuitBreaker();
+        return new PythonBackend(
+            baseUrl,
+            new AdaptiveConcurrencyLimiter(
+                limiter.getInitialLimit(),
+                limiter.getMinLimit(),
+                limiter.getMaxLimit(),
+                limiter.getBackoffRatio(),
+                limiter.getSlowCallThreshold().toNanos(),
+                limiter.getSlowCallRatio(),
+                limiter.getSlowResponseThreshold().toNanos()
+            ),
+            new CircuitBreaker(
+                circuitBreaker.getFailureThreshold(),
+                circuitBreaker.getOpenDuration().toNanos(),
+                circuitBreaker.getHalfOpenCalls()
+            )
+        );
+    }
+
+    private static void registerMeters(PythonBackend backend, MeterRegistry meterRegistry) {
+        Tags tags = Tags.of("backend", backend.getBaseUrl());
+        Gauge.builder(LIMIT_METER_NAME, backend.getLimiter(), AdaptiveConcurrencyLimiter::getLimit)
+            .description("Límite adaptativo de llamadas concurrentes a Python")
+            .tags(tags)
+            .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_METER_NAME, backend.getLimiter(), AdaptiveConcurrencyLimiter::getInFlight)
+            .description("Llamadas a Python en curso")
+            .tags(tags)
+            .register(meterRegistry);
+        Gauge.builder(CIRCUIT_STATE_METER_NAME, backend.getCircuitBreaker(), breaker -> breaker.getState().ordinal())
+            .description("Estado del circuit breaker de Python: 0=cerrado, 1=semiabierto, 2=abierto")
+            .tags(tags)
+            .register(meterRegistry);
+        Gauge.builder(UP_METER_NAME, backend, b -> b.isUp() ? 1 : 0)
+            .description("Resultado del último health check del backend Python")
+            .tags(tags)
+            .register(meterRegistry);
+    }
+}
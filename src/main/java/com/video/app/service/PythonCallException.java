@@ -0,0 +1,27 @@
+package com.video.app.service;
+
+import java.io.Serial;
+
+/**
+ * Python respondió con un código de error HTTP.
+ */
+public class PythonCallException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public PythonCallException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isServerError() {
+        return statusCode >= 500;
+    }
+}
@@ -0,0 +1,125 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.service.dto.PythonRenderJobStatus;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleConsumer;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Seguimiento de renders enviados a Python en modo asíncrono.
+ * <p>
+ * Cada render espera lo que llegue antes: el callback de Python en
+ * {@code /api/internal/render-callbacks/{ref}} o un poll de estado cada {@code pollInterval}.
+ * Entre polls no queda ninguna conexión abierta, y un poll que falla por un error transitorio (de conexión,
+ * 502, 503 o 504) se repite en el siguiente intervalo. El porcentaje que Python informe en los polls o en
+ * callbacks intermedios se pasa al {@code progress} del render.
+ */
+@Service
+public class PythonRenderTracker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PythonRenderTracker.class);
+
+    public static final String CALLBACK_PATH = "/api/internal/render-callbacks/";
+
+    private final ApplicationProperties.Python.Async properties;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    public PythonRenderTracker(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getPython().getAsync();
+    }
+
+    /**
+     * URL a la que Python debe notificar el fin del render {@code ref}, o {@code null} si los callbacks están deshabilitados.
+     */
+    public String callbackUrl(String ref) {
+        if (StringUtils.isBlank(properties.getCallbackBaseUrl()) || StringUtils.isBlank(properties.getCallbackToken())) {
+            return null;
+        }
+        return StringUtils.removeEnd(properties.getCallbackBaseUrl(), "/") + CALLBACK_PATH + ref;
+    }
+
+    /**
+     * Espera a que el render {@code ref} termine, por callback o por {@code poll}.
+     *
+     * @param ref referencia local del render.
+     * @param poll consulta el estado del render en Python.
+     * @param progress recibe el porcentaje completado que informe Python.
+     * @param deadline plazo del render; cumplido, falla con {@link java.util.concurrent.TimeoutException}.
+     * @return el estado final (DONE o ERROR).
+     */
+    public Mono<PythonRenderJobStatus> await(String ref, Mono<PythonRenderJobStatus> poll, DoubleConsumer progress, Duration deadline) {
+        return Mono.defer(() -> {
+            Pending waiting = new Pending(Sinks.one(), progress);
+            pending.put(ref, waiting);
+            Mono<PythonRenderJobStatus> polled = poll
+                .onErrorResume(PythonVideoService::isRetriable, error -> {
+                    LOG.warn("[{}] Error consultando el estado del render en Python: {}", ref, error.getMessage());
+                    return Mono.empty();
+                })
+                .delaySubscription(properties.getPollInterval())
+                .repeat()
+                .doOnNext(waiting::report)
+                .filter(PythonRenderJobStatus::isFinished)
+                .next();
+            return Mono.firstWithValue(waiting.callback().asMono(), polled)
+                .timeout(deadline)
+                // antes de emitir la señal, no después como doFinally: quien la recibe ya no ve el render pendiente
+                .doOnTerminate(() -> pending.remove(ref))
+                .doOnCancel(() -> pending.remove(ref));
+        });
+    }
+
+    /**
+     * Registra el callback de Python para el render {@code ref}.
+     *
+     * @return {@code false} si el token no es válido.
+     */
+    public boolean onCallback(String ref, String token, PythonRenderJobStatus status) {
+        if (!isValidToken(token)) {
+            return false;
+        }
+        Pending waiting = pending.get(ref);
+        if (waiting == null) {
+            LOG.debug("[{}] Callback de render sin espera activa en este nodo", ref);
+        } else if (status.isFinished()) {
+            waiting.callback().tryEmitValue(status);
+        } else {
+            waiting.report(status);
+        }
+        return true;
+    }
+
+    /**
+     * Renders asíncronos pendientes en este nodo.
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    private record Pending(Sinks.One<PythonRenderJobStatus> callback, DoubleConsumer progress) {
+        private void report(PythonRenderJobStatus status) {
+            if (!status.isFinished() && status.getProgress() != null) {
+                progress.accept(status.getProgress());
+            }
+        }
+    }
+
+    private boolean isValidToken(String token) {
+        String expected = properties.getCallbackToken();
+        if (StringUtils.isBlank(expected) || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,16 @@
+package com.video.app.service;
+
+import java.io.Serial;
+
+/**
+ * Python no está disponible: el circuit breaker está abierto y la llamada se rechaza sin enviarla.
+ */
+public class PythonUnavailableException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public PythonUnavailableException(String message) {
+        super(message);
+    }
+}
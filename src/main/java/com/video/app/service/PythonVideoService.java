@@ -1,106 +1,365 @@
 package com.video.app.service;
 
+import com.video.app.config.ApplicationProperties;
 import com.video.app.service.dto.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+import reactor.util.function.Tuple2;
+import reactor.util.retry.Retry;
 
+/**
+ * Cliente del servicio Python de generación de videos.
+ * <p>
+ * Las llamadas se reparten entre los backends de {@link PythonBackendPool}; cada backend tiene su
+ * circuit breaker y su límite de concurrencia adaptativo. Con {@code application.python.protocol=ASYNC}
+ * el render se envía y se sigue con {@link PythonRenderTracker} en lugar de mantener la conexión abierta;
+ * el porcentaje que informe Python se entrega al {@link DoubleConsumer} guardado en el contexto de
+ * Reactor con la clave {@link #PROGRESS_CONTEXT_KEY}. Cada render tiene su plazo, que también se envía a
+ * Python en {@code deadline_seconds} para que ambos lados lo abandonen a la vez. Cancelar la suscripción
+ * (o cumplirse el plazo) corta la conexión en modo síncrono y, en modo asíncrono, envía {@code DELETE}
+ * al render remoto.
+ * <p>
+ * Los errores transitorios (de conexión, 502, 503 y 504, o ningún backend disponible) se reintentan con
+ * backoff exponencial y jitter ({@code application.python.retry}). Todos los intentos de un render llevan
+ * la misma cabecera {@value #IDEMPOTENCY_KEY_HEADER}, para que Python no codifique dos veces el render si
+ * recibe el envío repetido: por ejemplo, si lo aceptó pero un proxy perdió la respuesta.
+ */
 @Service
 public class PythonVideoService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PythonVideoService.class);
-    private static final String PYTHON_API_URL = "http://video-python:9094/generate_video/";
-    private static final String PYTHON_API_WITHOUT_URL = "http://video-python:9094/generate_video_whitout/";
+    private static final String GENERATE_VIDEO_PATH = "/generate_video/";
+    private static final String GENERATE_VIDEO_WITHOUT_AUDIO_PATH = "/generate_video_whitout/";
+
+    public static final String PROGRESS_CONTEXT_KEY = PythonVideoService.class.getName() + ".progress";
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String RETRY_METER_NAME = "video.python.retry";
+
+    public static final String RETRY_EXHAUSTED_METER_NAME = "video.python.retry.exhausted";
+
+    private static final Set<Integer> RETRIABLE_STATUSES = Set.of(502, 503, 504);
+
+    private static final DoubleConsumer NO_PROGRESS = percent -> {};
 
     private final WebClient webClient;
 
-    public PythonVideoService(WebClient.Builder webClientBuilder) {
+    private final PythonBackendPool backendPool;
+
+    private final PythonRenderTracker renderTracker;
+
+    private final ApplicationProperties.Python properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter retriesExhausted;
+
+    public PythonVideoService(
+        WebClient.Builder webClientBuilder,
+        PythonBackendPool backendPool,
+        PythonRenderTracker renderTracker,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
         this.webClient = webClientBuilder.build();
+        this.backendPool = backendPool;
+        this.renderTracker = renderTracker;
+        this.properties = applicationProperties.getPython();
+        this.meterRegistry = meterRegistry;
+        this.retriesExhausted = Counter.builder(RETRY_EXHAUSTED_METER_NAME)
+            .description("Renders que fallaron por un error transitorio en todos sus intentos")
+            .register(meterRegistry);
     }
 
-    public Mono<PythonVideoResponse> generateVideoWithAudio(String imagesPath, String audioPath, String videoOutputPath, String format) {
+    /**
+     * @param videoId video que se renderiza, para la clave de idempotencia del render.
+     * @param deadline plazo de cada intento; se envía a Python y, cumplido, la llamada falla con {@link TimeoutException}.
+     * Su tiempo esperado decide si el render fue lento para el límite de concurrencia del backend.
+     */
+    public Mono<PythonVideoResponse> generateVideoWithAudio(
+        Long videoId,
+        String imagesPath,
+        String audioPath,
+        String videoOutputPath,
+        String format,
+        RenderDeadlines.Deadline deadline
+    ) {
         LOG.info("Llamando a Python para generar video CON audio");
-        LOG.info("Images: {}, Audio: {}, Output: {}, Format: {}", imagesPath, audioPath, videoOutputPath, format);
+        LOG.info(
+            "Images: {}, Audio: {}, Output: {}, Format: {}, Plazo: {}",
+            imagesPath,
+            audioPath,
+            videoOutputPath,
+            format,
+            deadline.limit()
+        );
 
         VideoGenerationRequest request = new VideoGenerationRequest();
         request.setImages_path(imagesPath);
         request.setAudio_path(audioPath);
         request.setVideo_path(videoOutputPath);
         request.setFormat(format != null ? format : "mp4");
+        request.setDeadline_seconds(deadlineSeconds(deadline.limit()));
 
-        return webClient
-            .post()
-            .uri(PYTHON_API_URL)
-            .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(request)
-            .retrieve()
-            .onStatus(HttpStatusCode::is4xxClientError, response ->
-                response
-                    .bodyToMono(String.class)
-                    .flatMap(body -> {
-                        LOG.error("Error 4xx en Python: {}", body);
-                        return Mono.error(new RuntimeException("Error 4xx en Python: " + body));
-                    })
-            )
-            .onStatus(HttpStatusCode::is5xxServerError, response ->
-                response
-                    .bodyToMono(String.class)
-                    .flatMap(body -> {
-                        LOG.error("Error 5xx en Python: {}", body);
-                        return Mono.error(new RuntimeException("Error 5xx en Python: " + body));
-                    })
-            )
-            .bodyToMono(PythonVideoResponse.class)
-            .timeout(Duration.ofMinutes(10))
-            .doOnSuccess(response -> LOG.info("Video generado exitosamente: {}", response.getMetadata().getFull_path()))
-            .doOnError(error -> LOG.error("Error generando video en Python", error));
+        return withRetries(videoId, idempotencyKey ->
+            backendPool.call(backend -> render(backend, GENERATE_VIDEO_PATH, request, idempotencyKey, deadline))
+        );
     }
 
+    /**
+     * @param videoId video que se renderiza, para la clave de idempotencia del render.
+     * @param deadline plazo de cada intento; se envía a Python y, cumplido, la llamada falla con {@link TimeoutException}.
+     * Su tiempo esperado decide si el render fue lento para el límite de concurrencia del backend.
+     */
     public Mono<PythonVideoResponse> generateVideoWithoutAudio(
+        Long videoId,
         String imagesPath,
         String videoOutputPath,
         String format,
-        Integer transicionSegundos
+        Integer transicionSegundos,
+        RenderDeadlines.Deadline deadline
     ) {
         LOG.info("Llamando a Python para generar video SIN audio");
-        LOG.info("Images: {}, Output: {}, Format: {}, Transición: {}s", imagesPath, videoOutputPath, format, transicionSegundos);
+        LOG.info(
+            "Images: {}, Output: {}, Format: {}, Transición: {}s, Plazo: {}",
+            imagesPath,
+            videoOutputPath,
+            format,
+            transicionSegundos,
+            deadline.limit()
+        );
 
         VideoWhitoutAudioGenerationRequest request = new VideoWhitoutAudioGenerationRequest();
         request.setImages_path(imagesPath);
         request.setVideo_path(videoOutputPath);
         request.setFormat(format != null ? format : "mp4");
         request.setTransicion_segundos(transicionSegundos != null ? transicionSegundos : 3);
+        request.setDeadline_seconds(deadlineSeconds(deadline.limit()));
+
+        return withRetries(videoId, idempotencyKey ->
+            backendPool.call(backend -> render(backend, GENERATE_VIDEO_WITHOUT_AUDIO_PATH, request, idempotencyKey, deadline))
+        );
+    }
+
+    /**
+     * Repite {@code attempt} mientras falle por un error transitorio, hasta {@code maxAttempts} intentos.
+     * Si se agotan, la llamada falla con el error del último intento, que lleva los de los intentos
+     * anteriores en {@link Throwable#getSuppressed()}.
+     *
+     * @param attempt recibe la clave de idempotencia del render, {@code <videoId>-<uuid>}, la misma en todos los intentos.
+     */
+    private Mono<PythonVideoResponse> withRetries(Long videoId, Function<String, Mono<PythonVideoResponse>> attempt) {
+        ApplicationProperties.Python.Retry retry = properties.getRetry();
+        String idempotencyKey = videoId + "-" + UUID.randomUUID();
+        List<Throwable> failedAttempts = new CopyOnWriteArrayList<>();
+        return Mono.defer(() -> attempt.apply(idempotencyKey))
+            .retryWhen(
+                Retry.backoff(Math.max(retry.getMaxAttempts() - 1, 0), retry.getInitialBackoff())
+                    .maxBackoff(retry.getMaxBackoff())
+                    .jitter(retry.getJitter())
+                    .filter(PythonVideoService::isRetriable)
+                    .doBeforeRetry(signal -> {
+                        failedAttempts.add(signal.failure());
+                        LOG.warn(
+                            "🔁 [{}] Error transitorio en Python ({}), reintento {} de {}",
+                            videoId,
+                            signal.failure().getMessage(),
+                            signal.totalRetries() + 1,
+                            retry.getMaxAttempts() - 1
+                        );
+                        Counter.builder(RETRY_METER_NAME)
+                            .description("Reintentos de renders tras un error transitorio de Python")
+                            .tag("cause", retryCause(signal.failure()))
+                            .register(meterRegistry)
+                            .increment();
+                    })
+                    .onRetryExhaustedThrow((spec, signal) -> {
+                        LOG.error("❌ [{}] Python siguió fallando tras {} intentos", videoId, retry.getMaxAttempts());
+                        retriesExhausted.increment();
+                        return signal.failure();
+                    })
+            )
+            .doOnError(error -> failedAttempts.stream().filter(previous -> previous != error).forEach(error::addSuppressed));
+    }
+
+    /**
+     * Errores tras los que otro intento puede salir bien: la conexión falló, un proxy no llegó a Python
+     * (502, 504), Python está saturado (503) o no hay backend disponible. Los 4xx, los 500, los errores del
+     * render y los plazos agotados se repetirían igual.
+     */
+    static boolean isRetriable(Throwable error) {
+        if (error instanceof PythonCallException pythonError) {
+            return RETRIABLE_STATUSES.contains(pythonError.getStatusCode());
+        }
+        return error instanceof WebClientRequestException || error instanceof PythonUnavailableException;
+    }
+
+    private static String retryCause(Throwable error) {
+        if (error instanceof PythonCallException pythonError) {
+            return String.valueOf(pythonError.getStatusCode());
+        }
+        return error instanceof PythonUnavailableException ? "unavailable" : "connection";
+    }
+
+    /**
+     * Python recibe segundos enteros: se redondea hacia arriba para que nunca abandone antes que Java.
+     */
+    private static long deadlineSeconds(Duration deadline) {
+        return deadline.plusMillis(999).toSeconds();
+    }
 
+    private Mono<PythonVideoResponse> render(
+        PythonBackend backend,
+        String path,
+        Object request,
+        String idempotencyKey,
+        RenderDeadlines.Deadline deadline
+    ) {
+        return Mono.deferContextual(context -> {
+            withPermit(context, permit -> permit.expect(deadline.expected()));
+            if (properties.getProtocol() == ApplicationProperties.Python.Protocol.ASYNC) {
+                return submitAndAwait(backend, path, request, idempotencyKey, deadline.limit());
+            }
+            return post(backend.url(path), request, idempotencyKey, PythonVideoResponse.class)
+                .timeout(deadline.limit())
+                .doOnSuccess(response -> LOG.info("Video generado exitosamente: {}", response.getMetadata().getFull_path()))
+                .doOnError(error -> LOG.error("Error generando video en Python", error));
+        });
+    }
+
+    /**
+     * Modo asíncrono: envía el render, recibe el id del trabajo remoto y espera su fin con polls de
+     * estado o con el callback de Python, sin mantener la conexión abierta.
+     */
+    private Mono<PythonVideoResponse> submitAndAwait(
+        PythonBackend backend,
+        String path,
+        Object request,
+        String idempotencyKey,
+        Duration deadline
+    ) {
+        String ref = UUID.randomUUID().toString();
+        PythonRenderJobRequest jobRequest = new PythonRenderJobRequest();
+        jobRequest.setEndpoint(StringUtils.strip(path, "/"));
+        jobRequest.setRequest(request);
+        jobRequest.setCallback_url(renderTracker.callbackUrl(ref));
+
+        ApplicationProperties.Python.Async async = properties.getAsync();
+        return measured(post(backend.url(async.getSubmitPath()), jobRequest, idempotencyKey, PythonRenderJobStatus.class))
+            .switchIfEmpty(Mono.error(() -> new RuntimeException("Python no retornó el id del render")))
+            .flatMap(submitted -> {
+                LOG.info("📤 Render enviado a {} (job remoto {}, ref {})", backend.getBaseUrl(), submitted.getJob_id(), ref);
+                Mono<PythonRenderJobStatus> poll = measured(
+                    webClient
+                        .get()
+                        .uri(backend.url(async.getSubmitPath() + submitted.getJob_id()))
+                        .retrieve()
+                        .onStatus(HttpStatusCode::isError, response ->
+                            Mono.error(
+                                new PythonCallException(
+                                    response.statusCode().value(),
+                                    "Error consultando el render " + submitted.getJob_id()
+                                )
+                            )
+                        )
+                        .bodyToMono(PythonRenderJobStatus.class)
+                );
+                return Mono.deferContextual(context ->
+                    renderTracker.await(ref, poll, context.<DoubleConsumer>getOrEmpty(PROGRESS_CONTEXT_KEY).orElse(NO_PROGRESS), deadline)
+                )
+                    .doOnError(TimeoutException.class, error -> cancelRemote(backend, submitted.getJob_id()))
+                    .doOnCancel(() -> cancelRemote(backend, submitted.getJob_id()));
+            })
+            // el plazo cuenta desde el envío: un Python que acepta la conexión y no responde no retiene el hueco
+            .timeout(deadline)
+            .flatMap(status -> {
+                if (PythonRenderJobStatus.ERROR.equalsIgnoreCase(status.getStatus()) || status.getResult() == null) {
+                    return Mono.error(new RuntimeException("Error en render de Python: " + status.getError()));
+                }
+                LOG.info("Video generado exitosamente: {}", status.getResult().getMetadata().getFull_path());
+                return Mono.just(status.getResult());
+            })
+            .doOnError(error -> LOG.error("Error generando video en Python", error));
+    }
+
+    /**
+     * En modo asíncrono el permiso del backend se retiene todo el render, así que su carga se mide por lo que
+     * tarda Python en responder a cada petición y no por la duración del render.
+     */
+    private static <T> Mono<T> measured(Mono<T> response) {
+        return Mono.deferContextual(context ->
+            response
+                .elapsed()
+                .doOnNext(timed -> withPermit(context, permit -> permit.responded(Duration.ofMillis(timed.getT1()))))
+                .map(Tuple2::getT2)
+        );
+    }
+
+    private static void withPermit(ContextView context, Consumer<AdaptiveConcurrencyLimiter.Permit> action) {
+        context.<AdaptiveConcurrencyLimiter.Permit>getOrEmpty(PythonBackend.PERMIT_CONTEXT_KEY).ifPresent(action);
+    }
+
+    /**
+     * Pide a Python que detenga un render cuyo resultado ya nadie espera. Es best effort: si falla,
+     * el render remoto termina por su cuenta y su resultado se ignora.
+     */
+    private void cancelRemote(PythonBackend backend, String jobId) {
+        LOG.info("🛑 Cancelando el render remoto {} en {}", jobId, backend.getBaseUrl());
+        webClient
+            .delete()
+            .uri(backend.url(properties.getAsync().getSubmitPath() + jobId))
+            .retrieve()
+            .toBodilessEntity()
+            .timeout(properties.getHealthCheckTimeout())
+            .subscribe(null, error -> LOG.warn("No se pudo cancelar el render remoto {}: {}", jobId, error.getMessage()));
+    }
+
+    private <T> Mono<T> post(String uri, Object request, String idempotencyKey, Class<T> responseType) {
         return webClient
             .post()
-            .uri(PYTHON_API_WITHOUT_URL)
+            .uri(uri)
+            .header(IDEMPOTENCY_KEY_HEADER, idempotencyKey)
             .contentType(MediaType.APPLICATION_JSON)
             .bodyValue(request)
             .retrieve()
             .onStatus(HttpStatusCode::is4xxClientError, response ->
                 response
                     .bodyToMono(String.class)
+                    .defaultIfEmpty("")
                     .flatMap(body -> {
                         LOG.error("Error 4xx en Python: {}", body);
-                        return Mono.error(new RuntimeException("Error 4xx en Python: " + body));
+                        return Mono.error(new PythonCallException(response.statusCode().value(), "Error 4xx en Python: " + body));
                     })
             )
             .onStatus(HttpStatusCode::is5xxServerError, response ->
                 response
                     .bodyToMono(String.class)
+                    .defaultIfEmpty("")
                     .flatMap(body -> {
                         LOG.error("Error 5xx en Python: {}", body);
-                        return Mono.error(new RuntimeException("Error 5xx en Python: " + body));
+                        return Mono.error(new PythonCallException(response.statusCode().value(), "Error 5xx en Python: " + body));
                     })
             )
-            .bodyToMono(PythonVideoResponse.class)
-            .timeout(Duration.ofMinutes(10))
-            .doOnSuccess(response -> LOG.info("Video generado exitosamente: {}", response.getMetadata().getFull_path()))
-            .doOnError(error -> LOG.error("Error generando video en Python", error));
+            .bodyToMono(responseType);
     }
 }
@@ -0,0 +1,99 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Control de admisión de nuevos videos.
+ * <p>
+ * Antes de aceptar (y leer) una subida compara el backlog de la cola de render y la espera
+ * estimada con los umbrales de {@code application.render.admission}. La espera se estima con el
+ * ritmo de renders observado en todo el clúster durante {@code rateWindow}. El estado de la cola se
+ * consulta como mucho una vez cada {@code refreshInterval}, así una ráfaga de subidas no se
+ * convierte en una ráfaga de {@code count(*)}.
+ */
+@Service
+public class RenderAdmissionService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderAdmissionService.class);
+
+    public static final String REJECTED_METER_NAME = "video.admission.rejected";
+
+    private final ApplicationProperties.Render.Admission properties;
+
+    private final Mono<QueueSnapshot> snapshot;
+
+    private final Counter rejected;
+
+    public RenderAdmissionService(RenderJobQueue renderJobQueue, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getRender().getAdmission();
+        this.snapshot = Mono.zip(renderJobQueue.backlog(), renderJobQueue.finishedWithin(properties.getRateWindow()))
+            .map(counts -> new QueueSnapshot(counts.getT1(), counts.getT2() / (double) properties.getRateWindow().toSeconds()))
+            .cache(value -> properties.getRefreshInterval(), error -> Duration.ZERO, () -> Duration.ZERO);
+        this.rejected = Counter.builder(REJECTED_METER_NAME)
+            .description("Videos rechazados con 429 por saturación de la cola de render")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Resultado de la admisión.
+     *
+     * @param admitted {@code true} si la subida puede continuar.
+     * @param backlog trabajos pendientes o en curso.
+     * @param retryAfter cuándo conviene reintentar; {@link Duration#ZERO} si se admitió.
+     */
+    public record Decision(boolean admitted, long backlog, Duration retryAfter) {}
+
+    /**
+     * Decide si se admite un nuevo video. Si no se puede consultar la cola, se admite.
+     */
+    public Mono<Decision> check() {
+        if (!properties.isEnabled()) {
+            return Mono.just(new Decision(true, 0, Duration.ZERO));
+        }
+        return snapshot
+            .map(current -> decide(current.backlog(), current.rendersPerSecond()))
+            .doOnNext(decision -> {
+                if (!decision.admitted()) {
+                    rejected.increment();
+                    LOG.warn("⛔ Cola de render saturada (backlog={}), reintentar en {}", decision.backlog(), decision.retryAfter());
+                }
+            })
+            .onErrorResume(error -> {
+                LOG.warn("No se pudo evaluar la admisión, se admite el video: {}", error.getMessage());
+                return Mono.just(new Decision(true, 0, Duration.ZERO));
+            });
+    }
+
+    /**
+     * Rechaza si el backlog alcanza {@code maxBacklog} o si la espera estimada supera
+     * {@code maxEstimatedWait}. {@code Retry-After} es el tiempo que tardaría la cola, al ritmo
+     * observado, en bajar hasta un nivel admisible.
+     */
+    Decision decide(long backlog, double rendersPerSecond) {
+        long maxBacklog = properties.getMaxBacklog();
+        double maxWaitSeconds = properties.getMaxEstimatedWait().toSeconds();
+        if (rendersPerSecond <= 0) {
+            // sin renders recientes no hay espera estimable: solo se aplica el límite de backlog
+            return backlog < maxBacklog
+                ? new Decision(true, backlog, Duration.ZERO)
+                : new Decision(false, backlog, properties.getDefaultRetryAfter());
+        }
+        double estimatedWaitSeconds = backlog / rendersPerSecond;
+        if (backlog < maxBacklog && estimatedWaitSeconds <= maxWaitSeconds) {
+            return new Decision(true, backlog, Duration.ZERO);
+        }
+        double admissibleBacklog = Math.min(maxBacklog - 1, Math.floor(maxWaitSeconds * rendersPerSecond));
+        long retryAfterSeconds = (long) Math.ceil((backlog - admissibleBacklog) / rendersPerSecond);
+        retryAfterSeconds = Math.max(1, Math.min(retryAfterSeconds, (long) maxWaitSeconds));
+        return new Decision(false, backlog, Duration.ofSeconds(retryAfterSeconds));
+    }
+
+    private record QueueSnapshot(long backlog, double rendersPerSecond) {}
+}
@@ -0,0 +1,98 @@
+package com.video.app.service;
+
+import com.video.app.domain.RenderJob;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.service.dto.VideoDTO;
+import com.video.app.service.dto.VideoStatusEvent;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cancela el render de un video.
+ * <p>
+ * Marca el video CANCELADO y quita su trabajo de la cola. El cambio de estado es condicional
+ * ({@link VideoService#finishProcessing}): si el render termina a la vez, gana uno de los dos y el otro no
+ * sobrescribe su resultado. El cambio se publica en
+ * {@link VideoStatusBroadcaster}, que lo reenvía a los demás nodos: el nodo que lo está renderizando
+ * descarta la suscripción (la llamada a Python se corta y libera su permiso) y limpia sus archivos.
+ * Si el trabajo aún no lo había tomado ningún nodo, los archivos se limpian aquí.
+ */
+@Service
+public class RenderCancellationService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderCancellationService.class);
+
+    private final VideoService videoService;
+
+    private final RenderJobQueue renderJobQueue;
+
+    private final FileStorageService fileStorageService;
+
+    private final VideoStatusBroadcaster videoStatusBroadcaster;
+
+    public RenderCancellationService(
+        VideoService videoService,
+        RenderJobQueue renderJobQueue,
+        FileStorageService fileStorageService,
+        VideoStatusBroadcaster videoStatusBroadcaster
+    ) {
+        this.videoService = videoService;
+        this.renderJobQueue = renderJobQueue;
+        this.fileStorageService = fileStorageService;
+        this.videoStatusBroadcaster = videoStatusBroadcaster;
+    }
+
+    /**
+     * Cancela el render del video si sigue EN_PROCESO.
+     *
+     * @param videoId el id del video.
+     * @return el video, CANCELADO si se canceló o sin cambios si ya había terminado; vacío si no existe.
+     */
+    public Mono<VideoDTO> cancel(Long videoId) {
+        return videoService
+            .findOne(videoId)
+            .flatMap(video -> {
+                if (video.getEstado() != EstadoVideo.EN_PROCESO) {
+                    LOG.debug("[{}] El video ya terminó ({}), no hay render que cancelar", videoId, video.getEstado());
+                    return Mono.just(video);
+                }
+                video.setEstado(EstadoVideo.CANCELADO);
+                return videoService
+                    .finishProcessing(video)
+                    .flatMap(cancelled ->
+                        renderJobQueue
+                            .cancel(videoId)
+                            .map(Optional::of)
+                            .defaultIfEmpty(Optional.empty())
+                            .map(job -> {
+                                LOG.info("🛑 [{}] Render cancelado", videoId);
+                                videoStatusBroadcaster.publish(VideoStatusEvent.of(cancelled));
+                                if (job.map(RenderJob::getLeaseOwner).isEmpty()) {
+                                    cleanupInBackground(videoId);
+                                }
+                                return cancelled;
+                            })
+                    )
+                    .switchIfEmpty(
+                        Mono.defer(() -> {
+                            LOG.debug("[{}] El render terminó mientras se cancelaba, se conserva su resultado", videoId);
+                            return videoService.findOne(videoId);
+                        })
+                    );
+            });
+    }
+
+    /**
+     * Nadie estaba renderizando el video: nadie más va a limpiar sus archivos.
+     */
+    private void cleanupInBackground(Long videoId) {
+        fileStorageService
+            .cleanupFiles(videoId.toString())
+            .subscribe(null, error ->
+                LOG.warn("No se pudieron limpiar los archivos del video cancelado {}: {}", videoId, error.getMessage())
+            );
+    }
+}
@@ -0,0 +1,247 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.RenderJob;
+import com.video.app.domain.RenderStat;
+import com.video.app.repository.RenderStatRepository;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Modelo de coste de los renders, para planificar la cola por tiempo esperado.
+ * <p>
+ * Cada render terminado suma su tiempo real (wall time de la llamada a Python) a la tabla
+ * {@code render_stat}, agregada por formato, número de imágenes y audio. A partir de esa tabla se
+ * ajusta, por formato, una recta por mínimos cuadrados ponderados por el número de muestras:
+ * {@code ms ≈ base + porImagen × imágenes + audio}. Los formatos con pocos datos usan el modelo
+ * global y, sin datos, se usa {@code defaultCost}. El modelo se reajusta como mucho una vez cada
+ * {@code refreshInterval}, así planificar no consulta la tabla en cada lease.
+ */
+@Service
+public class RenderCostModel {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderCostModel.class);
+
+    /**
+     * Formato con el que se agregan los videos que no indican ninguno.
+     */
+    static final String UNKNOWN_FORMAT = "-";
+
+    private final RenderStatRepository renderStatRepository;
+
+    private final ApplicationProperties.Render.Scheduling properties;
+
+    private final Mono<Model> model;
+
+    public RenderCostModel(RenderStatRepository renderStatRepository, ApplicationProperties applicationProperties) {
+        this.renderStatRepository = renderStatRepository;
+        this.properties = applicationProperties.getRender().getScheduling();
+        this.model = Mono.defer(() -> renderStatRepository.findAll().collectList())
+            .map(stats -> fit(stats, properties.getDefaultCost()))
+            .doOnNext(fitted -> LOG.debug("Modelo de coste de render reajustado: {}", fitted))
+            .cache(value -> properties.getRefreshInterval(), error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    /**
+     * Suma un render terminado a las estadísticas. Los errores solo se registran: no deben fallar el render.
+     *
+     * @param formato el formato del video.
+     * @param images imágenes que usó el render.
+     * @param audio si el video lleva audio.
+     * @param videoSeconds duración del video generado según Python, o {@code null} si no la informó.
+     * @param renderTime tiempo real de la llamada a Python.
+     */
+    public Mono<Void> record(String formato, int images, boolean audio, Double videoSeconds, Duration renderTime) {
+        if (images <= 0 || renderTime.isNegative()) {
+            return Mono.empty();
+        }
+        return renderStatRepository
+            .record(formatKey(formato), images, audio, (double) renderTime.toMillis(), videoSeconds, properties.getSmoothing())
+            .then()
+            .onErrorResume(error -> {
+                LOG.warn("No se pudo registrar el tiempo de render: {}", error.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * El modelo vigente. Si no se puede leer la tabla se usa {@code defaultCost} para todo.
+     */
+    public Mono<Model> model() {
+        return model.onErrorResume(error -> {
+            LOG.warn("No se pudo ajustar el modelo de coste de render: {}", error.getMessage());
+            return Mono.just(new Model(Map.of(), null, properties.getDefaultCost()));
+        });
+    }
+
+    /**
+     * Ajusta un modelo por formato y uno global a partir de las estadísticas agregadas.
+     */
+    static Model fit(List<RenderStat> stats, Duration defaultCost) {
+        Map<String, Coefficients> perFormat = new HashMap<>();
+        stats
+            .stream()
+            .collect(Collectors.groupingBy(RenderStat::getFormato))
+            .forEach((formato, buckets) -> {
+                Coefficients coefficients = Coefficients.fit(buckets);
+                if (coefficients != null) {
+                    perFormat.put(formato, coefficients);
+                }
+            });
+        return new Model(perFormat, Coefficients.fit(stats), defaultCost);
+    }
+
+    static String formatKey(String formato) {
+        return formato == null || formato.isBlank() ? UNKNOWN_FORMAT : formato;
+    }
+
+    /**
+     * Modelo de coste ajustado; inmutable.
+     *
+     * @param perFormat coeficientes de cada formato con datos suficientes.
+     * @param global coeficientes de todos los formatos juntos, o {@code null} sin datos.
+     * @param defaultCost coste de los renders sin datos.
+     */
+    public record Model(Map<String, Coefficients> perFormat, Coefficients global, Duration defaultCost) {
+        /**
+         * Tiempo de render esperado.
+         *
+         * @param images número de imágenes, o {@code null} si no se conoce (se usa la media del formato).
+         */
+        public Duration predict(String formato, Integer images, Boolean audio) {
+            Coefficients coefficients = perFormat.getOrDefault(formatKey(formato), global);
+            if (coefficients == null) {
+                return defaultCost;
+            }
+            return Duration.ofMillis(Math.round(coefficients.predict(images, Boolean.TRUE.equals(audio))));
+        }
+
+        /**
+         * Tiempo de render esperado de un trabajo de la cola.
+         */
+        public Duration predict(RenderJob job) {
+            return predict(job.getFormato(), job.getImageCount(), job.getHasAudio());
+        }
+    }
+
+    /**
+     * Coeficientes de {@code ms ≈ base + perImage × imágenes + audio}.
+     *
+     * @param meanMillis media ponderada de los tiempos, para cuando no se conoce el número de imágenes.
+     */
+    public record Coefficients(double base, double perImage, double audio, double meanMillis) {
+        /**
+         * Variables de cada ajuste, de más a menos completo: si las muestras no bastan para
+         * distinguir una variable (por ejemplo, todas con el mismo número de imágenes) se prueba el siguiente.
+         */
+        private static final boolean[][] FEATURE_SETS = {
+            { true, true, true },
+            { true, true, false },
+            { false, true, false },
+        };
+
+        double predict(Integer images, boolean withAudio) {
+            double millis = images == null || images <= 0
+                ? meanMillis
+                : base + perImage * images + (withAudio ? audio : 0);
+            return Math.max(0, millis);
+        }
+
+        /**
+         * Mínimos cuadrados ponderados por el número de muestras de cada combinación; {@code null} sin datos.
+         */
+        static Coefficients fit(List<RenderStat> buckets) {
+            double totalWeight = 0;
+            double weightedSum = 0;
+            for (RenderStat bucket : buckets) {
+                totalWeight += bucket.getSamples();
+                weightedSum += bucket.getSamples() * bucket.getMeanRenderMillis();
+            }
+            if (totalWeight <= 0) {
+                return null;
+            }
+            double meanMillis = weightedSum / totalWeight;
+            for (boolean[] features : FEATURE_SETS) {
+                double[] solution = solve(buckets, features);
+                if (solution != null) {
+                    return new Coefficients(solution[0], solution[1], solution[2], meanMillis);
+                }
+            }
+            return new Coefficients(meanMillis, 0, 0, meanMillis);
+        }
+
+        private static double[] solve(List<RenderStat> buckets, boolean[] features) {
+            int[] used = IntStream.range(0, features.length).filter(i -> features[i]).toArray();
+            int n = used.length;
+            double[][] system = new double[n][n + 1];
+            for (RenderStat bucket : buckets) {
+                double[] x = { 1, bucket.getImages(), Boolean.TRUE.equals(bucket.getHasAudio()) ? 1 : 0 };
+                double weight = bucket.getSamples();
+                for (int row = 0; row < n; row++) {
+                    for (int col = 0; col < n; col++) {
+                        system[row][col] += weight * x[used[row]] * x[used[col]];
+                    }
+                    system[row][n] += weight * x[used[row]] * bucket.getMeanRenderMillis();
+                }
+            }
+            double[] reduced = gauss(system);
+            if (reduced == null) {
+                return null;
+            }
+            double[] solution = new double[features.length];
+            for (int i = 0; i < n; i++) {
+                solution[used[i]] = reduced[i];
+            }
+            return solution;
+        }
+
+        /**
+         * Eliminación gaussiana con pivoteo parcial; {@code null} si el sistema es singular.
+         */
+        private static double[] gauss(double[][] system) {
+            int n = system.length;
+            double tolerance = 0;
+            for (double[] row : system) {
+                for (int col = 0; col < n; col++) {
+                    tolerance = Math.max(tolerance, Math.abs(row[col]));
+                }
+            }
+            tolerance *= 1e-9;
+            for (int pivot = 0; pivot < n; pivot++) {
+                int best = pivot;
+                for (int row = pivot + 1; row < n; row++) {
+                    if (Math.abs(system[row][pivot]) > Math.abs(system[best][pivot])) {
+                        best = row;
+                    }
+                }
+                if (Math.abs(system[best][pivot]) <= tolerance) {
+                    return null;
+                }
+                double[] swap = system[pivot];
+                system[pivot] = system[best];
+                system[best] = swap;
+                for (int row = 0; row < n; row++) {
+                    if (row != pivot) {
+                        double factor = system[row][pivot] / system[pivot][pivot];
+                        for (int col = pivot; col <= n; col++) {
+                            system[row][col] -= factor * system[pivot][col];
+                        }
+                    }
+                }
+            }
+            double[] solution = new double[n];
+            for (int i = 0; i < n; i++) {
+                solution[i] = system[i][n] / system[i][i];
+            }
+            return solution;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.video.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.RenderDeadLetter;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.repository.RenderDeadLetterRepository;
+import com.video.app.service.dto.DeadLetterReplayRequest;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Renders fallidos ("dead letters") guardados en {@code render_dead_letter}.
+ * <p>
+ * Cuando un render termina en ERROR se guarda la causa, los parámetros del video y los errores de cada
+ * intento contra Python, y sus archivos se conservan durante {@code retention}. Un administrador puede
+ * reintentarlos en bloque: se vuelven a encolar a razón de {@code replayRate} por segundo, para que miles
+ * de reintentos tras un mal despliegue de Python no lleguen a la cola de golpe. Pasada la retención, los
+ * archivos de los fallos no reintentados se borran y los fallos reintentados se olvidan.
+ */
+@Service
+public class RenderDeadLetterService implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderDeadLetterService.class);
+
+    public static final String DEAD_LETTERED_METER_NAME = "video.render.dead-lettered";
+
+    public static final String REPLAYED_METER_NAME = "video.render.replayed";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final int MAX_ATTEMPT_ERROR_LENGTH = 300;
+
+    private final RenderDeadLetterRepository renderDeadLetterRepository;
+
+    private final RenderJobQueue renderJobQueue;
+
+    private final VideoService videoService;
+
+    private final FileStorageService fileStorageService;
+
+    private final VideoStatusBroadcaster videoStatusBroadcaster;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.Render.DeadLetter properties;
+
+    private final ApplicationProperties.Role role;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter replayed;
+
+    private final AtomicBoolean replaying = new AtomicBoolean();
+
+    private volatile Disposable currentReplay;
+
+    private Disposable purges;
+
+    private volatile boolean running;
+
+    public RenderDeadLetterService(
+        RenderDeadLetterRepository renderDeadLetterRepository,
+        RenderJobQueue renderJobQueue,
+        VideoService videoService,
+        FileStorageService fileStorageService,
+        VideoStatusBroadcaster videoStatusBroadcaster,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.renderDeadLetterRepository = renderDeadLetterRepository;
+        this.renderJobQueue = renderJobQueue;
+        this.videoService = videoService;
+        this.fileStorageService = fileStorageService;
+        this.videoStatusBroadcaster = videoStatusBroadcaster;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getRender().getDeadLetter();
+        this.role = applicationProperties.getRole();
+        this.meterRegistry = meterRegistry;
+        this.replayed = Counter.builder(REPLAYED_METER_NAME).description("Renders fallidos devueltos a la cola").register(meterRegistry);
+    }
+
+    /**
+     * Reintento en bloque aceptado.
+     *
+     * @param scheduled renders fallidos que se van a reintentar.
+     * @param estimatedDuration tiempo que tardarán en volver todos a la cola.
+     */
+    public record Replay(int scheduled, Duration estimatedDuration) {}
+
+    /**
+     * Guarda el fallo del render de un video, o lo añade al historial si ya había fallado antes.
+     *
+     * @param error el error final; los de intentos anteriores van en {@link Throwable#getSuppressed()}.
+     * @param filesKept {@code false} si los archivos del video ya no existen y no se podrá reintentar.
+     * @return el fallo guardado, vacío si el video ya no existe.
+     */
+    public Mono<RenderDeadLetter> record(Long videoId, Throwable error, boolean filesKept) {
+        return Mono.fromCallable(() -> history(error))
+            .flatMap(history ->
+                renderDeadLetterRepository.record(
+                    videoId,
+                    error.getClass().getSimpleName(),
+                    error instanceof PythonCallException pythonError ? pythonError.getStatusCode() : null,
+                    StringUtils.abbreviate(String.valueOf(error.getMessage()), MAX_ERROR_LENGTH),
+                    history,
+                    !filesKept
+                )
+            )
+            .doOnNext(deadLetter -> {
+                LOG.warn("📮 [{}] Render fallido guardado ({}, fallo {})", videoId, deadLetter.getErrorType(), deadLetter.getFailures());
+                Counter.builder(DEAD_LETTERED_METER_NAME)
+                    .description("Renders terminados en ERROR guardados para revisarlos o reintentarlos")
+                    .tag("error_type", deadLetter.getErrorType())
+                    .register(meterRegistry)
+                    .increment();
+            });
+    }
+
+    public Flux<RenderDeadLetter> findAll(Pageable pageable) {
+        return renderDeadLetterRepository.findAllBy(pageable);
+    }
+
+    public Mono<Long> countAll() {
+        return renderDeadLetterRepository.count();
+    }
+
+    /**
+     * Empieza a reintentar en segundo plano los fallos abiertos que cumplen el filtro.
+     *
+     * @return cuántos se van a reintentar; vacío si ya hay un reintento en bloque en curso en este nodo.
+     */
+    public Mono<Replay> replay(DeadLetterReplayRequest request) {
+        if (!replaying.compareAndSet(false, true)) {
+            return Mono.empty();
+        }
+        int limit = request.limit() != null ? Math.min(request.limit(), properties.getMaxReplay()) : properties.getMaxReplay();
+        Duration period = Duration.ofNanos((long) (1_000_000_000L / properties.getReplayRate()));
+        return renderDeadLetterRepository
+            .findReplayable(request.errorType(), request.httpStatus(), request.failedAfter(), request.failedBefore(), Math.max(limit, 0))
+            .map(RenderDeadLetter::getId)
+            .collectList()
+            .doOnNext(ids -> startReplay(ids, period))
+            .map(ids -> new Replay(ids.size(), period.multipliedBy(ids.size())))
+            .doOnError(error -> replaying.set(false));
+    }
+
+    private void startReplay(List<Long> ids, Duration period) {
+        if (ids.isEmpty()) {
+            replaying.set(false);
+            return;
+        }
+        LOG.info("🔁 Reintentando {} renders fallidos, uno cada {}", ids.size(), period);
+        currentReplay = Flux.fromIterable(ids)
+            .delayElements(period)
+            .concatMap(id ->
+                replayOne(id).onErrorResume(error -> {
+                    LOG.warn("No se pudo reintentar el render fallido {}: {}", id, error.getMessage());
+                    return Mono.just(false);
+                })
+            )
+            .filter(Boolean::booleanValue)
+            .count()
+            .doFinally(signal -> replaying.set(false))
+            .subscribe(count -> LOG.info("🔁 Reintento en bloque terminado: {} de {} renders devueltos a la cola", count, ids.size()));
+    }
+
+    /**
+     * Devuelve a la cola un render fallido si sigue abierto y su video sigue en ERROR.
+     */
+    Mono<Boolean> replayOne(Long deadLetterId) {
+        return renderDeadLetterRepository
+            .claimForReplay(deadLetterId)
+            .flatMap(deadLetter -> videoService.findOne(deadLetter.getVideoId()))
+            .filter(video -> video.getEstado() == EstadoVideo.ERROR)
+            .flatMap(video -> {
+                video.setEstado(EstadoVideo.EN_PROCESO);
+                return videoService.update(video);
+            })
+            .flatMap(video -> renderJobQueue.requeue(video.getId()).thenReturn(video))
+            .doOnNext(video -> {
+                LOG.info("🔁 [{}] Render fallido devuelto a la cola", video.getId());
+                replayed.increment();
+                videoStatusBroadcaster.publish(VideoStatusEvent.of(video));
+            })
+            .map(video -> true)
+            .defaultIfEmpty(false);
+    }
+
+    @Override
+    public void start() {
+        // la purga la hacen los nodos que renderizan; los reintentos se aceptan en cualquiera
+        if (role.renders()) {
+            purges = Flux.interval(properties.getPurgeInterval())
+                .onBackpressureDrop()
+                .concatMap(tick ->
+                    purge().onErrorResume(error -> {
+                        LOG.warn("Error purgando renders fallidos: {}", error.getMessage());
+                        return Mono.empty();
+                    })
+                )
+                .subscribe();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (purges != null) {
+            purges.dispose();
+        }
+        if (currentReplay != null) {
+            currentReplay.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Borra los archivos de los fallos que llevan más de {@code retention} sin reintentarse, por lotes,
+     * y olvida los reintentados hace más de {@code retention}.
+     *
+     * @return el número de videos cuyos archivos se borraron.
+     */
+    Mono<Long> purge() {
+        long retentionSeconds = properties.getRetention().toSeconds();
+        int batchSize = properties.getPurgeBatchSize();
+        // cada lote vuelve a consultar: los ya marcados dejan de salir
+        return Mono.defer(() ->
+            renderDeadLetterRepository
+                .findExpired(retentionSeconds, batchSize)
+                // se marca antes de borrar: un reintento simultáneo o la purga de otro nodo ya no lo toman
+                .concatMap(deadLetter ->
+                    renderDeadLetterRepository
+                        .markFilesPurged(deadLetter.getId())
+                        .filter(updated -> updated > 0)
+                        .flatMap(updated -> fileStorageService.cleanupFiles(deadLetter.getVideoId().toString()).thenReturn(true))
+                        .defaultIfEmpty(false)
+                )
+                .collectList()
+        )
+            .repeat()
+            .takeUntil(purgedBatch -> purgedBatch.size() < batchSize)
+            .flatMapIterable(purgedBatch -> purgedBatch)
+            .filter(Boolean::booleanValue)
+            .count()
+            .flatMap(purged -> renderDeadLetterRepository.deleteReplayedBefore(retentionSeconds).thenReturn(purged))
+            .doOnNext(purged -> {
+                if (purged > 0) {
+                    LOG.info("🗑️ Archivos de {} renders fallidos borrados tras {}", purged, properties.getRetention());
+                }
+            });
+    }
+
+    /**
+     * Entrada del historial para este fallo: un array JSON con un elemento que lista el error de cada
+     * intento contra Python, del primero al último.
+     */
+    private String history(Throwable error) {
+        ObjectNode failure = objectMapper.createObjectNode();
+        failure.put("failedAt", Instant.now().toString());
+        ArrayNode attempts = failure.putArray("attempts");
+        for (Throwable previous : error.getSuppressed()) {
+            attempts.add(describe(previous));
+        }
+        attempts.add(describe(error));
+        return objectMapper.createArrayNode().add(failure).toString();
+    }
+
+    private static String describe(Throwable error) {
+        String type = error.getClass().getSimpleName();
+        if (error instanceof PythonCallException pythonError) {
+            type += "(" + pythonError.getStatusCode() + ")";
+        }
+        return type + ": " + StringUtils.abbreviate(String.valueOf(error.getMessage()), MAX_ATTEMPT_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,124 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Plazo de cada render, en lugar de un timeout fijo para todos.
+ * <p>
+ * El tiempo esperado es {@code base + perImage × imágenes + perVideoSecond × duración del video}, donde la
+ * duración es la del audio o, sin audio, imágenes × transición. El plazo es ese tiempo por
+ * {@code safetyFactor}, acotado entre {@code min} y {@code max}; un audio cuya duración no se pudo leer
+ * recibe {@code max}. Por cada render terminado se cuenta si acabó dentro del tiempo esperado
+ * ({@code within}), lo superó sin agotar el plazo ({@code overrun}) o lo agotó ({@code timeout}), por tamaño.
+ */
+@Service
+public class RenderDeadlines {
+
+    public static final String OUTCOME_METER_NAME = "video.render.deadline";
+
+    public static final String USAGE_METER_NAME = "video.render.deadline.usage";
+
+    /**
+     * Límite superior de cada tramo de tamaño, en imágenes; el último tramo no tiene límite.
+     */
+    private static final int[] SIZE_BOUNDS = { 5, 20, 50 };
+
+    private final ApplicationProperties.Render.Deadline properties;
+
+    private final MeterRegistry meterRegistry;
+
+    public RenderDeadlines(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getRender().getDeadline();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Calcula el plazo de un render.
+     *
+     * @param images imágenes del video.
+     * @param hasAudio si el video lleva audio.
+     * @param transitionSeconds segundos por imagen sin audio, o {@code null} para el valor por defecto de Python (3 s).
+     * @param audioSeconds duración del audio, o {@code null} si no se conoce.
+     */
+    public Deadline forRender(int images, boolean hasAudio, Integer transitionSeconds, Double audioSeconds) {
+        int size = size(images);
+        if (hasAudio && audioSeconds == null) {
+            return new Deadline(properties.getMax(), properties.getMax(), size);
+        }
+        double videoSeconds = hasAudio ? audioSeconds : images * (double) (transitionSeconds != null ? transitionSeconds : 3);
+        long expectedMillis =
+            properties.getBase().toMillis() +
+            properties.getPerImage().toMillis() * Math.max(images, 0) +
+            Math.round(properties.getPerVideoSecond().toMillis() * Math.max(videoSeconds, 0));
+        Duration limit = Duration.ofMillis(Math.round(expectedMillis * properties.getSafetyFactor()));
+        if (limit.compareTo(properties.getMin()) < 0) {
+            limit = properties.getMin();
+        } else if (limit.compareTo(properties.getMax()) > 0) {
+            limit = properties.getMax();
+        }
+        return new Deadline(Duration.ofMillis(Math.min(expectedMillis, limit.toMillis())), limit, size);
+    }
+
+    /**
+     * Cuenta un render terminado. Los errores que no son del plazo no se cuentan: no dicen nada de él.
+     *
+     * @param elapsed tiempo real de la llamada a Python.
+     * @param error el error del render, o {@code null} si terminó bien.
+     */
+    public void record(Deadline deadline, Duration elapsed, Throwable error) {
+        String outcome;
+        if (error instanceof TimeoutException) {
+            outcome = "timeout";
+        } else if (error != null) {
+            return;
+        } else {
+            outcome = elapsed.compareTo(deadline.expected()) > 0 ? "overrun" : "within";
+        }
+        String size = sizeTag(deadline.size());
+        Counter.builder(OUTCOME_METER_NAME)
+            .description("Renders terminados dentro del tiempo esperado, por encima de él o por plazo agotado")
+            .tag("outcome", outcome)
+            .tag("size", size)
+            .register(meterRegistry)
+            .increment();
+        DistributionSummary.builder(USAGE_METER_NAME)
+            .description("Fracción del plazo que usó cada render")
+            .tag("size", size)
+            .register(meterRegistry)
+            .record(elapsed.toMillis() / (double) deadline.limit().toMillis());
+    }
+
+    /**
+     * Tramo de tamaño del render: 0 hasta 5 imágenes, 1 hasta 20, 2 hasta 50 y 3 el resto.
+     */
+    static int size(int images) {
+        for (int i = 0; i < SIZE_BOUNDS.length; i++) {
+            if (images <= SIZE_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return SIZE_BOUNDS.length;
+    }
+
+    static String sizeTag(int size) {
+        if (size >= SIZE_BOUNDS.length) {
+            return ">" + SIZE_BOUNDS[SIZE_BOUNDS.length - 1];
+        }
+        return (size == 0 ? 1 : SIZE_BOUNDS[size - 1] + 1) + "-" + SIZE_BOUNDS[size];
+    }
+
+    /**
+     * Plazo de un render.
+     *
+     * @param expected tiempo esperado, sin margen de seguridad.
+     * @param limit plazo tras el que Java y Python abandonan el render.
+     * @param size tramo de tamaño, para las métricas.
+     */
+    public record Deadline(Duration expected, Duration limit, int size) {}
+}
@@ -0,0 +1,244 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.RenderJob;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Consume la cola duradera {@link RenderJobQueue} y lanza los renders.
+ * <p>
+ * Cada {@code pollInterval} toma tantos trabajos como huecos libres tenga
+ * ({@code maxConcurrency - enCurso}), de modo que los trabajos pendientes esperan en
+ * Postgres y no en memoria. Los ids tomados alimentan el pipeline reactivo de
+ * {@link VideoProcessingService#processAll(Flux)}. Mientras hay trabajos en curso renueva sus leases.
+ * Solo corre en los nodos que renderizan ({@code application.role} {@code worker} o {@code all}).
+ * <p>
+ * Al apagarse drena el nodo: el readiness pasa a {@code REFUSING_TRAFFIC}, deja de tomar trabajos y espera
+ * a los renders en curso hasta {@code drainTimeout}, renovando sus leases. Los que no terminan a tiempo se
+ * devuelven a la cola sin gastar un intento, y el nodo que los retome reutiliza la salida si Python ya la generó.
+ */
+@Service
+public class RenderJobDispatcher implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderJobDispatcher.class);
+
+    private final RenderJobQueue renderJobQueue;
+
+    private final VideoProcessingService videoProcessingService;
+
+    private final ApplicationProperties.Render properties;
+
+    private final ApplicationProperties.Role role;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Trabajos tomados por este nodo, indexados por id de video.
+     */
+    private final Map<Long, RenderJob> leasedJobs = new ConcurrentHashMap<>();
+
+    private final Sinks.Many<Long> leasedVideoIds = Sinks.many().unicast().onBackpressureBuffer();
+
+    private final Sinks.Empty<Void> rendersFinished = Sinks.empty();
+
+    private Disposable renders;
+
+    private Disposable polls;
+
+    private Disposable heartbeats;
+
+    private volatile boolean draining;
+
+    private volatile boolean running;
+
+    public RenderJobDispatcher(
+        RenderJobQueue renderJobQueue,
+        VideoProcessingService videoProcessingService,
+        ApplicationProperties applicationProperties,
+        ApplicationEventPublisher eventPublisher
+    ) {
+        this.renderJobQueue = renderJobQueue;
+        this.videoProcessingService = videoProcessingService;
+        this.properties = applicationProperties.getRender();
+        this.role = applicationProperties.getRole();
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void start() {
+        ApplicationProperties.Render.Queue queue = properties.getQueue();
+        if (!queue.isEnabled()) {
+            LOG.info("Cola de render deshabilitada (application.render.queue.enabled=false)");
+            return;
+        }
+        if (!role.renders()) {
+            LOG.info("Nodo {}: los renders encolados aquí los toman los workers", role);
+            return;
+        }
+        LOG.info(
+            "Iniciando dispatcher de render: nodo={}, maxConcurrency={}, pollInterval={}, lease={}",
+            renderJobQueue.getNodeId(),
+            properties.getMaxConcurrency(),
+            queue.getPollInterval(),
+            queue.getLeaseDuration()
+        );
+        renders = videoProcessingService
+            .processAll(leasedVideoIds.asFlux())
+            .concatMap(outcome -> finish(outcome).onErrorResume(this::logFinishError))
+            .doFinally(signal -> rendersFinished.tryEmitEmpty())
+            .subscribe();
+        polls = Flux.interval(Duration.ZERO, queue.getPollInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> poll().onErrorResume(this::logPollError))
+            .subscribe();
+        heartbeats = Flux.interval(queue.getHeartbeatInterval())
+            .onBackpressureDrop()
+            .filter(tick -> !leasedJobs.isEmpty())
+            .concatMap(tick -> renderJobQueue.heartbeat().onErrorResume(this::logHeartbeatError))
+            .subscribe();
+        running = true;
+    }
+
+    /**
+     * Parada inmediata: los renders en curso se cortan y sus leases expiran.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        Disposables.composite(polls, renders, heartbeats).dispose();
+    }
+
+    /**
+     * Parada al apagar el contexto: drena el nodo antes de avisar a Spring.
+     */
+    @Override
+    public void stop(Runnable callback) {
+        drain().doFinally(signal -> callback.run()).subscribe();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Número de trabajos tomados por este nodo (en curso o a punto de empezar).
+     */
+    public int getInFlight() {
+        return leasedJobs.size();
+    }
+
+    /**
+     * Deja de tomar trabajos, espera a los renders en curso hasta {@code drainTimeout} y devuelve a la cola
+     * los que no terminaron.
+     */
+    Mono<Void> drain() {
+        Duration timeout = properties.getQueue().getDrainTimeout();
+        draining = true;
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        LOG.info("🚦 Drenando el nodo: {} renders en curso, plazo {}", leasedJobs.size(), timeout);
+        // sin más ids, processAll completa cuando terminan los renders en curso
+        leasedVideoIds.tryEmitComplete();
+        return rendersFinished
+            .asMono()
+            .timeout(timeout)
+            .onErrorResume(TimeoutException.class, error -> {
+                // corta las llamadas a Python; los archivos se conservan para el nodo que los retome
+                renders.dispose();
+                return Mono.empty();
+            })
+            .then(Mono.defer(this::handOverUnfinished))
+            // antes de propagar la señal: quien espera el drenado ve el nodo ya parado
+            .doOnTerminate(() -> {
+                running = false;
+                Disposables.composite(polls, renders, heartbeats).dispose();
+            });
+    }
+
+    private Mono<Void> handOverUnfinished() {
+        List<RenderJob> unfinished = List.copyOf(leasedJobs.values());
+        if (unfinished.isEmpty()) {
+            LOG.info("🚦 Nodo drenado: todos los renders en curso terminaron");
+            return Mono.empty();
+        }
+        leasedJobs.clear();
+        return Flux.fromIterable(unfinished)
+            .flatMap(this::handOver)
+            .filter(Boolean::booleanValue)
+            .count()
+            .doOnNext(count -> LOG.warn("🚦 Plazo de drenado agotado: {} de {} renders devueltos a la cola", count, unfinished.size()))
+            .then();
+    }
+
+    private Mono<Boolean> handOver(RenderJob job) {
+        return renderJobQueue
+            .handOver(job)
+            .doOnNext(handedOver -> LOG.info("🚦 [{}] Render devuelto a la cola para otro nodo", job.getVideoId()))
+            .onErrorResume(error -> {
+                LOG.warn("[{}] No se pudo devolver el render a la cola; su lease expirará: {}", job.getVideoId(), error.getMessage());
+                return Mono.just(false);
+            });
+    }
+
+    Mono<Void> poll() {
+        int free = properties.getMaxConcurrency() - leasedJobs.size();
+        if (draining || free <= 0) {
+            return Mono.empty();
+        }
+        return renderJobQueue
+            .lease(Math.min(free, properties.getQueue().getBatchSize()))
+            .concatMap(job -> {
+                // tomado mientras empezaba el drenado: para otro nodo
+                if (draining) {
+                    return handOver(job).then();
+                }
+                LOG.info("🎬 [{}] Render tomado de la cola (job {}, intento {})", job.getVideoId(), job.getId(), job.getAttempts());
+                leasedJobs.put(job.getVideoId(), job);
+                leasedVideoIds.emitNext(job.getVideoId(), Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Mono<Boolean> finish(VideoProcessingService.RenderOutcome outcome) {
+        RenderJob job = leasedJobs.remove(outcome.videoId());
+        if (job == null) {
+            return Mono.empty();
+        }
+        if (outcome.completed()) {
+            return renderJobQueue.complete(job);
+        }
+        return renderJobQueue.fail(job, new IllegalStateException("Render terminado en ERROR"));
+    }
+
+    private Mono<Boolean> logFinishError(Throwable error) {
+        LOG.error("Error actualizando el estado de un trabajo de render; su lease expirará y se reintentará", error);
+        return Mono.empty();
+    }
+
+    private Mono<Void> logPollError(Throwable error) {
+        LOG.warn("Error consultando la cola de render: {}", error.getMessage());
+        return Mono.empty();
+    }
+
+    private Mono<Long> logHeartbeatError(Throwable error) {
+        LOG.warn("Error renovando leases de render: {}", error.getMessage());
+        return Mono.empty();
+    }
+}
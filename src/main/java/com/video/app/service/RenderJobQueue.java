@@ -0,0 +1,326 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.RenderJob;
+import com.video.app.repository.RenderJobRepository;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cola duradera de renderizado sobre la tabla {@code render_job}.
+ * <p>
+ * Los trabajos sobreviven a reinicios: un nodo los toma con un lease (visibility timeout)
+ * que renueva periódicamente; si el nodo muere, el lease expira y otro nodo los recupera.
+ */
+@Service
+public class RenderJobQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderJobQueue.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final Long ANONYMOUS_USER_ID = -1L;
+
+    private final RenderJobRepository renderJobRepository;
+
+    private final ApplicationProperties.Render renderProperties;
+
+    private final ApplicationProperties.Render.Queue properties;
+
+    private final RenderCostModel renderCostModel;
+
+    private final DeficitRoundRobin<Long, RenderJob> fairScheduler = new DeficitRoundRobin<>(
+        job -> job.getUserId() != null ? job.getUserId() : ANONYMOUS_USER_ID,
+        job -> job.getWeight() != null ? job.getWeight() : 1,
+        job -> 1L,
+        1
+    );
+
+    private final String nodeId;
+
+    public RenderJobQueue(
+        RenderJobRepository renderJobRepository,
+        RenderCostModel renderCostModel,
+        ApplicationProperties applicationProperties
+    ) {
+        this.renderJobRepository = renderJobRepository;
+        this.renderCostModel = renderCostModel;
+        this.renderProperties = applicationProperties.getRender();
+        this.properties = renderProperties.getQueue();
+        this.nodeId = resolveNodeId();
+    }
+
+    /**
+     * Identificador de este nodo, usado como dueño de los leases.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Encola el render de un video con el peso por defecto. Si ya existe un trabajo activo para el video no hace nada.
+     *
+     * @param videoId el id del video a renderizar.
+     * @return el trabajo creado o re-encolado, vacío si ya estaba en la cola.
+     */
+    public Mono<RenderJob> enqueue(Long videoId) {
+        return enqueue(videoId, Collections.emptyList());
+    }
+
+    /**
+     * Encola el render de un video con el peso que corresponde a las authorities de su dueño.
+     *
+     * @param videoId el id del video a renderizar.
+     * @param authorities las authorities del usuario que lo solicita.
+     * @return el trabajo creado o re-encolado, vacío si ya estaba en la cola.
+     */
+    public Mono<RenderJob> enqueue(Long videoId, Collection<String> authorities) {
+        return enqueue(videoId, authorities, null);
+    }
+
+    /**
+     * Encola el render de un video indicando cuántas imágenes tiene, para estimar su coste al planificar.
+     *
+     * @param videoId el id del video a renderizar.
+     * @param authorities las authorities del usuario que lo solicita.
+     * @param imageCount número de imágenes del video, o {@code null} si no se conoce.
+     * @return el trabajo creado o re-encolado, vacío si ya estaba en la cola.
+     */
+    public Mono<RenderJob> enqueue(Long videoId, Collection<String> authorities, Integer imageCount) {
+        return enqueue(videoId, weightFor(authorities), imageCount);
+    }
+
+    private Mono<RenderJob> enqueue(Long videoId, int weight, Integer imageCount) {
+        return renderJobRepository
+            .enqueue(videoId, weight, imageCount)
+            .doOnNext(job -> LOG.info("📥 [{}] Render encolado (job {}, peso {})", videoId, job.getId(), job.getWeight()))
+            .switchIfEmpty(Mono.fromRunnable(() -> LOG.debug("[{}] El video ya tenía un render activo en la cola", videoId)));
+    }
+
+    /**
+     * Vuelve a encolar el render de un video que ya pasó por la cola (reintento o recuperación), conservando
+     * el peso de su trabajo anterior: quien lo re-encola no conoce las authorities del dueño.
+     *
+     * @param videoId el id del video a renderizar.
+     * @return el trabajo re-encolado, vacío si ya estaba en la cola.
+     */
+    public Mono<RenderJob> requeue(Long videoId) {
+        return renderJobRepository
+            .findByVideoId(videoId)
+            .mapNotNull(RenderJob::getWeight)
+            .defaultIfEmpty(renderProperties.getFairness().getDefaultWeight())
+            .flatMap(weight -> enqueue(videoId, weight, null));
+    }
+
+    /**
+     * Peso de un usuario en el reparto justo: el mayor configurado entre sus authorities.
+     */
+    public int weightFor(Collection<String> authorities) {
+        ApplicationProperties.Render.Fairness fairness = renderProperties.getFairness();
+        return authorities
+            .stream()
+            .map(fairness.getWeights()::get)
+            .filter(Objects::nonNull)
+            .max(Integer::compare)
+            .orElse(fairness.getDefaultWeight());
+    }
+
+    /**
+     * Toma hasta {@code limit} trabajos disponibles para este nodo.
+     * <p>
+     * Con el reparto justo activo, elige entre los candidatos con deficit round-robin por usuario,
+     * de modo que la ráfaga de un usuario no retrasa los trabajos de los demás. Con una política
+     * distinta de FIFO, los candidatos se ordenan por su tiempo de render esperado según
+     * {@link RenderCostModel}; con reparto justo, el orden decide solo entre los
+     * {@code candidatesPerUser} trabajos más antiguos de cada usuario y el reparto entre usuarios no cambia.
+     */
+    public Flux<RenderJob> lease(int limit) {
+        if (limit <= 0) {
+            return Flux.empty();
+        }
+        ApplicationProperties.Render.Scheduling scheduling = renderProperties.getScheduling();
+        boolean fair = renderProperties.getFairness().isEnabled();
+        if (scheduling.getPolicy() == ApplicationProperties.Render.Scheduling.Policy.FIFO) {
+            if (!fair) {
+                return renderJobRepository.lease(nodeId, limit, properties.getLeaseDuration().toSeconds());
+            }
+            return findCandidates(limit).flatMapMany(candidates -> leaseSelected(fairScheduler.select(candidates, limit)));
+        }
+        int maxCandidates = renderProperties.getFairness().getMaxCandidates();
+        return findCandidates(fair ? Math.max(limit, scheduling.getCandidatesPerUser()) : maxCandidates)
+            .zipWith(renderCostModel.model())
+            .flatMapMany(candidatesAndModel -> {
+                List<RenderJob> candidates = prioritize(
+                    candidatesAndModel.getT1(),
+                    candidatesAndModel.getT2(),
+                    scheduling.getPolicy(),
+                    scheduling.getAgingWeight(),
+                    Instant.now()
+                );
+                return leaseSelected(
+                    fair ? fairScheduler.select(candidates, limit) : candidates.subList(0, Math.min(limit, candidates.size()))
+                );
+            });
+    }
+
+    private Mono<List<RenderJob>> findCandidates(int perUser) {
+        return renderJobRepository.findLeaseCandidates(perUser, renderProperties.getFairness().getMaxCandidates()).collectList();
+    }
+
+    private Flux<RenderJob> leaseSelected(List<RenderJob> selected) {
+        if (selected.isEmpty()) {
+            return Flux.empty();
+        }
+        Map<Long, Duration> expectedCosts = new HashMap<>();
+        selected
+            .stream()
+            .filter(job -> job.getExpectedCost() != null)
+            .forEach(job -> expectedCosts.put(job.getId(), job.getExpectedCost()));
+        List<Long> ids = selected.stream().map(RenderJob::getId).toList();
+        return renderJobRepository
+            .leaseByIds(ids, nodeId, properties.getLeaseDuration().toSeconds())
+            .doOnNext(job -> job.setExpectedCost(expectedCosts.get(job.getId())));
+    }
+
+    /**
+     * Ordena los candidatos según la política: SEJF por tiempo esperado y AGING por tiempo esperado
+     * menos {@code agingWeight} por el tiempo ya esperado en la cola. Los empates se resuelven por
+     * orden de llegada. Deja el tiempo esperado en {@link RenderJob#getExpectedCost()}.
+     *
+     * @return una nueva lista con los candidatos en el orden en que conviene servirlos.
+     */
+    static List<RenderJob> prioritize(
+        List<RenderJob> candidates,
+        RenderCostModel.Model model,
+        ApplicationProperties.Render.Scheduling.Policy policy,
+        double agingWeight,
+        Instant now
+    ) {
+        Map<RenderJob, Double> priorities = new IdentityHashMap<>();
+        for (RenderJob job : candidates) {
+            Duration expected = model.predict(job);
+            job.setExpectedCost(expected);
+            double priority = expected.toMillis();
+            if (policy == ApplicationProperties.Render.Scheduling.Policy.AGING && job.getAvailableAt() != null) {
+                priority -= agingWeight * Math.max(0, Duration.between(job.getAvailableAt(), now).toMillis());
+            }
+            priorities.put(job, priority);
+        }
+        if (policy == ApplicationProperties.Render.Scheduling.Policy.FIFO) {
+            return new ArrayList<>(candidates);
+        }
+        List<RenderJob> ordered = new ArrayList<>(candidates);
+        ordered.sort(
+            Comparator.<RenderJob>comparingDouble(priorities::get)
+                .thenComparing(RenderJob::getAvailableAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(RenderJob::getId, Comparator.nullsLast(Comparator.naturalOrder()))
+        );
+        return ordered;
+    }
+
+    /**
+     * Reclama para este nodo hasta {@code limit} trabajos con el lease expirado, sin contar un nuevo intento.
+     */
+    public Flux<RenderJob> claimExpired(int limit) {
+        return renderJobRepository.claimExpiredLeases(nodeId, limit, properties.getLeaseDuration().toSeconds());
+    }
+
+    /**
+     * Ids de videos EN_PROCESO sin trabajo activo en la cola, creados hace más de {@code grace}.
+     */
+    public Flux<Long> findOrphanedVideoIds(long afterId, Duration grace, int limit) {
+        return renderJobRepository.findOrphanedVideoIds(afterId, grace.toSeconds(), limit);
+    }
+
+    /**
+     * Trabajo de render de un video, si lo tiene.
+     */
+    public Mono<RenderJob> findByVideoId(Long videoId) {
+        return renderJobRepository.findByVideoId(videoId);
+    }
+
+    /**
+     * Renueva los leases de todos los trabajos que este nodo tiene en curso.
+     */
+    public Mono<Long> heartbeat() {
+        return renderJobRepository.extendLeases(nodeId, properties.getLeaseDuration().toSeconds());
+    }
+
+    public Mono<Boolean> complete(RenderJob job) {
+        return renderJobRepository.complete(job.getId(), nodeId).map(this::ownedLease);
+    }
+
+    public Mono<Boolean> fail(RenderJob job, Throwable cause) {
+        String error = StringUtils.abbreviate(String.valueOf(cause.getMessage()), MAX_ERROR_LENGTH);
+        return renderJobRepository.fail(job.getId(), nodeId, error).map(this::ownedLease);
+    }
+
+    /**
+     * Devuelve el trabajo a la cola para que se reintente tras {@code delay}.
+     */
+    public Mono<Boolean> release(RenderJob job, Duration delay) {
+        return renderJobRepository.release(job.getId(), nodeId, delay.toSeconds()).map(this::ownedLease);
+    }
+
+    /**
+     * Devuelve el trabajo a la cola para que otro nodo lo retome ya, sin gastar uno de sus intentos.
+     */
+    public Mono<Boolean> handOver(RenderJob job) {
+        return renderJobRepository.handOver(job.getId(), nodeId).map(this::ownedLease);
+    }
+
+    /**
+     * Cancela el trabajo pendiente o en curso de un video.
+     *
+     * @return el trabajo cancelado, con el nodo que lo tenía en {@code leaseOwner}; vacío si no había trabajo activo.
+     */
+    public Mono<RenderJob> cancel(Long videoId) {
+        return renderJobRepository.cancel(videoId);
+    }
+
+    /**
+     * Número de trabajos pendientes o en curso en todo el clúster.
+     */
+    public Mono<Long> backlog() {
+        return renderJobRepository.countBacklog();
+    }
+
+    /**
+     * Número de trabajos terminados en todo el clúster durante la última ventana {@code window}.
+     */
+    public Mono<Long> finishedWithin(Duration window) {
+        return renderJobRepository.countFinishedWithin(window.toSeconds());
+    }
+
+    private boolean ownedLease(Long updated) {
+        return updated != null && updated > 0;
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,244 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.service.dto.RenderProgress;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Progreso en memoria de los renders en curso en este nodo.
+ * <p>
+ * Cada render guarda una instantánea inmutable que se reemplaza en cada cambio, así que leer el
+ * progreso nunca bloquea. Si Python informa un porcentaje, la ETA sale de su ritmo; si no, de una
+ * media móvil exponencial (EWMA) de los tiempos de render anteriores con el mismo número de
+ * imágenes y audio. Para combinaciones aún no vistas se usa el tiempo medio por imagen.
+ * <p>
+ * Cada cambio de etapa se publica en {@link VideoStatusBroadcaster} con el progreso del render; los
+ * porcentajes de Python, como mucho una vez por {@code publishInterval} y video, para no reenviar a los
+ * demás nodos cada informe de Python.
+ */
+@Service
+public class RenderProgressRegistry {
+
+    public static final String TRACKED_METER_NAME = "video.render.progress.tracked";
+
+    private static final int FINALIZING_PERCENT = 99;
+
+    private final ApplicationProperties.Render.Progress properties;
+
+    private final VideoStatusBroadcaster videoStatusBroadcaster;
+
+    private final LongSupplier nanoTime;
+
+    private final Map<Long, Tracked> renders = new ConcurrentHashMap<>();
+
+    private final Map<RenderKind, Ewma> renderTimes = new ConcurrentHashMap<>();
+
+    private final Map<Boolean, Ewma> timePerImage = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RenderProgressRegistry(
+        ApplicationProperties applicationProperties,
+        VideoStatusBroadcaster videoStatusBroadcaster,
+        MeterRegistry meterRegistry
+    ) {
+        this(applicationProperties, videoStatusBroadcaster, meterRegistry, System::nanoTime);
+    }
+
+    RenderProgressRegistry(
+        ApplicationProperties applicationProperties,
+        VideoStatusBroadcaster videoStatusBroadcaster,
+        MeterRegistry meterRegistry,
+        LongSupplier nanoTime
+    ) {
+        this.properties = applicationProperties.getRender().getProgress();
+        this.videoStatusBroadcaster = videoStatusBroadcaster;
+        this.nanoTime = nanoTime;
+        Gauge.builder(TRACKED_METER_NAME, renders, Map::size).description("Renders con progreso en este nodo").register(meterRegistry);
+    }
+
+    /**
+     * Empieza a seguir el render de un video, en la etapa PREPARING.
+     */
+    public void start(Long videoId, int images, boolean audio) {
+        long now = nanoTime.getAsLong();
+        renders.put(videoId, new Tracked(RenderProgress.Stage.PREPARING, Math.max(images, 1), audio, now, null, 0, new AtomicLong(now)));
+        publish(videoId, true);
+    }
+
+    /**
+     * Pasa el render a otra etapa; no hace nada si no se está siguiendo.
+     */
+    public void stage(Long videoId, RenderProgress.Stage stage) {
+        long now = nanoTime.getAsLong();
+        renders.computeIfPresent(videoId, (id, tracked) ->
+            new Tracked(stage, tracked.images(), tracked.audio(), now, null, 0, tracked.publishedAt())
+        );
+        publish(videoId, true);
+    }
+
+    /**
+     * Porcentaje informado por Python mientras renderiza.
+     */
+    public void report(Long videoId, double percent) {
+        long now = nanoTime.getAsLong();
+        double clamped = Math.max(0, Math.min(100, percent));
+        renders.computeIfPresent(videoId, (id, tracked) ->
+            tracked.stage() == RenderProgress.Stage.RENDERING
+                ? new Tracked(
+                    tracked.stage(),
+                    tracked.images(),
+                    tracked.audio(),
+                    tracked.stageStartedAt(),
+                    clamped,
+                    now,
+                    tracked.publishedAt()
+                )
+                : tracked
+        );
+        publish(videoId, false);
+    }
+
+    /**
+     * Python terminó el render: su duración alimenta las estimaciones.
+     *
+     * @param imagesUsed imágenes que usó Python, o {@code null} para usar las contadas al empezar.
+     */
+    public void rendered(Long videoId, Integer imagesUsed) {
+        Tracked tracked = renders.get(videoId);
+        if (tracked == null || tracked.stage() != RenderProgress.Stage.RENDERING) {
+            return;
+        }
+        int images = imagesUsed != null && imagesUsed > 0 ? imagesUsed : tracked.images();
+        double seconds = (nanoTime.getAsLong() - tracked.stageStartedAt()) / 1e9;
+        renderTimes.computeIfAbsent(new RenderKind(images, tracked.audio()), kind -> new Ewma()).add(seconds, properties.getSmoothing());
+        timePerImage.computeIfAbsent(tracked.audio(), audio -> new Ewma()).add(seconds / images, properties.getSmoothing());
+    }
+
+    /**
+     * Deja de seguir el render de un video.
+     */
+    public void finish(Long videoId) {
+        renders.remove(videoId);
+    }
+
+    /**
+     * Progreso actual del render de un video, vacío si no está en curso en este nodo.
+     */
+    public Optional<RenderProgress> find(Long videoId) {
+        Tracked tracked = renders.get(videoId);
+        if (tracked == null) {
+            return Optional.empty();
+        }
+        long now = nanoTime.getAsLong();
+        double expected = estimate(tracked.images(), tracked.audio()).toMillis() / 1000.0;
+        return Optional.of(
+            switch (tracked.stage()) {
+                case PREPARING -> new RenderProgress(tracked.stage(), 0, Math.round(expected), true);
+                case FINALIZING -> new RenderProgress(tracked.stage(), FINALIZING_PERCENT, 0, false);
+                case RENDERING -> rendering(tracked, expected, now);
+            }
+        );
+    }
+
+    /**
+     * Tiempo de render esperado para un video con {@code images} imágenes.
+     */
+    public Duration estimate(int images, boolean audio) {
+        int count = Math.max(images, 1);
+        double seconds = renderTimes.getOrDefault(new RenderKind(count, audio), Ewma.EMPTY).get();
+        if (Double.isNaN(seconds)) {
+            double perImage = timePerImage.getOrDefault(audio, Ewma.EMPTY).get();
+            seconds = count * (Double.isNaN(perImage) ? properties.getInitialTimePerImage().toMillis() / 1000.0 : perImage);
+        }
+        return Duration.ofMillis(Math.round(seconds * 1000));
+    }
+
+    /**
+     * Tiempo hasta la próxima consulta de estado que vale la pena, entre 1 segundo y {@code maxRetryAfter}.
+     */
+    public Duration retryAfter(RenderProgress progress) {
+        long seconds = Math.max(1, Math.min(progress.etaSeconds(), properties.getMaxRetryAfter().toSeconds()));
+        return Duration.ofSeconds(seconds);
+    }
+
+    public int getTracked() {
+        return renders.size();
+    }
+
+    /**
+     * Publica el progreso del render a sus observadores; salvo {@code always}, solo si pasó {@code publishInterval}
+     * desde la última vez.
+     */
+    private void publish(Long videoId, boolean always) {
+        Tracked tracked = renders.get(videoId);
+        if (tracked == null) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        long last = tracked.publishedAt().get();
+        boolean due = always || now - last >= properties.getPublishInterval().toNanos();
+        if (due && tracked.publishedAt().compareAndSet(last, now)) {
+            find(videoId).ifPresent(progress -> videoStatusBroadcaster.publish(VideoStatusEvent.progress(videoId, progress)));
+        }
+    }
+
+    private static RenderProgress rendering(Tracked tracked, double expected, long now) {
+        double elapsed = (now - tracked.stageStartedAt()) / 1e9;
+        Double reported = tracked.reportedPercent();
+        if (reported != null && reported > 0) {
+            // ritmo observado hasta el último informe de Python
+            double reportedElapsed = (tracked.reportedAt() - tracked.stageStartedAt()) / 1e9;
+            double remaining = (reportedElapsed * (100 - reported)) / reported - (now - tracked.reportedAt()) / 1e9;
+            return new RenderProgress(tracked.stage(), (int) Math.floor(reported), Math.max(0, Math.round(remaining)), false);
+        }
+        int percent = expected > 0 ? (int) Math.min(FINALIZING_PERCENT - 1, (elapsed * 100) / expected) : 0;
+        return new RenderProgress(tracked.stage(), percent, Math.max(0, Math.round(expected - elapsed)), true);
+    }
+
+    private record RenderKind(int images, boolean audio) {}
+
+    /**
+     * Instantánea del render de un video; los tiempos son de {@link System#nanoTime()}. {@code publishedAt},
+     * el momento del último progreso publicado, se comparte entre las instantáneas del mismo render.
+     */
+    private record Tracked(
+        RenderProgress.Stage stage,
+        int images,
+        boolean audio,
+        long stageStartedAt,
+        Double reportedPercent,
+        long reportedAt,
+        AtomicLong publishedAt
+    ) {}
+
+    /**
+     * Media móvil exponencial sin bloqueos.
+     */
+    private static final class Ewma {
+
+        private static final Ewma EMPTY = new Ewma();
+
+        private final AtomicLong bits = new AtomicLong(Double.doubleToLongBits(Double.NaN));
+
+        private void add(double sample, double smoothing) {
+            bits.getAndUpdate(current -> {
+                double average = Double.longBitsToDouble(current);
+                return Double.doubleToLongBits(Double.isNaN(average) ? sample : average + smoothing * (sample - average));
+            });
+        }
+
+        private double get() {
+            return Double.longBitsToDouble(bits.get());
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.RenderJob;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.domain.enumeration.RenderJobStatus;
+import com.video.app.service.dto.VideoDTO;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Recupera los renders que un nodo caído dejó a medias, al arrancar y cada {@code interval}.
+ * <p>
+ * Revisa por lotes de {@code batchSize} los trabajos con el lease expirado y los videos EN_PROCESO
+ * sin trabajo en la cola. Si Python ya terminó el video lo reutiliza; si aún quedan intentos lo
+ * reencola, y si no, o si sus archivos ya no existen, lo marca ERROR y lo guarda en
+ * {@link RenderDeadLetterService}. Los trabajos reencolados esperan en la cola, así que recuperar miles
+ * de filas no satura a los renderizadores.
+ */
+@Service
+public class RenderRecoveryService implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderRecoveryService.class);
+
+    public static final String RECOVERED_METER_NAME = "video.render.recovered";
+
+    /**
+     * Videos revisados a la vez dentro de un lote.
+     */
+    private static final int CONCURRENCY = 4;
+
+    private final RenderJobQueue renderJobQueue;
+
+    private final VideoService videoService;
+
+    private final FileStorageService fileStorageService;
+
+    private final VideoStatusBroadcaster videoStatusBroadcaster;
+
+    private final RenderDeadLetterService renderDeadLetterService;
+
+    private final ApplicationProperties.Render properties;
+
+    private final ApplicationProperties.Role role;
+
+    private final Map<Outcome, Counter> recovered = new EnumMap<>(Outcome.class);
+
+    private Disposable subscription;
+
+    private volatile boolean running;
+
+    public RenderRecoveryService(
+        RenderJobQueue renderJobQueue,
+        VideoService videoService,
+        FileStorageService fileStorageService,
+        VideoStatusBroadcaster videoStatusBroadcaster,
+        RenderDeadLetterService renderDeadLetterService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.renderJobQueue = renderJobQueue;
+        this.videoService = videoService;
+        this.fileStorageService = fileStorageService;
+        this.videoStatusBroadcaster = videoStatusBroadcaster;
+        this.renderDeadLetterService = renderDeadLetterService;
+        this.properties = applicationProperties.getRender();
+        this.role = applicationProperties.getRole();
+        for (Outcome outcome : Outcome.values()) {
+            recovered.put(
+                outcome,
+                Counter.builder(RECOVERED_METER_NAME)
+                    .description("Renders recuperados de nodos caídos")
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(meterRegistry)
+            );
+        }
+    }
+
+    /**
+     * Resultado de recuperar un render.
+     */
+    enum Outcome {
+        /**
+         * Vuelve a la cola.
+         */
+        REQUEUED,
+        /**
+         * Python ya lo había terminado: el video queda COMPLETADO.
+         */
+        COMPLETED,
+        /**
+         * Sin intentos o sin archivos: el video queda en ERROR.
+         */
+        FAILED,
+    }
+
+    @Override
+    public void start() {
+        ApplicationProperties.Render.Recovery recovery = properties.getRecovery();
+        if (!recovery.isEnabled() || !properties.getQueue().isEnabled() || !role.renders()) {
+            LOG.info("Recuperación de renders deshabilitada en este nodo");
+            return;
+        }
+        subscription = Flux.interval(Duration.ZERO, recovery.getInterval())
+            .onBackpressureDrop()
+            .concatMap(tick ->
+                recover().onErrorResume(error -> {
+                    LOG.warn("Error recuperando renders: {}", error.getMessage());
+                    return Mono.empty();
+                })
+            )
+            .subscribe();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Una pasada completa de recuperación.
+     *
+     * @return el número de renders revisados.
+     */
+    public Mono<Long> recover() {
+        return recoverExpiredLeases()
+            .flatMap(leases -> recoverOrphanedVideos().map(orphans -> leases + orphans))
+            .doOnNext(total -> {
+                if (total > 0) {
+                    LOG.info("🩺 Recuperación de renders: {} revisados", total);
+                }
+            });
+    }
+
+    /**
+     * Trabajos tomados por un nodo que dejó de renovar su lease.
+     */
+    Mono<Long> recoverExpiredLeases() {
+        int batchSize = properties.getRecovery().getBatchSize();
+        return inBatches(() -> renderJobQueue.claimExpired(batchSize).collectList().flatMap(jobs -> process(jobs, this::recoverJob)));
+    }
+
+    /**
+     * Videos EN_PROCESO sin trabajo pendiente ni en curso en la cola.
+     */
+    Mono<Long> recoverOrphanedVideos() {
+        ApplicationProperties.Render.Recovery recovery = properties.getRecovery();
+        AtomicLong cursor = new AtomicLong();
+        return inBatches(() ->
+            renderJobQueue
+                .findOrphanedVideoIds(cursor.get(), recovery.getGracePeriod(), recovery.getBatchSize())
+                .doOnNext(cursor::set)
+                .collectList()
+                .flatMap(videoIds -> process(videoIds, this::recoverOrphan))
+        );
+    }
+
+    /**
+     * Repite {@code batch} hasta que devuelve un lote incompleto; un lote a la vez.
+     */
+    private Mono<Long> inBatches(Supplier<Mono<Integer>> batch) {
+        int batchSize = properties.getRecovery().getBatchSize();
+        return Mono.defer(batch).repeat().takeUntil(size -> size < batchSize).reduce(0L, (total, size) -> total + size);
+    }
+
+    private <T> Mono<Integer> process(List<T> items, Function<T, Mono<Outcome>> recoverOne) {
+        return Flux.fromIterable(items)
+            .flatMap(
+                item ->
+                    recoverOne
+                        .apply(item)
+                        .doOnNext(outcome -> recovered.get(outcome).increment())
+                        .onErrorResume(error -> {
+                            LOG.warn("No se pudo recuperar {}: {}", item, error.getMessage());
+                            return Mono.empty();
+                        }),
+                CONCURRENCY
+            )
+            .then(Mono.just(items.size()));
+    }
+
+    private Mono<Outcome> recoverJob(RenderJob job) {
+        Long videoId = job.getVideoId();
+        return videoService
+            .findOne(videoId)
+            .flatMap(video ->
+                switch (video.getEstado()) {
+                    // el nodo cayó después de actualizar el video y antes de cerrar el trabajo
+                    case COMPLETADO, DESCARGADO -> Mono.just(Outcome.COMPLETED);
+                    // cancelado mientras el nodo caía: no se vuelve a renderizar
+                    case ERROR, CANCELADO -> Mono.just(Outcome.FAILED);
+                    case EN_PROCESO -> resolve(video, job.getAttempts() < properties.getQueue().getMaxAttempts());
+                }
+            )
+            .defaultIfEmpty(Outcome.FAILED)
+            .flatMap(outcome -> {
+                Mono<Boolean> closeJob =
+                    switch (outcome) {
+                        case REQUEUED -> renderJobQueue.release(job, Duration.ZERO);
+                        case COMPLETED -> renderJobQueue.complete(job);
+                        case FAILED -> renderJobQueue.fail(job, new IllegalStateException("Render abandonado por un nodo caído"));
+                    };
+                return closeJob.thenReturn(outcome);
+            })
+            .doOnNext(outcome -> LOG.info("🩺 [{}] Lease expirado (intento {}): {}", videoId, job.getAttempts(), outcome));
+    }
+
+    private Mono<Outcome> recoverOrphan(Long videoId) {
+        Mono<Boolean> retriesLeft = renderJobQueue
+            .findByVideoId(videoId)
+            .map(job -> job.getStatus() != RenderJobStatus.FAILED)
+            .defaultIfEmpty(true);
+        return videoService
+            .findOne(videoId)
+            .zipWith(retriesLeft)
+            .flatMap(videoAndRetries -> resolve(videoAndRetries.getT1(), videoAndRetries.getT2()))
+            .flatMap(outcome -> outcome == Outcome.REQUEUED ? renderJobQueue.requeue(videoId).thenReturn(outcome) : Mono.just(outcome))
+            .doOnNext(outcome -> LOG.info("🩺 [{}] Video EN_PROCESO sin trabajo en la cola: {}", videoId, outcome));
+    }
+
+    /**
+     * Decide qué hacer con un video EN_PROCESO y actualiza su estado si ya no se va a renderizar.
+     */
+    Mono<Outcome> resolve(VideoDTO video, boolean retriesLeft) {
+        Long videoId = video.getId();
+        return fileStorageService
+            .videoFilesExist(videoId)
+            .flatMap(exists -> {
+                if (!exists) {
+                    LOG.warn("⚠️ [{}] Los archivos del video ya no existen", videoId);
+                    return markAsError(video, "Los archivos del video ya no existen", false);
+                }
+                return fileStorageService
+                    .findFinishedOutput(videoId, properties.getRecovery().getGracePeriod())
+                    .flatMap(output -> markAsCompleted(video, output))
+                    .switchIfEmpty(
+                        Mono.defer(() ->
+                            retriesLeft ? Mono.just(Outcome.REQUEUED) : markAsError(video, "Render abandonado por un nodo caído", true)
+                        )
+                    );
+            });
+    }
+
+    private Mono<Outcome> markAsCompleted(VideoDTO video, Path output) {
+        LOG.info("♻️ [{}] Python ya había generado el video: {}", video.getId(), output);
+        video.setOutputFilename(output.getFileName().toString());
+        video.setEstado(EstadoVideo.COMPLETADO);
+        return fileStorageService
+            .publishOutput(video.getId())
+            .then(videoService.finishProcessing(video))
+            .doOnNext(updated -> videoStatusBroadcaster.publish(VideoStatusEvent.of(updated)))
+            .thenReturn(Outcome.COMPLETED);
+    }
+
+    /**
+     * Marca el video ERROR y guarda el fallo en {@link RenderDeadLetterService}, con sus archivos si aún existen.
+     */
+    private Mono<Outcome> markAsError(VideoDTO video, String reason, boolean filesKept) {
+        video.setEstado(EstadoVideo.ERROR);
+        return videoService
+            .finishProcessing(video)
+            .doOnNext(updated -> videoStatusBroadcaster.publish(VideoStatusEvent.of(updated)))
+            .then(
+                renderDeadLetterService
+                    .record(video.getId(), new IllegalStateException(reason), filesKept)
+                    .onErrorResume(error -> {
+                        LOG.warn("[{}] No se pudo guardar el render fallido: {}", video.getId(), error.getMessage());
+                        return fileStorageService
+                            .cleanupFiles(video.getId().toString())
+                            .onErrorResume(cleanupError -> Mono.empty())
+                            .then(Mono.empty());
+                    })
+            )
+            .thenReturn(Outcome.FAILED);
+    }
+}
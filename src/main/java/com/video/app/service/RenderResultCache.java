@@ -0,0 +1,376 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Caché de resultados de render direccionada por contenido.
+ * <p>
+ * La clave es el SHA-256 de los bytes de las imágenes (en orden), del audio y de los parámetros
+ * del render. Cada resultado se guarda como un enlace duro al video generado en
+ * {@code application.render.cache.directory}; un acierto enlaza ese archivo en el directorio
+ * {@code output} del nuevo video sin llamar a Python. Cuando el tamaño total supera
+ * {@code max-size} se eliminan las entradas usadas hace más tiempo (LRU).
+ * <p>
+ * La clave se calcula aunque la caché esté deshabilitada: con ella se agrupan los renders idénticos en
+ * curso. Deshabilitada, la caché no guarda ni reutiliza nada.
+ */
+@Service
+public class RenderResultCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderResultCache.class);
+
+    public static final String HITS_METER_NAME = "video.render.cache.hits";
+    public static final String MISSES_METER_NAME = "video.render.cache.misses";
+    public static final String BYTES_SAVED_METER_NAME = "video.render.cache.bytes-saved";
+    public static final String HIT_RATIO_METER_NAME = "video.render.cache.hit-ratio";
+    public static final String SIZE_METER_NAME = "video.render.cache.size";
+
+    private static final String METADATA_SUFFIX = ".properties";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ApplicationProperties.Render.Cache properties;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalSize = new AtomicLong();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /**
+     * Reloj de accesos en milisegundos, estrictamente creciente para desempatar el orden LRU.
+     */
+    private final AtomicLong accessClock = new AtomicLong();
+
+    private final Mono<Void> ready;
+
+    public RenderResultCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.properties = applicationProperties.getRender().getCache();
+        this.hits = Counter.builder(HITS_METER_NAME).description("Renders resueltos desde la caché").register(meterRegistry);
+        this.misses = Counter.builder(MISSES_METER_NAME).description("Renders no encontrados en la caché").register(meterRegistry);
+        FunctionCounter.builder(BYTES_SAVED_METER_NAME, bytesSaved, AtomicLong::get)
+            .description("Bytes de video reutilizados desde la caché en lugar de renderizarlos")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder(HIT_RATIO_METER_NAME, this, RenderResultCache::getHitRatio)
+            .description("Proporción de renders resueltos desde la caché")
+            .register(meterRegistry);
+        Gauge.builder(SIZE_METER_NAME, totalSize, AtomicLong::get)
+            .description("Tamaño de la caché de renders")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.ready = Mono.<Void>fromRunnable(this::loadIndex).subscribeOn(Schedulers.boundedElastic()).cache();
+    }
+
+    /**
+     * Resultado reutilizado desde la caché.
+     *
+     * @param output el video enlazado en el directorio de salida.
+     * @param duration la duración del video, según Python.
+     */
+    public record CachedRender(Path output, Double duration) {}
+
+    /**
+     * Calcula la clave del contenido de un render, esté la caché habilitada o no.
+     *
+     * @param imagesDir directorio de imágenes; se recorren ordenadas por nombre, igual que en Python.
+     * @param audio archivo de audio, o {@code null}.
+     * @param parameters parámetros que afectan al resultado (formato, transición...).
+     */
+    public Mono<String> key(Path imagesDir, Path audio, Object... parameters) {
+        return Mono.fromCallable(() -> {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (Stream<Path> files = Files.list(imagesDir)) {
+                for (Path image : files.filter(Files::isRegularFile).sorted().toList()) {
+                    update(digest, "image", image);
+                }
+            }
+            if (audio != null) {
+                update(digest, "audio", audio);
+            }
+            for (Object parameter : parameters) {
+                digest.update(("param:" + parameter + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Si la clave está en caché, enlaza el video en {@code outputDir}. Vacío si no hay acierto o la caché está deshabilitada.
+     */
+    public Mono<CachedRender> reuse(String key, Path outputDir) {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+        return ready.then(
+            Mono.fromCallable(() -> {
+                Entry entry = lookup(key).orElse(null);
+                if (entry == null) {
+                    misses.increment();
+                    return null;
+                }
+                Path output = link(entry.file(), outputDir.resolve(entry.filename()));
+                touch(entry);
+                hits.increment();
+                bytesSaved.addAndGet(entry.size());
+                return new CachedRender(output, entry.duration());
+            }).subscribeOn(Schedulers.boundedElastic())
+        );
+    }
+
+    /**
+     * Enlaza un video ya generado en {@code outputDir}, con el mismo nombre de archivo.
+     *
+     * @return la ruta del enlace.
+     */
+    public Mono<Path> linkInto(Path video, Path outputDir) {
+        return Mono.fromCallable(() -> link(video, outputDir.resolve(video.getFileName()))).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Guarda en caché el video generado para la clave y aplica la política de tamaño. No hace nada si la caché está deshabilitada.
+     */
+    public Mono<Void> store(String key, Path output, Double duration) {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+        return ready.then(
+            Mono.<Void>fromRunnable(() -> {
+                if (entries.containsKey(key)) {
+                    return;
+                }
+                try {
+                    Path dir = Path.of(properties.getDirectory(), key.substring(0, 2));
+                    Files.createDirectories(dir);
+                    String filename = output.getFileName().toString();
+                    String extension = StringUtils.substringAfterLast(filename, ".");
+                    Path file = dir.resolve(extension.isEmpty() ? key : key + "." + extension);
+                    try {
+                        linkOrCopy(output, file);
+                    } catch (FileAlreadyExistsException e) {
+                        LOG.debug("La entrada {} ya estaba en disco", key);
+                    }
+                    Entry entry = new Entry(key, file, filename, duration, Files.size(file), new AtomicLong(now()));
+                    writeMetadata(entry);
+                    add(entry);
+                    LOG.info("💾 Render guardado en caché: {}", key);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                evict();
+            }).subscribeOn(Schedulers.boundedElastic())
+        );
+    }
+
+    public double getHitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    public long getSize() {
+        return totalSize.get();
+    }
+
+    private Optional<Entry> lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            // otro nodo pudo haberla guardado en el directorio compartido
+            Path metadata = Path.of(properties.getDirectory(), key.substring(0, 2), key + METADATA_SUFFIX);
+            if (Files.exists(metadata)) {
+                entry = readEntry(metadata).orElse(null);
+                if (entry != null) {
+                    add(entry);
+                }
+            }
+        }
+        if (entry != null && !Files.exists(entry.file())) {
+            remove(entry);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    private void add(Entry entry) {
+        if (entries.putIfAbsent(entry.key(), entry) == null) {
+            totalSize.addAndGet(entry.size());
+        }
+    }
+
+    private void remove(Entry entry) {
+        if (entries.remove(entry.key(), entry)) {
+            totalSize.addAndGet(-entry.size());
+        }
+    }
+
+    private synchronized void evict() {
+        long maxSize = properties.getMaxSize().toBytes();
+        if (totalSize.get() <= maxSize) {
+            return;
+        }
+        List<Entry> byLastAccess = entries.values().stream().sorted(Comparator.comparingLong(entry -> entry.lastAccess().get())).toList();
+        for (Entry entry : byLastAccess) {
+            if (totalSize.get() <= maxSize) {
+                break;
+            }
+            remove(entry);
+            try {
+                Files.deleteIfExists(entry.file());
+                Files.deleteIfExists(metadataFile(entry));
+                LOG.info("🗑️ Render expulsado de la caché: {} ({} bytes)", entry.key(), entry.size());
+            } catch (IOException e) {
+                LOG.warn("No se pudo eliminar la entrada de caché {}", entry.key(), e);
+            }
+        }
+    }
+
+    private void loadIndex() {
+        Path directory = Path.of(properties.getDirectory());
+        if (!properties.isEnabled() || !Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            files.filter(path -> path.toString().endsWith(METADATA_SUFFIX)).forEach(path -> readEntry(path).ifPresent(this::add));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOG.info("Caché de renders cargada: {} entradas, {} bytes", entries.size(), totalSize.get());
+        evict();
+    }
+
+    private static Optional<Entry> readEntry(Path metadataFile) {
+        Properties metadata = new Properties();
+        try (Reader reader = Files.newBufferedReader(metadataFile)) {
+            metadata.load(reader);
+            String key = StringUtils.removeEnd(metadataFile.getFileName().toString(), METADATA_SUFFIX);
+            Path file = metadataFile.resolveSibling(metadata.getProperty("file"));
+            if (!Files.exists(file)) {
+                return Optional.empty();
+            }
+            String duration = metadata.getProperty("duration");
+            String lastAccess = metadata.getProperty("lastAccess");
+            return Optional.of(
+                new Entry(
+                    key,
+                    file,
+                    metadata.getProperty("filename"),
+                    duration != null ? Double.valueOf(duration) : null,
+                    Files.size(file),
+                    // los sidecars anteriores no guardaban el acceso: estaba en la fecha del video
+                    new AtomicLong(lastAccess != null ? Long.parseLong(lastAccess) : Files.getLastModifiedTime(file).toMillis())
+                )
+            );
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Entrada de caché ilegible: {}", metadataFile, e);
+            return Optional.empty();
+        }
+    }
+
+    private long now() {
+        return accessClock.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+    }
+
+    private void touch(Entry entry) {
+        entry.lastAccess().set(now());
+        try {
+            // persiste el orden LRU entre reinicios en el sidecar: la fecha del video no se toca, porque es un enlace
+            // duro a los videos de salida y FileStorageService la usa para saber si Python terminó de escribirlos
+            writeMetadata(entry);
+        } catch (IOException e) {
+            LOG.debug("No se pudo actualizar la fecha de acceso de {}", entry.key(), e);
+        }
+    }
+
+    /**
+     * Escribe el sidecar de la entrada en un archivo temporal y lo mueve encima del anterior, para que otro
+     * nodo nunca lea un sidecar a medias.
+     */
+    private static void writeMetadata(Entry entry) throws IOException {
+        Properties metadata = new Properties();
+        metadata.setProperty("file", entry.file().getFileName().toString());
+        metadata.setProperty("filename", entry.filename());
+        if (entry.duration() != null) {
+            metadata.setProperty("duration", entry.duration().toString());
+        }
+        metadata.setProperty("lastAccess", Long.toString(entry.lastAccess().get()));
+        Path metadataFile = metadataFile(entry);
+        Path temp = Files.createTempFile(metadataFile.getParent(), entry.key(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                metadata.store(writer, null);
+            }
+            Files.move(temp, metadataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Path metadataFile(Entry entry) {
+        return entry.file().resolveSibling(entry.key() + METADATA_SUFFIX);
+    }
+
+    private static Path link(Path existing, Path output) throws IOException {
+        Files.createDirectories(output.getParent());
+        if (!Files.exists(output) || !Files.isSameFile(existing, output)) {
+            Files.deleteIfExists(output);
+            linkOrCopy(existing, output);
+        }
+        return output;
+    }
+
+    private static void linkOrCopy(Path existing, Path link) throws IOException {
+        try {
+            Files.createLink(link, existing);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            // sistemas de archivos distintos o sin enlaces duros
+            Files.copy(existing, link, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    private static void update(MessageDigest digest, String kind, Path file) throws IOException {
+        digest.update((kind + ":" + Files.size(file) + "\n").getBytes(StandardCharsets.UTF_8));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private record Entry(String key, Path file, String filename, Double duration, long size, AtomicLong lastAccess) {}
+}
@@ -0,0 +1,382 @@
+package com.video.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.UploadFile;
+import com.video.app.domain.UploadSession;
+import com.video.app.domain.enumeration.UploadFileKind;
+import com.video.app.domain.enumeration.UploadStatus;
+import com.video.app.repository.UploadFileRepository;
+import com.video.app.repository.UploadSessionRepository;
+import com.video.app.service.dto.UploadFileRequest;
+import com.video.app.service.dto.UploadSessionDTO;
+import com.video.app.service.dto.UploadSessionRequest;
+import com.video.app.service.dto.VideoDTO;
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Subidas reanudables: el cliente crea una subida con la lista de archivos, envía cada archivo en fragmentos
+ * ({@code PATCH} con su offset) y al final la convierte en un video con {@link VideoSubmissionService}.
+ * <p>
+ * El estado (offset de cada archivo, reservas, caducidad) está en Postgres, así que cualquier nodo puede recibir
+ * el siguiente fragmento. Los bytes se escriben en su offset en {@code {staging}/resumable/{token}/{posición}},
+ * en el volumen compartido, y al finalizar pasan a {@code videos/{id}} sin copiarlos. Las subidas caducadas
+ * se borran cada {@code purge-interval}.
+ */
+@Service
+public class ResumableUploadService implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    private final UploadSessionRepository uploadSessionRepository;
+
+    private final UploadFileRepository uploadFileRepository;
+
+    private final VideoSubmissionService videoSubmissionService;
+
+    private final VideoService videoService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.Upload.Resumable properties;
+
+    private final ApplicationProperties.Role role;
+
+    private final Path directory;
+
+    private Disposable subscription;
+
+    private volatile boolean running;
+
+    public ResumableUploadService(
+        UploadSessionRepository uploadSessionRepository,
+        UploadFileRepository uploadFileRepository,
+        VideoSubmissionService videoSubmissionService,
+        VideoService videoService,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.uploadFileRepository = uploadFileRepository;
+        this.videoSubmissionService = videoSubmissionService;
+        this.videoService = videoService;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getUpload().getResumable();
+        this.role = applicationProperties.getRole();
+        this.directory = Path.of(applicationProperties.getUpload().getStagingDirectory(), "resumable");
+    }
+
+    @Override
+    public void start() {
+        if (!role.servesApi()) {
+            return;
+        }
+        subscription = Flux.interval(properties.getPurgeInterval(), properties.getPurgeInterval())
+            .onBackpressureDrop()
+            .concatMap(tick ->
+                purge().onErrorResume(error -> {
+                    LOG.warn("Error borrando subidas caducadas: {}", error.getMessage());
+                    return Mono.empty();
+                })
+            )
+            .subscribe();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Crea una subida abierta, con todos sus archivos vacíos.
+     */
+    public Mono<UploadSessionDTO> create(UploadSessionRequest request, String login) {
+        Instant now = Instant.now();
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(request.video()))
+            .map(video ->
+                new UploadSession()
+                    .token(UUID.randomUUID().toString())
+                    .userLogin(login)
+                    .status(UploadStatus.OPEN)
+                    .video(video)
+                    .createdAt(now)
+                    .expiresAt(now.plus(properties.getExpiration()))
+            )
+            .flatMap(session -> createDirectory(session.getToken()).then(uploadSessionRepository.save(session)))
+            .flatMap(session -> {
+                List<UploadFile> files = new ArrayList<>();
+                for (int position = 0; position < request.files().size(); position++) {
+                    UploadFileRequest file = request.files().get(position);
+                    files.add(
+                        new UploadFile()
+                            .sessionId(session.getId())
+                            .position(position)
+                            .kind(file.kind())
+                            .filename(file.filename())
+                            .length(file.length())
+                            .uploadOffset(0L)
+                    );
+                }
+                return uploadFileRepository.saveAll(files).collectList().map(saved -> UploadSessionDTO.of(session, saved));
+            })
+            .doOnNext(session -> LOG.info("📦 Subida reanudable {} creada con {} archivos", session.token(), session.files().size()));
+    }
+
+    /**
+     * @return la subida del usuario, vacía si no existe o ya caducó.
+     */
+    public Mono<UploadSessionDTO> find(String token, String login) {
+        return uploadSessionRepository
+            .findOneByTokenAndUserLogin(token, login)
+            .filter(session -> session.getExpiresAt().isAfter(Instant.now()))
+            .flatMap(session ->
+                uploadFileRepository
+                    .findAllBySessionIdOrderByPosition(session.getId())
+                    .collectList()
+                    .map(files -> UploadSessionDTO.of(session, files))
+            );
+    }
+
+    /**
+     * Escribe un fragmento de un archivo a partir de {@code offset}. Lo que llegue a escribirse se guarda aunque el
+     * cliente se corte a mitad, para que el siguiente fragmento siga desde ahí.
+     *
+     * @return el nuevo offset del archivo; vacío si la subida o el archivo no existen, o la subida ya no está abierta.
+     * @throws UploadConflictException (en el {@code Mono}) si {@code offset} no es el siguiente byte que falta,
+     * otro fragmento del mismo archivo se está escribiendo, o el fragmento pasa del tamaño declarado.
+     */
+    public Mono<Long> append(String token, int position, String login, long offset, Flux<DataBuffer> chunk) {
+        return uploadFileRepository
+            .lock(token, login, position, offset, properties.getLockTimeout().toSeconds())
+            .switchIfEmpty(
+                Mono.defer(() ->
+                    uploadFileRepository
+                        .findOpen(token, login, position)
+                        .flatMap(file ->
+                            Mono.error(
+                                file.getUploadOffset() == offset
+                                    ? new UploadConflictException("Otro fragmento del archivo se está escribiendo", offset)
+                                    : new UploadConflictException(
+                                        "El archivo va por el byte " + file.getUploadOffset(),
+                                        file.getUploadOffset()
+                                    )
+                            )
+                        )
+                )
+            )
+            .flatMap(file -> write(token, file, offset, chunk));
+    }
+
+    private Mono<Long> write(String token, UploadFile file, long offset, Flux<DataBuffer> chunk) {
+        Path path = filePath(token, file.getPosition());
+        AtomicLong received = new AtomicLong(offset);
+        AtomicLong written = new AtomicLong();
+        Flux<DataBuffer> bounded = chunk.handle((buffer, sink) -> {
+            if (received.addAndGet(buffer.readableByteCount()) > file.getLength()) {
+                DataBufferUtils.release(buffer);
+                sink.error(new UploadConflictException("El fragmento pasa del tamaño del archivo, " + file.getLength(), null));
+            } else {
+                sink.next(buffer);
+            }
+        });
+        AtomicBoolean committed = new AtomicBoolean();
+        Mono<Long> commit = Mono.defer(() -> {
+            if (!committed.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            long newOffset = offset + written.get();
+            return uploadFileRepository
+                .commit(file.getId(), offset, newOffset)
+                .then(uploadSessionRepository.touch(file.getSessionId(), properties.getExpiration().toSeconds()))
+                .thenReturn(newOffset);
+        });
+        // AsynchronousFileChannel: cada buffer se escribe en su posición sin ocupar un hilo mientras el disco trabaja;
+        // abrirlo sí bloquea, así que se abre fuera del event loop
+        return Mono.usingWhen(
+            Mono.fromCallable(() -> AsynchronousFileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)).subscribeOn(
+                Schedulers.boundedElastic()
+            ),
+            channel ->
+                DataBufferUtils.write(bounded, channel, offset)
+                    .doOnNext(buffer -> {
+                        written.addAndGet(buffer.readableByteCount());
+                        DataBufferUtils.release(buffer);
+                    })
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .then(),
+            channel -> Mono.fromRunnable(() -> closeQuietly(channel))
+        )
+            .onErrorResume(error -> commit.then(Mono.error(error)))
+            .then(commit)
+            .doOnCancel(() ->
+                // el cliente cortó la conexión: lo escrito hasta ahora vale
+                commit.subscribe(
+                    newOffset -> LOG.debug("Fragmento cortado de {}/{}, guardado hasta el byte {}", token, file.getPosition(), newOffset),
+                    error -> LOG.warn("No se pudo guardar el offset de {}/{}: {}", token, file.getPosition(), error.getMessage())
+                )
+            );
+    }
+
+    /**
+     * Crea el video con los archivos ya recibidos. Repetirla sobre una subida ya finalizada devuelve el mismo video.
+     *
+     * @return el video, EN_PROCESO; vacío si la subida no existe o ya caducó.
+     * @throws UploadConflictException (en el {@code Mono}) si falta algún byte o la subida ya se está finalizando o falló.
+     */
+    public Mono<VideoDTO> finalizeUpload(String token, String login, List<String> authorities) {
+        return uploadSessionRepository
+            .findOneByTokenAndUserLogin(token, login)
+            .filter(session -> session.getStatus() == UploadStatus.FINALIZED || session.getExpiresAt().isAfter(Instant.now()))
+            .flatMap(session ->
+                switch (session.getStatus()) {
+                    case OPEN -> finalizeOpen(session, login, authorities);
+                    case FINALIZED -> videoService.findOne(session.getVideoId());
+                    case FINALIZING -> Mono.error(new UploadConflictException("La subida ya se está finalizando", null));
+                    case FAILED -> Mono.error(new UploadConflictException("La subida falló al finalizarse", null));
+                }
+            );
+    }
+
+    private Mono<VideoDTO> finalizeOpen(UploadSession session, String login, List<String> authorities) {
+        return uploadFileRepository
+            .findAllBySessionIdOrderByPosition(session.getId())
+            .collectList()
+            .flatMap(files -> {
+                for (UploadFile file : files) {
+                    if (file.getUploadOffset() < file.getLength()) {
+                        return Mono.error(
+                            new UploadConflictException(
+                                "Faltan bytes del archivo " + file.getPosition() + " (" + file.getFilename() + ")",
+                                file.getUploadOffset()
+                            )
+                        );
+                    }
+                }
+                return uploadSessionRepository
+                    .claimForFinalize(session.getId(), properties.getExpiration().toSeconds())
+                    .switchIfEmpty(Mono.error(() -> new UploadConflictException("La subida ya se está finalizando", null)))
+                    .flatMap(claimed -> submit(claimed, files, login, authorities));
+            });
+    }
+
+    private Mono<VideoDTO> submit(UploadSession session, List<UploadFile> files, String login, List<String> authorities) {
+        String token = session.getToken();
+        List<FilePart> images = files
+            .stream()
+            .filter(file -> file.getKind() == UploadFileKind.IMAGE)
+            .map(file -> toPart("images", token, file))
+            .toList();
+        FilePart audio = files
+            .stream()
+            .filter(file -> file.getKind() == UploadFileKind.AUDIO)
+            .findFirst()
+            .map(file -> toPart("audio", token, file))
+            .orElse(null);
+        return Mono.fromCallable(() -> objectMapper.readValue(session.getVideo(), VideoDTO.class))
+            .flatMap(video -> videoSubmissionService.submit(video, images, audio, login, authorities))
+            .flatMap(video -> uploadSessionRepository.markFinalized(session.getId(), video.getId()).thenReturn(video))
+            .doOnNext(video -> LOG.info("✅ Subida reanudable {} finalizada: video {}", token, video.getId()))
+            .onErrorResume(error -> {
+                LOG.error("❌ Error finalizando la subida reanudable {}", token, error);
+                return uploadSessionRepository.markFailed(session.getId()).then(Mono.error(error));
+            })
+            // los archivos ya se movieron a videos/{id}: solo queda el directorio vacío
+            .flatMap(video -> deleteDirectory(token).thenReturn(video));
+    }
+
+    private FilePart toPart(String name, String token, UploadFile file) {
+        return new StagedFilePart(name, file.getFilename(), HttpHeaders.EMPTY, filePath(token, file.getPosition()));
+    }
+
+    /**
+     * Borra las subidas caducadas, por lotes de {@code purge-batch-size}, con sus archivos.
+     *
+     * @return el número de subidas borradas.
+     */
+    public Mono<Long> purge() {
+        int batchSize = properties.getPurgeBatchSize();
+        return Mono.defer(() ->
+            uploadSessionRepository
+                .deleteExpired(batchSize)
+                .concatMap(session -> deleteDirectory(session.getToken()).thenReturn(session))
+                .count()
+        )
+            .repeat()
+            .takeUntil(deleted -> deleted < batchSize)
+            .reduce(0L, Long::sum)
+            .doOnNext(deleted -> {
+                if (deleted > 0) {
+                    LOG.info("🧹 {} subidas reanudables caducadas borradas", deleted);
+                }
+            });
+    }
+
+    private Path filePath(String token, int position) {
+        return directory.resolve(token).resolve(String.valueOf(position));
+    }
+
+    private Mono<Void> createDirectory(String token) {
+        return Mono.fromCallable(() -> Files.createDirectories(directory.resolve(token))).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+
+    private Mono<Void> deleteDirectory(String token) {
+        return Mono.fromCallable(() -> {
+            Path sessionDirectory = directory.resolve(token);
+            if (Files.exists(sessionDirectory)) {
+                try (Stream<Path> paths = Files.walk(sessionDirectory)) {
+                    for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.deleteIfExists(path);
+                    }
+                }
+            }
+            return sessionDirectory;
+        })
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorResume(IOException.class, error -> {
+                LOG.warn("No se pudo borrar el directorio de la subida {}: {}", token, error.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private static void closeQuietly(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.warn("No se pudo cerrar el archivo de la subida", e);
+        }
+    }
+}
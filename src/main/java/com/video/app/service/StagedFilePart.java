@@ -0,0 +1,115 @@
+package com.video.app.service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.codec.multipart.FilePart;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Archivo subido que ya está escrito en el directorio de staging, en el mismo volumen que los videos.
+ * {@link #transferTo(Path)} lo renombra en lugar de copiarlo, así que solo se puede transferir una vez.
+ * Si se calculó mientras se escribía, lleva el SHA-256 de su contenido para {@link BlobStore}.
+ */
+public final class StagedFilePart implements FilePart {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StagedFilePart.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final AtomicBoolean CROSS_FILESYSTEM_WARNED = new AtomicBoolean();
+
+    private final String name;
+
+    private final String filename;
+
+    private final HttpHeaders headers;
+
+    private final Path file;
+
+    private final String sha256;
+
+    public StagedFilePart(String name, String filename, HttpHeaders headers, Path file) {
+        this(name, filename, headers, file, null);
+    }
+
+    /**
+     * @param sha256 SHA-256 del contenido en hexadecimal, o {@code null} si no se conoce.
+     */
+    public StagedFilePart(String name, String filename, HttpHeaders headers, Path file, String sha256) {
+        this.name = name;
+        this.filename = filename;
+        this.headers = headers;
+        this.file = file;
+        this.sha256 = sha256;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String filename() {
+        return filename;
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    @Override
+    public Flux<DataBuffer> content() {
+        return DataBufferUtils.read(file, DefaultDataBufferFactory.sharedInstance, READ_BUFFER_SIZE);
+    }
+
+    @Override
+    public Mono<Void> transferTo(Path dest) {
+        return Mono.fromCallable(() -> move(dest)).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+
+    @Override
+    public Mono<Void> delete() {
+        return Mono.fromCallable(() -> Files.deleteIfExists(file)).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public String sha256() {
+        return sha256;
+    }
+
+    private Path move(Path dest) throws IOException {
+        try {
+            return Files.move(file, dest, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            if (CROSS_FILESYSTEM_WARNED.compareAndSet(false, true)) {
+                LOG.warn(
+                    "⚠️ El staging {} no está en el mismo sistema de archivos que {}: las subidas se copian",
+                    file.getParent(),
+                    dest
+                );
+            }
+            return Files.move(file, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StagedFilePart{" + name + " (" + filename + ")}";
+    }
+}
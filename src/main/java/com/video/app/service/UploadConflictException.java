@@ -0,0 +1,28 @@
+package com.video.app.service;
+
+import java.io.Serial;
+
+/**
+ * El fragmento o la finalización no encaja con el estado de la subida reanudable: el offset no es el siguiente
+ * byte que falta, otro nodo está escribiendo el mismo archivo, faltan bytes o la subida ya se está finalizando.
+ */
+public class UploadConflictException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Long offset;
+
+    /**
+     * @param offset bytes ya recibidos del archivo en cuestión, para que el cliente siga desde ahí; {@code null}
+     * si el conflicto no es de un archivo.
+     */
+    public UploadConflictException(String message, Long offset) {
+        super(message);
+        this.offset = offset;
+    }
+
+    public Long getOffset() {
+        return offset;
+    }
+}
@@ -1,149 +1,545 @@
 package com.video.app.service;
 
+import com.video.app.config.ApplicationProperties;
 import com.video.app.domain.enumeration.EstadoVideo;
 import com.video.app.service.dto.FileSystemPaths;
 import com.video.app.service.dto.PythonVideoResponse;
+import com.video.app.service.dto.RenderProgress;
 import com.video.app.service.dto.VideoDTO;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.context.Context;
 
 @Service
 public class VideoProcessingService {
 
     private static final Logger LOG = LoggerFactory.getLogger(VideoProcessingService.class);
 
+    public static final String IN_FLIGHT_METER_NAME = "video.render.in-flight";
+
+    public static final String COALESCED_METER_NAME = "video.render.coalesced";
+
+    public static final String CANCELLED_METER_NAME = "video.render.cancelled";
+
     private final FileStorageService fileStorageService;
     private final PythonVideoService pythonVideoService;
     private final VideoService videoService;
+    private final RenderResultCache renderResultCache;
+    private final VideoStatusBroadcaster videoStatusBroadcaster;
+    private final RenderProgressRegistry renderProgressRegistry;
+    private final RenderCostModel renderCostModel;
+    private final RenderDeadlines renderDeadlines;
+    private final RenderDeadLetterService renderDeadLetterService;
+    private final ApplicationProperties.Render properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Renders en curso en este nodo, indexados por la clave de {@link RenderResultCache}.
+     */
+    private final Map<String, SharedRender> inFlightRenders = new ConcurrentHashMap<>();
+
+    /**
+     * Señal de cancelación de cada render en curso en este nodo, por id de video.
+     */
+    private final Map<Long, Sinks.One<Boolean>> cancellations = new ConcurrentHashMap<>();
+
+    private final Counter coalesced;
+
+    private final Counter cancelled;
 
-    public VideoProcessingService(FileStorageService fileStorageService, PythonVideoService pythonVideoService, VideoService videoService) {
+    public VideoProcessingService(
+        FileStorageService fileStorageService,
+        PythonVideoService pythonVideoService,
+        VideoService videoService,
+        RenderResultCache renderResultCache,
+        VideoStatusBroadcaster videoStatusBroadcaster,
+        RenderProgressRegistry renderProgressRegistry,
+        RenderCostModel renderCostModel,
+        RenderDeadlines renderDeadlines,
+        RenderDeadLetterService renderDeadLetterService,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
         this.fileStorageService = fileStorageService;
         this.pythonVideoService = pythonVideoService;
         this.videoService = videoService;
+        this.renderResultCache = renderResultCache;
+        this.videoStatusBroadcaster = videoStatusBroadcaster;
+        this.renderProgressRegistry = renderProgressRegistry;
+        this.renderCostModel = renderCostModel;
+        this.renderDeadlines = renderDeadlines;
+        this.renderDeadLetterService = renderDeadLetterService;
+        this.properties = applicationProperties.getRender();
+        Gauge.builder(IN_FLIGHT_METER_NAME, inFlight, AtomicInteger::get)
+            .description("Renders en curso en este nodo")
+            .register(meterRegistry);
+        this.coalesced = Counter.builder(COALESCED_METER_NAME)
+            .description("Renders que esperaron a un render idéntico en curso en lugar de llamar a Python")
+            .register(meterRegistry);
+        this.cancelled = Counter.builder(CANCELLED_METER_NAME)
+            .description("Renders cancelados antes de terminar")
+            .register(meterRegistry);
+        // la cancelación puede pedirse en cualquier nodo: llega como cambio de estado
+        videoStatusBroadcaster
+            .changes()
+            .filter(event -> event.estado() == EstadoVideo.CANCELADO)
+            .subscribe(event -> cancel(event.videoId()));
     }
 
     /**
-     * Procesa el video de forma asíncrona en un hilo separado.
-     * Este método NO bloquea la respuesta HTTP al cliente.
+     * Resultado del render de un video.
      *
-     * @param videoDTO el video a procesar
-     * @param images lista de imágenes
-     * @param audio archivo de audio opcional
+     * @param videoId el id del video.
+     * @param completed {@code true} si quedó COMPLETADO, {@code false} si quedó en ERROR o se canceló.
      */
-    @Async("videoTaskExecutor")
-    public void processVideoAsync(Long videoId) {
-        String threadName = Thread.currentThread().getName();
+    public record RenderOutcome(Long videoId, boolean completed) {}
 
-        LOG.info("=== INICIO PROCESAMIENTO ASÍNCRONO ===");
-        LOG.info("Video ID: {}", videoId);
-        LOG.info("Thread: {}", threadName);
+    /**
+     * Renderiza los videos recibidos con como máximo {@code application.render.max-concurrency}
+     * renders simultáneos. Ningún hilo queda bloqueado mientras Python genera el video.
+     *
+     * @param videoIds ids de los videos a renderizar.
+     * @return el resultado de cada render, en orden de finalización.
+     */
+    public Flux<RenderOutcome> processAll(Flux<Long> videoIds) {
+        return videoIds.flatMap(
+            videoId -> processVideo(videoId).map(completed -> new RenderOutcome(videoId, completed)),
+            properties.getMaxConcurrency()
+        );
+    }
 
-        VideoDTO videoDTO = null;
+    /**
+     * Procesa un video de forma no bloqueante.
+     *
+     * @param videoId el id del video a procesar
+     * @return {@code true} si el video quedó COMPLETADO, {@code false} si quedó en ERROR
+     */
+    public Mono<Boolean> processVideo(Long videoId) {
+        return Mono.defer(() -> {
+            inFlight.incrementAndGet();
+            LOG.info("=== INICIO PROCESAMIENTO ASÍNCRONO === Video ID: {}", videoId);
+            Sinks.One<Boolean> cancellation = Sinks.one();
+            cancellations.put(videoId, cancellation);
 
-        try {
-            // 1) Cargar video desde BD
-            videoDTO = videoService
+            return videoService
                 .findOne(videoId)
-                .blockOptional()
-                .orElseThrow(() -> new RuntimeException("Video no encontrado: " + videoId));
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Video no encontrado: " + videoId)))
+                // cancelado mientras esperaba en la cola
+                .filter(video -> video.getEstado() != EstadoVideo.CANCELADO)
+                .flatMap(this::render)
+                .doOnNext(updatedVideo -> {
+                    LOG.info("✅ [{}] Video actualizado exitosamente. Estado={}", videoId, updatedVideo.getEstado());
+                    LOG.info("=== FIN PROCESAMIENTO ASÍNCRONO EXITOSO ===");
+                })
+                .map(updatedVideo -> true)
+                .onErrorResume(error -> markAsError(videoId, error).thenReturn(false))
+                // la cancelación descarta la suscripción: la llamada a Python se corta y libera su permiso
+                .takeUntilOther(cancellation.asMono())
+                .switchIfEmpty(Mono.defer(() -> onCancelled(videoId)))
+                // antes de entregar el resultado (doFinally llegaría después): quien lo recibe ya no encuentra el progreso,
+                // y flatMap no pide el siguiente video hasta liberar el hueco, así que el gauge nunca supera el límite
+                .doOnTerminate(() -> release(videoId, cancellation))
+                .doOnCancel(() -> release(videoId, cancellation));
+        });
+    }
 
-            LOG.info("✅ [{}] Video cargado desde BD. Tiene audio: {}", videoId, videoDTO.getTieneAudio());
+    private void release(Long videoId, Sinks.One<Boolean> cancellation) {
+        renderProgressRegistry.finish(videoId);
+        cancellations.remove(videoId, cancellation);
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Número de renders en curso en este nodo.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
 
-            // 2) Construir paths (asumimos que archivos YA están persistidos)
-            String baseDir = "/app/shared-data/videos/" + videoId;
-            String imagesDir = baseDir + "/images";
-            String outputDir = baseDir + "/output";
+    /**
+     * Detiene el render del video si está en curso en este nodo.
+     *
+     * @return {@code true} si había un render en curso.
+     */
+    public boolean cancel(Long videoId) {
+        Sinks.One<Boolean> cancellation = cancellations.get(videoId);
+        return cancellation != null && cancellation.tryEmitValue(true).isSuccess();
+    }
 
-            String audioPath = null;
-            if (Boolean.TRUE.equals(videoDTO.getTieneAudio()) && videoDTO.getAudioFilename() != null) {
-                audioPath = baseDir + "/audio/" + videoDTO.getAudioFilename();
-            }
+    private Mono<Boolean> onCancelled(Long videoId) {
+        LOG.info("🛑 [{}] Render cancelado, liberando sus archivos", videoId);
+        cancelled.increment();
+        // en segundo plano: nadie espera la limpieza para liberar el hueco de render
+        fileStorageService
+            .cleanupFiles(videoId.toString())
+            .subscribe(null, error ->
+                LOG.warn("No se pudieron limpiar los archivos del video cancelado {}: {}", videoId, error.getMessage())
+            );
+        return Mono.just(false);
+    }
 
-            FileSystemPaths paths = new FileSystemPaths(imagesDir, audioPath, outputDir);
+    private Mono<VideoDTO> render(VideoDTO videoDTO) {
+        Long videoId = videoDTO.getId();
+        LOG.info("✅ [{}] Video cargado desde BD. Tiene audio: {}", videoId, videoDTO.getTieneAudio());
 
-            LOG.info("📁 [{}] Usando paths persistidos:", videoId);
-            LOG.info("   - Images: {}", paths.getImagesPath());
-            LOG.info("   - Audio: {}", paths.getAudioPath() != null ? paths.getAudioPath() : "sin audio");
-            LOG.info("   - Output: {}", paths.getVideoOutputPath());
+        // Archivos ya persistidos: se traen a la copia de trabajo de este nodo, donde los lee Python
+        String audioFilename = Boolean.TRUE.equals(videoDTO.getTieneAudio()) ? videoDTO.getAudioFilename() : null;
+        return fileStorageService
+            .checkout(videoId, audioFilename)
+            .flatMap(paths -> {
+                LOG.info("📁 [{}] Usando paths persistidos:", videoId);
+                LOG.info("   - Images: {}", paths.getImagesPath());
+                LOG.info("   - Audio: {}", paths.getAudioPath() != null ? paths.getAudioPath() : "sin audio");
+                LOG.info("   - Output: {}", paths.getVideoOutputPath());
+                return render(videoDTO, paths);
+            });
+    }
 
-            // 3) Llamar a Python
-            LOG.info("🐍 [{}] Llamando a Python para generar video...", videoId);
+    private Mono<VideoDTO> render(VideoDTO videoDTO, FileSystemPaths paths) {
+        Long videoId = videoDTO.getId();
+        Path imagesDir = Path.of(paths.getImagesPath());
+        Path audio = paths.getAudioPath() != null ? Path.of(paths.getAudioPath()) : null;
+        Mono<VideoDTO> renderChain = fileStorageService
+            .countImages(imagesDir)
+            .onErrorReturn(0)
+            .defaultIfEmpty(0)
+            .flatMap(images -> {
+                renderProgressRegistry.start(videoId, images, audio != null);
+                return renderResultCache
+                    .key(imagesDir, audio, videoDTO.getFormato(), videoDTO.getDuracionTransicion(), videoDTO.getTieneAudio())
+                    .map(Optional::of)
+                    .onErrorResume(error -> {
+                        LOG.warn("⚠️ [{}] No se pudo calcular la clave de caché: {}", videoId, error.getMessage());
+                        return Mono.empty();
+                    })
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(cacheKey ->
+                        cacheKey
+                            .map(key -> renderOnce(videoDTO, paths, images, key))
+                            .orElseGet(() ->
+                                renderWithPython(videoDTO, paths, images, Optional.empty()).flatMap(rendered ->
+                                    complete(videoDTO, rendered)
+                                )
+                            )
+                    );
+            });
+        return findFinishedOutput(videoId).flatMap(finished ->
+            finished
+                .map(output -> {
+                    LOG.info("♻️ [{}] Python ya había generado el video en un intento anterior: {}", videoId, output);
+                    return complete(videoDTO, new RenderedVideo(output.toString(), null));
+                })
+                .orElse(renderChain)
+        );
+    }
 
-            Mono<PythonVideoResponse> pythonCall;
+    /**
+     * Salida que Python terminó en un intento anterior del video: un render devuelto a la cola por un nodo
+     * que se apagaba puede haber acabado después de que el nodo lo soltara.
+     */
+    private Mono<Optional<Path>> findFinishedOutput(Long videoId) {
+        return fileStorageService
+            .findFinishedOutput(videoId, properties.getRecovery().getGracePeriod())
+            .map(Optional::of)
+            .onErrorResume(error -> {
+                LOG.warn("⚠️ [{}] No se pudo buscar una salida anterior: {}", videoId, error.getMessage());
+                return Mono.empty();
+            })
+            .defaultIfEmpty(Optional.empty());
+    }
 
-            if (paths.getAudioPath() != null) {
-                LOG.info("🎵 [{}] Generando video CON audio", videoId);
-                pythonCall = pythonVideoService.generateVideoWithAudio(
-                    paths.getImagesPath(),
-                    paths.getAudioPath(),
-                    paths.getVideoOutputPath(),
-                    videoDTO.getFormato()
-                );
-            } else {
-                LOG.info("🔇 [{}] Generando video SIN audio", videoId);
-                pythonCall = pythonVideoService.generateVideoWithoutAudio(
-                    paths.getImagesPath(),
-                    paths.getVideoOutputPath(),
-                    videoDTO.getFormato(),
-                    videoDTO.getDuracionTransicion()
+    /**
+     * Renderiza un contenido una sola vez: los renders idénticos que llegan mientras está en curso
+     * (doble clic, reintentos del cliente) esperan su resultado y lo enlazan en su propio directorio.
+     */
+    private Mono<VideoDTO> renderOnce(VideoDTO videoDTO, FileSystemPaths paths, int images, String key) {
+        Long videoId = videoDTO.getId();
+        AtomicBoolean leader = new AtomicBoolean();
+        SharedRender render = inFlightRenders.compute(key, (k, current) -> {
+            if (current == null) {
+                leader.set(true);
+                current = new SharedRender(
+                    k,
+                    reuseCachedRender(videoId, key, Path.of(paths.getVideoOutputPath())).switchIfEmpty(
+                        Mono.defer(() -> renderWithPython(videoDTO, paths, images, Optional.of(key)))
+                    )
                 );
             }
+            current.waiting++;
+            return current;
+        });
+        Mono<RenderedVideo> shared = render.result.doOnCancel(() -> abandon(render));
+        if (leader.get()) {
+            return shared.flatMap(rendered -> complete(videoDTO, rendered));
+        }
 
-            PythonVideoResponse pythonResponse = pythonCall.block();
+        LOG.info("🔗 [{}] Render idéntico en curso, esperando su resultado", videoId);
+        coalesced.increment();
+        renderProgressRegistry.stage(videoId, RenderProgress.Stage.RENDERING);
+        return shared.flatMap(rendered ->
+            renderResultCache
+                .linkInto(Path.of(rendered.path()), Path.of(paths.getVideoOutputPath()))
+                .flatMap(output -> complete(videoDTO, new RenderedVideo(output.toString(), rendered.duration())))
+        );
+    }
 
-            if (pythonResponse == null || pythonResponse.getMetadata() == null) {
-                throw new RuntimeException("Python no retornó metadata válida");
+    /**
+     * Un video deja de esperar el render compartido; si era el último, el render se cancela.
+     */
+    private void abandon(SharedRender render) {
+        AtomicBoolean last = new AtomicBoolean();
+        inFlightRenders.computeIfPresent(render.key, (k, current) -> {
+            if (current != render || --current.waiting > 0) {
+                return current;
             }
+            last.set(true);
+            return null;
+        });
+        // fuera de compute: cancelar el render ejecuta su doFinally, que vuelve a tocar el mapa
+        if (last.get()) {
+            LOG.info("🛑 Render compartido {} abandonado por todos sus videos, cancelándolo", render.key);
+            render.abandoned.tryEmitValue(true);
+        }
+    }
 
-            LOG.info("✅ [{}] Python generó el video exitosamente", videoId);
-            LOG.info("   - Video path: {}", pythonResponse.getMetadata().getFull_path());
-            LOG.info("   - Duration: {}", pythonResponse.getMetadata().getDuration());
-
-            // 4) Actualizar estado en BD
-            LOG.info("💾 [{}] Actualizando video en BD con estado COMPLETADO...", videoId);
+    private Mono<RenderedVideo> reuseCachedRender(Long videoId, String key, Path outputDir) {
+        return renderResultCache
+            .reuse(key, outputDir)
+            .onErrorResume(error -> {
+                LOG.warn("⚠️ [{}] Error leyendo la caché de renders: {}", videoId, error.getMessage());
+                return Mono.empty();
+            })
+            .map(cached -> {
+                LOG.info("♻️ [{}] Video idéntico encontrado en caché, se omite Python", videoId);
+                return new RenderedVideo(cached.output().toString(), cached.duration());
+            });
+    }
 
-            String fullPath = pythonResponse.getMetadata().getFull_path();
+    /**
+     * Llama a Python con el plazo que corresponde al video y registra el tiempo real del render en
+     * {@link RenderCostModel} y en {@link RenderDeadlines}.
+     *
+     * @param countedImages imágenes contadas en disco, por si Python no informa las que usó.
+     */
+    private Mono<RenderedVideo> renderWithPython(VideoDTO videoDTO, FileSystemPaths paths, int countedImages, Optional<String> cacheKey) {
+        return audioSeconds(videoDTO, paths)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(audioSeconds -> {
+                RenderDeadlines.Deadline deadline = renderDeadlines.forRender(
+                    countedImages,
+                    paths.getAudioPath() != null,
+                    videoDTO.getDuracionTransicion(),
+                    audioSeconds.orElse(null)
+                );
+                return renderWithPython(videoDTO, paths, countedImages, cacheKey, deadline);
+            });
+    }
 
-            videoDTO.setVideoPath(fullPath);
-            videoDTO.setOutputFilename(java.nio.file.Path.of(fullPath).getFileName().toString());
-            videoDTO.setEstado(EstadoVideo.COMPLETADO);
-            videoDTO.setDuracionTransicion(pythonResponse.getMetadata().getDuration().intValue());
+    /**
+     * Duración del audio leída al subirlo; los videos subidos antes de leerla se miden ahora.
+     */
+    private Mono<Double> audioSeconds(VideoDTO videoDTO, FileSystemPaths paths) {
+        if (paths.getAudioPath() == null) {
+            return Mono.empty();
+        }
+        if (videoDTO.getDuracionAudio() != null) {
+            return Mono.just(videoDTO.getDuracionAudio());
+        }
+        return fileStorageService.probeAudioDuration(Path.of(paths.getAudioPath()));
+    }
 
-            VideoDTO updatedVideo = videoService.update(videoDTO).block();
+    private Mono<RenderedVideo> renderWithPython(
+        VideoDTO videoDTO,
+        FileSystemPaths paths,
+        int countedImages,
+        Optional<String> cacheKey,
+        RenderDeadlines.Deadline deadline
+    ) {
+        Long videoId = videoDTO.getId();
+        LOG.info("🐍 [{}] Llamando a Python para generar video (plazo {})...", videoId, deadline.limit());
+        renderProgressRegistry.stage(videoId, RenderProgress.Stage.RENDERING);
+        long startedAt = System.nanoTime();
 
-            LOG.info("✅ [{}] Video actualizado exitosamente. Estado={}", videoId, updatedVideo.getEstado());
-            LOG.info("=== FIN PROCESAMIENTO ASÍNCRONO EXITOSO ===");
-        } catch (Exception error) {
-            LOG.error("❌❌❌ ERROR en procesamiento asíncrono del video {} ❌❌❌", videoId, error);
+        Mono<PythonVideoResponse> pythonCall;
 
-            try {
-                LOG.info("🔄 [{}] Marcando video como ERROR en BD...", videoId);
+        if (paths.getAudioPath() != null) {
+            LOG.info("🎵 [{}] Generando video CON audio", videoId);
+            pythonCall = pythonVideoService.generateVideoWithAudio(
+                videoId,
+                paths.getImagesPath(),
+                paths.getAudioPath(),
+                paths.getVideoOutputPath(),
+                videoDTO.getFormato(),
+                deadline
+            );
+        } else {
+            LOG.info("🔇 [{}] Generando video SIN audio", videoId);
+            pythonCall = pythonVideoService.generateVideoWithoutAudio(
+                videoId,
+                paths.getImagesPath(),
+                paths.getVideoOutputPath(),
+                videoDTO.getFormato(),
+                videoDTO.getDuracionTransicion(),
+                deadline
+            );
+        }
 
-                if (videoDTO == null) {
-                    videoDTO = videoService.findOne(videoId).blockOptional().orElse(null);
-                }
-                if (videoDTO != null) {
-                    videoDTO.setEstado(EstadoVideo.ERROR);
-                    videoService.update(videoDTO).block();
+        DoubleConsumer progress = percent -> renderProgressRegistry.report(videoId, percent);
+        return pythonCall
+            .contextWrite(Context.of(PythonVideoService.PROGRESS_CONTEXT_KEY, progress))
+            .doOnSuccess(response -> renderDeadlines.record(deadline, Duration.ofNanos(System.nanoTime() - startedAt), null))
+            .doOnError(error -> renderDeadlines.record(deadline, Duration.ofNanos(System.nanoTime() - startedAt), error))
+            .switchIfEmpty(Mono.error(() -> new RuntimeException("Python no retornó metadata válida")))
+            .flatMap(pythonResponse -> {
+                if (pythonResponse.getMetadata() == null) {
+                    return Mono.error(new RuntimeException("Python no retornó metadata válida"));
                 }
 
-                LOG.info("✅ [{}] Video marcado como ERROR", videoId);
+                LOG.info("✅ [{}] Python generó el video exitosamente", videoId);
+                LOG.info("   - Video path: {}", pythonResponse.getMetadata().getFull_path());
+                LOG.info("   - Duration: {}", pythonResponse.getMetadata().getDuration());
 
-                LOG.info("🗑️ [{}] Limpiando archivos...", videoId);
-                fileStorageService
-                    .cleanupFiles(videoId.toString())
-                    .subscribe(
-                        success -> LOG.info("✅ Archivos limpiados para video: {}", videoId),
-                        err -> LOG.error("❌ Error limpiando archivos", err)
-                    );
-            } catch (Exception updateError) {
-                LOG.error("❌ Error crítico: no se pudo marcar el video {} como ERROR", videoId, updateError);
-            }
+                String fullPath = pythonResponse.getMetadata().getFull_path();
+                Double duration = pythonResponse.getMetadata().getDuration();
+                Integer imagesUsed = pythonResponse.getMetadata().getImages_used();
+                renderProgressRegistry.rendered(videoId, imagesUsed);
+                // tiempo real de la llamada: es lo que el planificador necesita predecir
+                Mono<Void> recordRenderTime = renderCostModel.record(
+                    videoDTO.getFormato(),
+                    imagesUsed != null && imagesUsed > 0 ? imagesUsed : countedImages,
+                    paths.getAudioPath() != null,
+                    duration,
+                    Duration.ofNanos(System.nanoTime() - startedAt)
+                );
+
+                Mono<Void> store = cacheKey
+                    .map(key ->
+                        renderResultCache
+                            .store(key, Path.of(fullPath), duration)
+                            .onErrorResume(error -> {
+                                LOG.warn("⚠️ [{}] No se pudo guardar el video en caché: {}", videoId, error.getMessage());
+                                return Mono.empty();
+                            })
+                    )
+                    .orElse(Mono.empty());
+
+                return recordRenderTime.then(store).thenReturn(new RenderedVideo(fullPath, duration));
+            });
+    }
 
-            LOG.error("=== FIN PROCESAMIENTO ASÍNCRONO CON ERROR ===");
+    /**
+     * Marca el video COMPLETADO, salvo que se haya cancelado mientras Python terminaba o mientras se publicaba
+     * el video: entonces no emite nada. El cambio de estado es condicional, así que una cancelación que llega
+     * durante {@code publishOutput} no se sobrescribe.
+     */
+    private Mono<VideoDTO> complete(VideoDTO videoDTO, RenderedVideo rendered) {
+        LOG.info("💾 [{}] Actualizando video en BD con estado COMPLETADO...", videoDTO.getId());
+        renderProgressRegistry.stage(videoDTO.getId(), RenderProgress.Stage.FINALIZING);
+
+        videoDTO.setOutputFilename(Path.of(rendered.path()).getFileName().toString());
+        videoDTO.setEstado(EstadoVideo.COMPLETADO);
+        if (rendered.duration() != null) {
+            videoDTO.setDuracionTransicion(rendered.duration().intValue());
+        }
+
+        return videoService
+            .findOne(videoDTO.getId())
+            .filter(current -> current.getEstado() == EstadoVideo.EN_PROCESO)
+            .flatMap(current -> fileStorageService.publishOutput(videoDTO.getId()).then(videoService.finishProcessing(videoDTO)))
+            .doOnNext(updated -> videoStatusBroadcaster.publish(VideoStatusEvent.of(updated)));
+    }
+
+    /**
+     * Video generado por Python o reutilizado de la caché o de un intento anterior ({@code duration} desconocida).
+     */
+    private record RenderedVideo(String path, Double duration) {}
+
+    /**
+     * Render en curso compartido por los videos con el mismo contenido. {@code waiting} solo se
+     * modifica dentro de {@code compute} sobre su clave de {@link #inFlightRenders}.
+     */
+    private final class SharedRender {
+
+        private final String key;
+        private final Sinks.One<Boolean> abandoned = Sinks.one();
+        private final Mono<RenderedVideo> result;
+        private int waiting;
+
+        private SharedRender(String key, Mono<RenderedVideo> render) {
+            this.key = key;
+            // cache() no cancela su origen aunque se vayan todos los suscriptores: lo hace abandoned.
+            // Se quita del mapa antes de entregar el resultado (doFinally llegaría después), para que
+            // un render idéntico posterior no se una a uno ya terminado
+            this.result = render
+                .takeUntilOther(abandoned.asMono())
+                .doOnTerminate(() -> inFlightRenders.remove(key, this))
+                .doOnCancel(() -> inFlightRenders.remove(key, this))
+                .cache();
         }
     }
+
+    private Mono<Void> cleanupFiles(Long videoId) {
+        LOG.info("🗑️ [{}] Limpiando archivos...", videoId);
+        return fileStorageService
+            .cleanupFiles(videoId.toString())
+            .doOnSuccess(v -> LOG.info("✅ Archivos limpiados para video: {}", videoId))
+            .onErrorResume(err -> {
+                LOG.error("❌ Error limpiando archivos", err);
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * Marca el video ERROR y guarda el fallo en {@link RenderDeadLetterService} con sus archivos.
+     */
+    private Mono<Void> markAsError(Long videoId, Throwable error) {
+        LOG.error("❌❌❌ ERROR en procesamiento asíncrono del video {} ❌❌❌", videoId, error);
+        LOG.info("🔄 [{}] Marcando video como ERROR en BD...", videoId);
+
+        return videoService
+            .findOne(videoId)
+            .filter(videoDTO -> videoDTO.getEstado() == EstadoVideo.EN_PROCESO)
+            .flatMap(videoDTO -> {
+                videoDTO.setEstado(EstadoVideo.ERROR);
+                return videoService.finishProcessing(videoDTO);
+            })
+            .doOnNext(updated -> videoStatusBroadcaster.publish(VideoStatusEvent.of(updated)))
+            .doOnNext(updated -> LOG.info("✅ [{}] Video marcado como ERROR", videoId))
+            // los archivos se conservan para poder reintentar el render sin volver a subirlos
+            .flatMap(updated ->
+                renderDeadLetterService
+                    .record(videoId, error, true)
+                    .doOnNext(deadLetter -> LOG.info("📮 [{}] Archivos conservados para reintentar el render", videoId))
+                    .onErrorResume(recordError -> {
+                        LOG.error("❌ [{}] No se pudo guardar el render fallido", videoId, recordError);
+                        return Mono.empty();
+                    })
+            )
+            // sin fallo guardado (video cancelado o error al guardarlo) nadie va a reintentarlo
+            .switchIfEmpty(Mono.defer(() -> cleanupFiles(videoId).then(Mono.empty())))
+            .then()
+            .onErrorResume(updateError -> {
+                LOG.error("❌ Error crítico: no se pudo marcar el video {} como ERROR", videoId, updateError);
+                return Mono.empty();
+            })
+            .doFinally(signal -> LOG.error("=== FIN PROCESAMIENTO ASÍNCRONO CON ERROR ==="));
+    }
 }
@@ -25,6 +25,15 @@ public interface VideoService {
      */
     Mono<VideoDTO> update(VideoDTO videoDTO);
 
+    /**
+     * Moves a video out of EN_PROCESO to the estado, output filename and duration of {@code videoDTO}, only if it is
+     * still EN_PROCESO. The rest of the row is left as it is in the database.
+     *
+     * @param videoDTO the outcome of the processing.
+     * @return the persisted entity, or empty if the video had already left EN_PROCESO.
+     */
+    Mono<VideoDTO> finishProcessing(VideoDTO videoDTO);
+
     /**
      * Partially updates a video.
      *
@@ -0,0 +1,165 @@
+package com.video.app.service;
+
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Difunde en memoria los cambios de estado de los videos, y el progreso de sus renders
+ * ({@link RenderProgressRegistry}), a quienes los observan.
+ * <p>
+ * Cada video observado tiene un tópico que existe mientras tenga observadores. El estado inicial se
+ * lee de la base de datos una sola vez por tópico, no por observador; después solo viajan los
+ * cambios publicados por el render, sin consultas. Los cambios publicados en este nodo se reenvían
+ * a los demás con {@link VideoStatusNotifier}; {@link #changes()} los ofrece todos a quien deba
+ * reaccionar aunque no haya clientes observando, como la cancelación de renders.
+ */
+@Service
+public class VideoStatusBroadcaster {
+
+    public static final String WATCHERS_METER_NAME = "video.status.watchers";
+
+    private final Map<Long, Topic> topics = new ConcurrentHashMap<>();
+
+    private final AtomicInteger watchers = new AtomicInteger();
+
+    private volatile Consumer<VideoStatusEvent> relay = event -> {};
+
+    /**
+     * Todos los cambios entregados en este nodo, con o sin observadores del video.
+     */
+    private final Sinks.Many<VideoStatusEvent> allChanges = Sinks.many().multicast().directBestEffort();
+
+    public VideoStatusBroadcaster(MeterRegistry meterRegistry) {
+        Gauge.builder(WATCHERS_METER_NAME, watchers, AtomicInteger::get)
+            .description("Clientes observando el estado de un video")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Publica un cambio de estado ocurrido en este nodo: lo entrega a sus observadores y lo reenvía a los demás nodos.
+     */
+    public void publish(VideoStatusEvent event) {
+        deliver(event);
+        relay.accept(event);
+    }
+
+    /**
+     * Entrega un cambio de estado a los observadores de este nodo; no hace nada si nadie observa el video.
+     */
+    public void deliver(VideoStatusEvent event) {
+        Topic topic = topics.get(event.videoId());
+        if (topic != null) {
+            topic.publish(event);
+        }
+        synchronized (allChanges) {
+            allChanges.tryEmitNext(event);
+        }
+    }
+
+    /**
+     * Cambios de estado de todos los videos, publicados en este nodo o recibidos de los demás, a partir de la suscripción.
+     */
+    public Flux<VideoStatusEvent> changes() {
+        return allChanges.asFlux();
+    }
+
+    /**
+     * Estado actual del video seguido de sus cambios; termina con el primer estado final.
+     *
+     * @param videoId el id del video.
+     * @param current lectura del estado actual, usada solo si el tópico aún no lo conoce.
+     */
+    public Flux<VideoStatusEvent> watch(Long videoId, Mono<VideoStatusEvent> current) {
+        return Flux.defer(() -> {
+            Topic topic = topics.compute(videoId, (id, existing) -> {
+                Topic joined = existing != null ? existing : new Topic(current);
+                joined.watchers++;
+                return joined;
+            });
+            watchers.incrementAndGet();
+            // los cambios primero, para no perder los que lleguen mientras se lee el estado actual
+            return Flux.merge(topic.changes(), topic.initial())
+                .distinctUntilChanged()
+                .takeUntil(VideoStatusEvent::isFinal)
+                .doFinally(signal -> leave(videoId, topic));
+        });
+    }
+
+    /**
+     * Número de videos observados en este nodo.
+     */
+    public int getTopics() {
+        return topics.size();
+    }
+
+    public int getWatchers() {
+        return watchers.get();
+    }
+
+    /**
+     * Ids de los videos observados en este nodo.
+     */
+    public Set<Long> getWatchedVideoIds() {
+        return Set.copyOf(topics.keySet());
+    }
+
+    /**
+     * Destino de los cambios publicados en este nodo, además de sus propios observadores.
+     */
+    void relayTo(Consumer<VideoStatusEvent> relay) {
+        this.relay = relay;
+    }
+
+    private void leave(Long videoId, Topic topic) {
+        watchers.decrementAndGet();
+        topics.computeIfPresent(videoId, (id, existing) -> existing == topic && --existing.watchers == 0 ? null : existing);
+    }
+
+    private static final class Topic {
+
+        private final Sinks.Many<VideoStatusEvent> sink = Sinks.many().multicast().directBestEffort();
+
+        private final AtomicReference<VideoStatusEvent> latest = new AtomicReference<>();
+
+        private final Mono<VideoStatusEvent> snapshot;
+
+        /**
+         * Solo se modifica dentro de {@code topics.compute}.
+         */
+        private int watchers;
+
+        private Topic(Mono<VideoStatusEvent> current) {
+            this.snapshot = current
+                .map(event -> latest.compareAndSet(null, event) ? event : latest.get())
+                .cache(event -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+        }
+
+        private Flux<VideoStatusEvent> changes() {
+            return sink.asFlux();
+        }
+
+        private Mono<VideoStatusEvent> initial() {
+            return Mono.defer(() -> {
+                VideoStatusEvent known = latest.get();
+                return known != null ? Mono.just(known) : snapshot;
+            });
+        }
+
+        private synchronized void publish(VideoStatusEvent event) {
+            latest.set(event);
+            sink.tryEmitNext(event);
+        }
+    }
+}
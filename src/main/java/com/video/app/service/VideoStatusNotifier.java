@@ -0,0 +1,235 @@
+package com.video.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.video.app.config.ApplicationProperties;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Propaga los cambios de estado de los videos entre nodos con {@code LISTEN/NOTIFY} de PostgreSQL.
+ * <p>
+ * Cada cambio publicado en {@link VideoStatusBroadcaster} se envía con {@code pg_notify} al canal
+ * {@code channel}; cada nodo escucha ese canal con una conexión dedicada, fuera del pool, y entrega
+ * los cambios de los demás nodos a sus propios observadores. Si la conexión se pierde vuelve a
+ * escuchar tras {@code reconnectDelay} y relee el estado de los videos observados, por si se perdió
+ * algún cambio mientras tanto.
+ */
+@Service
+public class VideoStatusNotifier implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VideoStatusNotifier.class);
+
+    public static final String NOTIFICATIONS_METER_NAME = "video.status.notifications";
+
+    private final VideoStatusBroadcaster videoStatusBroadcaster;
+
+    private final VideoService videoService;
+
+    private final DatabaseClient databaseClient;
+
+    private final ConnectionFactory connectionFactory;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.Render.Events properties;
+
+    /**
+     * Identifica los avisos enviados por este nodo, que ya entregó a sus observadores.
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Counter sent;
+
+    private final Counter received;
+
+    private final AtomicBoolean listenedBefore = new AtomicBoolean();
+
+    private Disposable subscription;
+
+    private volatile boolean running;
+
+    private volatile boolean listening;
+
+    public VideoStatusNotifier(
+        VideoStatusBroadcaster videoStatusBroadcaster,
+        VideoService videoService,
+        DatabaseClient databaseClient,
+        ConnectionFactory connectionFactory,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.videoStatusBroadcaster = videoStatusBroadcaster;
+        this.videoService = videoService;
+        this.databaseClient = databaseClient;
+        this.connectionFactory = connectionFactory;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getRender().getEvents();
+        this.sent = Counter.builder(NOTIFICATIONS_METER_NAME)
+            .description("Cambios de estado enviados a otros nodos y recibidos de ellos")
+            .tag("direction", "sent")
+            .register(meterRegistry);
+        this.received = Counter.builder(NOTIFICATIONS_METER_NAME)
+            .description("Cambios de estado enviados a otros nodos y recibidos de ellos")
+            .tag("direction", "received")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Aviso enviado por el canal.
+     *
+     * @param node el nodo que publicó el cambio.
+     * @param event el cambio de estado.
+     */
+    record StatusNotification(String node, VideoStatusEvent event) {}
+
+    @Override
+    public void start() {
+        if (!properties.isCrossNode()) {
+            LOG.info("Propagación de estados entre nodos deshabilitada");
+            return;
+        }
+        PostgresqlConnectionFactory listenerFactory = postgresqlConnectionFactory(connectionFactory);
+        if (listenerFactory == null) {
+            LOG.warn("La base de datos no es PostgreSQL: los cambios de estado no se propagan entre nodos");
+            return;
+        }
+        videoStatusBroadcaster.relayTo(event ->
+            notifyOtherNodes(event).subscribe(null, error ->
+                LOG.warn("No se pudo propagar el estado del video {}: {}", event.videoId(), error.getMessage())
+            )
+        );
+        subscription = listen(listenerFactory)
+            .retryWhen(
+                Retry.fixedDelay(Long.MAX_VALUE, properties.getReconnectDelay()).doBeforeRetry(retry -> {
+                    listening = false;
+                    LOG.warn("Se perdió la escucha de '{}', reconectando: {}", properties.getChannel(), retry.failure().getMessage());
+                })
+            )
+            .subscribe(this::receive);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        listening = false;
+        videoStatusBroadcaster.relayTo(event -> {});
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * {@code true} mientras este nodo recibe los cambios de los demás.
+     */
+    public boolean isListening() {
+        return listening;
+    }
+
+    /**
+     * Envía un cambio de estado a los demás nodos.
+     */
+    public Mono<Void> notifyOtherNodes(VideoStatusEvent event) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(new StatusNotification(nodeId, event)))
+            .flatMap(payload ->
+                databaseClient
+                    .sql("SELECT pg_notify(:channel, :payload)")
+                    .bind("channel", properties.getChannel())
+                    .bind("payload", payload)
+                    .then()
+            )
+            .doOnSuccess(done -> sent.increment());
+    }
+
+    /**
+     * Escucha el canal con una conexión propia; termina con error si la conexión se pierde.
+     */
+    private Flux<Notification> listen(PostgresqlConnectionFactory listenerFactory) {
+        return Flux.usingWhen(
+            listenerFactory.create(),
+            connection ->
+                connection
+                    .createStatement("LISTEN " + properties.getChannel())
+                    .execute()
+                    .flatMap(PostgresqlResult::getRowsUpdated)
+                    .then(Mono.fromRunnable(this::onListening))
+                    .thenMany(connection.getNotifications())
+                    .concatWith(Mono.error(() -> new IllegalStateException("La conexión de escucha se cerró"))),
+            PostgresqlConnection::close
+        );
+    }
+
+    private void onListening() {
+        listening = true;
+        LOG.info("📡 Escuchando cambios de estado de otros nodos en '{}'", properties.getChannel());
+        if (listenedBefore.getAndSet(true)) {
+            resync().subscribe(null, error -> LOG.warn("No se pudo releer el estado de los videos observados: {}", error.getMessage()));
+        }
+    }
+
+    /**
+     * Relee el estado de los videos observados, para entregar los cambios perdidos sin conexión.
+     */
+    Mono<Void> resync() {
+        return Flux.fromIterable(videoStatusBroadcaster.getWatchedVideoIds())
+            .flatMap(videoService::findOne, 4)
+            .doOnNext(video -> videoStatusBroadcaster.deliver(VideoStatusEvent.of(video)))
+            .then();
+    }
+
+    void receive(Notification notification) {
+        String payload = notification.getParameter();
+        if (payload == null) {
+            return;
+        }
+        try {
+            StatusNotification statusNotification = objectMapper.readValue(payload, StatusNotification.class);
+            if (nodeId.equals(statusNotification.node())) {
+                return;
+            }
+            received.increment();
+            videoStatusBroadcaster.deliver(statusNotification.event());
+        } catch (JsonProcessingException e) {
+            LOG.warn("Aviso de estado inválido en '{}': {}", properties.getChannel(), e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * La fábrica de conexiones de PostgreSQL detrás del pool, o {@code null} si la base de datos es otra.
+     */
+    static PostgresqlConnectionFactory postgresqlConnectionFactory(ConnectionFactory connectionFactory) {
+        ConnectionFactory factory = connectionFactory;
+        while (!(factory instanceof PostgresqlConnectionFactory) && factory instanceof Wrapped<?> wrapped) {
+            if (!(wrapped.unwrap() instanceof ConnectionFactory inner)) {
+                break;
+            }
+            factory = inner;
+        }
+        return factory instanceof PostgresqlConnectionFactory postgresql ? postgresql : null;
+    }
+}
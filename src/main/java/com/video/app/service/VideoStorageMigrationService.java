@@ -0,0 +1,184 @@
+package com.video.app.service;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.domain.enumeration.RenderJobStatus;
+import com.video.app.service.storage.VideoStorage;
+import com.video.app.service.storage.VideoStorageKeys;
+import com.video.app.service.storage.VideoStorageResolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Migración en línea de los videos guardados directamente en {@code videos/{id}/} a los subdirectorios de
+ * {@link VideoStorageKeys#sharded(Long)}.
+ * <p>
+ * Cada {@code interval} mueve hasta {@code batch-size} videos, de uno en uno, para no competir por el disco con las
+ * subidas y los renders. Un video con un render pendiente o en curso en la cola, o EN_PROCESO, se deja para una pasada
+ * posterior: Python está usando o va a usar sus rutas. Se comprueba justo antes de moverlo, no al empezar el lote. En el
+ * sistema de archivos cada video se mueve renombrando su directorio; en S3 se copia y después se borra el origen, que
+ * {@link VideoStorageResolver} sigue leyendo mientras exista. Termina cuando no queda ningún video por mover.
+ */
+@Service
+public class VideoStorageMigrationService implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VideoStorageMigrationService.class);
+
+    public static final String MIGRATED_METER_NAME = "video.storage.migration.migrated";
+    public static final String FAILED_METER_NAME = "video.storage.migration.failed";
+
+    private static final Pattern VIDEO_ID = Pattern.compile("\\d{1,18}");
+
+    private final ApplicationProperties.Storage.Migration properties;
+
+    private final VideoStorage videoStorage;
+
+    private final VideoService videoService;
+
+    private final RenderJobQueue renderJobQueue;
+
+    private final Counter migrated;
+
+    private final Counter failures;
+
+    /**
+     * Videos que no se pudieron mover: no se reintentan hasta reiniciar el nodo.
+     */
+    private final Set<Long> failed = ConcurrentHashMap.newKeySet();
+
+    private Disposable subscription;
+
+    private volatile boolean running;
+
+    private volatile boolean completed;
+
+    public VideoStorageMigrationService(
+        ApplicationProperties applicationProperties,
+        VideoStorage videoStorage,
+        VideoService videoService,
+        RenderJobQueue renderJobQueue,
+        MeterRegistry meterRegistry
+    ) {
+        this.properties = applicationProperties.getStorage().getMigration();
+        this.videoStorage = videoStorage;
+        this.videoService = videoService;
+        this.renderJobQueue = renderJobQueue;
+        this.migrated = Counter.builder(MIGRATED_METER_NAME).description("Videos movidos a subdirectorios").register(meterRegistry);
+        this.failures = Counter.builder(FAILED_METER_NAME)
+            .description("Videos que no se pudieron mover a subdirectorios")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LOG.info("📦 Migrando videos a subdirectorios: {} cada {}", properties.getBatchSize(), properties.getInterval());
+        subscription = Flux.interval(properties.getInterval(), properties.getInterval())
+            .onBackpressureDrop()
+            .concatMap(tick ->
+                migrateBatch().onErrorResume(error -> {
+                    LOG.warn("Error migrando videos a subdirectorios: {}", error.getMessage());
+                    return Mono.empty();
+                })
+            )
+            .takeUntil(moved -> completed)
+            .subscribe();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Mueve hasta {@code batch-size} videos que sigan en {@code videos/{id}/}.
+     *
+     * @return el número de videos movidos.
+     */
+    public Mono<Long> migrateBatch() {
+        AtomicInteger pending = new AtomicInteger();
+        return videoStorage
+            .children(VideoStorageKeys.FLAT_ROOT)
+            .filter(name -> VIDEO_ID.matcher(name).matches())
+            .map(Long::valueOf)
+            .filter(videoId -> !failed.contains(videoId))
+            .doOnNext(videoId -> pending.incrementAndGet())
+            .concatMap(this::migrate)
+            .filter(moved -> moved)
+            .take(properties.getBatchSize())
+            .count()
+            .doOnNext(moved -> {
+                if (moved > 0) {
+                    LOG.info("📦 {} videos movidos a subdirectorios", moved);
+                }
+                if (pending.get() == 0) {
+                    completed = true;
+                    LOG.info("✅ Migración a subdirectorios terminada ({} videos sin mover)", failed.size());
+                }
+            });
+    }
+
+    private Mono<Boolean> migrate(Long videoId) {
+        return isRendering(videoId).flatMap(rendering -> rendering ? Mono.just(false) : move(videoId));
+    }
+
+    /**
+     * Un trabajo PENDING puede tomarse en cualquier momento y uno LEASED ya entregó las rutas del video a Python.
+     */
+    private Mono<Boolean> isRendering(Long videoId) {
+        Mono<Boolean> queued = renderJobQueue
+            .findByVideoId(videoId)
+            .map(job -> job.getStatus() == RenderJobStatus.PENDING || job.getStatus() == RenderJobStatus.LEASED)
+            .defaultIfEmpty(false);
+        // sin video en BD: archivos huérfanos, se mueven igual
+        Mono<Boolean> inProgress = videoService
+            .findOne(videoId)
+            .map(video -> video.getEstado() == EstadoVideo.EN_PROCESO)
+            .defaultIfEmpty(false);
+        return queued.flatMap(live -> live ? Mono.just(true) : inProgress);
+    }
+
+    private Mono<Boolean> move(Long videoId) {
+        String source = VideoStorageKeys.flat(videoId).video();
+        String target = VideoStorageKeys.sharded(videoId).video();
+        return videoStorage
+            .move(source, target)
+            .doOnSuccess(v -> {
+                migrated.increment();
+                LOG.debug("📦 [{}] {} movido a {}", videoId, source, target);
+            })
+            .thenReturn(true)
+            .onErrorResume(error -> {
+                failed.add(videoId);
+                failures.increment();
+                LOG.warn("⚠️ [{}] No se pudo mover {} a {}: {}", videoId, source, target, error.getMessage());
+                return Mono.just(false);
+            });
+    }
+}
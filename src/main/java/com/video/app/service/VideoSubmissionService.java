@@ -0,0 +1,117 @@
+package com.video.app.service;
+
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.repository.UserRepository;
+import com.video.app.service.dto.FileSystemPaths;
+import com.video.app.service.dto.UserDTO;
+import com.video.app.service.dto.VideoDTO;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Alta de un video nuevo con sus imágenes y audio: guarda el {@code Video}, coloca los archivos en
+ * {@link com.video.app.service.storage.VideoStorage} y deja el render en la cola duradera {@code render_job}.
+ * <p>
+ * Lo usan tanto la subida multipart de una sola petición como las subidas reanudables al finalizarse.
+ * Si falla algo después de guardar el video, este queda en ERROR.
+ */
+@Service
+public class VideoSubmissionService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VideoSubmissionService.class);
+
+    private final VideoService videoService;
+
+    private final UserRepository userRepository;
+
+    private final FileStorageService fileStorageService;
+
+    private final RenderJobQueue renderJobQueue;
+
+    public VideoSubmissionService(
+        VideoService videoService,
+        UserRepository userRepository,
+        FileStorageService fileStorageService,
+        RenderJobQueue renderJobQueue
+    ) {
+        this.videoService = videoService;
+        this.userRepository = userRepository;
+        this.fileStorageService = fileStorageService;
+        this.renderJobQueue = renderJobQueue;
+    }
+
+    /**
+     * @param videoDTO datos del video; el título, el estado y la fecha los pone el servidor.
+     * @param images imágenes del video, en orden; al menos una.
+     * @param audio audio opcional.
+     * @param login usuario dueño del video.
+     * @param authorities autoridades del usuario, para el reparto justo de la cola.
+     * @return el video guardado, EN_PROCESO.
+     */
+    public Mono<VideoDTO> submit(VideoDTO videoDTO, List<FilePart> images, FilePart audio, String login, List<String> authorities) {
+        String videoTitle = "video-" + UUID.randomUUID().toString().substring(0, 8);
+        videoDTO.setTitulo(videoTitle);
+        videoDTO.setAudioFilename(audio != null ? audio.filename() : null);
+        videoDTO.setTieneAudio(audio != null);
+        videoDTO.setEstado(EstadoVideo.EN_PROCESO);
+        videoDTO.setFechaCreacion(Instant.now());
+
+        return userRepository
+            .findOneByLogin(login)
+            .switchIfEmpty(Mono.error(new RuntimeException("Usuario no encontrado: " + login)))
+            .flatMap(user -> {
+                UserDTO userDTO = new UserDTO();
+                userDTO.setId(user.getId());
+                userDTO.setLogin(user.getLogin());
+                videoDTO.setUser(userDTO);
+
+                return videoService.save(videoDTO);
+            })
+            .flatMap(savedVideo ->
+                fileStorageService
+                    .saveFilesToDisk(savedVideo.getId(), images, audio)
+                    .flatMap(paths -> recordAudioDuration(savedVideo, paths))
+                    // el render lo hace cualquier nodo, que trae los archivos a su propia copia
+                    .flatMap(video -> fileStorageService.releaseWorkspace(video.getId()).thenReturn(video))
+                    .onErrorResume(err -> {
+                        // marcar ERROR si falla el guardado de archivos
+                        savedVideo.setEstado(EstadoVideo.ERROR);
+                        return videoService.update(savedVideo).then(Mono.error(err));
+                    })
+            )
+            .flatMap(savedVideo ->
+                // el render queda en la cola duradera; cualquier nodo lo puede tomar
+                renderJobQueue
+                    .enqueue(savedVideo.getId(), authorities, images.size())
+                    .thenReturn(savedVideo)
+                    .onErrorResume(err -> {
+                        savedVideo.setEstado(EstadoVideo.ERROR);
+                        return videoService.update(savedVideo).then(Mono.error(err));
+                    })
+            );
+    }
+
+    /**
+     * Guarda la duración del audio subido: el plazo del render depende de ella.
+     */
+    private Mono<VideoDTO> recordAudioDuration(VideoDTO video, FileSystemPaths paths) {
+        if (paths.getAudioPath() == null) {
+            return Mono.just(video);
+        }
+        return fileStorageService
+            .probeAudioDuration(Path.of(paths.getAudioPath()))
+            .flatMap(seconds -> {
+                LOG.info("🎵 [{}] Duración del audio: {} s", video.getId(), seconds);
+                video.setDuracionAudio(seconds);
+                return videoService.update(video);
+            })
+            .defaultIfEmpty(video);
+    }
+}
@@ -0,0 +1,16 @@
+package com.video.app.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Filtro de los renders fallidos a reintentar en bloque; los campos {@code null} no filtran.
+ *
+ * @param errorType clase de la excepción final, por ejemplo {@code PythonCallException}.
+ * @param httpStatus código HTTP con el que respondió Python.
+ * @param failedAfter solo los que fallaron por última vez desde este instante.
+ * @param failedBefore solo los que fallaron por última vez antes de este instante.
+ * @param limit máximo de renders a reintentar, acotado por {@code application.render.dead-letter.max-replay}.
+ */
+public record DeadLetterReplayRequest(String errorType, Integer httpStatus, Instant failedAfter, Instant failedBefore, Integer limit)
+    implements Serializable {}
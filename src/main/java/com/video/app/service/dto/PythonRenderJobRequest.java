@@ -0,0 +1,35 @@
+package com.video.app.service.dto;
+
+// DTO para enviar un render asíncrono a Python (modo submit-and-poll)
+public class PythonRenderJobRequest {
+
+    private String endpoint;
+    private Object request;
+    private String callback_url;
+
+    public PythonRenderJobRequest() {}
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public Object getRequest() {
+        return request;
+    }
+
+    public void setRequest(Object request) {
+        this.request = request;
+    }
+
+    public String getCallback_url() {
+        return callback_url;
+    }
+
+    public void setCallback_url(String callback_url) {
+        this.callback_url = callback_url;
+    }
+}
@@ -0,0 +1,62 @@
+package com.video.app.service.dto;
+
+// DTO con el estado de un render asíncrono en Python; también es el cuerpo del callback
+public class PythonRenderJobStatus {
+
+    public static final String DONE = "DONE";
+    public static final String ERROR = "ERROR";
+
+    private String job_id;
+    private String status;
+    private PythonVideoResponse result;
+    private String error;
+
+    // porcentaje completado (0-100) mientras el render está en curso, si Python lo informa
+    private Double progress;
+
+    public PythonRenderJobStatus() {}
+
+    public String getJob_id() {
+        return job_id;
+    }
+
+    public void setJob_id(String job_id) {
+        this.job_id = job_id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public PythonVideoResponse getResult() {
+        return result;
+    }
+
+    public void setResult(PythonVideoResponse result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Double getProgress() {
+        return progress;
+    }
+
+    public void setProgress(Double progress) {
+        this.progress = progress;
+    }
+
+    public boolean isFinished() {
+        return DONE.equalsIgnoreCase(status) || ERROR.equalsIgnoreCase(status);
+    }
+}
@@ -0,0 +1,31 @@
+package com.video.app.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * Progreso de un render en curso.
+ *
+ * @param stage la etapa actual.
+ * @param percent porcentaje completado, de 0 a 100.
+ * @param etaSeconds segundos que se estima que faltan.
+ * @param estimated {@code true} si el progreso se estima con renders anteriores; {@code false} si lo informó Python.
+ */
+public record RenderProgress(Stage stage, int percent, long etaSeconds, boolean estimated) implements Serializable {
+    /**
+     * Etapas de un render.
+     */
+    public enum Stage {
+        /**
+         * Preparando los archivos y buscando un resultado reutilizable.
+         */
+        PREPARING,
+        /**
+         * Python está generando el video.
+         */
+        RENDERING,
+        /**
+         * Guardando el resultado.
+         */
+        FINALIZING,
+    }
+}
@@ -0,0 +1,23 @@
+package com.video.app.service.dto;
+
+import com.video.app.domain.enumeration.UploadFileKind;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.io.Serializable;
+
+/**
+ * Archivo que el cliente va a enviar en una subida reanudable.
+ *
+ * @param kind imagen o audio.
+ * @param filename nombre del archivo, sin directorios.
+ * @param length tamaño total en bytes.
+ */
+public record UploadFileRequest(
+    @NotNull UploadFileKind kind,
+    @NotBlank @Size(max = 255) @Pattern(regexp = "^(?!\\.\\.?$)[^/\\\\]+$") String filename,
+    @NotNull @Positive Long length
+)
+    implements Serializable {}
@@ -0,0 +1,43 @@
+package com.video.app.service.dto;
+
+import com.video.app.domain.UploadFile;
+import com.video.app.domain.UploadSession;
+import com.video.app.domain.enumeration.UploadFileKind;
+import com.video.app.domain.enumeration.UploadStatus;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Estado de una subida reanudable: lo que el cliente necesita para saber desde dónde seguir.
+ *
+ * @param token identificador de la subida en las URLs.
+ * @param videoId video creado, una vez finalizada.
+ * @param files archivos de la subida, por posición.
+ */
+public record UploadSessionDTO(String token, UploadStatus status, Instant expiresAt, Long videoId, List<FileState> files)
+    implements Serializable {
+    /**
+     * @param position posición del archivo en la subida, la de su URL.
+     * @param offset bytes ya recibidos; el siguiente fragmento debe empezar aquí.
+     */
+    public record FileState(int position, UploadFileKind kind, String filename, long length, long offset) implements Serializable {
+        public boolean isComplete() {
+            return offset == length;
+        }
+
+        public static FileState of(UploadFile file) {
+            return new FileState(file.getPosition(), file.getKind(), file.getFilename(), file.getLength(), file.getUploadOffset());
+        }
+    }
+
+    public static UploadSessionDTO of(UploadSession session, List<UploadFile> files) {
+        return new UploadSessionDTO(
+            session.getToken(),
+            session.getStatus(),
+            session.getExpiresAt(),
+            session.getVideoId(),
+            files.stream().map(FileState::of).toList()
+        );
+    }
+}
@@ -0,0 +1,16 @@
+package com.video.app.service.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Alta de una subida reanudable.
+ *
+ * @param video datos del video que se creará al finalizar la subida.
+ * @param files archivos a enviar; las imágenes van al video en este orden.
+ */
+public record UploadSessionRequest(@NotNull @Valid VideoDTO video, @NotEmpty List<@NotNull @Valid UploadFileRequest> files)
+    implements Serializable {}
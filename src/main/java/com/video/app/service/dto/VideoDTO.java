@@ -1,5 +1,6 @@
 package com.video.app.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.video.app.domain.enumeration.EstadoVideo;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
@@ -36,12 +37,15 @@ public class VideoDTO implements Serializable {
 
     private String formato;
 
-    private String videoPath;
+    private Double duracionAudio;
 
     private String outputFilename; // nombre real del archivo (sin path)
 
     private String downloadUrl; // /api/videos/{id}/download
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private RenderProgress progress; // solo en GET /api/videos/{id}/status mientras el render está en curso
+
     public Long getId() {
         return id;
     }
@@ -122,12 +126,12 @@ public class VideoDTO implements Serializable {
         this.formato = formato;
     }
 
-    public String getVideoPath() {
-        return videoPath;
+    public Double getDuracionAudio() {
+        return duracionAudio;
     }
 
-    public void setVideoPath(String videoPath) {
-        this.videoPath = videoPath;
+    public void setDuracionAudio(Double duracionAudio) {
+        this.duracionAudio = duracionAudio;
     }
 
     public String getOutputFilename() {
@@ -146,6 +150,14 @@ public class VideoDTO implements Serializable {
         this.downloadUrl = downloadUrl;
     }
 
+    public RenderProgress getProgress() {
+        return progress;
+    }
+
+    public void setProgress(RenderProgress progress) {
+        this.progress = progress;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -181,7 +193,7 @@ public class VideoDTO implements Serializable {
             ", fechaDescarga='" + getFechaDescarga() + "'" +
             ", user=" + getUser() +
             ", formato='" + getFormato() + "'" +
-            ", videoPath='" + getVideoPath() + "'" +
+            ", duracionAudio=" + getDuracionAudio() +
             ", outputFilename='" + getOutputFilename() + "'" +
             ", downloadUrl='" + getDownloadUrl() + "'" +
             "}";
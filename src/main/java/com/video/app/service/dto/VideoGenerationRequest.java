@@ -8,6 +8,11 @@ public class VideoGenerationRequest {
     private String video_path;
     private String format;
 
+    /**
+     * Segundos que tiene Python para terminar el render; pasado ese plazo Java ya no espera el resultado.
+     */
+    private Long deadline_seconds;
+
     public VideoGenerationRequest() {}
 
     public String getImages_path() {
@@ -41,4 +46,12 @@ public class VideoGenerationRequest {
     public void setFormat(String format) {
         this.format = format;
     }
+
+    public Long getDeadline_seconds() {
+        return deadline_seconds;
+    }
+
+    public void setDeadline_seconds(Long deadline_seconds) {
+        this.deadline_seconds = deadline_seconds;
+    }
 }
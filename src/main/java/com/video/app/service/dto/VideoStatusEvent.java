@@ -0,0 +1,42 @@
+package com.video.app.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.video.app.domain.enumeration.EstadoVideo;
+import java.io.Serializable;
+
+/**
+ * Cambio de estado de un video, enviado a los clientes por {@code GET /api/videos/{id}/events}.
+ *
+ * @param progress progreso del render mientras el video está EN_PROCESO; {@code null} en los cambios de estado.
+ */
+public record VideoStatusEvent(
+    Long videoId,
+    EstadoVideo estado,
+    String outputFilename,
+    @JsonInclude(JsonInclude.Include.NON_NULL) RenderProgress progress
+)
+    implements Serializable {
+    public VideoStatusEvent(Long videoId, EstadoVideo estado, String outputFilename) {
+        this(videoId, estado, outputFilename, null);
+    }
+
+    public static VideoStatusEvent of(VideoDTO video) {
+        return new VideoStatusEvent(video.getId(), video.getEstado(), video.getOutputFilename());
+    }
+
+    /**
+     * Avance del render de un video que sigue EN_PROCESO.
+     */
+    public static VideoStatusEvent progress(Long videoId, RenderProgress progress) {
+        return new VideoStatusEvent(videoId, EstadoVideo.EN_PROCESO, null, progress);
+    }
+
+    /**
+     * {@code true} si el video ya no va a cambiar de estado por el render.
+     */
+    @JsonIgnore
+    public boolean isFinal() {
+        return estado != EstadoVideo.EN_PROCESO;
+    }
+}
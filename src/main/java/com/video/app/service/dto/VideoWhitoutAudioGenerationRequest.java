@@ -8,6 +8,11 @@ public class VideoWhitoutAudioGenerationRequest {
     private String format;
     private Integer transicion_segundos;
 
+    /**
+     * Segundos que tiene Python para terminar el render; pasado ese plazo Java ya no espera el resultado.
+     */
+    private Long deadline_seconds;
+
     public VideoWhitoutAudioGenerationRequest() {}
 
     public String getImages_path() {
@@ -41,4 +46,12 @@ public class VideoWhitoutAudioGenerationRequest {
     public void setTransicion_segundos(Integer transicion_segundos) {
         this.transicion_segundos = transicion_segundos;
     }
+
+    public Long getDeadline_seconds() {
+        return deadline_seconds;
+    }
+
+    public void setDeadline_seconds(Long deadline_seconds) {
+        this.deadline_seconds = deadline_seconds;
+    }
 }
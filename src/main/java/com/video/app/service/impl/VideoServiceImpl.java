@@ -42,6 +42,14 @@ public class VideoServiceImpl implements VideoService {
         return videoRepository.save(videoMapper.toEntity(videoDTO)).map(videoMapper::toDto);
     }
 
+    @Override
+    public Mono<VideoDTO> finishProcessing(VideoDTO videoDTO) {
+        LOG.debug("Request to finish processing Video : {}", videoDTO);
+        return videoRepository
+            .finishProcessing(videoDTO.getId(), videoDTO.getEstado().name(), videoDTO.getOutputFilename(), videoDTO.getDuracionTransicion())
+            .map(videoMapper::toDto);
+    }
+
     @Override
     public Mono<VideoDTO> partialUpdate(VideoDTO videoDTO) {
         LOG.debug("Request to partially update Video : {}", videoDTO);
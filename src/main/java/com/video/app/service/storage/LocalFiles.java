@@ -0,0 +1,121 @@
+package com.video.app.service.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Operaciones sobre la copia local de los archivos, comunes a los dos almacenamientos.
+ */
+final class LocalFiles {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalFiles.class);
+
+    private LocalFiles() {}
+
+    /**
+     * Ruta de una clave bajo {@code root}; una clave no puede salir de él.
+     */
+    static Path resolve(Path root, String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root.normalize())) {
+            throw new IllegalArgumentException("Clave fuera del almacenamiento: " + key);
+        }
+        return path;
+    }
+
+    /**
+     * Clave de un archivo que está bajo {@code root}.
+     */
+    static String key(Path root, Path path) {
+        return root.normalize().relativize(path.normalize()).toString().replace(path.getFileSystem().getSeparator(), "/");
+    }
+
+    /**
+     * Archivos que hay bajo una ruta: ella misma si es un archivo, nada si no existe.
+     */
+    static List<Path> files(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return List.of();
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            return walk.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    /**
+     * Los archivos que hay bajo una ruta como archivos guardados con claves relativas a {@code root}.
+     */
+    static List<StoredObject> objects(Path root, Path path) throws IOException {
+        List<StoredObject> objects = new ArrayList<>();
+        for (Path file : files(path)) {
+            try {
+                objects.add(stat(root, file));
+            } catch (NoSuchFileException e) {
+                // borrado mientras se listaba
+            }
+        }
+        return objects;
+    }
+
+    static StoredObject stat(Path root, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new StoredObject(key(root, file), attributes.size(), attributes.lastModifiedTime().toInstant());
+    }
+
+    /**
+     * Borra un archivo o un directorio con todo su contenido.
+     *
+     * @return si había algo que borrar.
+     */
+    static boolean deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path each : walk.sorted(Comparator.reverseOrder()).toList()) {
+                try {
+                    Files.delete(each);
+                } catch (NoSuchFileException e) {
+                    // ya borrado por otro
+                }
+            }
+        }
+        return true;
+    }
+
+    static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            LOG.debug("No se pudo cerrar {}", closeable, e);
+        }
+    }
+
+    /**
+     * Enlaza {@code target} a {@code source} con un enlace duro, o lo copia si no se puede.
+     */
+    static void linkOrCopy(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            // sistemas de archivos distintos o sin enlaces duros
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.video.app.service.storage;
+
+import java.net.URI;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Almacenamiento en un sistema de archivos compartido por todos los nodos ({@code /app/shared-data}): la copia de
+ * trabajo es el propio almacenamiento.
+ */
+public class LocalVideoStorage implements VideoStorage {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+
+    public LocalVideoStorage(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public Path workspace(String key) {
+        return LocalFiles.resolve(root, key);
+    }
+
+    @Override
+    public Mono<Void> fetch(String prefix) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> publish(String prefix) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> release(String prefix) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> put(String key, Path source) {
+        return Mono.fromCallable(() -> {
+            Path target = workspace(key);
+            if (!(Files.exists(target) && Files.isSameFile(source, target))) {
+                LocalFiles.linkOrCopy(source, target);
+            }
+            return target;
+        })
+            .subscribeOn(Schedulers.boundedElastic())
+            .then();
+    }
+
+    @Override
+    public Flux<DataBuffer> get(String key, long offset, long length) {
+        Flux<DataBuffer> content = DataBufferUtils.readAsynchronousFileChannel(
+            () -> AsynchronousFileChannel.open(workspace(key), StandardOpenOption.READ),
+            offset,
+            DefaultDataBufferFactory.sharedInstance,
+            BUFFER_SIZE
+        );
+        return DataBufferUtils.takeUntilByteCount(content, length);
+    }
+
+    @Override
+    public Mono<StoredObject> stat(String key) {
+        return Mono.fromCallable(() -> {
+            Path path = workspace(key);
+            return Files.isRegularFile(path) ? LocalFiles.stat(root, path) : null;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Flux<StoredObject> list(String prefix) {
+        return Mono.fromCallable(() -> LocalFiles.objects(root, workspace(prefix)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapIterable(objects -> objects);
+    }
+
+    @Override
+    public Mono<Boolean> exists(String keyOrPrefix) {
+        return Mono.fromCallable(() -> Files.exists(workspace(keyOrPrefix))).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Flux<String> children(String prefix) {
+        return Flux.defer(() -> {
+            Path directory = workspace(prefix);
+            if (!Files.isDirectory(directory)) {
+                return Flux.empty();
+            }
+            return Flux.using(
+                () -> Files.newDirectoryStream(directory, Files::isDirectory),
+                stream -> Flux.fromIterable(stream).map(path -> path.getFileName().toString()),
+                LocalFiles::closeQuietly
+            );
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Renombra el directorio: los lectores ven el origen entero o el destino entero, nunca una mezcla.
+     */
+    @Override
+    public Mono<Void> move(String sourcePrefix, String targetPrefix) {
+        return Mono.fromCallable(() -> {
+            Path target = workspace(targetPrefix);
+            Files.createDirectories(target.getParent());
+            return Files.move(workspace(sourcePrefix), target, StandardCopyOption.ATOMIC_MOVE);
+        })
+            .subscribeOn(Schedulers.boundedElastic())
+            .then();
+    }
+
+    @Override
+    public Mono<Void> link(String sourceKey, String targetKey) {
+        return put(targetKey, workspace(sourceKey));
+    }
+
+    @Override
+    public Mono<Void> delete(String keyOrPrefix) {
+        return Mono.fromCallable(() -> LocalFiles.deleteRecursively(workspace(keyOrPrefix)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .then();
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.of(workspace(key));
+    }
+
+    @Override
+    public Mono<URI> downloadUrl(String key, Duration expiration) {
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,369 @@
+package com.video.app.service.storage;
+
+import com.video.app.config.ApplicationProperties;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.FileRequestBodyConfiguration;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.utils.StringUtils;
+
+/**
+ * Almacenamiento en un servidor compatible con S3. Los archivos de más de {@code part-size} se suben por partes
+ * ({@code multipart upload}) y se traen con GETs por rangos, {@code concurrency} partes a la vez. Cada nodo trabaja
+ * sobre su copia local en {@code root}.
+ */
+public class S3VideoStorage implements VideoStorage, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(S3VideoStorage.class);
+
+    /**
+     * Tamaño mínimo de una parte, salvo la última.
+     */
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    /**
+     * Claves por petición de borrado.
+     */
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final S3AsyncClient client;
+
+    private final S3Presigner presigner;
+
+    private final String bucket;
+
+    private final Path root;
+
+    private final long partSize;
+
+    private final int concurrency;
+
+    public S3VideoStorage(S3AsyncClient client, S3Presigner presigner, String bucket, Path root, long partSize, int concurrency) {
+        this.client = client;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.root = root;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        this.concurrency = Math.max(concurrency, 1);
+    }
+
+    /**
+     * Crea el cliente con la configuración de {@code application.storage.s3}.
+     */
+    public static S3VideoStorage create(ApplicationProperties.Storage.S3 properties, Path root) {
+        AwsCredentialsProvider credentials = StringUtils.isBlank(properties.getAccessKey())
+            ? DefaultCredentialsProvider.builder().build()
+            : StaticCredentialsProvider.create(AwsBasicCredentials.create(properties.getAccessKey(), properties.getSecretKey()));
+        S3Configuration configuration = S3Configuration.builder().pathStyleAccessEnabled(properties.isPathStyleAccess()).build();
+        Region region = Region.of(properties.getRegion());
+        S3AsyncClientBuilder client = S3AsyncClient.builder()
+            .region(region)
+            .credentialsProvider(credentials)
+            .serviceConfiguration(configuration);
+        S3Presigner.Builder presigner = S3Presigner.builder()
+            .region(region)
+            .credentialsProvider(credentials)
+            .serviceConfiguration(configuration);
+        if (!StringUtils.isBlank(properties.getEndpoint())) {
+            client.endpointOverride(URI.create(properties.getEndpoint()));
+            presigner.endpointOverride(URI.create(properties.getEndpoint()));
+        }
+        if (!StringUtils.isBlank(properties.getPublicEndpoint())) {
+            presigner.endpointOverride(URI.create(properties.getPublicEndpoint()));
+        }
+        return new S3VideoStorage(
+            client.build(),
+            presigner.build(),
+            properties.getBucket(),
+            root,
+            properties.getPartSize().toBytes(),
+            properties.getConcurrency()
+        );
+    }
+
+    @Override
+    public Path workspace(String key) {
+        return LocalFiles.resolve(root, key);
+    }
+
+    @Override
+    public Mono<Void> fetch(String prefix) {
+        return list(prefix).flatMap(this::download, concurrency).then();
+    }
+
+    @Override
+    public Mono<Void> publish(String prefix) {
+        return Mono.fromCallable(() -> LocalFiles.files(workspace(prefix)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapIterable(files -> files)
+            .filter(file -> !file.getFileName().toString().endsWith(PARTIAL_SUFFIX))
+            .flatMap(file -> put(LocalFiles.key(root, file), file), concurrency)
+            .then();
+    }
+
+    @Override
+    public Mono<Void> release(String prefix) {
+        return Mono.fromCallable(() -> LocalFiles.deleteRecursively(workspace(prefix)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .then();
+    }
+
+    @Override
+    public Mono<Void> put(String key, Path source) {
+        return Mono.fromCallable(() -> Files.size(source))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(size -> size > partSize ? putMultipart(key, source, size) : putSingle(key, source))
+            .doOnSuccess(v -> LOG.debug("☁️ {} subido a s3://{}/{}", source, bucket, key));
+    }
+
+    @Override
+    public Flux<DataBuffer> get(String key, long offset, long length) {
+        if (length <= 0) {
+            return Flux.empty();
+        }
+        String range = "bytes=" + offset + "-" + (offset + length - 1);
+        return Mono.fromFuture(() ->
+            client.getObject(request -> request.bucket(bucket).key(key).range(range), AsyncResponseTransformer.toPublisher())
+        )
+            .flatMapMany(Flux::from)
+            .map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    @Override
+    public Mono<StoredObject> stat(String key) {
+        return Mono.fromFuture(() -> client.headObject(request -> request.bucket(bucket).key(key)))
+            .map(response -> new StoredObject(key, response.contentLength(), response.lastModified()))
+            .onErrorResume(NoSuchKeyException.class, error -> Mono.empty());
+    }
+
+    @Override
+    public Flux<StoredObject> list(String prefix) {
+        return Flux.defer(() -> Flux.from(client.listObjectsV2Paginator(request -> request.bucket(bucket).prefix(prefix)).contents())).map(
+            object -> new StoredObject(object.key(), object.size(), object.lastModified())
+        );
+    }
+
+    @Override
+    public Mono<Boolean> exists(String keyOrPrefix) {
+        return Mono.fromFuture(() -> client.listObjectsV2(request -> request.bucket(bucket).prefix(keyOrPrefix).maxKeys(1))).map(
+            response -> response.keyCount() > 0
+        );
+    }
+
+    @Override
+    public Flux<String> children(String prefix) {
+        return Flux.defer(() ->
+            Flux.from(client.listObjectsV2Paginator(request -> request.bucket(bucket).prefix(prefix).delimiter("/")).commonPrefixes())
+        ).map(child -> child.prefix().substring(prefix.length(), child.prefix().length() - 1));
+    }
+
+    /**
+     * S3 no renombra: copia cada objeto en el servidor y después borra el origen.
+     */
+    @Override
+    public Mono<Void> move(String sourcePrefix, String targetPrefix) {
+        return list(sourcePrefix)
+            .flatMap(object -> link(object.key(), targetPrefix + object.key().substring(sourcePrefix.length())), concurrency)
+            .then(Mono.defer(() -> delete(sourcePrefix)));
+    }
+
+    @Override
+    public Mono<Void> link(String sourceKey, String targetKey) {
+        // copia en el servidor; CopyObject admite objetos de hasta 5GB
+        return Mono.fromFuture(() ->
+            client.copyObject(request ->
+                request.sourceBucket(bucket).sourceKey(sourceKey).destinationBucket(bucket).destinationKey(targetKey)
+            )
+        ).then();
+    }
+
+    @Override
+    public Mono<Void> delete(String keyOrPrefix) {
+        if (!keyOrPrefix.endsWith("/")) {
+            return Mono.fromFuture(() -> client.deleteObject(request -> request.bucket(bucket).key(keyOrPrefix))).then();
+        }
+        return list(keyOrPrefix)
+            .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+            .buffer(DELETE_BATCH_SIZE)
+            .concatMap(this::deleteObjects)
+            .then();
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Mono<URI> downloadUrl(String key, Duration expiration) {
+        String filename = key.substring(key.lastIndexOf('/') + 1);
+        return Mono.fromCallable(() ->
+            presigner
+                .presignGetObject(request ->
+                    request
+                        .signatureDuration(expiration)
+                        .getObjectRequest(get ->
+                            get.bucket(bucket).key(key).responseContentDisposition("attachment; filename=\"" + filename + "\"")
+                        )
+                )
+                .url()
+                .toURI()
+        );
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        presigner.close();
+    }
+
+    private Mono<Void> putSingle(String key, Path source) {
+        return Mono.fromFuture(() ->
+            client.putObject(request -> request.bucket(bucket).key(key), AsyncRequestBody.fromFile(source))
+        ).then();
+    }
+
+    private Mono<Void> putMultipart(String key, Path source, long size) {
+        int parts = (int) ((size + partSize - 1) / partSize);
+        return Mono.fromFuture(() -> client.createMultipartUpload(request -> request.bucket(bucket).key(key))).flatMap(created -> {
+            String uploadId = created.uploadId();
+            return Flux.range(1, parts)
+                .flatMapSequential(part -> uploadPart(key, uploadId, source, part, size), concurrency)
+                .collectList()
+                .flatMap(completed -> complete(key, uploadId, completed))
+                .onErrorResume(error -> abort(key, uploadId).then(Mono.error(error)));
+        });
+    }
+
+    private Mono<CompletedPart> uploadPart(String key, String uploadId, Path source, int part, long size) {
+        long position = (part - 1) * partSize;
+        long length = Math.min(partSize, size - position);
+        AsyncRequestBody body = AsyncRequestBody.fromFile(
+            FileRequestBodyConfiguration.builder().path(source).position(position).numBytesToRead(length).build()
+        );
+        return Mono.fromFuture(() ->
+            client.uploadPart(
+                request -> request.bucket(bucket).key(key).uploadId(uploadId).partNumber(part).contentLength(length),
+                body
+            )
+        ).map(response -> CompletedPart.builder().partNumber(part).eTag(response.eTag()).build());
+    }
+
+    private Mono<Void> complete(String key, String uploadId, List<CompletedPart> parts) {
+        return Mono.fromFuture(() ->
+            client.completeMultipartUpload(request ->
+                request.bucket(bucket).key(key).uploadId(uploadId).multipartUpload(upload -> upload.parts(parts))
+            )
+        ).then();
+    }
+
+    /**
+     * Sin abortar, las partes subidas quedarían ocupando espacio en el bucket.
+     */
+    private Mono<Void> abort(String key, String uploadId) {
+        return Mono.fromFuture(() -> client.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId)))
+            .then()
+            .onErrorResume(error -> {
+                LOG.warn("No se pudo abortar la subida por partes de {}: {}", key, error.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    private Mono<Void> deleteObjects(List<ObjectIdentifier> objects) {
+        return Mono.fromFuture(() ->
+            client.deleteObjects(request -> request.bucket(bucket).delete(delete -> delete.objects(objects).quiet(true)))
+        ).then();
+    }
+
+    /**
+     * Trae un archivo a la copia de trabajo con GETs por rangos en paralelo. Se escribe en un archivo aparte que se
+     * renombra al terminar, para que nadie lea un archivo a medias; si ya estaba con el mismo tamaño no se trae.
+     */
+    private Mono<Void> download(StoredObject object) {
+        Path target = workspace(object.key());
+        Path partial = target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+        return Mono.fromCallable(() -> {
+            if (Files.isRegularFile(target) && Files.size(target) == object.size()) {
+                return false;
+            }
+            Files.createDirectories(target.getParent());
+            return true;
+        })
+            .subscribeOn(Schedulers.boundedElastic())
+            .filter(missing -> missing)
+            .flatMap(missing ->
+                Mono.using(
+                    () ->
+                        AsynchronousFileChannel.open(
+                            partial,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING
+                        ),
+                    channel -> writeRanges(object, channel),
+                    LocalFiles::closeQuietly
+                )
+                    .then(Mono.fromCallable(() -> moveIntoPlace(partial, target)).subscribeOn(Schedulers.boundedElastic()))
+                    .onErrorResume(error ->
+                        Mono.fromCallable(() -> Files.deleteIfExists(partial))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .then(Mono.error(error))
+                    )
+            )
+            .then();
+    }
+
+    private Mono<Void> writeRanges(StoredObject object, AsynchronousFileChannel channel) {
+        long ranges = Math.max(1, (object.size() + partSize - 1) / partSize);
+        return Flux.range(0, (int) ranges)
+            .flatMap(
+                range -> {
+                    long position = range * partSize;
+                    long length = Math.min(partSize, object.size() - position);
+                    return DataBufferUtils.write(get(object.key(), position, length), channel, position).doOnNext(DataBufferUtils::release);
+                },
+                concurrency
+            )
+            .then();
+    }
+
+    private static Path moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            return Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            return Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
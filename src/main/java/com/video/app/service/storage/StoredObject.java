@@ -0,0 +1,8 @@
+package com.video.app.service.storage;
+
+import java.time.Instant;
+
+/**
+ * Archivo guardado en un {@link VideoStorage}.
+ */
+public record StoredObject(String key, long size, Instant lastModified) {}
@@ -0,0 +1,96 @@
+package com.video.app.service.storage;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Almacenamiento de los archivos de los videos, con las claves de {@link VideoStorageKeys}.
+ * <p>
+ * Python lee las imágenes y escribe el video en archivos locales, así que cada nodo trabaja sobre una copia local
+ * ({@link #workspace(String)}): {@link #fetch(String)} la trae del almacenamiento, {@link #publish(String)} sube lo
+ * que se escribió en ella y {@link #release(String)} la borra. Con el sistema de archivos compartido la copia local
+ * es el propio almacenamiento y esas tres operaciones no hacen nada.
+ */
+public interface VideoStorage {
+    /**
+     * Ruta local de una clave o prefijo en la copia de trabajo de este nodo.
+     */
+    Path workspace(String key);
+
+    /**
+     * Trae a la copia de trabajo los archivos de un prefijo que aún no estén en ella.
+     */
+    Mono<Void> fetch(String prefix);
+
+    /**
+     * Guarda en el almacenamiento los archivos de la copia de trabajo de un prefijo.
+     */
+    Mono<Void> publish(String prefix);
+
+    /**
+     * Borra la copia de trabajo de un prefijo; lo guardado en el almacenamiento se conserva.
+     */
+    Mono<Void> release(String prefix);
+
+    /**
+     * Guarda un archivo local en una clave, reemplazando lo que hubiera. El archivo de origen no se modifica.
+     */
+    Mono<Void> put(String key, Path source);
+
+    /**
+     * Lee {@code length} bytes de una clave desde {@code offset}.
+     */
+    Flux<DataBuffer> get(String key, long offset, long length);
+
+    /**
+     * @return el archivo de una clave, vacío si no existe.
+     */
+    Mono<StoredObject> stat(String key);
+
+    /**
+     * Archivos guardados bajo un prefijo, en cualquier orden.
+     */
+    Flux<StoredObject> list(String prefix);
+
+    /**
+     * @return si hay algo guardado en una clave o bajo un prefijo.
+     */
+    Mono<Boolean> exists(String keyOrPrefix);
+
+    /**
+     * Nombres de los subdirectorios inmediatos de un prefijo, sin leerlos todos de una vez.
+     */
+    Flux<String> children(String prefix);
+
+    /**
+     * Lleva todo lo que hay bajo {@code sourcePrefix} a {@code targetPrefix}. Mientras quede algo bajo
+     * {@code sourcePrefix}, lo que hay en {@code targetPrefix} puede estar incompleto.
+     */
+    Mono<Void> move(String sourcePrefix, String targetPrefix);
+
+    /**
+     * Hace que {@code targetKey} tenga el contenido de {@code sourceKey} sin pasar los datos por este nodo.
+     */
+    Mono<Void> link(String sourceKey, String targetKey);
+
+    /**
+     * Borra una clave o todo lo que hay bajo un prefijo.
+     */
+    Mono<Void> delete(String keyOrPrefix);
+
+    /**
+     * Archivo local que se puede servir directamente, si el almacenamiento es el sistema de archivos.
+     */
+    Optional<Path> localFile(String key);
+
+    /**
+     * Enlace temporal con el que el cliente descarga una clave sin pasar por este nodo; vacío si el almacenamiento no
+     * los tiene.
+     */
+    Mono<URI> downloadUrl(String key, Duration expiration);
+}
@@ -0,0 +1,74 @@
+package com.video.app.service.storage;
+
+/**
+ * Claves de los archivos de un video en {@link VideoStorage}, relativas a su raíz:
+ * <pre>
+ * {video}images/image_000.jpg
+ * {video}audio/{filename}
+ * {video}output/{filename}
+ * </pre>
+ * donde {@code {video}} es {@code videos/sharded/{aa}/{bb}/{videoId}/} ({@link #sharded(Long)}), o
+ * {@code videos/{videoId}/} ({@link #flat(Long)}) para los videos guardados antes de repartirlos en subdirectorios y
+ * aún sin migrar. Qué clave corresponde a cada video lo decide {@link VideoStorageResolver}.
+ * Las claves que terminan en {@code /} son prefijos: todos los archivos que hay debajo.
+ */
+public record VideoStorageKeys(String video) {
+    public static final String FLAT_ROOT = "videos/";
+
+    /**
+     * Aparte de los directorios numéricos de {@link #FLAT_ROOT}: {@code videos/12/} es un video, no un subdirectorio.
+     */
+    public static final String SHARDED_ROOT = FLAT_ROOT + "sharded/";
+
+    /**
+     * Multiplicador del hash de Fibonacci (2^64 / φ): ids consecutivos caen en subdirectorios distintos.
+     */
+    private static final long FIBONACCI_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Claves de un video repartido en 65.536 subdirectorios de dos niveles, para que ningún directorio tenga
+     * millones de entradas.
+     */
+    public static VideoStorageKeys sharded(Long videoId) {
+        return new VideoStorageKeys(SHARDED_ROOT + shard(videoId) + "/" + videoId + "/");
+    }
+
+    /**
+     * Claves de un video directamente bajo {@code videos/}, como se guardaban antes.
+     */
+    public static VideoStorageKeys flat(Long videoId) {
+        return new VideoStorageKeys(FLAT_ROOT + videoId + "/");
+    }
+
+    /**
+     * Los dos niveles de subdirectorios de un video, {@code aa/bb} en hexadecimal.
+     */
+    static String shard(Long videoId) {
+        int bits = (int) ((videoId * FIBONACCI_MULTIPLIER) >>> 48);
+        return String.format("%02x/%02x", bits >>> 8, bits & 0xff);
+    }
+
+    public String images() {
+        return video + "images/";
+    }
+
+    public String image(long index) {
+        return images() + String.format("image_%03d.jpg", index);
+    }
+
+    public String audios() {
+        return video + "audio/";
+    }
+
+    public String audio(String filename) {
+        return audios() + filename;
+    }
+
+    public String output() {
+        return video + "output/";
+    }
+
+    public String output(String filename) {
+        return output() + filename;
+    }
+}
@@ -0,0 +1,36 @@
+package com.video.app.service.storage;
+
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decide dónde están los archivos de cada video mientras conviven las dos organizaciones de {@link VideoStorageKeys}.
+ * <p>
+ * Los videos nuevos se guardan repartidos en subdirectorios. Un video guardado antes sigue en {@code videos/{id}/}
+ * hasta que {@code VideoStorageMigrationService} lo mueve, y se lee de ahí mientras exista: la migración solo borra
+ * el origen cuando el destino está completo.
+ */
+@Service
+public class VideoStorageResolver {
+
+    private final VideoStorage videoStorage;
+
+    public VideoStorageResolver(VideoStorage videoStorage) {
+        this.videoStorage = videoStorage;
+    }
+
+    /**
+     * Claves donde se guardan los archivos de un video nuevo.
+     */
+    public VideoStorageKeys forNewVideo(Long videoId) {
+        return VideoStorageKeys.sharded(videoId);
+    }
+
+    /**
+     * Claves de los archivos de un video ya guardado, en la organización en que estén.
+     */
+    public Mono<VideoStorageKeys> resolve(Long videoId) {
+        VideoStorageKeys flat = VideoStorageKeys.flat(videoId);
+        return videoStorage.exists(flat.video()).map(exists -> exists ? flat : VideoStorageKeys.sharded(videoId));
+    }
+}
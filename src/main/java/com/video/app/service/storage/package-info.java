@@ -0,0 +1,4 @@
+/**
+ * Storage backends of the video files.
+ */
+package com.video.app.service.storage;
@@ -0,0 +1,66 @@
+package com.video.app.web.filter;
+
+import com.video.app.service.RenderAdmissionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sheds new video submissions with {@code 429 Too Many Requests} when the render queue is saturated,
+ * before any byte of the multipart body is read.
+ * <p>
+ * Resumable uploads are shed when they are created, before their files are sent, and when they are finalized;
+ * a shed finalization can be retried later, the uploaded files are kept until the upload expires.
+ */
+public class RenderAdmissionWebFilter implements WebFilter {
+
+    private static final String VIDEOS_PATH = "/api/videos";
+
+    private static final String UPLOADS_PATH = "/api/uploads";
+
+    private static final String FINALIZE_SUFFIX = "/finalize";
+
+    private final RenderAdmissionService renderAdmissionService;
+
+    public RenderAdmissionWebFilter(RenderAdmissionService renderAdmissionService) {
+        this.renderAdmissionService = renderAdmissionService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!isVideoSubmission(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        return renderAdmissionService
+            .check()
+            .flatMap(decision -> {
+                if (decision.admitted()) {
+                    return chain.filter(exchange);
+                }
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfter().toSeconds()));
+                response.getHeaders().setConnection("close");
+                return response.setComplete();
+            });
+    }
+
+    private static boolean isVideoSubmission(ServerHttpRequest request) {
+        if (!HttpMethod.POST.equals(request.getMethod())) {
+            return false;
+        }
+        String path = request.getPath().pathWithinApplication().value();
+        if (UPLOADS_PATH.equals(path) || (path.startsWith(UPLOADS_PATH + "/") && path.endsWith(FINALIZE_SUFFIX))) {
+            return true;
+        }
+        MediaType contentType = request.getHeaders().getContentType();
+        return VIDEOS_PATH.equals(path) && contentType != null && MediaType.MULTIPART_FORM_DATA.isCompatibleWith(contentType);
+    }
+}
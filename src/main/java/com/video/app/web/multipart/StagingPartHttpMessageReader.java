@@ -0,0 +1,231 @@
+package com.video.app.web.multipart;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.service.StagedFilePart;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.codec.LoggingCodecSupport;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.FormPartEvent;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.http.codec.multipart.PartEventHttpMessageReader;
+import org.springframework.web.server.PayloadTooLargeException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reads {@code multipart/form-data} requests into {@link Part}s, streaming every file part straight into the staging
+ * directory as it arrives.
+ * <p>
+ * The staging directory lives on the same volume as the video files, so {@link StagedFilePart#transferTo(Path)} is an
+ * atomic rename instead of the copy {@link org.springframework.http.codec.multipart.DefaultPartHttpMessageReader}
+ * makes from its temporary directory. Form fields are capped at {@code max-in-memory-size}, and a request is rejected
+ * with {@code 413 Payload Too Large} when it has more than {@code max-parts} parts, a file larger than
+ * {@code max-part-size} or a body larger than {@code max-request-size}. Staged files that are not transferred are
+ * deleted when the exchange completes, or as soon as the request fails.
+ * <p>
+ * The SHA-256 of every file is computed while it is written, so the blob store can deduplicate it without reading
+ * it back.
+ */
+public class StagingPartHttpMessageReader extends LoggingCodecSupport implements HttpMessageReader<Part> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StagingPartHttpMessageReader.class);
+
+    private static final ResolvableType PART_EVENT_TYPE = ResolvableType.forClass(PartEvent.class);
+
+    private static final int WRITE_PREFETCH = 32;
+
+    private final PartEventHttpMessageReader partEventReader = new PartEventHttpMessageReader();
+
+    private final Path stagingDirectory;
+
+    private final int maxParts;
+
+    private final long maxPartSize;
+
+    private final long maxRequestSize;
+
+    public StagingPartHttpMessageReader(ApplicationProperties.Upload properties) {
+        this.stagingDirectory = createStagingDirectory(Path.of(properties.getStagingDirectory()));
+        this.maxParts = properties.getMaxParts();
+        this.maxPartSize = properties.getMaxPartSize().toBytes();
+        this.maxRequestSize = properties.getMaxRequestSize().toBytes();
+        partEventReader.setMaxInMemorySize(Math.toIntExact(properties.getMaxInMemorySize().toBytes()));
+    }
+
+    public Path getStagingDirectory() {
+        return stagingDirectory;
+    }
+
+    @Override
+    public List<MediaType> getReadableMediaTypes() {
+        return partEventReader.getReadableMediaTypes();
+    }
+
+    @Override
+    public boolean canRead(ResolvableType elementType, MediaType mediaType) {
+        return Part.class.equals(elementType.toClass()) && partEventReader.canRead(PART_EVENT_TYPE, mediaType);
+    }
+
+    @Override
+    public Mono<Part> readMono(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+        return Mono.error(new UnsupportedOperationException("Cannot read multipart request body into single Part"));
+    }
+
+    @Override
+    public Flux<Part> read(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+        long contentLength = message.getHeaders().getContentLength();
+        if (contentLength > maxRequestSize) {
+            return Flux.error(tooLarge("Request of " + contentLength + " bytes exceeds the limit of " + maxRequestSize + " bytes"));
+        }
+        List<Path> staged = new CopyOnWriteArrayList<>();
+        AtomicInteger parts = new AtomicInteger();
+        AtomicLong written = new AtomicLong();
+        return partEventReader
+            .read(PART_EVENT_TYPE, message, hints)
+            .windowUntil(PartEvent::isLast)
+            .concatMap(events ->
+                events.switchOnFirst((first, all) -> {
+                    if (first.hasValue() && parts.incrementAndGet() > maxParts) {
+                        return Mono.error(tooLarge("More than " + maxParts + " parts"));
+                    }
+                    return toPart(first.get(), all, staged, written);
+                })
+            )
+            .onErrorMap(DataBufferLimitException.class, PayloadTooLargeException::new)
+            .doOnError(error -> deleteQuietly(staged))
+            .doOnCancel(() -> deleteQuietly(staged));
+    }
+
+    /**
+     * @param first the first event of the part, {@code null} for the empty window after the last part.
+     */
+    private Mono<Part> toPart(PartEvent first, Flux<PartEvent> events, List<Path> staged, AtomicLong written) {
+        if (first instanceof FilePartEvent filePartEvent) {
+            Path file = stagingDirectory.resolve(UUID.randomUUID() + ".part");
+            staged.add(file);
+            AtomicLong partSize = new AtomicLong();
+            Flux<DataBuffer> content = events.map(PartEvent::content).handle((buffer, sink) -> {
+                int size = buffer.readableByteCount();
+                if (partSize.addAndGet(size) > maxPartSize) {
+                    DataBufferUtils.release(buffer);
+                    sink.error(tooLarge("File " + filePartEvent.filename() + " exceeds the limit of " + maxPartSize + " bytes"));
+                } else if (written.addAndGet(size) > maxRequestSize) {
+                    DataBufferUtils.release(buffer);
+                    sink.error(tooLarge("Request exceeds the limit of " + maxRequestSize + " bytes"));
+                } else {
+                    sink.next(buffer);
+                }
+            });
+            MessageDigest digest = sha256();
+            return Mono.usingWhen(
+                Mono.fromCallable(() -> FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)).subscribeOn(
+                    Schedulers.boundedElastic()
+                ),
+                channel -> write(content, channel, digest),
+                channel -> Mono.fromRunnable(() -> closeQuietly(channel))
+            ).then(
+                Mono.fromSupplier(() -> {
+                    String sha256 = HexFormat.of().formatHex(digest.digest());
+                    return new StagedFilePart(first.name(), filePartEvent.filename(), first.headers(), file, sha256);
+                })
+            );
+        }
+        Flux<PartEvent> released = events.doOnNext(event -> DataBufferUtils.release(event.content()));
+        if (first instanceof FormPartEvent formPartEvent) {
+            return released.then(Mono.fromSupplier(() -> new StagedFormFieldPart(first.name(), first.headers(), formPartEvent.value())));
+        }
+        return released.then(Mono.empty());
+    }
+
+    /**
+     * Blocking writes on a worker thread: faster than an {@code AsynchronousFileChannel} for a stream of small buffers,
+     * and at most {@link #WRITE_PREFETCH} buffers wait in memory for a slow disk. The digest is updated on the same
+     * thread, off the event loop.
+     */
+    private static Mono<Void> write(Flux<DataBuffer> content, FileChannel channel, MessageDigest digest) {
+        Flux<DataBuffer> digested = content.publishOn(Schedulers.boundedElastic(), WRITE_PREFETCH).doOnNext(buffer -> {
+            try (DataBuffer.ByteBufferIterator buffers = buffer.readableByteBuffers()) {
+                buffers.forEachRemaining(digest::update);
+            }
+        });
+        return DataBufferUtils.write(digested, channel)
+            .doOnNext(DataBufferUtils::release)
+            .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+            .then();
+    }
+
+    private Path createStagingDirectory(Path directory) {
+        try {
+            return Files.createDirectories(directory);
+        } catch (IOException e) {
+            Path fallback = Path.of(System.getProperty("java.io.tmpdir"), "video-staging");
+            LOG.warn("Cannot create staging directory {}, uploads are staged in {} and copied into place", directory, fallback, e);
+            try {
+                return Files.createDirectories(fallback);
+            } catch (IOException fallbackError) {
+                throw new IllegalStateException("Cannot create staging directory " + fallback, fallbackError);
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.warn("Cannot close staged upload", e);
+        }
+    }
+
+    private static void deleteQuietly(List<Path> staged) {
+        if (staged.isEmpty()) {
+            return;
+        }
+        List<Path> files = List.copyOf(staged);
+        Schedulers.boundedElastic()
+            .schedule(() -> {
+                for (Path file : files) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        LOG.warn("Cannot delete staged upload {}", file, e);
+                    }
+                }
+            });
+    }
+
+    private static PayloadTooLargeException tooLarge(String message) {
+        return new PayloadTooLargeException(new DataBufferLimitException(message));
+    }
+}
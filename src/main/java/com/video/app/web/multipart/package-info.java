@@ -0,0 +1,4 @@
+/**
+ * Multipart upload codecs.
+ */
+package com.video.app.web.multipart;
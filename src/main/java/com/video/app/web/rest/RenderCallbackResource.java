@@ -0,0 +1,52 @@
+package com.video.app.web.rest;
+
+import com.video.app.service.PythonRenderTracker;
+import com.video.app.service.dto.PythonRenderJobStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller that receives render completion callbacks from the Python service
+ * ({@code application.python.protocol=ASYNC}).
+ * <p>
+ * Python has no user JWT: the path is public and every call must carry the shared
+ * {@code application.python.async.callback-token} in the {@value #TOKEN_HEADER} header.
+ */
+@RestController
+@RequestMapping("/api/internal/render-callbacks")
+public class RenderCallbackResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderCallbackResource.class);
+
+    public static final String TOKEN_HEADER = "X-Render-Callback-Token";
+
+    private final PythonRenderTracker renderTracker;
+
+    public RenderCallbackResource(PythonRenderTracker renderTracker) {
+        this.renderTracker = renderTracker;
+    }
+
+    /**
+     * {@code POST  /internal/render-callbacks/:ref} : notify the end of the render {@code ref}.
+     *
+     * @param ref the local reference sent to Python in the callback URL.
+     * @param token the shared callback token.
+     * @param status the final status of the remote render job.
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)}, or {@code 401 (Unauthorized)} if the token is invalid.
+     */
+    @PostMapping("/{ref}")
+    public ResponseEntity<Void> renderCallback(
+        @PathVariable("ref") String ref,
+        @RequestHeader(value = TOKEN_HEADER, required = false) String token,
+        @RequestBody PythonRenderJobStatus status
+    ) {
+        LOG.debug("Render callback for {} : {}", ref, status.getStatus());
+        if (!renderTracker.onCallback(ref, token, status)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
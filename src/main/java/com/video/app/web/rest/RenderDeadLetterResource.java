@@ -0,0 +1,81 @@
+package com.video.app.web.rest;
+
+import com.video.app.domain.RenderDeadLetter;
+import com.video.app.security.AuthoritiesConstants;
+import com.video.app.service.RenderDeadLetterService;
+import com.video.app.service.dto.DeadLetterReplayRequest;
+import java.util.ArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.ForwardedHeaderUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * REST controller for reviewing failed renders and replaying them in bulk.
+ * <p>
+ * Failed videos keep their uploaded files, so a replay puts them back in the render queue without a new upload.
+ */
+@RestController
+@RequestMapping("/api/admin/render-dead-letters")
+@PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+public class RenderDeadLetterResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderDeadLetterResource.class);
+
+    private final RenderDeadLetterService renderDeadLetterService;
+
+    public RenderDeadLetterResource(RenderDeadLetterService renderDeadLetterService) {
+        this.renderDeadLetterService = renderDeadLetterService;
+    }
+
+    /**
+     * {@code GET  /admin/render-dead-letters} : get all the failed renders, with their cause and attempt history.
+     *
+     * @param request a {@link ServerHttpRequest} request.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of failed renders in body.
+     */
+    @GetMapping("")
+    public Mono<ResponseEntity<Flux<RenderDeadLetter>>> getAllRenderDeadLetters(
+        @org.springdoc.core.annotations.ParameterObject ServerHttpRequest request,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        LOG.debug("REST request to get a page of RenderDeadLetters");
+        return renderDeadLetterService
+            .countAll()
+            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
+            .map(page ->
+                PaginationUtil.generatePaginationHttpHeaders(
+                    ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                    page
+                )
+            )
+            .map(headers -> ResponseEntity.ok().headers(headers).body(renderDeadLetterService.findAll(pageable)));
+    }
+
+    /**
+     * {@code POST  /admin/render-dead-letters/replay} : put the open failed renders matching the filter back in the
+     * render queue, at {@code application.render.dead-letter.replay-rate} per second.
+     *
+     * @param replayRequest the filter of the failed renders to replay; empty fields match every failed render.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and the number of renders scheduled,
+     * or with status {@code 409 (Conflict)} if a bulk replay is already running on this node.
+     */
+    @PostMapping("/replay")
+    public Mono<ResponseEntity<RenderDeadLetterService.Replay>> replay(@RequestBody DeadLetterReplayRequest replayRequest) {
+        LOG.debug("REST request to replay RenderDeadLetters : {}", replayRequest);
+        return renderDeadLetterService
+            .replay(replayRequest)
+            .map(replay -> ResponseEntity.status(HttpStatus.ACCEPTED).body(replay))
+            .defaultIfEmpty(ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+}
@@ -0,0 +1,215 @@
+package com.video.app.web.rest;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.enumeration.UploadFileKind;
+import com.video.app.security.SecurityUtils;
+import com.video.app.service.ResumableUploadService;
+import com.video.app.service.UploadConflictException;
+import com.video.app.service.dto.UploadFileRequest;
+import com.video.app.service.dto.UploadSessionDTO;
+import com.video.app.service.dto.UploadSessionRequest;
+import com.video.app.service.dto.VideoDTO;
+import com.video.app.web.rest.errors.BadRequestAlertException;
+import jakarta.validation.Valid;
+import java.net.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.jhipster.web.util.HeaderUtil;
+
+/**
+ * REST controller for resumable uploads: the images and audio of a video are sent file by file, in chunks, and a
+ * chunk that fails is resent from the last byte received instead of from the start.
+ * <p>
+ * The protocol borrows the headers of tus: {@code HEAD} a file for its {@code Upload-Offset}, then {@code PATCH} the
+ * rest with {@code Content-Type: application/offset+octet-stream} starting at that offset. Any node can take the next
+ * chunk. Once every file is complete, {@code POST /api/uploads/{token}/finalize} creates the video.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UploadResource.class);
+
+    private static final String ENTITY_NAME = "uploadSession";
+
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    public static final String UPLOAD_LENGTH = "Upload-Length";
+
+    public static final String OFFSET_OCTET_STREAM_VALUE = "application/offset+octet-stream";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final ResumableUploadService resumableUploadService;
+
+    private final ApplicationProperties.Upload properties;
+
+    public UploadResource(ResumableUploadService resumableUploadService, ApplicationProperties applicationProperties) {
+        this.resumableUploadService = resumableUploadService;
+        this.properties = applicationProperties.getUpload();
+    }
+
+    /**
+     * {@code POST  /uploads} : create a resumable upload for a new video.
+     *
+     * @param request the video to create and the files that will be sent.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new upload,
+     * or with status {@code 400 (Bad Request)} if the files are over the upload limits.
+     */
+    @PostMapping("")
+    public Mono<ResponseEntity<UploadSessionDTO>> createUpload(
+        @Valid @RequestBody UploadSessionRequest request,
+        @AuthenticationPrincipal Jwt jwt
+    ) {
+        LOG.debug("REST request to create an upload : {}", request);
+        if (request.video().getId() != null) {
+            throw new BadRequestAlertException("A new video cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        validateFiles(request);
+        return resumableUploadService
+            .create(request, jwt.getSubject())
+            .map(upload ->
+                ResponseEntity.created(URI.create("/api/uploads/" + upload.token()))
+                    .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, upload.token()))
+                    .body(upload)
+            );
+    }
+
+    private void validateFiles(UploadSessionRequest request) {
+        if (request.files().size() > properties.getMaxParts()) {
+            throw new BadRequestAlertException("More than " + properties.getMaxParts() + " files", ENTITY_NAME, "toomanyfiles");
+        }
+        long images = request.files().stream().filter(file -> file.kind() == UploadFileKind.IMAGE).count();
+        if (images == 0) {
+            throw new BadRequestAlertException("At least one image is required", ENTITY_NAME, "noimages");
+        }
+        if (request.files().size() - images > 1) {
+            throw new BadRequestAlertException("At most one audio file is allowed", ENTITY_NAME, "toomanyaudios");
+        }
+        long maxPartSize = properties.getMaxPartSize().toBytes();
+        if (request.files().stream().mapToLong(UploadFileRequest::length).anyMatch(length -> length > maxPartSize)) {
+            throw new BadRequestAlertException("A file exceeds the limit of " + maxPartSize + " bytes", ENTITY_NAME, "filetoolarge");
+        }
+        long maxRequestSize = properties.getMaxRequestSize().toBytes();
+        if (request.files().stream().mapToLong(UploadFileRequest::length).sum() > maxRequestSize) {
+            throw new BadRequestAlertException("The files exceed the limit of " + maxRequestSize + " bytes", ENTITY_NAME, "uploadtoolarge");
+        }
+    }
+
+    /**
+     * {@code GET  /uploads/:token} : get the state of an upload, with the offset of every file.
+     *
+     * @param token the token of the upload.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the upload, or with status
+     * {@code 404 (Not Found)} if it does not exist or has expired.
+     */
+    @GetMapping("/{token}")
+    public Mono<ResponseEntity<UploadSessionDTO>> getUpload(@PathVariable String token, @AuthenticationPrincipal Jwt jwt) {
+        return resumableUploadService
+            .find(token, jwt.getSubject())
+            .map(upload -> ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(upload))
+            .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * {@code HEAD  /uploads/:token/files/:position} : get the bytes received of a file.
+     *
+     * @param token the token of the upload.
+     * @param position the position of the file in the upload.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the {@code Upload-Offset} and
+     * {@code Upload-Length} headers, or with status {@code 404 (Not Found)}.
+     */
+    @RequestMapping(value = "/{token}/files/{position}", method = RequestMethod.HEAD)
+    public Mono<ResponseEntity<Void>> getUploadOffset(
+        @PathVariable String token,
+        @PathVariable int position,
+        @AuthenticationPrincipal Jwt jwt
+    ) {
+        return resumableUploadService
+            .find(token, jwt.getSubject())
+            .flatMapIterable(UploadSessionDTO::files)
+            .filter(file -> file.position() == position)
+            .next()
+            .map(file ->
+                ResponseEntity.ok()
+                    .cacheControl(CacheControl.noStore())
+                    .header(UPLOAD_OFFSET, String.valueOf(file.offset()))
+                    .header(UPLOAD_LENGTH, String.valueOf(file.length()))
+                    .<Void>build()
+            )
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * {@code PATCH  /uploads/:token/files/:position} : write a chunk of a file.
+     *
+     * @param token the token of the upload.
+     * @param position the position of the file in the upload.
+     * @param offset the offset of the chunk, which must be the current offset of the file.
+     * @param chunk the bytes of the chunk.
+     * @return the {@link ResponseEntity} with status {@code 204 (No Content)} and the new {@code Upload-Offset},
+     * or with status {@code 409 (Conflict)} and the current {@code Upload-Offset} if the offset does not match or
+     * another chunk of the file is being written, or with status {@code 404 (Not Found)} if the upload is not open.
+     */
+    @PatchMapping(value = "/{token}/files/{position}", consumes = OFFSET_OCTET_STREAM_VALUE)
+    public Mono<ResponseEntity<Void>> appendChunk(
+        @PathVariable String token,
+        @PathVariable int position,
+        @RequestHeader(UPLOAD_OFFSET) long offset,
+        @RequestBody Flux<DataBuffer> chunk,
+        @AuthenticationPrincipal Jwt jwt
+    ) {
+        if (offset < 0) {
+            throw new BadRequestAlertException("Upload-Offset cannot be negative", ENTITY_NAME, "negativeoffset");
+        }
+        return resumableUploadService
+            .append(token, position, jwt.getSubject(), offset, chunk)
+            .map(newOffset -> ResponseEntity.noContent().header(UPLOAD_OFFSET, String.valueOf(newOffset)).<Void>build())
+            .defaultIfEmpty(ResponseEntity.notFound().build())
+            .onErrorResume(UploadConflictException.class, UploadResource::conflict);
+    }
+
+    /**
+     * {@code POST  /uploads/:token/finalize} : create the video once every file is complete. Finalizing an upload
+     * again returns the same video.
+     *
+     * @param token the token of the upload.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the new video,
+     * or with status {@code 409 (Conflict)} if a file is incomplete or the upload is being finalized,
+     * or with status {@code 404 (Not Found)}.
+     */
+    @PostMapping("/{token}/finalize")
+    public Mono<ResponseEntity<VideoDTO>> finalizeUpload(@PathVariable String token, @AuthenticationPrincipal Jwt jwt) {
+        LOG.debug("REST request to finalize upload : {}", token);
+        return resumableUploadService
+            .finalizeUpload(token, jwt.getSubject(), SecurityUtils.getAuthorities(jwt))
+            .map(video ->
+                ResponseEntity.accepted()
+                    .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, "video", video.getId().toString()))
+                    .body(video)
+            )
+            .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .onErrorResume(UploadConflictException.class, UploadResource::conflict);
+    }
+
+    private static <T> Mono<ResponseEntity<T>> conflict(UploadConflictException conflict) {
+        LOG.debug("Upload conflict: {}", conflict.getMessage());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CONFLICT).cacheControl(CacheControl.noStore());
+        if (conflict.getOffset() != null) {
+            response.header(UPLOAD_OFFSET, String.valueOf(conflict.getOffset()));
+        }
+        return Mono.just(response.build());
+    }
+}
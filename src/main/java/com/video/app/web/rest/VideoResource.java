@@ -1,14 +1,19 @@
 package com.video.app.web.rest;
 
+import com.video.app.config.ApplicationProperties;
 import com.video.app.domain.enumeration.EstadoVideo;
-import com.video.app.repository.UserRepository;
 import com.video.app.repository.VideoRepository;
-import com.video.app.service.FileStorageService;
+import com.video.app.security.SecurityUtils;
+import com.video.app.service.RenderCancellationService;
+import com.video.app.service.RenderProgressRegistry;
 import com.video.app.service.VideoCreditoService;
-import com.video.app.service.VideoProcessingService;
 import com.video.app.service.VideoService;
-import com.video.app.service.dto.UserDTO;
+import com.video.app.service.VideoStatusBroadcaster;
+import com.video.app.service.VideoSubmissionService;
 import com.video.app.service.dto.VideoDTO;
+import com.video.app.service.dto.VideoStatusEvent;
+import com.video.app.service.storage.VideoStorage;
+import com.video.app.service.storage.VideoStorageResolver;
 import com.video.app.web.rest.errors.BadRequestAlertException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -17,7 +22,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Instant;
+import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
@@ -32,6 +37,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -66,26 +72,45 @@ public class VideoResource {
 
     private final VideoRepository videoRepository;
 
-    private final UserRepository userRepository;
+    private final VideoSubmissionService videoSubmissionService;
 
-    private final VideoProcessingService videoProcessingService;
+    private final VideoStatusBroadcaster videoStatusBroadcaster;
 
-    private final FileStorageService fileStorageService;
+    private final RenderProgressRegistry renderProgressRegistry;
+
+    private final RenderCancellationService renderCancellationService;
+
+    private final VideoStorage videoStorage;
+
+    private final VideoStorageResolver videoStorageResolver;
+
+    private final Duration eventsHeartbeatInterval;
+
+    private final Duration downloadLinkExpiration;
 
     public VideoResource(
         VideoService videoService,
         VideoCreditoService videoCreditoService,
         VideoRepository videoRepository,
-        UserRepository userRepository,
-        VideoProcessingService videoProcessingService,
-        FileStorageService fileStorageService
+        VideoSubmissionService videoSubmissionService,
+        VideoStatusBroadcaster videoStatusBroadcaster,
+        RenderProgressRegistry renderProgressRegistry,
+        RenderCancellationService renderCancellationService,
+        VideoStorage videoStorage,
+        VideoStorageResolver videoStorageResolver,
+        ApplicationProperties applicationProperties
     ) {
         this.videoService = videoService;
         this.videoCreditoService = videoCreditoService;
         this.videoRepository = videoRepository;
-        this.userRepository = userRepository;
-        this.videoProcessingService = videoProcessingService;
-        this.fileStorageService = fileStorageService;
+        this.videoSubmissionService = videoSubmissionService;
+        this.videoStatusBroadcaster = videoStatusBroadcaster;
+        this.renderProgressRegistry = renderProgressRegistry;
+        this.renderCancellationService = renderCancellationService;
+        this.videoStorage = videoStorage;
+        this.videoStorageResolver = videoStorageResolver;
+        this.eventsHeartbeatInterval = applicationProperties.getRender().getEvents().getHeartbeatInterval();
+        this.downloadLinkExpiration = applicationProperties.getStorage().getS3().getDownloadLinkExpiration();
     }
 
     /**
@@ -116,7 +141,7 @@ public class VideoResource {
 
     /**
      * {@code POST  /videos} : Create a new video with images and optional audio.
-     * Retorna inmediatamente 202 Accepted y procesa el video de forma asíncrona.
+     * Retorna inmediatamente 202 Accepted y deja el render en la cola duradera {@code render_job}.
      *
      * @param videoDTO the videoDTO to create.
      * @param images the list of image files.
@@ -143,49 +168,16 @@ public class VideoResource {
             throw new BadRequestAlertException("At least one image is required", ENTITY_NAME, "noimages");
         }
 
-        String videoTitle = "video-" + UUID.randomUUID().toString().substring(0, 8);
-        videoDTO.setTitulo(videoTitle);
-        videoDTO.setAudioFilename(audio != null ? audio.filename() : null);
-        videoDTO.setTieneAudio(audio != null);
-        videoDTO.setEstado(EstadoVideo.EN_PROCESO);
-        videoDTO.setFechaCreacion(Instant.now());
-
         String currentUserLogin = jwt.getClaimAsString("sub");
         if (currentUserLogin == null || currentUserLogin.isEmpty()) {
             return Mono.error(new RuntimeException("No hay usuario autenticado"));
         }
 
-        return userRepository
-            .findOneByLogin(currentUserLogin)
-            .switchIfEmpty(Mono.error(new RuntimeException("Usuario no encontrado: " + currentUserLogin)))
-            .flatMap(user -> {
-                UserDTO userDTO = new UserDTO();
-                userDTO.setId(user.getId());
-                userDTO.setLogin(user.getLogin());
-                videoDTO.setUser(userDTO);
-
-                return videoService.save(videoDTO);
-            })
-            .flatMap(savedVideo -> {
-                final Long videoId = savedVideo.getId();
-
-                Mono<VideoDTO> persistFilesThenReturnVideo = fileStorageService
-                    .saveFilesToDisk(videoId, images, audio)
-                    .thenReturn(savedVideo)
-                    .onErrorResume(err -> {
-                        // marcar ERROR si falla el guardado de archivos
-                        savedVideo.setEstado(EstadoVideo.ERROR);
-                        return videoService.update(savedVideo).then(Mono.error(err));
-                    });
-
-                return persistFilesThenReturnVideo;
-            })
+        return videoSubmissionService
+            .submit(videoDTO, images, audio, currentUserLogin, SecurityUtils.getAuthorities(jwt))
             .map(savedVideo -> {
                 final Long videoId = savedVideo.getId();
 
-                // async SOLO con id
-                videoProcessingService.processVideoAsync(videoId);
-
                 return ResponseEntity.accepted()
                     .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, videoId.toString()))
                     .body(savedVideo);
@@ -196,13 +188,78 @@ public class VideoResource {
     /**
      * {@code GET  /videos/:id/status} : get the status of the "id" video.
      * Endpoint optimizado para polling que retorna solo la información de estado.
+     * <p>
+     * While the render runs on this node the body carries its progress, and {@code Retry-After}
+     * tells the client when the next poll is worth making.
      *
      * @param id the id of the video to get status.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the video status.
      */
     @GetMapping("/{id}/status")
     public Mono<ResponseEntity<VideoDTO>> getVideoStatus(@PathVariable Long id) {
-        return videoService.findOne(id).map(ResponseEntity::ok); // ✅ Así de simple
+        return videoService
+            .findOne(id)
+            .map(video -> {
+                if (video.getEstado() != EstadoVideo.EN_PROCESO) {
+                    return ResponseEntity.ok(video);
+                }
+                return renderProgressRegistry
+                    .find(id)
+                    .map(progress -> {
+                        video.setProgress(progress);
+                        return ResponseEntity.ok()
+                            .header(HttpHeaders.RETRY_AFTER, String.valueOf(renderProgressRegistry.retryAfter(progress).toSeconds()))
+                            .body(video);
+                    })
+                    .orElseGet(() -> ResponseEntity.ok(video));
+            });
+    }
+
+    /**
+     * {@code POST  /videos/:id/cancel} : cancel the render of the "id" video.
+     * <p>
+     * Removes its queued job and stops the render on whichever node runs it; its files are removed in the background.
+     *
+     * @param id the id of the video to cancel.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the cancelled video,
+     * or with status {@code 409 (Conflict)} and the video if its render had already finished,
+     * or with status {@code 404 (Not Found)}.
+     */
+    @PostMapping("/{id}/cancel")
+    public Mono<ResponseEntity<VideoDTO>> cancelVideo(@PathVariable("id") Long id) {
+        LOG.debug("REST request to cancel the render of Video : {}", id);
+        return renderCancellationService
+            .cancel(id)
+            .map(video ->
+                video.getEstado() == EstadoVideo.CANCELADO
+                    ? ResponseEntity.accepted().body(video)
+                    : ResponseEntity.status(HttpStatus.CONFLICT).body(video)
+            )
+            .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    /**
+     * {@code GET  /videos/:id/events} : stream the status of the "id" video as Server-Sent Events.
+     * <p>
+     * Sends the current status, then only its transitions, with comment heartbeats in between;
+     * the stream completes once the video reaches a final status.
+     *
+     * @param id the id of the video to watch.
+     * @return the stream of {@link VideoStatusEvent}, or status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<VideoStatusEvent>> streamVideoStatus(@PathVariable Long id) {
+        Mono<VideoStatusEvent> current = videoService
+            .findOne(id)
+            .map(VideoStatusEvent::of)
+            .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+        Flux<ServerSentEvent<VideoStatusEvent>> events = videoStatusBroadcaster
+            .watch(id, current)
+            .map(event -> ServerSentEvent.builder(event).event("status").build());
+        Flux<ServerSentEvent<VideoStatusEvent>> heartbeats = Flux.interval(eventsHeartbeatInterval).map(tick ->
+            ServerSentEvent.<VideoStatusEvent>builder().comment("heartbeat").build()
+        );
+        return events.publish(shared -> Flux.merge(shared, heartbeats.takeUntilOther(shared.ignoreElements())));
     }
 
     @GetMapping("/{id}/download")
@@ -247,49 +304,24 @@ public class VideoResource {
                     .doOnError(error -> LOG.warn("⚠️ Error actualizando créditos (se continúa descarga): {}", error.getMessage()))
                     .onErrorResume(error -> Mono.empty()) // Continuar aunque falle actualización de créditos
                     .then(
-                        Mono.defer(() -> {
-                            // ✅ CONSTRUIR PATH: /app/shared-data/videos/{id}/output/{filename}
-                            String videoPath = String.format(
-                                "/app/shared-data/videos/%d/output/%s",
-                                video.getId(),
-                                video.getOutputFilename()
-                            );
-
-                            Path filePath = Path.of(videoPath);
-                            String filename = video.getOutputFilename();
-
-                            LOG.info("Preparando descarga:");
-                            LOG.info("  - Path construido: {}", videoPath);
-                            LOG.info("  - Path absoluto: {}", filePath.toAbsolutePath());
-                            LOG.info("  - Nombre archivo: {}", filename);
-
-                            FileSystemResource resource = new FileSystemResource(filePath);
-
-                            return Mono.fromCallable(() -> {
-                                boolean exists = resource.exists();
-                                LOG.info("Verificando existencia del archivo:");
-                                LOG.info("  - Existe en disco: {}", exists);
-
-                                if (exists) {
-                                    LOG.info("  - Path absoluto: {}", resource.getFile().getAbsolutePath());
-                                    LOG.info("  - Es legible: {}", resource.isReadable());
-                                    LOG.info("  - Tamaño: {} bytes", resource.contentLength());
-                                } else {
-                                    LOG.error("❌ ARCHIVO NO EXISTE EN DISCO");
-                                    LOG.error("Path buscado: {}", filePath.toAbsolutePath());
-                                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Archivo no existe en disco");
-                                }
-
-                                LOG.info("✅ Archivo encontrado, enviando respuesta");
-                                return ResponseEntity.ok()
-                                    .contentType(MediaType.valueOf("video/mp4"))
-                                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                                    .body((Resource) resource);
+                        videoStorageResolver
+                            .resolve(video.getId())
+                            .flatMap(keys -> {
+                                // {video}/output/{filename} en el almacenamiento de videos
+                                String key = keys.output(video.getOutputFilename());
+                                String filename = video.getOutputFilename();
+
+                                LOG.info("Preparando descarga:");
+                                LOG.info("  - Clave: {}", key);
+                                LOG.info("  - Nombre archivo: {}", filename);
+
+                                return videoStorage
+                                    .localFile(key)
+                                    .map(filePath -> downloadFromDisk(filePath, filename))
+                                    .orElseGet(() -> redirectToStorage(key));
                             })
-                                .subscribeOn(Schedulers.boundedElastic())
-                                .doOnSuccess(response -> LOG.info("✅ Descarga iniciada exitosamente para video ID: {}", id))
-                                .doOnError(error -> LOG.error("❌ Error durante la descarga del video ID {}: {}", id, error.getMessage()));
-                        })
+                            .doOnSuccess(response -> LOG.info("✅ Descarga iniciada exitosamente para video ID: {}", id))
+                            .doOnError(error -> LOG.error("❌ Error durante la descarga del video ID {}: {}", id, error.getMessage()))
                     );
             })
             .doOnError(error -> {
@@ -299,6 +331,49 @@ public class VideoResource {
             });
     }
 
+    /**
+     * Sends the file from the shared volume; Spring answers {@code Range} requests and the server can use zero-copy.
+     */
+    private Mono<ResponseEntity<Resource>> downloadFromDisk(Path filePath, String filename) {
+        LOG.info("  - Path absoluto: {}", filePath.toAbsolutePath());
+        FileSystemResource resource = new FileSystemResource(filePath);
+
+        return Mono.fromCallable(() -> {
+            boolean exists = resource.exists();
+            LOG.info("Verificando existencia del archivo:");
+            LOG.info("  - Existe en disco: {}", exists);
+
+            if (exists) {
+                LOG.info("  - Path absoluto: {}", resource.getFile().getAbsolutePath());
+                LOG.info("  - Es legible: {}", resource.isReadable());
+                LOG.info("  - Tamaño: {} bytes", resource.contentLength());
+            } else {
+                LOG.error("❌ ARCHIVO NO EXISTE EN DISCO");
+                LOG.error("Path buscado: {}", filePath.toAbsolutePath());
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Archivo no existe en disco");
+            }
+
+            LOG.info("✅ Archivo encontrado, enviando respuesta");
+            return ResponseEntity.ok()
+                .contentType(MediaType.valueOf("video/mp4"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body((Resource) resource);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Redirects to a temporary link of the object store: the client downloads (and seeks with {@code Range}) from
+     * the store directly instead of through this node.
+     */
+    private Mono<ResponseEntity<Resource>> redirectToStorage(String key) {
+        return videoStorage
+            .stat(key)
+            .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Archivo no existe en el almacenamiento")))
+            .doOnNext(stored -> LOG.info("  - Tamaño: {} bytes", stored.size()))
+            .then(videoStorage.downloadUrl(key, downloadLinkExpiration))
+            .map(url -> ResponseEntity.status(HttpStatus.FOUND).location(url).<Resource>build());
+    }
+
     /**
      * Saves images and optional audio to disk.
      *
@@ -516,7 +591,7 @@ public class VideoResource {
     }
 
     /**
-     * {@code DELETE  /videos/:id} : delete the "id" video.
+     * {@code DELETE  /videos/:id} : delete the "id" video, cancelling its render first if it is still running.
      *
      * @param id the id of the videoDTO to delete.
      * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
@@ -524,8 +599,9 @@ public class VideoResource {
     @DeleteMapping("/{id}")
     public Mono<ResponseEntity<Void>> deleteVideo(@PathVariable("id") Long id) {
         LOG.debug("REST request to delete Video : {}", id);
-        return videoService
-            .delete(id)
+        return renderCancellationService
+            .cancel(id)
+            .then(videoService.delete(id))
             .then(
                 Mono.just(
                     ResponseEntity.noContent()
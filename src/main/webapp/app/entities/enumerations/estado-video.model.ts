@@ -6,4 +6,6 @@ export enum EstadoVideo {
   DESCARGADO = 'DESCARGADO',
 
   ERROR = 'ERROR',
+
+  CANCELADO = 'CANCELADO',
 }
@@ -1,13 +1,14 @@
-import { HttpClient, HttpResponse } from '@angular/common/http';
+import { HttpClient, HttpEventType, HttpResponse } from '@angular/common/http';
 import { Injectable, inject } from '@angular/core';
 
 import dayjs from 'dayjs/esm';
-import { Observable, map } from 'rxjs';
+import { Observable, filter, map, mergeMap } from 'rxjs';
 
 import { ApplicationConfigService } from 'app/core/config/application-config.service';
 import { createRequestOption } from 'app/core/request/request-util';
 import { isPresent } from 'app/core/util/operators';
-import { IVideo, NewVideo } from '../video.model';
+import { EstadoVideo } from 'app/entities/enumerations/estado-video.model';
+import { IRenderProgress, IVideo, NewVideo } from '../video.model';
 
 export type PartialUpdateVideo = Partial<IVideo> & Pick<IVideo, 'id'>;
 
@@ -22,6 +23,13 @@ export type NewRestVideo = RestOf<NewVideo>;
 
 export type PartialUpdateRestVideo = RestOf<PartialUpdateVideo>;
 
+export interface IVideoStatusEvent {
+  videoId: number;
+  estado: keyof typeof EstadoVideo;
+  outputFilename?: string | null;
+  progress?: IRenderProgress | null;
+}
+
 export type EntityResponseType = HttpResponse<IVideo>;
 export type EntityArrayResponseType = HttpResponse<IVideo[]>;
 
@@ -62,6 +70,54 @@ export class VideoService {
       .pipe(map(res => this.convertResponseFromServer(res)));
   }
 
+  /**
+   * Cancela el render de un video en proceso. Responde 409 si el render ya había terminado.
+   * @param id - ID del video
+   * @returns Observable con el video cancelado
+   */
+  cancel(id: number): Observable<EntityResponseType> {
+    return this.http
+      .post<RestVideo>(`${this.resourceUrl}/${encodeURIComponent(id)}/cancel`, null, { observe: 'response' })
+      .pipe(map(res => this.convertResponseFromServer(res)));
+  }
+
+  /**
+   * Sigue el estado de un video mediante Server-Sent Events: emite el estado actual y cada cambio,
+   * y termina cuando el video llega a un estado final.
+   * Se usa HttpClient en lugar de EventSource para que la petición lleve el token de autenticación.
+   * @param id - ID del video
+   * @returns Observable con los cambios de estado del video
+   */
+  watchVideoStatus(id: number): Observable<IVideoStatusEvent> {
+    let consumed = 0;
+    return this.http
+      .get(`${this.resourceUrl}/${encodeURIComponent(id)}/events`, {
+        observe: 'events',
+        reportProgress: true,
+        responseType: 'text',
+        headers: { Accept: 'text/event-stream' },
+      })
+      .pipe(
+        map(event => {
+          if (event.type === HttpEventType.DownloadProgress) {
+            return (event as { partialText?: string }).partialText ?? '';
+          }
+          return event.type === HttpEventType.Response ? `${event.body ?? ''}\n\n` : null;
+        }),
+        filter((text): text is string => text !== null),
+        mergeMap(text => {
+          // Solo se procesan los eventos completos (terminados en línea en blanco) que aún no se leyeron
+          const end = text.lastIndexOf('\n\n');
+          if (end < consumed) {
+            return [];
+          }
+          const blocks = text.substring(consumed, end).split('\n\n');
+          consumed = end + 2;
+          return blocks.map(block => this.parseStatusEvent(block)).filter(isPresent);
+        }),
+      );
+  }
+
   downloadVideo(id: number): Observable<HttpResponse<Blob>> {
     return this.http.get(`/api/videos/${id}/download`, {
       observe: 'response',
@@ -152,6 +208,16 @@ export class VideoService {
     return videoCollection;
   }
 
+  protected parseStatusEvent(block: string): IVideoStatusEvent | null {
+    // Las líneas que empiezan con ':' son latidos para mantener viva la conexión
+    const data = block
+      .split('\n')
+      .filter(line => line.startsWith('data:'))
+      .map(line => line.substring(5).trim())
+      .join('\n');
+    return data ? (JSON.parse(data) as IVideoStatusEvent) : null;
+  }
+
   protected convertDateFromClient<T extends IVideo | NewVideo | PartialUpdateVideo>(video: T): RestOf<T> {
     return {
       ...video,
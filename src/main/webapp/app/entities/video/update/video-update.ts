@@ -3,7 +3,7 @@ import { Component, OnInit, OnDestroy, inject, signal, ChangeDetectorRef } from
 import { ReactiveFormsModule } from '@angular/forms';
 import { ActivatedRoute } from '@angular/router';
 
-import { Observable, interval, Subscription, of } from 'rxjs'; // ✏️ AÑADIDO of
+import { Observable, concat, interval, Subscription, of } from 'rxjs'; // ✏️ AÑADIDO of
 import { finalize, map, switchMap, takeWhile, timeout, catchError } from 'rxjs/operators'; // ✏️ AÑADIDO timeout, catchError
 
 import { EstadoVideo } from 'app/entities/enumerations/estado-video.model';
@@ -347,18 +347,31 @@ export class VideoUpdate implements OnInit, OnDestroy {
     return this.editForm.controls.tieneAudio.value === true;
   }
 
-  // 🆕 NUEVO MÉTODO: Inicia el polling para verificar el estado del video
+  // Sigue el estado del video por Server-Sent Events; si el stream falla vuelve al polling
   private startPolling(videoId: number): void {
-    console.log('🔄 Iniciando polling para video ID:', videoId);
-
-    this.pollingSubscription = interval(3000)
+    console.log('📡 Siguiendo estado del video ID:', videoId);
+
+    const polling$: Observable<IVideo | null> = interval(3000).pipe(
+      switchMap(() => {
+        console.log('🔍 Consultando estado del video...');
+        return this.videoService.getVideoStatus(videoId);
+      }),
+      map(response => response.body),
+    );
+
+    const events$: Observable<IVideo | null> = this.videoService.watchVideoStatus(videoId).pipe(
+      // los avisos de progreso llegan por el mismo stream, limitados en el servidor a uno cada pocos segundos
+      map(event => ({ id: event.videoId, estado: event.estado, outputFilename: event.outputFilename, progress: event.progress }) as IVideo),
+      catchError(error => {
+        console.warn('⚠️ No se pudo abrir el stream de estado, usando polling:', error);
+        return polling$;
+      }),
+    );
+
+    // Si el stream se cierra antes de un estado final (p. ej. reinicio del servidor) se sigue con polling
+    this.pollingSubscription = concat(events$, polling$)
       .pipe(
-        switchMap(() => {
-          console.log('🔍 Consultando estado del video...');
-          return this.videoService.getVideoStatus(videoId);
-        }),
-        takeWhile(response => {
-          const video = response.body;
+        takeWhile(video => {
           if (!video) {
             console.warn('⚠️ No se recibió información del video');
             return false;
@@ -372,7 +385,10 @@ export class VideoUpdate implements OnInit, OnDestroy {
           console.log('📊 Estado actual:', estado);
 
           if (estado === 'EN_PROCESO') {
-            this.processingMessage = 'Generando video... esto puede tardar varios minutos';
+            const progress = video.progress;
+            this.processingMessage = progress
+              ? `Generando video... ${progress.percent}% (faltan ~${progress.etaSeconds} s)`
+              : 'Generando video... esto puede tardar varios minutos';
             return true;
           } else if (estado === 'COMPLETADO') {
             this.processingMessage = '✅ Video generado exitosamente!';
@@ -382,26 +398,29 @@ export class VideoUpdate implements OnInit, OnDestroy {
           } else if (estado === 'ERROR') {
             this.processingMessage = '❌ Error generando el video';
             return false;
+          } else if (estado === 'CANCELADO') {
+            this.processingMessage = '🛑 Generación del video cancelada';
+            return false;
           }
 
           return true;
         }, true),
         finalize(() => {
-          console.log('🏁 Polling finalizado');
+          console.log('🏁 Seguimiento finalizado');
           this.onPollingComplete();
           this.onSaveFinalize();
           this.cdr.detectChanges();
         }),
       )
       .subscribe({
-        next: response => {
-          const video = response.body;
+        next: video => {
           if (video) {
-            console.log('📦 Video recibido en polling:', video);
+            console.log('📦 Estado del video recibido:', video);
           }
+          this.cdr.detectChanges();
         },
         error: error => {
-          console.error('❌ Error en polling:', error);
+          console.error('❌ Error siguiendo el estado del video:', error);
           this.onSaveError();
         },
       });
@@ -3,6 +3,13 @@ import dayjs from 'dayjs/esm';
 import { EstadoVideo } from 'app/entities/enumerations/estado-video.model';
 import { IUser } from 'app/entities/user/user.model';
 
+export interface IRenderProgress {
+  stage: 'PREPARING' | 'RENDERING' | 'FINALIZING';
+  percent: number;
+  etaSeconds: number;
+  estimated: boolean;
+}
+
 export interface IVideo {
   id: number;
   titulo?: string | null;
@@ -16,6 +23,8 @@ export interface IVideo {
   downloadUrl?: string | null;
   outputFilename?: string | null;
   formato?: string | null;
+  duracionAudio?: number | null;
+  progress?: IRenderProgress | null;
 }
 
 export type NewVideo = Omit<IVideo, 'id'> & { id: null };
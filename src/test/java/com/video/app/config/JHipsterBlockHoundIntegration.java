@@ -15,6 +15,8 @@ public class JHipsterBlockHoundIntegration implements BlockHoundIntegration {
         builder.allowBlockingCallsInside("org.springdoc.core.service.OpenAPIService", "build");
         builder.allowBlockingCallsInside("org.springdoc.core.service.OpenAPIService", "getWebhooksClasses");
         builder.allowBlockingCallsInside("org.springdoc.core.service.AbstractRequestService", "build");
+        // Jackson locks once per type while building its deserializer; concurrent first calls park on the event loop
+        builder.allowBlockingCallsInside("com.fasterxml.jackson.databind.deser.DeserializerCache", "_createAndCacheValueDeserializer");
         // jhipster-needle-blockhound-integration - JHipster will add additional gradle plugins here
     }
 }
@@ -5,6 +5,7 @@ import com.video.app.config.SecurityJwtConfiguration;
 import com.video.app.config.WebConfigurer;
 import com.video.app.management.SecurityMetersService;
 import com.video.app.repository.UserRepository;
+import com.video.app.service.RenderAdmissionService;
 import com.video.app.web.rest.AuthenticateController;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -39,4 +40,5 @@ import tech.jhipster.config.JHipsterProperties;
 @ComponentScan({})
 @MockitoBean(types = ReactiveUserDetailsService.class)
 @MockitoBean(types = UserRepository.class)
+@MockitoBean(types = RenderAdmissionService.class)
 public @interface AuthenticationIntegrationTest {}
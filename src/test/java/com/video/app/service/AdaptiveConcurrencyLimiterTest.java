@@ -0,0 +1,165 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+/**
+ * Unit tests for {@link AdaptiveConcurrencyLimiter}.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long SLOW_CALL_NANOS = Duration.ofSeconds(10).toNanos();
+
+    private static final Duration SLOW_RESPONSE = Duration.ofSeconds(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+        4,
+        1,
+        8,
+        0.5,
+        SLOW_CALL_NANOS,
+        1.5,
+        SLOW_RESPONSE.toNanos(),
+        clock::get
+    );
+
+    @Test
+    void grantsUpToTheLimitAndQueuesTheRest() {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            limiter.acquire().subscribe(permits::add);
+        }
+
+        assertThat(permits).hasSize(4);
+        assertThat(limiter.getWaiting()).isEqualTo(2);
+
+        permits.get(0).ignore();
+        assertThat(permits).hasSize(5);
+        assertThat(limiter.getInFlight()).isEqualTo(4);
+    }
+
+    @Test
+    void increasesAdditivelyWhileSaturatedAndFast() {
+        // keep the limit saturated: 4 + 5 + 6 fast completions raise it from 4 to 7
+        ArrayDeque<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayDeque<>();
+        for (int i = 0; i < 15; i++) {
+            while (limiter.getInFlight() < limiter.getLimit()) {
+                permits.add(limiter.acquire().block(Duration.ofSeconds(1)));
+            }
+            clock.addAndGet(Duration.ofSeconds(1).toNanos());
+            permits.poll().success();
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(7);
+    }
+
+    @Test
+    void decreasesMultiplicativelyOnDropsAndSlowCalls() {
+        acquireAll(1).get(0).dropped();
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        AdaptiveConcurrencyLimiter.Permit slow = acquireAll(1).get(0);
+        clock.addAndGet(SLOW_CALL_NANOS + 1);
+        slow.success();
+        assertThat(limiter.getLimit()).isEqualTo(1);
+
+        acquireAll(1).get(0).dropped();
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void judgesSlownessAgainstTheExpectedTimeOfTheCall() {
+        // a long render that takes what was expected of it is not a sign of overload
+        AdaptiveConcurrencyLimiter.Permit onTime = acquireAll(1).get(0);
+        onTime.expect(Duration.ofMinutes(10));
+        clock.addAndGet(Duration.ofMinutes(14).toNanos());
+        onTime.success();
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        AdaptiveConcurrencyLimiter.Permit late = acquireAll(1).get(0);
+        late.expect(Duration.ofMinutes(10));
+        clock.addAndGet(Duration.ofMinutes(16).toNanos());
+        late.success();
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void judgesCallsThatReportResponsesByTheirSlowestResponse() {
+        AdaptiveConcurrencyLimiter.Permit answeredFast = acquireAll(1).get(0);
+        answeredFast.expect(Duration.ofSeconds(1));
+        answeredFast.responded(SLOW_RESPONSE.dividedBy(2));
+        clock.addAndGet(Duration.ofHours(1).toNanos());
+        answeredFast.success();
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        AdaptiveConcurrencyLimiter.Permit answeredSlowly = acquireAll(1).get(0);
+        answeredSlowly.responded(SLOW_RESPONSE.dividedBy(2));
+        answeredSlowly.responded(SLOW_RESPONSE.plusMillis(1));
+        answeredSlowly.success();
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void timeoutLowersTheLimitOnlyWhenTheCallWasSlow() {
+        AdaptiveConcurrencyLimiter.Permit answeredFast = acquireAll(1).get(0);
+        answeredFast.responded(SLOW_RESPONSE.dividedBy(2));
+        clock.addAndGet(Duration.ofHours(1).toNanos());
+        answeredFast.timedOut();
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        AdaptiveConcurrencyLimiter.Permit late = acquireAll(1).get(0);
+        late.expect(Duration.ofMinutes(10));
+        clock.addAndGet(Duration.ofMinutes(30).toNanos());
+        late.timedOut();
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        for (int i = 0; i < 20; i++) {
+            acquireAll(1).get(0).success();
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void cancelledWaiterDoesNotLeakAPermit() {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquireAll(4);
+        Disposable waiting = limiter.acquire().subscribe();
+        assertThat(limiter.getWaiting()).isEqualTo(1);
+
+        waiting.dispose();
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::ignore);
+
+        assertThat(limiter.getWaiting()).isZero();
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void permitIsReleasedOnlyOnce() {
+        AdaptiveConcurrencyLimiter.Permit permit = acquireAll(1).get(0);
+        permit.dropped();
+        permit.dropped();
+
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    private List<AdaptiveConcurrencyLimiter.Permit> acquireAll(int count) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(limiter.acquire().block(Duration.ofSeconds(1)));
+        }
+        return permits;
+    }
+}
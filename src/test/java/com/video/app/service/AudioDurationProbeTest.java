@@ -0,0 +1,100 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link AudioDurationProbe}.
+ */
+class AudioDurationProbeTest {
+
+    /**
+     * MPEG-1 Layer III, 128 kbps, 44.1 kHz, stereo, no padding: 417 bytes and 1152 samples per frame.
+     */
+    private static final byte[] FRAME_HEADER = { (byte) 0xff, (byte) 0xfb, (byte) 0x90, 0x00 };
+
+    private static final int FRAME_BYTES = 417;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsTheLengthOfAWav() throws IOException {
+        AudioFormat format = new AudioFormat(8_000, 16, 1, true, false);
+        byte[] samples = new byte[8_000 * 2 * 2];
+        Path wav = dir.resolve("audio.wav");
+        try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(samples), format, 16_000)) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, wav.toFile());
+        }
+
+        assertThat(AudioDurationProbe.probe(wav)).contains(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void estimatesTheLengthOfAConstantBitrateMp3() throws IOException {
+        ByteArrayOutputStream mp3 = new ByteArrayOutputStream();
+        for (int i = 0; i < 100; i++) {
+            mp3.write(frame());
+        }
+        Path file = Files.write(dir.resolve("audio.mp3"), mp3.toByteArray());
+
+        // 100 frames × 417 bytes × 8 / 128 kbps
+        assertThat(AudioDurationProbe.probe(file)).contains(Duration.ofMillis(2_606));
+    }
+
+    @Test
+    void readsTheFrameCountOfAXingHeaderAfterAnId3Tag() throws IOException {
+        ByteArrayOutputStream mp3 = new ByteArrayOutputStream();
+        mp3.write(id3Tag(500));
+        byte[] first = frame();
+        // side information of MPEG-1 stereo: 32 bytes after the header
+        ByteBuffer.wrap(first, 36, 12).put("Xing".getBytes(StandardCharsets.ISO_8859_1)).putInt(0x1).putInt(1_000);
+        mp3.write(first);
+        mp3.write(frame());
+        Path file = Files.write(dir.resolve("audio.mp3"), mp3.toByteArray());
+
+        // 1000 frames × 1152 samples / 44.1 kHz
+        assertThat(AudioDurationProbe.probe(file)).contains(Duration.ofMillis(26_122));
+    }
+
+    @Test
+    void returnsEmptyForUnknownFormats() throws IOException {
+        Path ogg = Files.write(dir.resolve("audio.ogg"), "OggS not really".getBytes(StandardCharsets.ISO_8859_1));
+        Path mp3 = Files.write(dir.resolve("audio.mp3"), new byte[1_000]);
+
+        assertThat(AudioDurationProbe.probe(ogg)).isEmpty();
+        assertThat(AudioDurationProbe.probe(mp3)).isEmpty();
+    }
+
+    private static byte[] frame() {
+        byte[] frame = new byte[FRAME_BYTES];
+        System.arraycopy(FRAME_HEADER, 0, frame, 0, FRAME_HEADER.length);
+        return frame;
+    }
+
+    private static byte[] id3Tag(int size) {
+        byte[] tag = new byte[10 + size];
+        tag[0] = 'I';
+        tag[1] = 'D';
+        tag[2] = '3';
+        tag[3] = 4;
+        // syncsafe size: 7 bits per byte
+        tag[8] = (byte) ((size >> 7) & 0x7f);
+        tag[9] = (byte) (size & 0x7f);
+        return tag;
+    }
+}
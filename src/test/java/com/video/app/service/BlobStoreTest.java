@@ -0,0 +1,129 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.video.app.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Unit tests for {@link BlobStore}.
+ */
+class BlobStoreTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @TempDir
+    Path tempDir;
+
+    private Path stagingDirectory;
+
+    private Path videosDirectory;
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private BlobStore blobStore;
+
+    @BeforeEach
+    void setup() throws IOException {
+        stagingDirectory = Files.createDirectories(tempDir.resolve("staging"));
+        videosDirectory = Files.createDirectories(tempDir.resolve("videos"));
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getUpload().getBlobs().setDirectory(tempDir.resolve("blobs").toString());
+        applicationProperties.getUpload().getBlobs().setGcGracePeriod(Duration.ofMinutes(10));
+        meterRegistry = new SimpleMeterRegistry();
+        blobStore = new BlobStore(applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void storesEachContentOnceAndLinksItIntoEveryVideo() throws IOException {
+        StagedFilePart first = staged("a.jpg", "same photo");
+        StagedFilePart second = staged("b.jpg", "same photo");
+        Path firstImage = videosDirectory.resolve("1-image_000.jpg");
+        Path secondImage = videosDirectory.resolve("2-image_000.jpg");
+
+        blobStore.storeAndLink(first, firstImage).block(TIMEOUT);
+        blobStore.storeAndLink(second, secondImage).block(TIMEOUT);
+
+        assertThat(Files.isSameFile(firstImage, secondImage)).isTrue();
+        assertThat(Files.isSameFile(firstImage, blobStore.blobPath(BlobStore.hash(firstImage)))).isTrue();
+        assertThat(Files.getAttribute(firstImage, "unix:nlink")).isEqualTo(3);
+        assertThat(first.file()).doesNotExist();
+        assertThat(second.file()).doesNotExist();
+        assertThat(meterRegistry.get(BlobStore.STORED_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(BlobStore.DEDUPLICATED_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(BlobStore.BYTES_SAVED_METER_NAME).functionCounter().count()).isEqualTo(10);
+    }
+
+    @Test
+    void keepsDifferentContentApart() throws IOException {
+        Path firstImage = videosDirectory.resolve("image_000.jpg");
+        Path secondImage = videosDirectory.resolve("image_001.jpg");
+
+        blobStore.storeAndLink(staged("a.jpg", "one photo"), firstImage).block(TIMEOUT);
+        blobStore.storeAndLink(staged("b.jpg", "another photo"), secondImage).block(TIMEOUT);
+
+        assertThat(Files.isSameFile(firstImage, secondImage)).isFalse();
+        assertThat(firstImage).hasContent("one photo");
+        assertThat(secondImage).hasContent("another photo");
+        assertThat(blobStore.getBytesSaved()).isZero();
+    }
+
+    @Test
+    void collectsOnlyUnreferencedBlobsPastTheGracePeriod() throws IOException {
+        Path kept = videosDirectory.resolve("kept.jpg");
+        Path deleted = videosDirectory.resolve("deleted.jpg");
+        Path recent = videosDirectory.resolve("recent.jpg");
+        blobStore.storeAndLink(staged("a.jpg", "kept"), kept).block(TIMEOUT);
+        blobStore.storeAndLink(staged("b.jpg", "deleted"), deleted).block(TIMEOUT);
+        blobStore.storeAndLink(staged("c.jpg", "recent"), recent).block(TIMEOUT);
+        Path keptBlob = blobStore.blobPath(BlobStore.hash(kept));
+        Path deletedBlob = blobStore.blobPath(BlobStore.hash(deleted));
+        Path recentBlob = blobStore.blobPath(BlobStore.hash(recent));
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofHours(1)));
+        Files.setLastModifiedTime(keptBlob, old);
+        Files.setLastModifiedTime(deletedBlob, old);
+        // the videos that used them are cleaned up
+        Files.delete(deleted);
+        Files.delete(recent);
+
+        assertThat(blobStore.collectGarbage().block(TIMEOUT)).isEqualTo(1);
+
+        assertThat(deletedBlob).doesNotExist();
+        assertThat(keptBlob).exists();
+        assertThat(recentBlob).exists();
+        assertThat(kept).hasContent("kept");
+    }
+
+    @Test
+    void movesFilesIntoPlaceWhenDisabled() throws IOException {
+        applicationProperties.getUpload().getBlobs().setEnabled(false);
+        blobStore = new BlobStore(applicationProperties, new SimpleMeterRegistry());
+        StagedFilePart part = staged("a.jpg", "photo");
+        Path image = videosDirectory.resolve("image_000.jpg");
+
+        blobStore.storeAndLink(part, image).block(TIMEOUT);
+
+        assertThat(image).hasContent("photo");
+        assertThat(Files.getAttribute(image, "unix:nlink")).isEqualTo(1);
+        assertThat(tempDir.resolve("blobs")).doesNotExist();
+    }
+
+    private StagedFilePart staged(String filename, String content) throws IOException {
+        Path file = Files.writeString(stagingDirectory.resolve(filename + ".part"), content, StandardCharsets.UTF_8);
+        return new StagedFilePart("images", filename, HttpHeaders.EMPTY, file);
+    }
+}
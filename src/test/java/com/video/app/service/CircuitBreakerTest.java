@@ -0,0 +1,77 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link CircuitBreaker}.
+ */
+class CircuitBreakerTest {
+
+    private static final long OPEN_NANOS = Duration.ofSeconds(30).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(3, OPEN_NANOS, 1, clock::get);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        fail(2);
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        circuitBreaker.onSuccess();
+        fail(2);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void halfOpenLetsOneTrialCallThroughAndClosesOnSuccess() {
+        fail(3);
+        clock.addAndGet(OPEN_NANOS);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+
+        circuitBreaker.onSuccess();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void failedTrialCallReopens() {
+        fail(3);
+        clock.addAndGet(OPEN_NANOS);
+
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        circuitBreaker.onFailure();
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        clock.addAndGet(OPEN_NANOS - 1);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void ignoredTrialCallFreesTheSlot() {
+        fail(3);
+        clock.addAndGet(OPEN_NANOS);
+
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        circuitBreaker.onIgnored();
+
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertThat(circuitBreaker.tryAcquire()).isTrue();
+            circuitBreaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit tests for {@link DeficitRoundRobin}, including a simulation of a skewed workload
+ * comparing FIFO against per-user deficit round-robin.
+ */
+class DeficitRoundRobinTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeficitRoundRobinTest.class);
+
+    private static final int SLOTS = 10;
+
+    private static final long RENDER_SECONDS = 60;
+
+    private static final long HEAVY_USER = 1L;
+
+    @Test
+    void alternatesBetweenBackloggedUsers() {
+        DeficitRoundRobin<Long, Job> drr = newScheduler();
+        List<Job> pending = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            pending.add(new Job(1L, 1, 0));
+        }
+        pending.add(new Job(2L, 1, 0));
+        pending.add(new Job(3L, 1, 0));
+
+        List<Job> selected = drr.select(pending, 4);
+
+        assertThat(selected).extracting(Job::user).containsExactly(1L, 2L, 3L, 1L);
+    }
+
+    @Test
+    void servesUsersInProportionToTheirWeight() {
+        DeficitRoundRobin<Long, Job> drr = newScheduler();
+        List<Job> pending = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pending.add(new Job(1L, 3, i));
+            pending.add(new Job(2L, 1, i));
+        }
+
+        // one job at a time, as the dispatcher does when a single slot frees up
+        List<Job> selected = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Job next = drr.select(pending, 1).get(0);
+            pending.remove(next);
+            selected.add(next);
+        }
+
+        Map<Long, Long> perUser = selected.stream().collect(Collectors.groupingBy(Job::user, Collectors.counting()));
+        assertThat(perUser).containsEntry(1L, 30L).containsEntry(2L, 10L);
+    }
+
+    @Test
+    void idleUserDoesNotAccumulateCredit() {
+        DeficitRoundRobin<Long, Job> drr = newScheduler();
+        drr.select(List.of(new Job(1L, 5, 0), new Job(1L, 5, 0)), 1);
+
+        assertThat(drr.deficit(1L)).isEqualTo(4);
+        drr.select(List.of(new Job(2L, 1, 0)), 1);
+        assertThat(drr.deficit(1L)).isZero();
+    }
+
+    @Test
+    void simulateSkewedWorkload() {
+        SimulationResult fifo = simulate((pending, free) -> pending.subList(0, Math.min(free, pending.size())));
+        DeficitRoundRobin<Long, Job> drr = newScheduler();
+        SimulationResult fair = simulate(drr::select);
+
+        LOG.info(
+            "FIFO: other users wait p50={}s p99={}s, heavy user p99={}s, makespan={}s",
+            fifo.otherP50(),
+            fifo.otherP99(),
+            fifo.heavyP99(),
+            fifo.makespan()
+        );
+        LOG.info(
+            "DRR:  other users wait p50={}s p99={}s, heavy user p99={}s, makespan={}s",
+            fair.otherP50(),
+            fair.otherP99(),
+            fair.heavyP99(),
+            fair.makespan()
+        );
+
+        // the burst no longer delays the other users...
+        assertThat(fair.otherP99()).isLessThanOrEqualTo(RENDER_SECONDS);
+        assertThat(fifo.otherP99()).isGreaterThan(10 * RENDER_SECONDS);
+        // ...and no throughput is lost: both schedulers are work conserving
+        assertThat(fair.makespan()).isEqualTo(fifo.makespan());
+    }
+
+    /**
+     * Heavy user bulk-submits 200 videos at t=0; five other users submit one video every 5 minutes
+     * during an hour. {@value #SLOTS} renders run at a time, each takes {@value #RENDER_SECONDS} s.
+     */
+    private SimulationResult simulate(BiFunction<List<Job>, Integer, List<Job>> scheduler) {
+        List<Job> arrivals = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            arrivals.add(new Job(HEAVY_USER, 1, 0));
+        }
+        for (long t = 0; t < 3600; t += 300) {
+            for (long user = 2; user <= 6; user++) {
+                arrivals.add(new Job(user, 1, t));
+            }
+        }
+        arrivals.sort(Comparator.comparingLong(Job::arrival));
+
+        List<Job> pending = new ArrayList<>();
+        PriorityQueue<Long> running = new PriorityQueue<>();
+        List<Long> otherWaits = new ArrayList<>();
+        List<Long> heavyWaits = new ArrayList<>();
+        long now = 0;
+        long makespan = 0;
+        int next = 0;
+        while (next < arrivals.size() || !pending.isEmpty() || !running.isEmpty()) {
+            long nextArrival = next < arrivals.size() ? arrivals.get(next).arrival() : Long.MAX_VALUE;
+            long nextCompletion = running.isEmpty() ? Long.MAX_VALUE : running.peek();
+            now = Math.min(nextArrival, nextCompletion);
+            while (next < arrivals.size() && arrivals.get(next).arrival() <= now) {
+                pending.add(arrivals.get(next++));
+            }
+            while (!running.isEmpty() && running.peek() <= now) {
+                makespan = Math.max(makespan, running.poll());
+            }
+            int free = SLOTS - running.size();
+            if (free > 0 && !pending.isEmpty()) {
+                for (Job job : new ArrayList<>(scheduler.apply(pending, free))) {
+                    pending.remove(job);
+                    running.add(now + RENDER_SECONDS);
+                    (job.user() == HEAVY_USER ? heavyWaits : otherWaits).add(now - job.arrival());
+                }
+            }
+        }
+        return new SimulationResult(percentile(otherWaits, 50), percentile(otherWaits, 99), percentile(heavyWaits, 99), makespan);
+    }
+
+    private static long percentile(List<Long> values, int percentile) {
+        List<Long> sorted = values.stream().sorted().toList();
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    private static DeficitRoundRobin<Long, Job> newScheduler() {
+        return new DeficitRoundRobin<>(Job::user, Job::weight, job -> 1L, 1);
+    }
+
+    private static final class Job {
+
+        private final long user;
+        private final int weight;
+        private final long arrival;
+
+        private Job(long user, int weight, long arrival) {
+            this.user = user;
+            this.weight = weight;
+            this.arrival = arrival;
+        }
+
+        long user() {
+            return user;
+        }
+
+        int weight() {
+            return weight;
+        }
+
+        long arrival() {
+            return arrival;
+        }
+    }
+
+    private record SimulationResult(long otherP50, long otherP99, long heavyP99, long makespan) {}
+}
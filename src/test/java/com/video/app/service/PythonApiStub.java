@@ -0,0 +1,318 @@
+package com.video.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Local stub of the Python video API for tests.
+ * <p>
+ * Supports the synchronous endpoints ({@code /generate_video/}, {@code /generate_video_whitout/}),
+ * the asynchronous {@code /render_jobs/} protocol with optional callbacks and cancellation, and {@code /health}.
+ * A render job submitted again with the same {@code Idempotency-Key} is not started twice.
+ * Render requests can be made to fail with {@link #failNext(int, int)}, and status polls with {@link #failNextPolls(int, int)}.
+ */
+class PythonApiStub implements AutoCloseable {
+
+    static final String CALLBACK_TOKEN = "stub-callback-token";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Duration renderTime;
+
+    private final DisposableServer server;
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private final AtomicInteger activeRequests = new AtomicInteger();
+
+    private final AtomicInteger peakRequests = new AtomicInteger();
+
+    private final AtomicInteger activeJobs = new AtomicInteger();
+
+    private final AtomicInteger peakJobs = new AtomicInteger();
+
+    private final AtomicLong jobIds = new AtomicLong();
+
+    private final Map<String, Long> jobDeadlines = new ConcurrentHashMap<>();
+
+    private final Set<String> cancelledJobs = ConcurrentHashMap.newKeySet();
+
+    private final List<Long> deadlines = new CopyOnWriteArrayList<>();
+
+    private final List<String> idempotencyKeys = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private volatile int failureStatus;
+
+    private final Map<String, String> jobsByIdempotencyKey = new ConcurrentHashMap<>();
+
+    private final AtomicInteger lostResponses = new AtomicInteger();
+
+    private volatile int lostResponseStatus;
+
+    private final AtomicInteger hungSubmits = new AtomicInteger();
+
+    private final AtomicInteger pollFailures = new AtomicInteger();
+
+    private volatile int pollFailureStatus;
+
+    PythonApiStub(Duration renderTime) {
+        this.renderTime = renderTime;
+        this.server = HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .route(routes ->
+                routes
+                    .post("/generate_video/", this::renderSync)
+                    .post("/generate_video_whitout/", this::renderSync)
+                    .post("/render_jobs/", this::submit)
+                    .get("/render_jobs/{id}", this::status)
+                    .delete("/render_jobs/{id}", this::cancel)
+                    .get("/health", (request, response) -> response.sendString(Mono.just("ok")))
+            )
+            .bindNow();
+    }
+
+    String url() {
+        return "http://localhost:" + server.port();
+    }
+
+    /**
+     * Renders started, whatever the protocol.
+     */
+    int renders() {
+        return renders.get();
+    }
+
+    /**
+     * Highest number of HTTP requests being served at the same time.
+     */
+    int peakRequests() {
+        return peakRequests.get();
+    }
+
+    /**
+     * Highest number of asynchronous render jobs running at the same time.
+     */
+    int peakJobs() {
+        return peakJobs.get();
+    }
+
+    /**
+     * {@code deadline_seconds} of every render request received, whatever the protocol.
+     */
+    List<Long> deadlines() {
+        return deadlines;
+    }
+
+    /**
+     * {@code Idempotency-Key} header of every render request received, failed ones included.
+     */
+    List<String> idempotencyKeys() {
+        return idempotencyKeys;
+    }
+
+    /**
+     * Answers the next {@code count} render requests, of either protocol, with {@code status} and no render.
+     */
+    void failNext(int count, int status) {
+        failureStatus = status;
+        failures.set(count);
+    }
+
+    /**
+     * Accepts the next {@code count} render jobs but answers their submit with {@code status}, as a proxy that
+     * loses the response would.
+     */
+    void loseNextSubmitResponses(int count, int status) {
+        lostResponseStatus = status;
+        lostResponses.set(count);
+    }
+
+    /**
+     * Reads the next {@code count} render job submits and never answers them.
+     */
+    void hangNextSubmits(int count) {
+        hungSubmits.set(count);
+    }
+
+    /**
+     * Answers the next {@code count} {@code GET /render_jobs/{id}} polls with {@code status}.
+     */
+    void failNextPolls(int count, int status) {
+        pollFailureStatus = status;
+        pollFailures.set(count);
+    }
+
+    /**
+     * Ids of the asynchronous render jobs cancelled with {@code DELETE /render_jobs/{id}}.
+     */
+    Set<String> cancelledJobs() {
+        return cancelledJobs;
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private Mono<Void> renderSync(HttpServerRequest request, HttpServerResponse response) {
+        if (failed(request)) {
+            return response.status(failureStatus).sendString(Mono.just("stub failure")).then();
+        }
+        renders.incrementAndGet();
+        return tracked(
+            request
+                .receive()
+                .aggregate()
+                .asString()
+                .doOnNext(body -> recordDeadline(readTree(body)))
+                .then(Mono.delay(renderTime))
+                .then(json(response, MAPPER.valueToTree(Map.of("status", "success", "metadata", metadata()))))
+        );
+    }
+
+    private Mono<Void> submit(HttpServerRequest request, HttpServerResponse response) {
+        if (failed(request)) {
+            return response.status(failureStatus).sendString(Mono.just("stub failure")).then();
+        }
+        if (hungSubmits.getAndUpdate(remaining -> Math.max(remaining - 1, 0)) > 0) {
+            return request.receive().then(Mono.never());
+        }
+        return tracked(
+            request
+                .receive()
+                .aggregate()
+                .asString()
+                .flatMap(body -> {
+                    String idempotencyKey = request.requestHeaders().get(PythonVideoService.IDEMPOTENCY_KEY_HEADER);
+                    String submitted = idempotencyKey != null ? jobsByIdempotencyKey.get(idempotencyKey) : null;
+                    if (submitted != null) {
+                        return json(response, MAPPER.valueToTree(Map.of("job_id", submitted, "status", "PENDING")));
+                    }
+                    renders.incrementAndGet();
+                    String jobId = String.valueOf(jobIds.incrementAndGet());
+                    if (idempotencyKey != null) {
+                        jobsByIdempotencyKey.put(idempotencyKey, jobId);
+                    }
+                    jobDeadlines.put(jobId, System.nanoTime() + renderTime.toNanos());
+                    peakJobs.accumulateAndGet(activeJobs.incrementAndGet(), Math::max);
+                    JsonNode job = readTree(body);
+                    recordDeadline(job.path("request"));
+                    JsonNode callbackUrl = job.get("callback_url");
+                    Mono.delay(renderTime)
+                        .doOnNext(tick -> activeJobs.decrementAndGet())
+                        .filter(tick -> callbackUrl != null && !callbackUrl.isNull())
+                        .flatMap(tick -> callback(callbackUrl.asText(), jobId))
+                        .subscribe();
+                    if (lostResponses.getAndUpdate(remaining -> Math.max(remaining - 1, 0)) > 0) {
+                        return response.status(lostResponseStatus).sendString(Mono.just("stub failure")).then();
+                    }
+                    return json(response, MAPPER.valueToTree(Map.of("job_id", jobId, "status", "PENDING")));
+                })
+        );
+    }
+
+    private Mono<Void> status(HttpServerRequest request, HttpServerResponse response) {
+        String jobId = request.param("id");
+        Long deadline = jobDeadlines.get(jobId);
+        if (deadline == null) {
+            return response.status(404).send();
+        }
+        if (pollFailures.getAndUpdate(remaining -> Math.max(remaining - 1, 0)) > 0) {
+            return response.status(pollFailureStatus).sendString(Mono.just("stub failure")).then();
+        }
+        long remaining = deadline - System.nanoTime();
+        ObjectNode status = jobStatus(jobId, remaining <= 0);
+        if (remaining > 0) {
+            status.put("progress", 100.0 * (renderTime.toNanos() - remaining) / renderTime.toNanos());
+        }
+        return tracked(json(response, status));
+    }
+
+    private Mono<Void> cancel(HttpServerRequest request, HttpServerResponse response) {
+        String jobId = request.param("id");
+        if (jobDeadlines.remove(jobId) == null) {
+            return response.status(404).send();
+        }
+        cancelledJobs.add(jobId);
+        return response.status(204).send();
+    }
+
+    private Mono<Void> callback(String callbackUrl, String jobId) {
+        return HttpClient.create()
+            .headers(headers -> headers.set("Content-Type", "application/json").set("X-Render-Callback-Token", CALLBACK_TOKEN))
+            .post()
+            .uri(callbackUrl)
+            .send(ByteBufFlux.fromString(Mono.just(jobStatus(jobId, true).toString())))
+            .response()
+            .then();
+    }
+
+    /**
+     * Records the idempotency key of a render request and tells whether it has to fail.
+     */
+    private boolean failed(HttpServerRequest request) {
+        String idempotencyKey = request.requestHeaders().get(PythonVideoService.IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey != null) {
+            idempotencyKeys.add(idempotencyKey);
+        }
+        return failures.getAndUpdate(remaining -> Math.max(remaining - 1, 0)) > 0;
+    }
+
+    private void recordDeadline(JsonNode renderRequest) {
+        if (renderRequest.hasNonNull("deadline_seconds")) {
+            deadlines.add(renderRequest.get("deadline_seconds").asLong());
+        }
+    }
+
+    private Mono<Void> tracked(Mono<Void> handler) {
+        return Mono.defer(() -> {
+            peakRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+            return handler.doFinally(signal -> activeRequests.decrementAndGet());
+        });
+    }
+
+    private static ObjectNode jobStatus(String jobId, boolean done) {
+        ObjectNode status = MAPPER.createObjectNode();
+        status.put("job_id", jobId);
+        status.put("status", done ? "DONE" : "RUNNING");
+        if (done) {
+            status.set("result", MAPPER.valueToTree(Map.of("status", "success", "metadata", metadata())));
+        }
+        return status;
+    }
+
+    private static Map<String, Object> metadata() {
+        return Map.of("full_path", "/app/shared-data/videos/1/output/video.mp4", "duration", 12.0);
+    }
+
+    private static Mono<Void> json(HttpServerResponse response, JsonNode body) {
+        return response.header("Content-Type", "application/json").sendString(Mono.just(body.toString())).then();
+    }
+
+    private static JsonNode readTree(String body) {
+        try {
+            return MAPPER.readTree(body);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.service.dto.PythonVideoResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tests for {@link PythonBackendPool} against local {@link PythonApiStub} servers.
+ */
+class PythonBackendPoolTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PythonBackendPoolTest.class);
+
+    private static final RenderDeadlines.Deadline DEADLINE = new RenderDeadlines.Deadline(Duration.ofSeconds(1), Duration.ofMinutes(10), 0);
+
+    private final List<PythonApiStub> stubs = new ArrayList<>();
+
+    @AfterEach
+    void stopStubs() {
+        stubs.forEach(PythonApiStub::close);
+    }
+
+    @Test
+    void spreadsLoadEvenlyAcrossBackends() {
+        List<PythonApiStub> backends = List.of(
+            startStub(Duration.ofMillis(100)),
+            startStub(Duration.ofMillis(100)),
+            startStub(Duration.ofMillis(100))
+        );
+        PythonVideoService pythonVideoService = newPythonVideoService(newPool(backends.stream().map(PythonApiStub::url).toList()));
+
+        List<PythonVideoResponse> responses = Flux.range(0, 150)
+            .flatMap(i -> pythonVideoService.generateVideoWithoutAudio(1L, "/images", "/output", "mp4", 3, DEADLINE), 150)
+            .collectList()
+            .block(Duration.ofSeconds(30));
+
+        LOG.info("Calls per backend: {}", backends.stream().map(PythonApiStub::renders).toList());
+        assertThat(responses).hasSize(150);
+        assertThat(backends).allSatisfy(stub -> assertThat(stub.renders()).isBetween(35, 65));
+    }
+
+    @Test
+    void routesAroundADeadBackend() throws IOException {
+        PythonApiStub first = startStub(Duration.ZERO);
+        PythonApiStub second = startStub(Duration.ZERO);
+        String deadUrl = "http://localhost:" + freePort();
+        PythonBackendPool pool = newPool(List.of(first.url(), deadUrl, second.url()));
+        PythonVideoService pythonVideoService = newPythonVideoService(pool);
+
+        List<PythonVideoResponse> responses = Flux.range(0, 30)
+            .concatMap(i -> pythonVideoService.generateVideoWithoutAudio(1L, "/images", "/output", "mp4", 3, DEADLINE))
+            .collectList()
+            .block(Duration.ofSeconds(30));
+
+        assertThat(responses).hasSize(30);
+        assertThat(first.renders() + second.renders()).isEqualTo(30);
+        assertThat(pool.getBackends().get(1).isUp()).isFalse();
+    }
+
+    @Test
+    void healthCheckMarksBackendsDownAndUp() throws IOException {
+        String deadUrl = "http://localhost:" + freePort();
+        PythonBackendPool pool = newPool(List.of(startStub(Duration.ZERO).url(), deadUrl));
+        pool.getBackends().forEach(backend -> backend.setUp(false));
+
+        pool.checkHealth().block(Duration.ofSeconds(10));
+
+        assertThat(pool.getBackends().get(0).isUp()).isTrue();
+        assertThat(pool.getBackends().get(1).isUp()).isFalse();
+        assertThat(pool.select(Set.of())).isSameAs(pool.getBackends().get(0));
+    }
+
+    @Test
+    void failsFastWhenNoBackendIsAvailable() throws IOException {
+        PythonBackendPool pool = newPool(List.of("http://localhost:" + freePort()));
+        pool.getBackends().get(0).setUp(false);
+
+        Mono<PythonVideoResponse> call = newPythonVideoService(pool).generateVideoWithoutAudio(
+            1L,
+            "/images",
+            "/output",
+            "mp4",
+            3,
+            DEADLINE
+        );
+
+        assertThat(call.onErrorResume(PythonUnavailableException.class, error -> Mono.empty()).blockOptional()).isEmpty();
+    }
+
+    private PythonApiStub startStub(Duration renderTime) {
+        PythonApiStub stub = new PythonApiStub(renderTime);
+        stubs.add(stub);
+        return stub;
+    }
+
+    private static PythonBackendPool newPool(List<String> backends) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPython().setBackends(backends);
+        applicationProperties.getPython().getLimiter().setInitialLimit(100);
+        applicationProperties.getPython().getLimiter().setMaxLimit(100);
+        return new PythonBackendPool(WebClient.builder(), applicationProperties, new SimpleMeterRegistry());
+    }
+
+    private static PythonVideoService newPythonVideoService(PythonBackendPool pool) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        return new PythonVideoService(
+            WebClient.builder(),
+            pool,
+            new PythonRenderTracker(applicationProperties),
+            applicationProperties,
+            new SimpleMeterRegistry()
+        );
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.video.app.config.ApplicationProperties;
+import com.video.app.service.dto.PythonRenderJobStatus;
+import com.video.app.service.dto.PythonVideoResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.function.DoubleConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.util.context.Context;
+
+/**
+ * Tests for the synchronous and submit-and-poll protocols of {@link PythonVideoService} against a {@link PythonApiStub}.
+ */
+class PythonVideoServiceTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PythonVideoServiceTest.class);
+
+    private static final int RENDERS = 500;
+
+    private static final Duration RENDER_TIME = Duration.ofSeconds(5);
+
+    private static final RenderDeadlines.Deadline EXPECTED_IN_A_SECOND = new RenderDeadlines.Deadline(
+        Duration.ofSeconds(1),
+        Duration.ofMinutes(10),
+        0
+    );
+
+    private static final RenderDeadlines.Deadline DEADLINE = new RenderDeadlines.Deadline(RENDER_TIME, Duration.ofMinutes(10), 0);
+
+    private PythonApiStub stub;
+
+    private ApplicationProperties applicationProperties;
+
+    private PythonRenderTracker renderTracker;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DisposableServer callbackReceiver;
+
+    @BeforeEach
+    void setup() {
+        stub = new PythonApiStub(RENDER_TIME);
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Python python = applicationProperties.getPython();
+        python.setBackends(List.of(stub.url()));
+        python.getLimiter().setInitialLimit(RENDERS);
+        python.getLimiter().setMaxLimit(RENDERS);
+        python.getAsync().setPollInterval(Duration.ofMillis(500));
+        python.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        meterRegistry = new SimpleMeterRegistry();
+        renderTracker = new PythonRenderTracker(applicationProperties);
+    }
+
+    @AfterEach
+    void teardown() {
+        stub.close();
+        if (callbackReceiver != null) {
+            callbackReceiver.disposeNow();
+        }
+    }
+
+    @Test
+    void syncProtocolHoldsOneRequestPerRender() {
+        List<PythonVideoResponse> responses = renderAll();
+
+        LOG.info("SYNC: peak concurrent HTTP requests {}", stub.peakRequests());
+        assertThat(responses).hasSize(RENDERS);
+        assertThat(stub.peakRequests()).isGreaterThan(RENDERS / 2);
+    }
+
+    @Test
+    void asyncProtocolTracksRendersWithShortPolls() {
+        applicationProperties.getPython().setProtocol(ApplicationProperties.Python.Protocol.ASYNC);
+
+        List<PythonVideoResponse> responses = renderAll();
+
+        LOG.info("ASYNC poll: {} renders in flight, peak concurrent HTTP requests {}", stub.peakJobs(), stub.peakRequests());
+        assertThat(responses).hasSize(RENDERS).allSatisfy(response -> assertThat(response.getMetadata().getFull_path()).isNotBlank());
+        assertThat(stub.peakJobs()).isGreaterThan(RENDERS / 2);
+        assertThat(stub.peakRequests()).isLessThan(RENDERS / 5);
+        assertThat(renderTracker.getPending()).isZero();
+    }
+
+    @Test
+    void asyncProtocolCompletesOnCallback() {
+        ApplicationProperties.Python.Async async = applicationProperties.getPython().getAsync();
+        applicationProperties.getPython().setProtocol(ApplicationProperties.Python.Protocol.ASYNC);
+        // polls would never complete the test in time: only the callback can
+        async.setPollInterval(Duration.ofHours(1));
+        async.setCallbackToken(PythonApiStub.CALLBACK_TOKEN);
+        async.setCallbackBaseUrl(startCallbackReceiver());
+
+        PythonVideoResponse response = newPythonVideoService()
+            .generateVideoWithoutAudio(1L, "/images", "/output", "mp4", 3, DEADLINE)
+            .block(RENDER_TIME.multipliedBy(2));
+
+        assertThat(response).isNotNull();
+        assertThat(response.getMetadata().getFull_path()).isEqualTo("/app/shared-data/videos/1/output/video.mp4");
+    }
+
+    @Test
+    void asyncProtocolReportsProgressFromPolls() {
+        applicationProperties.getPython().setProtocol(ApplicationProperties.Python.Protocol.ASYNC);
+        List<Double> reported = new CopyOnWriteArrayList<>();
+
+        PythonVideoResponse response = newPythonVideoService()
+            .generateVideoWithoutAudio(1L, "/images", "/output", "mp4", 3, DEADLINE)
+            .contextWrite(Context.of(PythonVideoService.PROGRESS_CONTEXT_KEY, (DoubleConsumer) reported::add))
+            .block(RENDER_TIME.multipliedBy(2));
+
+        assertThat(response).isNotNull();
+        assertThat(reported).hasSizeGreaterThan(3).isSorted().allSatisfy(percent -> assertThat(percent).isBetween(0.0, 100.0));
+    }
+
+    @Test
+    void asyncProtocolKeepsPollingAfterATransientPollFailure() {
+        applicationProperties.getPython().setProtocol(ApplicationProperties.Python.Protocol.ASYNC);
+        // the first poll lands mid-render and fails, the second one finds the render finished
+        applicationProperties.getPython().getAsync().setPollInterval(RENDER_TIME.multipliedBy(3).dividedBy(5));
+        stub.failNextPolls(1, 503);
+
+        PythonVideoResponse response = newPythonVideoService()
+            .generateVideoWithoutAudio(1L, "/images", "/output", "mp4", 3, DEADLINE)
+            .block(RENDER_TIME.multipliedBy(2));
+
+        assertThat(response).isNotNull();
+        assertThat(response.getMetadata().getFull_path()).isEqualTo("/app/shared-data/videos/1/output/video.mp4");
+        assertThat(renderTracker.getPending()).isZero();
+    }
+
+    @Test
+    void syncProtocolGivesUpAtTheDeadlineSentToPython() {
+        Mono<PythonVideoResponse> render = newPythonVideoService().generateVideoWithoutAudio(
+            1L,
+            "/images",
+            "/output",
+            "mp4",
+            3,
+            deadline(Duration.ofMillis(1500))
+        );
+
+        assertThatThrownBy(() -> render.block(RENDER_TIME)).hasCauseInstanceOf(TimeoutException.class);
+        // rounded up, so Python never gives up before this side
+        assertThat(stub.deadlines()).containsExactly(2L);
+    }
+
+    @Test
+    void asyncProtocolGivesUpAtTheDeadlineAndCancelsTheRemoteRender() throws InterruptedException {
+        applicationProperties.getPython().setProtocol(ApplicationProperties.Python.Protocol.ASYNC);
+
+        Mono<PythonVideoResponse> render = newPythonVideoService().generateVideoWithoutAudio(
+            1L,
+            "/images",
+            "/output",
+            "mp4",
+            3,
+            // long enough for a cold client to submit, shorter than the render
+            deadline(Duration.ofSeconds(3))
+        );
+
+        assertThatThrownBy(() -> render.block(RENDER_TIME)).hasCauseInstanceOf(TimeoutException.class);
+        awaitCancelledJobs();
+
+        assertThat(stub.cancelledJobs()).containsExactly("1");
+        assertThat(stub.deadlines()).containsExactly(3L);
+        assertThat(renderTracker.getPending()).isZero();
+    }
+
+    @Test
+    void asyncProtocolGivesUpAtTheDeadlineWhenPythonNeverAnswersTheSubmit() {
+        applicationProperties.getPython().setProtocol(ApplicationProperties.Python.Protocol.ASYNC);
+        stub.hangNextSubmits(1);
+        applicationProperties.getPython().getCircuitBreaker().setFailureThreshold(1);
+        PythonBackendPool pool = newPool();
+
+        Mono<PythonVideoResponse> render = newPythonVideoService(pool).generateVideoWithoutAudio(
+            1L,
+            "/images",
+            "/output",
+            "mp4",
+            3,
+            deadline(Duration.ofSeconds(1))
+        );
+
+        // fails at its deadline, not when the caller stops waiting
+        assertThat(render.onErrorResume(TimeoutException.class, error -> Mono.empty()).block(RENDER_TIME)).isNull();
+        // the render slot is free again for the next render
+        assertThat(pool.getBackends()).singleElement().satisfies(backend -> assertThat(backend.getLimiter().getInFlight()).isZero());
+        // a render past its deadline does not mean Python is down
+        assertThat(pool.getBackends()).singleElement().satisfies(backend ->
+            assertThat(backend.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED)
+        );
+        assertThat(stub.renders()).isZero();
+    }
+
+    @Test
+    void syncProtocolLowersTheLimitWhenARenderTakesLongerThanExpected() {
+        PythonBackendPool pool = newPool();
+
+        newPythonVideoService(pool)
+            .generateVideoWithoutAudio(1L, "/images", "/output", "mp4", 3, EXPECTED_IN_A_SECOND)
+            .block(RENDER_TIME.multipliedBy(2));
+
+        assertThat(pool.getBackends()).singleElement().satisfies(backend ->
+            assertThat(backend.getLimiter().getLimit()).isLessThan(RENDERS)
+        );
+    }
+
+    @Test
+    void asyncProtocolJudgesTheLimitByHowFastPythonAnswersNotByTheRender() {
+        applicationProperties.getPython().setProtocol(ApplicationProperties.Python.Protocol.ASYNC);
+        PythonBackendPool pool = newPool();
+
+        newPythonVideoService(pool)
+            .generateVideoWithoutAudio(1L, "/images", "/output", "mp4", 3, EXPECTED_IN_A_SECOND)
+            .block(RENDER_TIME.multipliedBy(2));
+
+        assertThat(pool.getBackends()).singleElement().satisfies(backend -> assertThat(backend.getLimiter().getLimit()).isEqualTo(RENDERS));
+    }
+
+    @Test
+    void asyncProtocolCancelsTheRemoteRenderWhenDisposed() throws InterruptedException {
+        applicationProperties.getPython().setProtocol(ApplicationProperties.Python.Protocol.ASYNC);
+
+        Disposable render = newPythonVideoService().generateVideoWithoutAudio(1L, "/images", "/output", "mp4", 3, DEADLINE).subscribe();
+        // the render is being tracked once Python has answered the submit with its job id
+        while (renderTracker.getPending() == 0) {
+            Thread.sleep(10);
+        }
+        render.dispose();
+        awaitCancelledJobs();
+
+        assertThat(stub.cancelledJobs()).containsExactly("1");
+        assertThat(renderTracker.getPending()).isZero();
+    }
+
+    @Test
+    void retriesTransientFailuresWithTheIdempotencyKeyOfTheRender() {
+        stub.failNext(2, 503);
+
+        PythonVideoResponse response = newPythonVideoService()
+            .generateVideoWithoutAudio(7L, "/images", "/output", "mp4", 3, DEADLINE)
+            .block(RENDER_TIME.multipliedBy(2));
+
+        assertThat(response).isNotNull();
+        assertThat(stub.idempotencyKeys()).hasSize(3).containsOnly(stub.idempotencyKeys().get(0));
+        assertThat(stub.idempotencyKeys().get(0)).startsWith("7-");
+        assertThat(meterRegistry.get(PythonVideoService.RETRY_METER_NAME).tag("cause", "503").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void asyncProtocolRetriesATransientlyFailedSubmit() {
+        applicationProperties.getPython().setProtocol(ApplicationProperties.Python.Protocol.ASYNC);
+        stub.failNext(1, 502);
+
+        PythonVideoResponse response = newPythonVideoService()
+            .generateVideoWithoutAudio(7L, "/images", "/output", "mp4", 3, DEADLINE)
+            .block(RENDER_TIME.multipliedBy(2));
+
+        assertThat(response).isNotNull();
+        assertThat(stub.idempotencyKeys()).hasSize(2).containsOnly(stub.idempotencyKeys().get(0));
+    }
+
+    @Test
+    void asyncProtocolResubmitsARenderPythonAlreadyAcceptedUnderTheSameKey() {
+        applicationProperties.getPython().setProtocol(ApplicationProperties.Python.Protocol.ASYNC);
+        stub.loseNextSubmitResponses(1, 502);
+
+        PythonVideoResponse response = newPythonVideoService()
+            .generateVideoWithoutAudio(7L, "/images", "/output", "mp4", 3, DEADLINE)
+            .block(RENDER_TIME.multipliedBy(2));
+
+        assertThat(response).isNotNull();
+        assertThat(stub.idempotencyKeys()).hasSize(2).containsOnly(stub.idempotencyKeys().get(0));
+        assertThat(stub.renders()).isEqualTo(1);
+    }
+
+    @Test
+    void failsWithTheLastErrorOnceRetriesAreExhausted() {
+        stub.failNext(5, 504);
+
+        Mono<PythonVideoResponse> render = newPythonVideoService().generateVideoWithoutAudio(7L, "/images", "/output", "mp4", 3, DEADLINE);
+
+        assertThatThrownBy(() -> render.block(RENDER_TIME)).isInstanceOfSatisfying(PythonCallException.class, error -> {
+            assertThat(error.getStatusCode()).isEqualTo(504);
+            // the earlier attempts travel with the error, for the dead-letter history
+            assertThat(error.getSuppressed()).filteredOn(PythonCallException.class::isInstance).hasSize(2);
+        });
+        assertThat(stub.idempotencyKeys()).hasSize(3);
+        assertThat(meterRegistry.get(PythonVideoService.RETRY_EXHAUSTED_METER_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotRetryErrorsThatWouldRepeat() {
+        stub.failNext(1, 500);
+
+        Mono<PythonVideoResponse> render = newPythonVideoService().generateVideoWithoutAudio(7L, "/images", "/output", "mp4", 3, DEADLINE);
+
+        assertThatThrownBy(() -> render.block(RENDER_TIME)).isInstanceOf(PythonCallException.class);
+        assertThat(stub.idempotencyKeys()).hasSize(1);
+        assertThat(meterRegistry.find(PythonVideoService.RETRY_METER_NAME).counters()).isEmpty();
+    }
+
+    @Test
+    void callbackWithInvalidTokenIsRejected() {
+        applicationProperties.getPython().getAsync().setCallbackToken(PythonApiStub.CALLBACK_TOKEN);
+        PythonRenderJobStatus status = new PythonRenderJobStatus();
+        status.setStatus(PythonRenderJobStatus.DONE);
+
+        assertThat(renderTracker.onCallback("ref", "wrong-token", status)).isFalse();
+        assertThat(renderTracker.onCallback("ref", null, status)).isFalse();
+        assertThat(renderTracker.onCallback("ref", PythonApiStub.CALLBACK_TOKEN, status)).isTrue();
+    }
+
+    private List<PythonVideoResponse> renderAll() {
+        PythonVideoService pythonVideoService = newPythonVideoService();
+        return Flux.range(0, RENDERS)
+            .flatMap(i -> pythonVideoService.generateVideoWithoutAudio(1L, "/images", "/output", "mp4", 3, DEADLINE), RENDERS)
+            .collectList()
+            .block(Duration.ofSeconds(60));
+    }
+
+    /**
+     * Cancellation is fire-and-forget: waits until the stub has received it.
+     */
+    private void awaitCancelledJobs() throws InterruptedException {
+        long deadline = System.nanoTime() + RENDER_TIME.toNanos();
+        while (stub.cancelledJobs().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static RenderDeadlines.Deadline deadline(Duration limit) {
+        return new RenderDeadlines.Deadline(limit, limit, 0);
+    }
+
+    private PythonVideoService newPythonVideoService() {
+        return newPythonVideoService(newPool());
+    }
+
+    private PythonVideoService newPythonVideoService(PythonBackendPool pool) {
+        return new PythonVideoService(WebClient.builder(), pool, renderTracker, applicationProperties, meterRegistry);
+    }
+
+    private PythonBackendPool newPool() {
+        return new PythonBackendPool(WebClient.builder(), applicationProperties, meterRegistry);
+    }
+
+    /**
+     * Stands in for {@code RenderCallbackResource}: forwards callbacks to the tracker.
+     */
+    private String startCallbackReceiver() {
+        ObjectMapper mapper = new ObjectMapper();
+        callbackReceiver = HttpServer.create()
+            .host("localhost")
+            .port(0)
+            .route(routes ->
+                routes.post(PythonRenderTracker.CALLBACK_PATH + "{ref}", (request, response) ->
+                    request
+                        .receive()
+                        .aggregate()
+                        .asString()
+                        .flatMap(body -> {
+                            try {
+                                PythonRenderJobStatus status = mapper.readValue(body, PythonRenderJobStatus.class);
+                                boolean accepted = renderTracker.onCallback(
+                                    request.param("ref"),
+                                    request.requestHeaders().get("X-Render-Callback-Token"),
+                                    status
+                                );
+                                return response.status(accepted ? 204 : 401).send().then();
+                            } catch (Exception e) {
+                                return Mono.error(e);
+                            }
+                        })
+                )
+            )
+            .bindNow();
+        return "http://localhost:" + callbackReceiver.port();
+    }
+}
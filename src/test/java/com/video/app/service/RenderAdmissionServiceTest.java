@@ -0,0 +1,113 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.video.app.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link RenderAdmissionService}.
+ */
+class RenderAdmissionServiceTest {
+
+    private RenderJobQueue renderJobQueue;
+
+    private MeterRegistry meterRegistry;
+
+    private RenderAdmissionService renderAdmissionService;
+
+    private final AtomicLong backlog = new AtomicLong();
+
+    private final AtomicLong finished = new AtomicLong();
+
+    @BeforeEach
+    void setup() {
+        renderJobQueue = mock(RenderJobQueue.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(renderJobQueue.backlog()).thenReturn(Mono.fromSupplier(backlog::get));
+        when(renderJobQueue.finishedWithin(any())).thenReturn(Mono.fromSupplier(finished::get));
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Render.Admission admission = applicationProperties.getRender().getAdmission();
+        admission.setMaxBacklog(100);
+        admission.setMaxEstimatedWait(Duration.ofMinutes(10));
+        admission.setRateWindow(Duration.ofMinutes(10));
+        admission.setRefreshInterval(Duration.ofMinutes(1));
+        admission.setDefaultRetryAfter(Duration.ofSeconds(45));
+        renderAdmissionService = new RenderAdmissionService(renderJobQueue, applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void admitsWhenBacklogAndWaitAreBelowThresholds() {
+        RenderAdmissionService.Decision decision = renderAdmissionService.decide(10, 1.0);
+
+        assertThat(decision.admitted()).isTrue();
+        assertThat(decision.retryAfter()).isZero();
+    }
+
+    @Test
+    void rejectsWhenEstimatedWaitIsTooLong() {
+        // 0.1 renders/s: 90 jobs take 900 s > 600 s; the queue is admissible again at 60 jobs
+        RenderAdmissionService.Decision decision = renderAdmissionService.decide(90, 0.1);
+
+        assertThat(decision.admitted()).isFalse();
+        assertThat(decision.retryAfter()).isEqualTo(Duration.ofSeconds(300));
+    }
+
+    @Test
+    void rejectsWhenBacklogIsFull() {
+        RenderAdmissionService.Decision decision = renderAdmissionService.decide(100, 1.0);
+
+        assertThat(decision.admitted()).isFalse();
+        assertThat(decision.retryAfter()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void usesDefaultRetryAfterWithoutObservedRate() {
+        assertThat(renderAdmissionService.decide(50, 0).admitted()).isTrue();
+
+        RenderAdmissionService.Decision decision = renderAdmissionService.decide(100, 0);
+        assertThat(decision.admitted()).isFalse();
+        assertThat(decision.retryAfter()).isEqualTo(Duration.ofSeconds(45));
+    }
+
+    @Test
+    void retryAfterIsCappedByMaxEstimatedWait() {
+        RenderAdmissionService.Decision decision = renderAdmissionService.decide(10_000, 0.01);
+
+        assertThat(decision.retryAfter()).isEqualTo(Duration.ofMinutes(10));
+    }
+
+    @Test
+    void checkUsesCachedQueueStateAndCountsRejections() {
+        backlog.set(150);
+        finished.set(600);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(renderAdmissionService.check().block().admitted()).isFalse();
+        }
+
+        verify(renderJobQueue, times(1)).backlog();
+        assertThat(meterRegistry.get(RenderAdmissionService.REJECTED_METER_NAME).counter().count()).isEqualTo(10);
+    }
+
+    @Test
+    void admitsWhenQueueStateIsUnavailable() {
+        when(renderJobQueue.backlog()).thenReturn(Mono.error(new IllegalStateException("sin conexión")));
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        renderAdmissionService = new RenderAdmissionService(renderJobQueue, applicationProperties, meterRegistry);
+
+        assertThat(renderAdmissionService.check().block().admitted()).isTrue();
+    }
+}
@@ -0,0 +1,105 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.video.app.IntegrationTest;
+import com.video.app.config.Constants;
+import com.video.app.domain.User;
+import com.video.app.domain.Video;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.repository.EntityManager;
+import com.video.app.repository.UserRepository;
+import com.video.app.repository.VideoRepository;
+import com.video.app.service.dto.VideoDTO;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+
+/**
+ * Integration tests for {@link RenderCancellationService} racing with the completion of the same render.
+ */
+@IntegrationTest
+class RenderCancellationServiceIT {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int RACES = 20;
+
+    @Autowired
+    private RenderCancellationService renderCancellationService;
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private User user;
+
+    @BeforeEach
+    void init() {
+        User newUser = new User();
+        newUser.setLogin("render-cancellation-" + RandomStringUtils.insecure().nextAlphanumeric(5).toLowerCase());
+        newUser.setPassword(RandomStringUtils.insecure().nextAlphanumeric(60));
+        newUser.setActivated(true);
+        newUser.setEmail(newUser.getLogin() + "@localhost");
+        newUser.setLangKey("en");
+        newUser.setCreatedBy(Constants.SYSTEM);
+        user = em.insert(newUser).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        em.deleteAll(Video.class).block();
+        userRepository.deleteAllUserAuthorities().block();
+        userRepository.deleteAll().block();
+    }
+
+    @Test
+    void cancellationAndCompletionOfTheSameRenderNeverOverwriteEachOther() {
+        for (int i = 0; i < RACES; i++) {
+            Video video = videoRepository
+                .save(new Video().titulo("race").tieneAudio(false).estado(EstadoVideo.EN_PROCESO).fechaCreacion(Instant.now()).user(user))
+                .block(TIMEOUT);
+            VideoDTO completion = new VideoDTO();
+            completion.setId(video.getId());
+            completion.setEstado(EstadoVideo.COMPLETADO);
+            completion.setOutputFilename("video.mp4");
+
+            Tuple2<Optional<VideoDTO>, VideoDTO> outcome = Mono.zip(
+                videoService
+                    .finishProcessing(completion)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .subscribeOn(Schedulers.parallel()),
+                renderCancellationService.cancel(video.getId()).subscribeOn(Schedulers.parallel())
+            ).block(TIMEOUT);
+
+            Video stored = videoRepository.findById(video.getId()).block(TIMEOUT);
+            if (outcome.getT1().isPresent()) {
+                // the completion won: the cancellation found it and left it alone
+                assertThat(stored.getEstado()).isEqualTo(EstadoVideo.COMPLETADO);
+                assertThat(stored.getOutputFilename()).isEqualTo("video.mp4");
+                assertThat(outcome.getT2().getEstado()).isEqualTo(EstadoVideo.COMPLETADO);
+            } else {
+                assertThat(stored.getEstado()).isEqualTo(EstadoVideo.CANCELADO);
+                assertThat(stored.getOutputFilename()).isNull();
+                assertThat(outcome.getT2().getEstado()).isEqualTo(EstadoVideo.CANCELADO);
+            }
+        }
+    }
+}
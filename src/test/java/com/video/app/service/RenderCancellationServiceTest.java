@@ -0,0 +1,125 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.video.app.domain.RenderJob;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.domain.enumeration.RenderJobStatus;
+import com.video.app.service.dto.VideoDTO;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link RenderCancellationService}.
+ */
+class RenderCancellationServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private VideoService videoService;
+
+    private RenderJobQueue renderJobQueue;
+
+    private FileStorageService fileStorageService;
+
+    private final List<VideoStatusEvent> published = new CopyOnWriteArrayList<>();
+
+    private RenderCancellationService renderCancellationService;
+
+    @BeforeEach
+    void setup() {
+        videoService = mock(VideoService.class);
+        renderJobQueue = mock(RenderJobQueue.class);
+        fileStorageService = mock(FileStorageService.class);
+        VideoStatusBroadcaster videoStatusBroadcaster = new VideoStatusBroadcaster(new SimpleMeterRegistry());
+        videoStatusBroadcaster.changes().subscribe(published::add);
+        renderCancellationService = new RenderCancellationService(videoService, renderJobQueue, fileStorageService, videoStatusBroadcaster);
+
+        when(videoService.findOne(any())).thenAnswer(invocation -> Mono.just(video(invocation.getArgument(0), EstadoVideo.EN_PROCESO)));
+        when(videoService.finishProcessing(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(renderJobQueue.cancel(any())).thenReturn(Mono.empty());
+        when(fileStorageService.cleanupFiles(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void cancelsAQueuedRenderAndCleansUpItsFiles() {
+        when(renderJobQueue.cancel(1L)).thenReturn(Mono.just(job(1L, null)));
+
+        VideoDTO cancelled = renderCancellationService.cancel(1L).block(TIMEOUT);
+
+        assertThat(cancelled.getEstado()).isEqualTo(EstadoVideo.CANCELADO);
+        assertThat(published).containsExactly(new VideoStatusEvent(1L, EstadoVideo.CANCELADO, null));
+        verify(fileStorageService).cleanupFiles("1");
+    }
+
+    @Test
+    void leavesTheCleanupOfALeasedRenderToItsNode() {
+        when(renderJobQueue.cancel(1L)).thenReturn(Mono.just(job(1L, "node-2")));
+
+        VideoDTO cancelled = renderCancellationService.cancel(1L).block(TIMEOUT);
+
+        assertThat(cancelled.getEstado()).isEqualTo(EstadoVideo.CANCELADO);
+        assertThat(published).extracting(VideoStatusEvent::estado).containsExactly(EstadoVideo.CANCELADO);
+        verify(fileStorageService, never()).cleanupFiles(any());
+    }
+
+    @Test
+    void doesNotCancelAFinishedRender() {
+        when(videoService.findOne(1L)).thenReturn(Mono.just(video(1L, EstadoVideo.COMPLETADO)));
+
+        VideoDTO video = renderCancellationService.cancel(1L).block(TIMEOUT);
+
+        assertThat(video.getEstado()).isEqualTo(EstadoVideo.COMPLETADO);
+        assertThat(published).isEmpty();
+        verify(renderJobQueue, never()).cancel(any());
+        verify(videoService, never()).finishProcessing(any());
+    }
+
+    @Test
+    void keepsARenderThatCompletedWhileItWasBeingCancelled() {
+        // read EN_PROCESO, but the render finished before the conditional update
+        when(videoService.findOne(1L)).thenReturn(
+            Mono.just(video(1L, EstadoVideo.EN_PROCESO)),
+            Mono.just(video(1L, EstadoVideo.COMPLETADO))
+        );
+        doReturn(Mono.empty()).when(videoService).finishProcessing(any());
+
+        VideoDTO video = renderCancellationService.cancel(1L).block(TIMEOUT);
+
+        assertThat(video.getEstado()).isEqualTo(EstadoVideo.COMPLETADO);
+        assertThat(published).isEmpty();
+        verify(renderJobQueue, never()).cancel(any());
+        verify(fileStorageService, never()).cleanupFiles(any());
+    }
+
+    @Test
+    void returnsEmptyForAMissingVideo() {
+        when(videoService.findOne(1L)).thenReturn(Mono.empty());
+
+        assertThat(renderCancellationService.cancel(1L).blockOptional(TIMEOUT)).isEmpty();
+        verify(renderJobQueue, never()).cancel(any());
+    }
+
+    private static VideoDTO video(Long id, EstadoVideo estado) {
+        VideoDTO video = new VideoDTO();
+        video.setId(id);
+        video.setEstado(estado);
+        return video;
+    }
+
+    private static RenderJob job(Long videoId, String leaseOwner) {
+        return new RenderJob().videoId(videoId).status(RenderJobStatus.CANCELLED).leaseOwner(leaseOwner);
+    }
+}
@@ -0,0 +1,254 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.config.ApplicationProperties.Render.Scheduling.Policy;
+import com.video.app.domain.RenderJob;
+import com.video.app.domain.RenderStat;
+import com.video.app.repository.RenderStatRepository;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link RenderCostModel}, including a simulation that replays the job mix in
+ * {@code render/job-mix.csv} and compares FIFO against shortest-expected-job-first scheduling.
+ */
+class RenderCostModelTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderCostModelTest.class);
+
+    private static final Duration DEFAULT_COST = Duration.ofMinutes(1);
+
+    private static final int RENDERERS = 4;
+
+    @Test
+    void fitsALinearModelPerFormat() {
+        // v: 2 s + 1 s per image + 5 s with audio; h: 10 s per image
+        RenderCostModel.Model model = RenderCostModel.fit(
+            List.of(
+                stat("v", 4, false, 3, 6_000),
+                stat("v", 10, false, 1, 12_000),
+                stat("v", 4, true, 2, 11_000),
+                stat("h", 2, false, 5, 20_000)
+            ),
+            DEFAULT_COST
+        );
+
+        assertThat(model.predict("v", 20, false)).isEqualTo(Duration.ofSeconds(22));
+        assertThat(model.predict("v", 20, true)).isEqualTo(Duration.ofSeconds(27));
+        // a single image count cannot separate the fixed cost: all of it is charged per image
+        assertThat(model.predict("h", 4, false)).isEqualTo(Duration.ofSeconds(40));
+    }
+
+    @Test
+    void fallsBackToAllFormatsAndThenToTheDefaultCost() {
+        RenderCostModel.Model model = RenderCostModel.fit(
+            List.of(stat("v", 5, false, 1, 10_000), stat("v", 10, false, 1, 20_000)),
+            DEFAULT_COST
+        );
+
+        assertThat(model.predict("c", 15, false)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(model.predict(null, 15, false)).isEqualTo(Duration.ofSeconds(30));
+        // the image count is unknown for jobs enqueued before it was recorded
+        assertThat(model.predict("v", null, false)).isEqualTo(Duration.ofSeconds(15));
+        assertThat(RenderCostModel.fit(List.of(), DEFAULT_COST).predict("v", 15, false)).isEqualTo(DEFAULT_COST);
+    }
+
+    @Test
+    void recordsRenderTimesInTheStatsTable() {
+        RenderStatRepository renderStatRepository = mock(RenderStatRepository.class);
+        when(renderStatRepository.record(anyString(), anyInt(), anyBoolean(), anyDouble(), eq(null), anyDouble())).thenReturn(
+            Mono.just(1L)
+        );
+        when(renderStatRepository.findAll()).thenReturn(Flux.empty());
+        RenderCostModel renderCostModel = new RenderCostModel(renderStatRepository, new ApplicationProperties());
+
+        renderCostModel.record(null, 6, false, null, Duration.ofSeconds(3)).block(Duration.ofSeconds(5));
+        renderCostModel.record("v", 0, false, null, Duration.ofSeconds(3)).block(Duration.ofSeconds(5));
+
+        verify(renderStatRepository).record(RenderCostModel.UNKNOWN_FORMAT, 6, false, 3000.0, null, 0.1);
+        verify(renderStatRepository, never()).record(eq("v"), anyInt(), anyBoolean(), anyDouble(), eq(null), anyDouble());
+        assertThat(renderCostModel.model().block(Duration.ofSeconds(5)).predict("v", 6, false)).isEqualTo(DEFAULT_COST);
+    }
+
+    @Test
+    void agingLetsLongWaitingJobsOvertakeShorterOnes() {
+        RenderCostModel.Model model = RenderCostModel.fit(
+            List.of(stat("v", 1, false, 1, 1_000), stat("v", 2, false, 1, 2_000)),
+            DEFAULT_COST
+        );
+        Instant now = Instant.parse("2026-10-18T12:00:00Z");
+        RenderJob longAndOld = new RenderJob().id(1L).formato("v").imageCount(100).availableAt(now.minusSeconds(300));
+        RenderJob shortAndNew = new RenderJob().id(2L).formato("v").imageCount(10).availableAt(now);
+
+        assertThat(RenderJobQueue.prioritize(List.of(longAndOld, shortAndNew), model, Policy.SEJF, 1.0, now)).containsExactly(
+            shortAndNew,
+            longAndOld
+        );
+        // 300 s waited outweigh 90 s of extra render time
+        assertThat(RenderJobQueue.prioritize(List.of(shortAndNew, longAndOld), model, Policy.AGING, 1.0, now)).containsExactly(
+            longAndOld,
+            shortAndNew
+        );
+        assertThat(RenderJobQueue.prioritize(List.of(longAndOld, shortAndNew), model, Policy.FIFO, 1.0, now)).containsExactly(
+            longAndOld,
+            shortAndNew
+        );
+        assertThat(longAndOld.getExpectedCost()).isEqualTo(Duration.ofSeconds(100));
+    }
+
+    @Test
+    void simulateRecordedJobMix() throws IOException {
+        List<ReplayedJob> mix = readJobMix();
+        RenderCostModel.Model model = RenderCostModel.fit(stats(mix), DEFAULT_COST);
+
+        SimulationResult fifo = simulate(mix, model, Policy.FIFO);
+        SimulationResult sejf = simulate(mix, model, Policy.SEJF);
+        SimulationResult aging = simulate(mix, model, Policy.AGING);
+
+        LOG.info("{} renders on {} renderers, turnaround in seconds:", mix.size(), RENDERERS);
+        LOG.info("FIFO:  mean={} p95={} max={}", fifo.mean(), fifo.p95(), fifo.max());
+        LOG.info("SEJF:  mean={} p95={} max={}", sejf.mean(), sejf.p95(), sejf.max());
+        LOG.info("AGING: mean={} p95={} max={}", aging.mean(), aging.p95(), aging.max());
+
+        // short renders no longer queue behind long ones...
+        assertThat(sejf.mean() * 5).isLessThan(fifo.mean() * 4);
+        assertThat(aging.mean()).isLessThan(fifo.mean());
+        // ...while aging bounds how long the longest ones wait
+        assertThat(aging.max()).isLessThanOrEqualTo(sejf.max());
+        // the model fitted on the aggregated buckets predicts the mix closely
+        double predicted = mix
+            .stream()
+            .mapToDouble(job -> model.predict(job.formato(), job.images(), job.audio()).toMillis() / 1000.0)
+            .sum();
+        double actual = mix.stream().mapToDouble(ReplayedJob::renderSeconds).sum();
+        assertThat(predicted).isCloseTo(actual, within(actual * 0.05));
+    }
+
+    /**
+     * Replays the mix on {@value #RENDERERS} renderers: each time one is free, the pending renders
+     * are ordered by {@link RenderJobQueue#prioritize} and the first one runs for its recorded time.
+     */
+    private static SimulationResult simulate(List<ReplayedJob> mix, RenderCostModel.Model model, Policy policy) {
+        List<RenderJob> pending = new ArrayList<>();
+        PriorityQueue<Double> running = new PriorityQueue<>();
+        List<Double> turnarounds = new ArrayList<>();
+        double now = 0;
+        int next = 0;
+        while (next < mix.size() || !pending.isEmpty() || !running.isEmpty()) {
+            double nextArrival = next < mix.size() ? mix.get(next).arrival() : Double.MAX_VALUE;
+            double nextCompletion = running.isEmpty() ? Double.MAX_VALUE : running.peek();
+            now = Math.min(nextArrival, nextCompletion);
+            while (next < mix.size() && mix.get(next).arrival() <= now) {
+                ReplayedJob job = mix.get(next);
+                pending.add(
+                    new RenderJob()
+                        .id((long) next++)
+                        .formato(job.formato())
+                        .imageCount(job.images())
+                        .hasAudio(job.audio())
+                        .availableAt(instant(job.arrival()))
+                );
+            }
+            while (!running.isEmpty() && running.peek() <= now) {
+                running.poll();
+            }
+            while (running.size() < RENDERERS && !pending.isEmpty()) {
+                RenderJob selected = RenderJobQueue.prioritize(pending, model, policy, 1.0, instant(now)).get(0);
+                pending.remove(selected);
+                ReplayedJob job = mix.get(selected.getId().intValue());
+                running.add(now + job.renderSeconds());
+                turnarounds.add(now + job.renderSeconds() - job.arrival());
+            }
+        }
+        List<Double> sorted = turnarounds.stream().sorted().toList();
+        return new SimulationResult(
+            Math.round(sorted.stream().mapToDouble(Double::doubleValue).average().orElse(0)),
+            Math.round(sorted.get((int) Math.ceil(0.95 * sorted.size()) - 1)),
+            Math.round(sorted.get(sorted.size() - 1))
+        );
+    }
+
+    /**
+     * Aggregates the mix the way {@code render_stat} does, one bucket per format, image count and audio.
+     */
+    private static List<RenderStat> stats(List<ReplayedJob> mix) {
+        Map<List<Object>, List<ReplayedJob>> buckets = mix
+            .stream()
+            .collect(Collectors.groupingBy(job -> List.of(job.formato(), job.images(), job.audio())));
+        return buckets
+            .values()
+            .stream()
+            .map(jobs -> {
+                ReplayedJob first = jobs.get(0);
+                double meanMillis = jobs.stream().mapToDouble(ReplayedJob::renderSeconds).average().orElseThrow() * 1000;
+                return stat(first.formato(), first.images(), first.audio(), jobs.size(), meanMillis);
+            })
+            .toList();
+    }
+
+    private static List<ReplayedJob> readJobMix() throws IOException {
+        List<ReplayedJob> mix = new ArrayList<>();
+        try (
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(RenderCostModelTest.class.getResourceAsStream("/render/job-mix.csv"), StandardCharsets.UTF_8)
+            )
+        ) {
+            reader
+                .lines()
+                .filter(line -> !line.isBlank() && !line.startsWith("#") && !line.startsWith("arrival_seconds"))
+                .map(line -> line.split(","))
+                .forEach(fields ->
+                    mix.add(
+                        new ReplayedJob(
+                            Double.parseDouble(fields[0]),
+                            fields[1],
+                            Integer.parseInt(fields[2]),
+                            Boolean.parseBoolean(fields[3]),
+                            Double.parseDouble(fields[4])
+                        )
+                    )
+                );
+        }
+        mix.sort(Comparator.comparingDouble(ReplayedJob::arrival));
+        return mix;
+    }
+
+    private static RenderStat stat(String formato, int images, boolean audio, long samples, double meanRenderMillis) {
+        return new RenderStat().formato(formato).images(images).hasAudio(audio).samples(samples).meanRenderMillis(meanRenderMillis);
+    }
+
+    private static Instant instant(double seconds) {
+        return Instant.EPOCH.plusMillis(Math.round(seconds * 1000));
+    }
+
+    private record ReplayedJob(double arrival, String formato, int images, boolean audio, double renderSeconds) {}
+
+    private record SimulationResult(long mean, long p95, long max) {}
+}
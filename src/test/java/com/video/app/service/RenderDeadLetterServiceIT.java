@@ -0,0 +1,138 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.video.app.IntegrationTest;
+import com.video.app.config.Constants;
+import com.video.app.domain.RenderDeadLetter;
+import com.video.app.domain.User;
+import com.video.app.domain.Video;
+import com.video.app.domain.enumeration.DeadLetterStatus;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.repository.EntityManager;
+import com.video.app.repository.RenderDeadLetterRepository;
+import com.video.app.repository.RenderJobRepository;
+import com.video.app.repository.UserRepository;
+import com.video.app.repository.VideoRepository;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for {@link RenderDeadLetterService} and the queries of {@link RenderDeadLetterRepository}.
+ */
+@IntegrationTest
+class RenderDeadLetterServiceIT {
+
+    @Autowired
+    private RenderDeadLetterService renderDeadLetterService;
+
+    @Autowired
+    private RenderDeadLetterRepository renderDeadLetterRepository;
+
+    @Autowired
+    private RenderJobRepository renderJobRepository;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private User user;
+
+    @BeforeEach
+    void init() {
+        User newUser = new User();
+        newUser.setLogin("render-dead-letter-" + RandomStringUtils.insecure().nextAlphanumeric(5).toLowerCase());
+        newUser.setPassword(RandomStringUtils.insecure().nextAlphanumeric(60));
+        newUser.setActivated(true);
+        newUser.setEmail(newUser.getLogin() + "@localhost");
+        newUser.setLangKey("en");
+        newUser.setCreatedBy(Constants.SYSTEM);
+        user = em.insert(newUser).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        renderDeadLetterRepository.deleteAll().block();
+        renderJobRepository.deleteAll().block();
+        em.deleteAll(Video.class).block();
+        userRepository.deleteAllUserAuthorities().block();
+        userRepository.deleteAll().block();
+    }
+
+    @Test
+    void repeatedFailuresOfAVideoShareOneEntryWithTheirHistory() throws Exception {
+        Video video = createVideo();
+
+        renderDeadLetterService.record(video.getId(), new PythonCallException(503, "Service Unavailable"), true).block();
+        RenderDeadLetter deadLetter = renderDeadLetterService
+            .record(video.getId(), new PythonCallException(504, "Gateway Timeout"), true)
+            .block();
+
+        assertThat(renderDeadLetterRepository.count().block()).isEqualTo(1L);
+        assertThat(deadLetter.getUserId()).isEqualTo(user.getId());
+        assertThat(deadLetter.getFormato()).isEqualTo("mp4");
+        assertThat(deadLetter.getStatus()).isEqualTo(DeadLetterStatus.OPEN);
+        assertThat(deadLetter.getFailures()).isEqualTo(2);
+        assertThat(deadLetter.getHttpStatus()).isEqualTo(504);
+        JsonNode history = objectMapper.readTree(deadLetter.getHistory());
+        assertThat(history).hasSize(2);
+        assertThat(history.get(1).get("attempts").get(0).asText()).startsWith("PythonCallException(504)");
+    }
+
+    @Test
+    void onlyOneReplayClaimsAFailure() {
+        Video video = createVideo();
+        RenderDeadLetter deadLetter = renderDeadLetterService
+            .record(video.getId(), new PythonCallException(503, "Service Unavailable"), true)
+            .block();
+
+        assertThat(renderDeadLetterRepository.claimForReplay(deadLetter.getId()).blockOptional()).isPresent();
+        assertThat(renderDeadLetterRepository.claimForReplay(deadLetter.getId()).blockOptional()).isEmpty();
+        RenderDeadLetter replayed = renderDeadLetterRepository.findById(deadLetter.getId()).block();
+        assertThat(replayed.getStatus()).isEqualTo(DeadLetterStatus.REPLAYED);
+        assertThat(replayed.getReplays()).isEqualTo(1);
+    }
+
+    @Test
+    void replayFiltersByCauseAndTime() {
+        Video timedOut = createVideo();
+        Video rejected = createVideo();
+        Video gone = createVideo();
+        renderDeadLetterService.record(timedOut.getId(), new PythonCallException(504, "Gateway Timeout"), true).block();
+        renderDeadLetterService.record(rejected.getId(), new PythonCallException(400, "Bad Request"), true).block();
+        renderDeadLetterService.record(gone.getId(), new PythonCallException(504, "Gateway Timeout"), false).block();
+        Instant hourAgo = Instant.now().minus(1, ChronoUnit.HOURS);
+
+        assertThat(renderDeadLetterRepository.findReplayable("PythonCallException", 504, hourAgo, null, 10).collectList().block())
+            .extracting(RenderDeadLetter::getVideoId)
+            .containsExactly(timedOut.getId());
+        assertThat(renderDeadLetterRepository.findReplayable(null, null, null, null, 10).collectList().block()).hasSize(2);
+        assertThat(renderDeadLetterRepository.findReplayable(null, null, null, hourAgo, 10).collectList().block()).isEmpty();
+    }
+
+    private Video createVideo() {
+        Video video = new Video()
+            .titulo("render-dead-letter")
+            .tieneAudio(false)
+            .estado(EstadoVideo.ERROR)
+            .fechaCreacion(Instant.now())
+            .user(user);
+        video.setFormato("mp4");
+        return videoRepository.save(video).block();
+    }
+}
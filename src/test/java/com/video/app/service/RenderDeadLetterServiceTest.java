@@ -0,0 +1,232 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.RenderDeadLetter;
+import com.video.app.domain.RenderJob;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.repository.RenderDeadLetterRepository;
+import com.video.app.service.dto.DeadLetterReplayRequest;
+import com.video.app.service.dto.VideoDTO;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link RenderDeadLetterService}.
+ */
+class RenderDeadLetterServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RenderDeadLetterRepository renderDeadLetterRepository;
+
+    private RenderJobQueue renderJobQueue;
+
+    private VideoService videoService;
+
+    private FileStorageService fileStorageService;
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private final List<VideoStatusEvent> published = new CopyOnWriteArrayList<>();
+
+    private RenderDeadLetterService renderDeadLetterService;
+
+    @BeforeEach
+    void setup() {
+        renderDeadLetterRepository = mock(RenderDeadLetterRepository.class);
+        renderJobQueue = mock(RenderJobQueue.class);
+        videoService = mock(VideoService.class);
+        fileStorageService = mock(FileStorageService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getRender().getDeadLetter().setReplayRate(1000);
+        applicationProperties.getRender().getDeadLetter().setPurgeBatchSize(2);
+        VideoStatusBroadcaster videoStatusBroadcaster = new VideoStatusBroadcaster(meterRegistry);
+        videoStatusBroadcaster.changes().subscribe(published::add);
+        renderDeadLetterService = new RenderDeadLetterService(
+            renderDeadLetterRepository,
+            renderJobQueue,
+            videoService,
+            fileStorageService,
+            videoStatusBroadcaster,
+            objectMapper,
+            applicationProperties,
+            meterRegistry
+        );
+
+        when(renderDeadLetterRepository.record(any(), any(), any(), any(), any(), anyBoolean())).thenAnswer(invocation ->
+            Mono.just(
+                new RenderDeadLetter()
+                    .videoId(invocation.getArgument(0))
+                    .errorType(invocation.getArgument(1))
+                    .httpStatus(invocation.getArgument(2))
+                    .history(invocation.getArgument(4))
+                    .failures(1)
+            )
+        );
+        when(renderDeadLetterRepository.claimForReplay(any())).thenAnswer(invocation ->
+            Mono.just(new RenderDeadLetter().id(invocation.getArgument(0)).videoId(invocation.getArgument(0)))
+        );
+        when(videoService.findOne(any())).thenAnswer(invocation -> Mono.just(video(invocation.getArgument(0), EstadoVideo.ERROR)));
+        when(videoService.update(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(renderJobQueue.requeue(any())).thenAnswer(invocation -> Mono.just(new RenderJob().videoId(invocation.getArgument(0))));
+        when(fileStorageService.cleanupFiles(any())).thenReturn(Mono.empty());
+        when(renderDeadLetterRepository.markFilesPurged(any())).thenReturn(Mono.just(1L));
+        when(renderDeadLetterRepository.deleteReplayedBefore(anyLong())).thenReturn(Mono.just(0L));
+    }
+
+    @Test
+    void recordsTheErrorOfEveryPythonAttempt() throws Exception {
+        PythonCallException error = new PythonCallException(504, "Gateway Timeout");
+        error.addSuppressed(new PythonCallException(503, "Service Unavailable"));
+
+        renderDeadLetterService.record(1L, error, true).block(TIMEOUT);
+
+        ArgumentCaptor<String> history = ArgumentCaptor.forClass(String.class);
+        verify(renderDeadLetterRepository).record(
+            eq(1L),
+            eq("PythonCallException"),
+            eq(504),
+            eq("Gateway Timeout"),
+            history.capture(),
+            eq(false)
+        );
+        JsonNode failures = objectMapper.readTree(history.getValue());
+        assertThat(failures).hasSize(1);
+        assertThat(failures.get(0).get("attempts"))
+            .extracting(JsonNode::asText)
+            .containsExactly("PythonCallException(503): Service Unavailable", "PythonCallException(504): Gateway Timeout");
+        assertThat(
+            meterRegistry.get(RenderDeadLetterService.DEAD_LETTERED_METER_NAME).tag("error_type", "PythonCallException").counter().count()
+        ).isEqualTo(1);
+    }
+
+    @Test
+    void replaysAFailedVideoThroughTheRenderQueue() {
+        assertThat(renderDeadLetterService.replayOne(1L).block(TIMEOUT)).isTrue();
+
+        ArgumentCaptor<VideoDTO> updated = ArgumentCaptor.forClass(VideoDTO.class);
+        verify(videoService).update(updated.capture());
+        assertThat(updated.getValue().getEstado()).isEqualTo(EstadoVideo.EN_PROCESO);
+        verify(renderJobQueue).requeue(1L);
+        assertThat(published).containsExactly(new VideoStatusEvent(1L, EstadoVideo.EN_PROCESO, null));
+        assertThat(meterRegistry.get(RenderDeadLetterService.REPLAYED_METER_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotReplayAVideoThatIsNoLongerFailed() {
+        when(videoService.findOne(1L)).thenReturn(Mono.just(video(1L, EstadoVideo.COMPLETADO)));
+
+        assertThat(renderDeadLetterService.replayOne(1L).block(TIMEOUT)).isFalse();
+
+        verify(videoService, never()).update(any());
+        verify(renderJobQueue, never()).requeue(any());
+    }
+
+    @Test
+    void doesNotReplayAFailureAlreadyClaimed() {
+        when(renderDeadLetterRepository.claimForReplay(1L)).thenReturn(Mono.empty());
+
+        assertThat(renderDeadLetterService.replayOne(1L).block(TIMEOUT)).isFalse();
+
+        verify(renderJobQueue, never()).requeue(any());
+    }
+
+    @Test
+    void replaysEveryMatchingFailureInTheBackground() {
+        when(renderDeadLetterRepository.findReplayable(any(), any(), any(), any(), anyInt())).thenReturn(
+            Flux.just(new RenderDeadLetter().id(1L), new RenderDeadLetter().id(2L))
+        );
+
+        RenderDeadLetterService.Replay replay = renderDeadLetterService
+            .replay(new DeadLetterReplayRequest("PythonCallException", 504, null, null, null))
+            .block(TIMEOUT);
+
+        assertThat(replay.scheduled()).isEqualTo(2);
+        assertThat(replay.estimatedDuration()).isEqualTo(Duration.ofMillis(2));
+        verify(renderDeadLetterRepository).findReplayable(eq("PythonCallException"), eq(504), eq(null), eq(null), eq(10000));
+        verify(renderJobQueue, timeout(TIMEOUT.toMillis())).requeue(2L);
+        verify(renderJobQueue).requeue(1L);
+    }
+
+    @Test
+    void rejectsASecondReplayWhileOneIsRunning() {
+        applicationProperties.getRender().getDeadLetter().setReplayRate(1);
+        RenderDeadLetterService slow = new RenderDeadLetterService(
+            renderDeadLetterRepository,
+            renderJobQueue,
+            videoService,
+            fileStorageService,
+            new VideoStatusBroadcaster(meterRegistry),
+            objectMapper,
+            applicationProperties,
+            meterRegistry
+        );
+        when(renderDeadLetterRepository.findReplayable(any(), any(), any(), any(), anyInt())).thenReturn(
+            Flux.just(new RenderDeadLetter().id(1L), new RenderDeadLetter().id(2L))
+        );
+        DeadLetterReplayRequest all = new DeadLetterReplayRequest(null, null, null, null, null);
+
+        try {
+            assertThat(slow.replay(all).blockOptional(TIMEOUT)).isPresent();
+            assertThat(slow.replay(all).blockOptional(TIMEOUT)).isEmpty();
+        } finally {
+            slow.stop();
+        }
+    }
+
+    @Test
+    void purgesTheFilesOfExpiredFailuresBatchByBatch() {
+        when(renderDeadLetterRepository.findExpired(anyLong(), eq(2))).thenReturn(
+            Flux.just(deadLetter(1L), deadLetter(2L)),
+            Flux.just(deadLetter(3L))
+        );
+        // another node purged it first
+        when(renderDeadLetterRepository.markFilesPurged(2L)).thenReturn(Mono.just(0L));
+
+        assertThat(renderDeadLetterService.purge().block(TIMEOUT)).isEqualTo(2);
+
+        verify(fileStorageService).cleanupFiles("1");
+        verify(fileStorageService, never()).cleanupFiles("2");
+        verify(fileStorageService).cleanupFiles("3");
+        verify(renderDeadLetterRepository).deleteReplayedBefore(Duration.ofDays(7).toSeconds());
+    }
+
+    private static RenderDeadLetter deadLetter(Long id) {
+        return new RenderDeadLetter().id(id).videoId(id);
+    }
+
+    private static VideoDTO video(Long id, EstadoVideo estado) {
+        VideoDTO video = new VideoDTO();
+        video.setId(id);
+        video.setEstado(estado);
+        return video;
+    }
+}
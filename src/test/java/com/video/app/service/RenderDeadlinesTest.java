@@ -0,0 +1,99 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.video.app.config.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link RenderDeadlines}.
+ */
+class RenderDeadlinesTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RenderDeadlines renderDeadlines;
+
+    @BeforeEach
+    void setup() {
+        applicationProperties = new ApplicationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        renderDeadlines = new RenderDeadlines(applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void scalesWithImagesAndTransitionsWithoutAudio() {
+        // 20 s + 10 × 2 s + 10 × 3 s of video
+        RenderDeadlines.Deadline deadline = renderDeadlines.forRender(10, false, 3, null);
+
+        assertThat(deadline.expected()).isEqualTo(Duration.ofSeconds(70));
+        assertThat(deadline.limit()).isEqualTo(Duration.ofSeconds(210));
+        assertThat(renderDeadlines.forRender(10, false, null, null)).isEqualTo(deadline);
+    }
+
+    @Test
+    void scalesWithTheAudioLength() {
+        // 20 s + 10 × 2 s + 100 s of video
+        RenderDeadlines.Deadline deadline = renderDeadlines.forRender(10, true, null, 100.0);
+
+        assertThat(deadline.expected()).isEqualTo(Duration.ofSeconds(140));
+        assertThat(deadline.limit()).isEqualTo(Duration.ofSeconds(420));
+    }
+
+    @Test
+    void clampsTheLimitBetweenMinAndMax() {
+        applicationProperties.getRender().getDeadline().setBase(Duration.ofSeconds(1));
+
+        RenderDeadlines.Deadline small = renderDeadlines.forRender(1, false, 1, null);
+        RenderDeadlines.Deadline large = renderDeadlines.forRender(10, true, null, 2_000.0);
+
+        assertThat(small.expected()).isEqualTo(Duration.ofSeconds(4));
+        assertThat(small.limit()).isEqualTo(Duration.ofMinutes(1));
+        assertThat(large.limit()).isEqualTo(Duration.ofHours(1));
+        assertThat(large.expected()).isEqualTo(Duration.ofSeconds(2_021));
+    }
+
+    @Test
+    void givesTheMaxToAudioOfUnknownLength() {
+        RenderDeadlines.Deadline deadline = renderDeadlines.forRender(3, true, null, null);
+
+        assertThat(deadline.expected()).isEqualTo(Duration.ofHours(1));
+        assertThat(deadline.limit()).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    void countsOutcomesPerSize() {
+        RenderDeadlines.Deadline small = renderDeadlines.forRender(3, false, 3, null);
+        RenderDeadlines.Deadline large = renderDeadlines.forRender(60, false, 3, null);
+
+        renderDeadlines.record(small, Duration.ofSeconds(10), null);
+        renderDeadlines.record(small, small.expected().plusSeconds(1), null);
+        renderDeadlines.record(large, large.limit(), new TimeoutException());
+        renderDeadlines.record(large, Duration.ofSeconds(1), new IllegalStateException("Python caído"));
+
+        assertThat(outcomes("within", "1-5")).isEqualTo(1);
+        assertThat(outcomes("overrun", "1-5")).isEqualTo(1);
+        assertThat(outcomes("timeout", ">50")).isEqualTo(1);
+        assertThat(meterRegistry.find(RenderDeadlines.OUTCOME_METER_NAME).tag("size", ">50").counters()).hasSize(1);
+        assertThat(meterRegistry.get(RenderDeadlines.USAGE_METER_NAME).tag("size", ">50").summary().max()).isEqualTo(1.0);
+    }
+
+    @Test
+    void bucketsRendersBySize() {
+        assertThat(RenderDeadlines.sizeTag(RenderDeadlines.size(1))).isEqualTo("1-5");
+        assertThat(RenderDeadlines.sizeTag(RenderDeadlines.size(5))).isEqualTo("1-5");
+        assertThat(RenderDeadlines.sizeTag(RenderDeadlines.size(6))).isEqualTo("6-20");
+        assertThat(RenderDeadlines.sizeTag(RenderDeadlines.size(50))).isEqualTo("21-50");
+        assertThat(RenderDeadlines.sizeTag(RenderDeadlines.size(51))).isEqualTo(">50");
+    }
+
+    private double outcomes(String outcome, String size) {
+        return meterRegistry.get(RenderDeadlines.OUTCOME_METER_NAME).tag("outcome", outcome).tag("size", size).counter().count();
+    }
+}
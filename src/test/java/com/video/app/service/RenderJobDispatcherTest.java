@@ -0,0 +1,115 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.RenderJob;
+import com.video.app.domain.enumeration.RenderJobStatus;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for the shutdown drain of {@link RenderJobDispatcher}.
+ */
+class RenderJobDispatcherTest {
+
+    private static final Duration RENDER_TIME = Duration.ofMillis(300);
+
+    private RenderJobQueue renderJobQueue;
+
+    private VideoProcessingService videoProcessingService;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private ApplicationProperties applicationProperties;
+
+    private RenderJobDispatcher renderJobDispatcher;
+
+    @BeforeEach
+    void setup() {
+        renderJobQueue = mock(RenderJobQueue.class);
+        videoProcessingService = mock(VideoProcessingService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getRender().getQueue().setPollInterval(Duration.ofMillis(50));
+        renderJobDispatcher = new RenderJobDispatcher(renderJobQueue, videoProcessingService, applicationProperties, eventPublisher);
+
+        RenderJob job = new RenderJob().videoId(1L).status(RenderJobStatus.LEASED);
+        job.setId(10L);
+        when(renderJobQueue.lease(anyInt())).thenReturn(Flux.just(job), Flux.empty());
+        when(renderJobQueue.complete(any())).thenReturn(Mono.just(true));
+        when(renderJobQueue.handOver(any())).thenReturn(Mono.just(true));
+        when(renderJobQueue.heartbeat()).thenReturn(Mono.just(1L));
+    }
+
+    @Test
+    void drainWaitsForInFlightRendersToFinish() throws InterruptedException {
+        rendersTaking(Mono.delay(RENDER_TIME).thenReturn(true));
+        renderJobDispatcher.start();
+        waitForLease();
+
+        assertThat(stopAndWait()).isTrue();
+
+        verify(renderJobQueue).complete(any());
+        verify(renderJobQueue, never()).handOver(any());
+        verify(eventPublisher).publishEvent(
+            ArgumentMatchers.<AvailabilityChangeEvent<?>>argThat(event -> event.getState() == ReadinessState.REFUSING_TRAFFIC)
+        );
+        assertThat(renderJobDispatcher.isRunning()).isFalse();
+        // a drained node takes no more jobs
+        clearInvocations(renderJobQueue);
+        renderJobDispatcher.poll().block(Duration.ofSeconds(1));
+        verify(renderJobQueue, never()).lease(anyInt());
+    }
+
+    @Test
+    void drainHandsOverRendersThatOutliveTheDeadline() throws InterruptedException {
+        applicationProperties.getRender().getQueue().setDrainTimeout(RENDER_TIME);
+        rendersTaking(Mono.never());
+        renderJobDispatcher.start();
+        waitForLease();
+
+        assertThat(stopAndWait()).isTrue();
+
+        verify(renderJobQueue).handOver(any());
+        verify(renderJobQueue, never()).complete(any());
+        assertThat(renderJobDispatcher.getInFlight()).isZero();
+    }
+
+    private void rendersTaking(Mono<Boolean> render) {
+        when(videoProcessingService.processAll(any())).thenAnswer(invocation -> {
+            Flux<Long> videoIds = invocation.getArgument(0);
+            return videoIds.flatMap(videoId -> render.map(completed -> new VideoProcessingService.RenderOutcome(videoId, completed)));
+        });
+    }
+
+    private void waitForLease() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (renderJobDispatcher.getInFlight() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(renderJobDispatcher.getInFlight()).isEqualTo(1);
+    }
+
+    private boolean stopAndWait() throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        renderJobDispatcher.stop(stopped::countDown);
+        return stopped.await(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,359 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.video.app.IntegrationTest;
+import com.video.app.config.ApplicationProperties;
+import com.video.app.config.Constants;
+import com.video.app.domain.RenderJob;
+import com.video.app.domain.RenderStat;
+import com.video.app.domain.User;
+import com.video.app.domain.Video;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.domain.enumeration.RenderJobStatus;
+import com.video.app.repository.EntityManager;
+import com.video.app.repository.RenderJobRepository;
+import com.video.app.repository.RenderStatRepository;
+import com.video.app.repository.UserRepository;
+import com.video.app.repository.VideoRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for {@link RenderJobQueue}, including a throughput comparison against
+ * the former in-memory {@code videoTaskExecutor} (core 5, max 10, queue 100).
+ */
+@IntegrationTest
+class RenderJobQueueIT {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RenderJobQueueIT.class);
+
+    private static final int BENCHMARK_JOBS = 1000;
+
+    private static final int BENCHMARK_CONSUMERS = 4;
+
+    private static final int BENCHMARK_BATCH = 25;
+
+    @Autowired
+    private RenderJobQueue renderJobQueue;
+
+    @Autowired
+    private RenderJobRepository renderJobRepository;
+
+    @Autowired
+    private RenderStatRepository renderStatRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private User user;
+
+    @BeforeEach
+    void init() {
+        User newUser = new User();
+        newUser.setLogin("render-job-queue-" + RandomStringUtils.insecure().nextAlphanumeric(5).toLowerCase());
+        newUser.setPassword(RandomStringUtils.insecure().nextAlphanumeric(60));
+        newUser.setActivated(true);
+        newUser.setEmail(newUser.getLogin() + "@localhost");
+        newUser.setLangKey("en");
+        newUser.setCreatedBy(Constants.SYSTEM);
+        user = em.insert(newUser).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        renderJobRepository.deleteAll().block();
+        renderStatRepository.deleteAll().block();
+        em.deleteAll(Video.class).block();
+        userRepository.deleteAllUserAuthorities().block();
+        userRepository.deleteAll().block();
+    }
+
+    @Test
+    void enqueueIsIdempotentWhileJobIsActive() {
+        Video video = createVideos(1).get(0);
+
+        RenderJob job = renderJobQueue.enqueue(video.getId()).block();
+        assertThat(job).isNotNull();
+        assertThat(job.getStatus()).isEqualTo(RenderJobStatus.PENDING);
+
+        assertThat(renderJobQueue.enqueue(video.getId()).blockOptional()).isEmpty();
+        assertThat(renderJobRepository.count().block()).isEqualTo(1L);
+    }
+
+    @Test
+    void leasedJobIsInvisibleUntilReleased() {
+        Video video = createVideos(1).get(0);
+        renderJobQueue.enqueue(video.getId()).block();
+
+        List<RenderJob> leased = renderJobQueue.lease(10).collectList().block();
+        assertThat(leased).hasSize(1);
+        assertThat(leased.get(0).getStatus()).isEqualTo(RenderJobStatus.LEASED);
+        assertThat(leased.get(0).getLeaseOwner()).isEqualTo(renderJobQueue.getNodeId());
+        assertThat(leased.get(0).getAttempts()).isEqualTo(1);
+
+        assertThat(renderJobQueue.lease(10).collectList().block()).isEmpty();
+
+        assertThat(renderJobQueue.release(leased.get(0), Duration.ZERO).block()).isTrue();
+        List<RenderJob> again = renderJobQueue.lease(10).collectList().block();
+        assertThat(again).hasSize(1);
+        assertThat(again.get(0).getAttempts()).isEqualTo(2);
+
+        assertThat(renderJobQueue.complete(again.get(0)).block()).isTrue();
+        assertThat(renderJobRepository.findByVideoId(video.getId()).block().getStatus()).isEqualTo(RenderJobStatus.DONE);
+        assertThat(renderJobQueue.enqueue(video.getId()).block()).isNotNull();
+    }
+
+    @Test
+    void handedOverJobIsAvailableAtOnceWithoutSpendingAnAttempt() {
+        Video video = createVideos(1).get(0);
+        renderJobQueue.enqueue(video.getId()).block();
+        RenderJob leased = renderJobQueue.lease(1).blockFirst();
+        assertThat(leased.getAttempts()).isEqualTo(1);
+
+        assertThat(renderJobQueue.handOver(leased).block()).isTrue();
+
+        RenderJob again = renderJobQueue.lease(1).blockFirst();
+        assertThat(again).isNotNull();
+        assertThat(again.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredLeaseIsOnlyClaimedByRecovery() {
+        Video video = createVideos(1).get(0);
+        renderJobQueue.enqueue(video.getId()).block();
+        RenderJob leased = renderJobQueue.lease(1).blockFirst();
+        leased.setLeaseExpiresAt(Instant.now().minus(Duration.ofMinutes(1)));
+        renderJobRepository.save(leased).block();
+
+        assertThat(renderJobQueue.lease(10).collectList().block()).isEmpty();
+
+        List<RenderJob> claimed = renderJobQueue.claimExpired(10).collectList().block();
+        assertThat(claimed).hasSize(1);
+        assertThat(claimed.get(0).getAttempts()).isEqualTo(1);
+        assertThat(claimed.get(0).getLeaseExpiresAt()).isAfter(Instant.now());
+        assertThat(renderJobQueue.claimExpired(10).collectList().block()).isEmpty();
+        assertThat(renderJobQueue.release(claimed.get(0), Duration.ZERO).block()).isTrue();
+    }
+
+    @Test
+    void cancelledJobIsNeitherLeasedNorFinishedByItsRenderer() {
+        List<Long> ids = createVideos(2).stream().map(Video::getId).sorted().toList();
+        renderJobQueue.enqueue(ids.get(0)).block();
+        renderJobQueue.enqueue(ids.get(1)).block();
+        RenderJob leased = renderJobQueue.lease(1).blockFirst();
+        Long pendingId = leased.getVideoId().equals(ids.get(0)) ? ids.get(1) : ids.get(0);
+
+        RenderJob cancelledPending = renderJobQueue.cancel(pendingId).block();
+        RenderJob cancelledLeased = renderJobQueue.cancel(leased.getVideoId()).block();
+
+        assertThat(cancelledPending.getStatus()).isEqualTo(RenderJobStatus.CANCELLED);
+        assertThat(cancelledPending.getLeaseOwner()).isNull();
+        // the owner is kept: it is the node that has to stop the render
+        assertThat(cancelledLeased.getLeaseOwner()).isEqualTo(renderJobQueue.getNodeId());
+        assertThat(renderJobQueue.lease(10).collectList().block()).isEmpty();
+        assertThat(renderJobQueue.complete(leased).block()).isFalse();
+        assertThat(renderJobRepository.findByVideoId(leased.getVideoId()).block().getStatus()).isEqualTo(RenderJobStatus.CANCELLED);
+        assertThat(renderJobQueue.cancel(pendingId).blockOptional()).isEmpty();
+        // a cancelled video can be rendered again
+        assertThat(renderJobQueue.enqueue(pendingId).block().getStatus()).isEqualTo(RenderJobStatus.PENDING);
+    }
+
+    @Test
+    void requeueKeepsTheWeightOfThePreviousJob() {
+        List<Long> ids = createVideos(2).stream().map(Video::getId).sorted().toList();
+        applicationProperties.getRender().getFairness().getWeights().put("ROLE_PREMIUM", 3);
+        try {
+            renderJobQueue.enqueue(ids.get(0), List.of("ROLE_PREMIUM"), null).block();
+        } finally {
+            applicationProperties.getRender().getFairness().getWeights().remove("ROLE_PREMIUM");
+        }
+        RenderJob leased = renderJobQueue.lease(1).blockFirst();
+        renderJobQueue.fail(leased, new IllegalStateException("Error 5xx en Python")).block();
+
+        assertThat(renderJobQueue.requeue(ids.get(0)).block().getWeight()).isEqualTo(3);
+        // a video that never went through the queue gets the default weight
+        assertThat(renderJobQueue.requeue(ids.get(1)).block().getWeight()).isEqualTo(1);
+    }
+
+    @Test
+    void findsInProgressVideosWithoutActiveJob() {
+        List<Long> ids = createVideos(3).stream().map(Video::getId).sorted().toList();
+        renderJobQueue.enqueue(ids.get(0)).block();
+
+        assertThat(renderJobQueue.findOrphanedVideoIds(0, Duration.ZERO, 10).collectList().block()).containsExactly(ids.get(1), ids.get(2));
+        assertThat(renderJobQueue.findOrphanedVideoIds(ids.get(1), Duration.ZERO, 10).collectList().block()).containsExactly(ids.get(2));
+        assertThat(renderJobQueue.findOrphanedVideoIds(0, Duration.ofHours(1), 10).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void fairLeaseServesOtherUsersDuringABurst() {
+        List<Video> burst = createVideos(20);
+        Flux.fromIterable(burst).concatMap(video -> renderJobQueue.enqueue(video.getId())).blockLast();
+        User other = user;
+        init();
+        List<Video> others = createVideos(2);
+        Flux.fromIterable(others).concatMap(video -> renderJobQueue.enqueue(video.getId())).blockLast();
+
+        List<RenderJob> leased = renderJobQueue.lease(4).collectList().block();
+
+        assertThat(leased).hasSize(4);
+        assertThat(leased).extracting(RenderJob::getUserId).containsOnly(other.getId(), user.getId());
+        assertThat(leased).filteredOn(job -> job.getUserId().equals(user.getId())).hasSize(2);
+    }
+
+    @Test
+    void shortestExpectedJobFirstLeasesTheCheapestRender() {
+        // one second per image, averaged per bucket in the database
+        renderStatRepository.record(RenderCostModel.UNKNOWN_FORMAT, 2, false, 1_000, null, 0.1).block();
+        renderStatRepository.record(RenderCostModel.UNKNOWN_FORMAT, 2, false, 3_000, null, 0.1).block();
+        renderStatRepository.record(RenderCostModel.UNKNOWN_FORMAT, 10, false, 10_000, 30.0, 0.1).block();
+        RenderStat stat = renderStatRepository.findAll().filter(found -> found.getImages() == 2).blockFirst();
+        assertThat(stat.getSamples()).isEqualTo(2);
+        assertThat(stat.getMeanRenderMillis()).isEqualTo(2_000);
+
+        List<Video> videos = createVideos(2);
+        renderJobQueue.enqueue(videos.get(0).getId(), List.of(), 60).block();
+        renderJobQueue.enqueue(videos.get(1).getId(), List.of(), 3).block();
+        applicationProperties.getRender().getScheduling().setPolicy(ApplicationProperties.Render.Scheduling.Policy.SEJF);
+        try {
+            RenderJob leased = renderJobQueue.lease(1).blockFirst();
+
+            assertThat(leased.getVideoId()).isEqualTo(videos.get(1).getId());
+            assertThat(leased.getImageCount()).isEqualTo(3);
+            assertThat(leased.getExpectedCost()).isEqualTo(Duration.ofSeconds(3));
+        } finally {
+            applicationProperties.getRender().getScheduling().setPolicy(ApplicationProperties.Render.Scheduling.Policy.FIFO);
+        }
+    }
+
+    @Test
+    void benchmarkDurableQueueAgainstInMemoryExecutor() throws InterruptedException {
+        List<Video> videos = createVideos(BENCHMARK_JOBS);
+
+        long enqueueStart = System.nanoTime();
+        Flux.fromIterable(videos).flatMap(video -> renderJobQueue.enqueue(video.getId()), 16).blockLast();
+        long enqueueNanos = System.nanoTime() - enqueueStart;
+
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        long drainStart = System.nanoTime();
+        Flux.range(0, BENCHMARK_CONSUMERS)
+            .flatMap(consumer -> drain(seen, duplicates))
+            .blockLast();
+        long drainNanos = System.nanoTime() - drainStart;
+
+        assertThat(duplicates.get()).isZero();
+        assertThat(seen).hasSize(BENCHMARK_JOBS);
+        assertThat(renderJobQueue.backlog().block()).isZero();
+
+        ExecutorResult executorResult = submitToLegacyExecutor();
+
+        LOG.info(
+            "render_job: {} jobs, enqueue {}/s, lease+complete {}/s with {} consumers; " +
+            "videoTaskExecutor: accepted {} rejected {} ({}/s)",
+            BENCHMARK_JOBS,
+            perSecond(BENCHMARK_JOBS, enqueueNanos),
+            perSecond(BENCHMARK_JOBS, drainNanos),
+            BENCHMARK_CONSUMERS,
+            executorResult.accepted(),
+            executorResult.rejected(),
+            perSecond(executorResult.accepted(), executorResult.nanos())
+        );
+        // the durable queue accepts the whole burst; the bounded in-memory executor sheds it
+        assertThat(executorResult.rejected()).isPositive();
+    }
+
+    private Mono<Void> drain(Set<Long> seen, AtomicInteger duplicates) {
+        return renderJobQueue
+            .lease(BENCHMARK_BATCH)
+            .concatMap(job -> {
+                if (!seen.add(job.getId())) {
+                    duplicates.incrementAndGet();
+                }
+                return renderJobQueue.complete(job);
+            })
+            .then(renderJobQueue.backlog())
+            .repeat()
+            .takeUntil(backlog -> backlog == 0)
+            .then();
+    }
+
+    private ExecutorResult submitToLegacyExecutor() throws InterruptedException {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(5);
+        executor.setMaxPoolSize(10);
+        executor.setQueueCapacity(100);
+        executor.initialize();
+        CountDownLatch done = new CountDownLatch(BENCHMARK_JOBS);
+        int rejected = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_JOBS; i++) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                rejected++;
+                done.countDown();
+            }
+        }
+        done.await(30, TimeUnit.SECONDS);
+        long nanos = System.nanoTime() - start;
+        executor.shutdown();
+        return new ExecutorResult(BENCHMARK_JOBS - rejected, rejected, nanos);
+    }
+
+    private List<Video> createVideos(int count) {
+        return Flux.range(0, count)
+            .map(i ->
+                new Video()
+                    .titulo("render-job-" + i)
+                    .tieneAudio(false)
+                    .estado(EstadoVideo.EN_PROCESO)
+                    .fechaCreacion(Instant.now())
+                    .user(user)
+            )
+            .flatMap(videoRepository::save, 16)
+            .collectList()
+            .block();
+    }
+
+    private static long perSecond(int count, long nanos) {
+        return nanos == 0 ? count : Math.round(count / (nanos / 1_000_000_000.0));
+    }
+
+    private record ExecutorResult(int accepted, int rejected, long nanos) {}
+}
@@ -0,0 +1,133 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.service.dto.RenderProgress;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link RenderProgressRegistry}.
+ */
+class RenderProgressRegistryTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final List<VideoStatusEvent> published = new CopyOnWriteArrayList<>();
+
+    private ApplicationProperties applicationProperties;
+
+    private RenderProgressRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getRender().getProgress().setSmoothing(0.5);
+        applicationProperties.getRender().getProgress().setPublishInterval(Duration.ofSeconds(2));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        VideoStatusBroadcaster videoStatusBroadcaster = new VideoStatusBroadcaster(meterRegistry);
+        videoStatusBroadcaster.changes().subscribe(published::add);
+        registry = new RenderProgressRegistry(applicationProperties, videoStatusBroadcaster, meterRegistry, now::get);
+    }
+
+    @Test
+    void estimatesFromInitialTimePerImageBeforeAnyRender() {
+        registry.start(1L, 4, true);
+
+        assertThat(registry.find(1L)).contains(new RenderProgress(RenderProgress.Stage.PREPARING, 0, 20, true));
+    }
+
+    @Test
+    void movingAverageOfRenderTimesDrivesTheEstimate() {
+        render(1L, 10, false, Duration.ofSeconds(40));
+        render(2L, 10, false, Duration.ofSeconds(60));
+
+        // 40 s, then halfway to 60 s
+        assertThat(registry.estimate(10, false)).isEqualTo(Duration.ofSeconds(50));
+        // unseen image counts scale the average time per image
+        assertThat(registry.estimate(20, false)).isEqualTo(Duration.ofSeconds(100));
+        // renders with audio are estimated on their own
+        assertThat(registry.estimate(10, true)).isEqualTo(Duration.ofSeconds(50));
+
+        registry.start(3L, 10, false);
+        registry.stage(3L, RenderProgress.Stage.RENDERING);
+        advance(Duration.ofSeconds(20));
+        assertThat(registry.find(3L)).contains(new RenderProgress(RenderProgress.Stage.RENDERING, 40, 30, true));
+    }
+
+    @Test
+    void etaFollowsThePaceReportedByPython() {
+        registry.start(1L, 10, false);
+        registry.stage(1L, RenderProgress.Stage.RENDERING);
+        advance(Duration.ofSeconds(30));
+        registry.report(1L, 25);
+        advance(Duration.ofSeconds(10));
+
+        // 25 % in 30 s leaves 90 s, 10 of them already gone
+        assertThat(registry.find(1L)).contains(new RenderProgress(RenderProgress.Stage.RENDERING, 25, 80, false));
+    }
+
+    @Test
+    void retryAfterIsBoundedByConfiguration() {
+        applicationProperties.getRender().getProgress().setMaxRetryAfter(Duration.ofSeconds(30));
+
+        assertThat(registry.retryAfter(new RenderProgress(RenderProgress.Stage.RENDERING, 10, 600, true))).isEqualTo(
+            Duration.ofSeconds(30)
+        );
+        assertThat(registry.retryAfter(new RenderProgress(RenderProgress.Stage.FINALIZING, 99, 0, false))).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void publishesEveryStageButThrottlesThePercentReportedByPython() {
+        registry.start(1L, 10, false);
+        registry.stage(1L, RenderProgress.Stage.RENDERING);
+        for (int percent = 10; percent <= 50; percent += 10) {
+            advance(Duration.ofSeconds(1));
+            registry.report(1L, percent);
+        }
+        registry.stage(1L, RenderProgress.Stage.FINALIZING);
+
+        // reports at 2 s and 4 s from the last publication get through; 1 s, 3 s and 5 s do not
+        assertThat(published)
+            .allSatisfy(event -> assertThat(event.estado()).isEqualTo(EstadoVideo.EN_PROCESO))
+            .extracting(event -> event.progress().stage(), event -> event.progress().percent())
+            .containsExactly(
+                tuple(RenderProgress.Stage.PREPARING, 0),
+                tuple(RenderProgress.Stage.RENDERING, 0),
+                tuple(RenderProgress.Stage.RENDERING, 20),
+                tuple(RenderProgress.Stage.RENDERING, 40),
+                tuple(RenderProgress.Stage.FINALIZING, 99)
+            );
+    }
+
+    @Test
+    void forgetsFinishedRenders() {
+        registry.start(1L, 1, false);
+
+        registry.finish(1L);
+
+        assertThat(registry.find(1L)).isEmpty();
+        assertThat(registry.getTracked()).isZero();
+    }
+
+    private void render(Long videoId, int images, boolean audio, Duration renderTime) {
+        registry.start(videoId, images, audio);
+        registry.stage(videoId, RenderProgress.Stage.RENDERING);
+        advance(renderTime);
+        registry.rendered(videoId, images);
+        registry.finish(videoId);
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,235 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.RenderDeadLetter;
+import com.video.app.domain.RenderJob;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.domain.enumeration.RenderJobStatus;
+import com.video.app.service.dto.VideoDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link RenderRecoveryService}.
+ */
+class RenderRecoveryServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private RenderJobQueue renderJobQueue;
+
+    private VideoService videoService;
+
+    private FileStorageService fileStorageService;
+
+    private RenderDeadLetterService renderDeadLetterService;
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private RenderRecoveryService renderRecoveryService;
+
+    @BeforeEach
+    void setup() {
+        renderJobQueue = mock(RenderJobQueue.class);
+        videoService = mock(VideoService.class);
+        fileStorageService = mock(FileStorageService.class);
+        renderDeadLetterService = mock(RenderDeadLetterService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getRender().getQueue().setMaxAttempts(3);
+        applicationProperties.getRender().getRecovery().setBatchSize(2);
+        renderRecoveryService = new RenderRecoveryService(
+            renderJobQueue,
+            videoService,
+            fileStorageService,
+            new VideoStatusBroadcaster(meterRegistry),
+            renderDeadLetterService,
+            applicationProperties,
+            meterRegistry
+        );
+
+        when(renderJobQueue.claimExpired(anyInt())).thenReturn(Flux.empty());
+        when(renderJobQueue.findOrphanedVideoIds(anyLong(), any(), anyInt())).thenReturn(Flux.empty());
+        when(renderJobQueue.findByVideoId(any())).thenReturn(Mono.empty());
+        when(renderJobQueue.release(any(), any())).thenReturn(Mono.just(true));
+        when(renderJobQueue.complete(any())).thenReturn(Mono.just(true));
+        when(renderJobQueue.fail(any(), any())).thenReturn(Mono.just(true));
+        when(renderJobQueue.requeue(any())).thenAnswer(invocation -> Mono.just(job(invocation.getArgument(0), 0)));
+        when(videoService.findOne(any())).thenAnswer(invocation -> Mono.just(video(invocation.getArgument(0))));
+        when(videoService.finishProcessing(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(fileStorageService.videoFilesExist(any())).thenReturn(Mono.just(true));
+        when(fileStorageService.publishOutput(any())).thenReturn(Mono.empty());
+        when(fileStorageService.findFinishedOutput(any(), any())).thenReturn(Mono.empty());
+        when(fileStorageService.cleanupFiles(any())).thenReturn(Mono.empty());
+        when(renderDeadLetterService.record(any(), any(), anyBoolean())).thenReturn(Mono.just(new RenderDeadLetter()));
+    }
+
+    @Test
+    void requeuesExpiredLeaseWithAttemptsLeft() {
+        RenderJob job = job(1L, 1);
+        when(renderJobQueue.claimExpired(anyInt())).thenReturn(Flux.just(job));
+
+        assertThat(renderRecoveryService.recover().block(TIMEOUT)).isEqualTo(1);
+
+        verify(renderJobQueue).release(job, Duration.ZERO);
+        verify(videoService, never()).finishProcessing(any());
+        assertThat(recovered(RenderRecoveryService.Outcome.REQUEUED)).isEqualTo(1);
+    }
+
+    @Test
+    void marksVideoAsErrorWhenAttemptsAreExhausted() {
+        RenderJob job = job(1L, 3);
+        when(renderJobQueue.claimExpired(anyInt())).thenReturn(Flux.just(job));
+
+        renderRecoveryService.recover().block(TIMEOUT);
+
+        verify(renderJobQueue).fail(eq(job), any());
+        assertThat(updatedVideo().getEstado()).isEqualTo(EstadoVideo.ERROR);
+        verify(renderDeadLetterService).record(eq(1L), any(IllegalStateException.class), eq(true));
+        verify(fileStorageService, never()).cleanupFiles(any());
+    }
+
+    @Test
+    void marksVideoAsErrorWhenItsFilesAreGone() {
+        when(renderJobQueue.claimExpired(anyInt())).thenReturn(Flux.just(job(1L, 1)));
+        when(fileStorageService.videoFilesExist(1L)).thenReturn(Mono.just(false));
+
+        renderRecoveryService.recover().block(TIMEOUT);
+
+        assertThat(updatedVideo().getEstado()).isEqualTo(EstadoVideo.ERROR);
+        verify(renderDeadLetterService).record(eq(1L), any(IllegalStateException.class), eq(false));
+        assertThat(recovered(RenderRecoveryService.Outcome.FAILED)).isEqualTo(1);
+    }
+
+    @Test
+    void reusesOutputThatPythonAlreadyFinished() {
+        RenderJob job = job(1L, 3);
+        Path output = Path.of("/app/shared-data/videos/1/output/video_1.mp4");
+        when(renderJobQueue.claimExpired(anyInt())).thenReturn(Flux.just(job));
+        when(fileStorageService.findFinishedOutput(eq(1L), any())).thenReturn(Mono.just(output));
+
+        renderRecoveryService.recover().block(TIMEOUT);
+
+        verify(renderJobQueue).complete(job);
+        VideoDTO video = updatedVideo();
+        assertThat(video.getEstado()).isEqualTo(EstadoVideo.COMPLETADO);
+        assertThat(video.getOutputFilename()).isEqualTo("video_1.mp4");
+    }
+
+    @Test
+    void closesJobOfVideoUpdatedBeforeTheCrash() {
+        RenderJob job = job(1L, 1);
+        VideoDTO completed = video(1L);
+        completed.setEstado(EstadoVideo.COMPLETADO);
+        when(renderJobQueue.claimExpired(anyInt())).thenReturn(Flux.just(job));
+        when(videoService.findOne(1L)).thenReturn(Mono.just(completed));
+
+        renderRecoveryService.recover().block(TIMEOUT);
+
+        verify(renderJobQueue).complete(job);
+        verify(videoService, never()).finishProcessing(any());
+    }
+
+    @Test
+    void enqueuesOrphanedVideosAndFailsThoseWithAFailedJob() {
+        RenderJob failed = job(2L, 3);
+        failed.setStatus(RenderJobStatus.FAILED);
+        when(renderJobQueue.findOrphanedVideoIds(eq(0L), any(), anyInt())).thenReturn(Flux.just(1L, 2L));
+        when(renderJobQueue.findByVideoId(2L)).thenReturn(Mono.just(failed));
+
+        renderRecoveryService.recover().block(TIMEOUT);
+
+        verify(renderJobQueue).requeue(1L);
+        verify(renderJobQueue, never()).requeue(2L);
+        VideoDTO video = updatedVideo();
+        assertThat(video.getId()).isEqualTo(2L);
+        assertThat(video.getEstado()).isEqualTo(EstadoVideo.ERROR);
+        // the cursor moves past the first full batch
+        verify(renderJobQueue).findOrphanedVideoIds(eq(2L), any(), anyInt());
+    }
+
+    @Test
+    void apiNodesLeaveRecoveryToTheWorkers() {
+        applicationProperties.setRole(ApplicationProperties.Role.API);
+        RenderRecoveryService apiNode = new RenderRecoveryService(
+            renderJobQueue,
+            videoService,
+            fileStorageService,
+            new VideoStatusBroadcaster(meterRegistry),
+            renderDeadLetterService,
+            applicationProperties,
+            new SimpleMeterRegistry()
+        );
+
+        apiNode.start();
+
+        assertThat(apiNode.isRunning()).isFalse();
+        verify(renderJobQueue, never()).claimExpired(anyInt());
+    }
+
+    @Test
+    void recoversLargeBacklogOneBatchAtATime() {
+        // 5 expired leases with batches of 2: 2 + 2 + 1
+        AtomicInteger claimed = new AtomicInteger();
+        when(renderJobQueue.claimExpired(2)).thenAnswer(invocation ->
+            Flux.defer(() -> {
+                int from = claimed.getAndAdd(2);
+                return Flux.fromStream(LongStream.range(from, Math.min(from + 2, 5)).mapToObj(id -> job(id + 1, 1)));
+            })
+        );
+
+        assertThat(renderRecoveryService.recover().block(TIMEOUT)).isEqualTo(5);
+
+        verify(renderJobQueue, times(3)).claimExpired(2);
+        verify(renderJobQueue, times(5)).release(any(), eq(Duration.ZERO));
+    }
+
+    private VideoDTO updatedVideo() {
+        ArgumentCaptor<VideoDTO> updated = ArgumentCaptor.forClass(VideoDTO.class);
+        verify(videoService).finishProcessing(updated.capture());
+        return updated.getValue();
+    }
+
+    private double recovered(RenderRecoveryService.Outcome outcome) {
+        return meterRegistry.get(RenderRecoveryService.RECOVERED_METER_NAME).tag("outcome", outcome.name().toLowerCase()).counter().count();
+    }
+
+    private static RenderJob job(Long videoId, int attempts) {
+        RenderJob job = new RenderJob();
+        job.setId(videoId * 10);
+        job.setVideoId(videoId);
+        job.setStatus(RenderJobStatus.LEASED);
+        job.setAttempts(attempts);
+        return job;
+    }
+
+    private static VideoDTO video(Long id) {
+        VideoDTO video = new VideoDTO();
+        video.setId(id);
+        video.setEstado(EstadoVideo.EN_PROCESO);
+        return video;
+    }
+}
@@ -0,0 +1,164 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.video.app.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Unit tests for {@link RenderResultCache}.
+ */
+class RenderResultCacheTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @TempDir
+    private Path tempDir;
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private RenderResultCache cache;
+
+    @BeforeEach
+    void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getRender().getCache().setDirectory(tempDir.resolve("cache").toString());
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RenderResultCache(applicationProperties, meterRegistry);
+    }
+
+    @Test
+    void keyDependsOnImageOrderAudioAndParameters() throws IOException {
+        Path images = images("a", "first", "second");
+        Path sameImages = images("b", "first", "second");
+        Path swapped = images("c", "second", "first");
+        Path audio = write(tempDir.resolve("audio.mp3"), "audio");
+
+        String key = key(images, audio, "16:9", 3);
+
+        assertThat(key(sameImages, audio, "16:9", 3)).isEqualTo(key);
+        assertThat(key(swapped, audio, "16:9", 3)).isNotEqualTo(key);
+        assertThat(key(images, null, "16:9", 3)).isNotEqualTo(key);
+        assertThat(key(images, audio, "9:16", 3)).isNotEqualTo(key);
+        assertThat(key(images, audio, "16:9", 5)).isNotEqualTo(key);
+    }
+
+    @Test
+    void hitLinksCachedOutputAndRecordsMetrics() throws IOException {
+        Path output = write(tempDir.resolve("videos/1/output/video_1.mp4"), "rendered video");
+        cache.store("ab12", output, 12.5).block(TIMEOUT);
+
+        assertThat(cache.reuse("cd34", tempDir.resolve("videos/2/output")).blockOptional(TIMEOUT)).isEmpty();
+        RenderResultCache.CachedRender hit = cache.reuse("ab12", tempDir.resolve("videos/3/output")).block(TIMEOUT);
+
+        assertThat(hit).isNotNull();
+        assertThat(hit.output()).isEqualTo(tempDir.resolve("videos/3/output/video_1.mp4"));
+        assertThat(hit.output()).hasContent("rendered video");
+        assertThat(hit.duration()).isEqualTo(12.5);
+        assertThat(meterRegistry.get(RenderResultCache.HITS_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(RenderResultCache.MISSES_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(RenderResultCache.HIT_RATIO_METER_NAME).gauge().value()).isEqualTo(0.5);
+        assertThat(meterRegistry.get(RenderResultCache.BYTES_SAVED_METER_NAME).functionCounter().count()).isEqualTo(
+            "rendered video".length()
+        );
+    }
+
+    @Test
+    void cachedOutputSurvivesDeletionOfTheOriginalVideo() throws IOException {
+        Path output = write(tempDir.resolve("videos/1/output/video_1.mp4"), "rendered video");
+        cache.store("ab12", output, 12.5).block(TIMEOUT);
+
+        Files.delete(output);
+
+        assertThat(cache.reuse("ab12", tempDir.resolve("videos/2/output")).block(TIMEOUT)).isNotNull();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesAboveMaxSize() throws IOException {
+        applicationProperties.getRender().getCache().setMaxSize(DataSize.ofBytes(25));
+        cache.store("aa01", write(tempDir.resolve("1.mp4"), "0123456789"), 1.0).block(TIMEOUT);
+        cache.store("bb02", write(tempDir.resolve("2.mp4"), "0123456789"), 1.0).block(TIMEOUT);
+        // touch the oldest entry so the second one becomes the least recently used
+        cache.reuse("aa01", tempDir.resolve("out-1")).block(TIMEOUT);
+
+        cache.store("cc03", write(tempDir.resolve("3.mp4"), "0123456789"), 1.0).block(TIMEOUT);
+
+        assertThat(cache.getSize()).isEqualTo(20);
+        assertThat(cache.reuse("bb02", tempDir.resolve("out-2")).blockOptional(TIMEOUT)).isEmpty();
+        assertThat(cache.reuse("aa01", tempDir.resolve("out-3")).blockOptional(TIMEOUT)).isPresent();
+        assertThat(cache.reuse("cc03", tempDir.resolve("out-4")).blockOptional(TIMEOUT)).isPresent();
+    }
+
+    @Test
+    void entriesAreReloadedAfterRestart() throws IOException {
+        cache.store("ab12", write(tempDir.resolve("1.mp4"), "rendered video"), 7.0).block(TIMEOUT);
+
+        RenderResultCache restarted = new RenderResultCache(applicationProperties, new SimpleMeterRegistry());
+
+        assertThat(restarted.reuse("ab12", tempDir.resolve("out")).block(TIMEOUT))
+            .extracting(RenderResultCache.CachedRender::duration)
+            .isEqualTo(7.0);
+        assertThat(restarted.getSize()).isEqualTo("rendered video".length());
+    }
+
+    @Test
+    void keepsTheLeastRecentlyUsedOrderInTheSidecarWithoutTouchingTheVideo() throws IOException {
+        Path output = write(tempDir.resolve("1.mp4"), "0123456789");
+        cache.store("aa01", output, 1.0).block(TIMEOUT);
+        cache.store("bb02", write(tempDir.resolve("2.mp4"), "0123456789"), 1.0).block(TIMEOUT);
+        FileTime settled = FileTime.fromMillis(1_000_000);
+        Files.setLastModifiedTime(output, settled);
+
+        cache.reuse("aa01", tempDir.resolve("out-1")).block(TIMEOUT);
+
+        // the cached file is a hard link to rendered outputs, whose age tells when Python finished writing them
+        assertThat(Files.getLastModifiedTime(output)).isEqualTo(settled);
+        applicationProperties.getRender().getCache().setMaxSize(DataSize.ofBytes(25));
+        RenderResultCache restarted = new RenderResultCache(applicationProperties, new SimpleMeterRegistry());
+        restarted.store("cc03", write(tempDir.resolve("3.mp4"), "0123456789"), 1.0).block(TIMEOUT);
+        assertThat(restarted.reuse("bb02", tempDir.resolve("out-2")).blockOptional(TIMEOUT)).isEmpty();
+        assertThat(restarted.reuse("aa01", tempDir.resolve("out-3")).blockOptional(TIMEOUT)).isPresent();
+    }
+
+    @Test
+    void disabledCacheKeysRendersButNeitherStoresNorReusesThem() throws IOException {
+        applicationProperties.getRender().getCache().setEnabled(false);
+
+        // identical renders in flight are still grouped by their key
+        assertThat(key(images("a", "first"), null, "16:9")).isEqualTo(key(images("b", "first"), null, "16:9"));
+
+        cache.store("ab12", write(tempDir.resolve("1.mp4"), "rendered video"), 7.0).block(TIMEOUT);
+        assertThat(cache.reuse("ab12", tempDir.resolve("videos/2/output")).blockOptional(TIMEOUT)).isEmpty();
+        assertThat(tempDir.resolve("cache")).doesNotExist();
+        assertThat(meterRegistry.get(RenderResultCache.MISSES_METER_NAME).counter().count()).isZero();
+    }
+
+    private String key(Path images, Path audio, Object... parameters) {
+        return cache.key(images, audio, parameters).block(TIMEOUT);
+    }
+
+    private Path images(String dir, String... contents) throws IOException {
+        Path images = tempDir.resolve(dir);
+        for (int i = 0; i < contents.length; i++) {
+            write(images.resolve("image_%03d.jpg".formatted(i)), contents[i]);
+        }
+        return images;
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,109 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.video.app.IntegrationTest;
+import com.video.app.domain.enumeration.UploadFileKind;
+import com.video.app.domain.enumeration.UploadStatus;
+import com.video.app.repository.UploadFileRepository;
+import com.video.app.repository.UploadSessionRepository;
+import com.video.app.service.dto.UploadFileRequest;
+import com.video.app.service.dto.UploadSessionDTO;
+import com.video.app.service.dto.UploadSessionRequest;
+import com.video.app.service.dto.VideoDTO;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+/**
+ * Integration tests for {@link ResumableUploadService}: the offsets and locks kept in Postgres.
+ */
+@IntegrationTest
+class ResumableUploadServiceIT {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UploadFileRepository uploadFileRepository;
+
+    private String login;
+
+    private UploadSessionDTO upload;
+
+    @BeforeEach
+    void init() {
+        login = "resumable-upload-" + RandomStringUtils.insecure().nextAlphanumeric(5).toLowerCase();
+        upload = resumableUploadService
+            .create(
+                new UploadSessionRequest(
+                    new VideoDTO(),
+                    List.of(
+                        new UploadFileRequest(UploadFileKind.IMAGE, "a.jpg", 10L),
+                        new UploadFileRequest(UploadFileKind.AUDIO, "a.mp3", 4L)
+                    )
+                ),
+                login
+            )
+            .block(TIMEOUT);
+    }
+
+    @AfterEach
+    void cleanup() {
+        uploadSessionRepository.deleteAll().block(TIMEOUT);
+    }
+
+    @Test
+    void resumesAFileFromTheOffsetStoredInTheDatabase() {
+        assertThat(resumableUploadService.append(upload.token(), 0, login, 0, chunk("hello")).block(TIMEOUT)).isEqualTo(5);
+
+        assertThatThrownBy(() -> resumableUploadService.append(upload.token(), 0, login, 0, chunk("hello")).block(TIMEOUT))
+            .isInstanceOfSatisfying(UploadConflictException.class, conflict -> assertThat(conflict.getOffset()).isEqualTo(5));
+        assertThat(resumableUploadService.append(upload.token(), 0, login, 5, chunk("world")).block(TIMEOUT)).isEqualTo(10);
+
+        UploadSessionDTO found = resumableUploadService.find(upload.token(), login).block(TIMEOUT);
+        assertThat(found.files()).extracting(UploadSessionDTO.FileState::offset).containsExactly(10L, 0L);
+    }
+
+    @Test
+    void lockKeepsTwoNodesFromWritingTheSameFile() {
+        long lockSeconds = 60;
+        assertThat(uploadFileRepository.lock(upload.token(), login, 1, 0, lockSeconds).block(TIMEOUT)).isNotNull();
+
+        assertThat(uploadFileRepository.lock(upload.token(), login, 1, 0, lockSeconds).blockOptional(TIMEOUT)).isEmpty();
+        assertThatThrownBy(() -> resumableUploadService.append(upload.token(), 1, login, 0, chunk("ab")).block(TIMEOUT))
+            .isInstanceOfSatisfying(UploadConflictException.class, conflict -> assertThat(conflict.getOffset()).isZero());
+    }
+
+    @Test
+    void uploadsOfOtherUsersAreNotFound() {
+        assertThat(resumableUploadService.find(upload.token(), "someone-else").blockOptional(TIMEOUT)).isEmpty();
+        assertThat(resumableUploadService.append(upload.token(), 0, "someone-else", 0, chunk("hello")).blockOptional(TIMEOUT)).isEmpty();
+    }
+
+    @Test
+    void onlyOneFinalizationClaimsTheUpload() {
+        Long id = uploadSessionRepository.findOneByTokenAndUserLogin(upload.token(), login).block(TIMEOUT).getId();
+
+        assertThat(uploadSessionRepository.claimForFinalize(id, 60).block(TIMEOUT).getStatus()).isEqualTo(UploadStatus.FINALIZING);
+        assertThat(uploadSessionRepository.claimForFinalize(id, 60).blockOptional(TIMEOUT)).isEmpty();
+    }
+
+    private static Flux<DataBuffer> chunk(String content) {
+        return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
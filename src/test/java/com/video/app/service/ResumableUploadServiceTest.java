@@ -0,0 +1,229 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.UploadFile;
+import com.video.app.domain.UploadSession;
+import com.video.app.domain.enumeration.UploadFileKind;
+import com.video.app.domain.enumeration.UploadStatus;
+import com.video.app.repository.UploadFileRepository;
+import com.video.app.repository.UploadSessionRepository;
+import com.video.app.service.dto.VideoDTO;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.codec.multipart.FilePart;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link ResumableUploadService}.
+ */
+class ResumableUploadServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private static final String TOKEN = "0b6f1f4e-6c1e-4c55-9d57-2f1c4c9f3a10";
+
+    private static final String LOGIN = "user";
+
+    @TempDir
+    Path stagingDirectory;
+
+    private UploadSessionRepository uploadSessionRepository;
+
+    private UploadFileRepository uploadFileRepository;
+
+    private VideoSubmissionService videoSubmissionService;
+
+    private VideoService videoService;
+
+    private ResumableUploadService resumableUploadService;
+
+    @BeforeEach
+    void setup() throws Exception {
+        uploadSessionRepository = mock(UploadSessionRepository.class);
+        uploadFileRepository = mock(UploadFileRepository.class);
+        videoSubmissionService = mock(VideoSubmissionService.class);
+        videoService = mock(VideoService.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getUpload().setStagingDirectory(stagingDirectory.toString());
+        applicationProperties.getUpload().getResumable().setPurgeBatchSize(2);
+        resumableUploadService = new ResumableUploadService(
+            uploadSessionRepository,
+            uploadFileRepository,
+            videoSubmissionService,
+            videoService,
+            new ObjectMapper().findAndRegisterModules(),
+            applicationProperties
+        );
+        Files.createDirectories(sessionDirectory());
+
+        when(uploadFileRepository.commit(any(), anyLong(), anyLong())).thenReturn(Mono.just(1L));
+        when(uploadSessionRepository.touch(any(), anyLong())).thenReturn(Mono.just(1L));
+        when(uploadSessionRepository.markFinalized(any(), any())).thenReturn(Mono.just(1L));
+        when(uploadSessionRepository.markFailed(any())).thenReturn(Mono.just(1L));
+    }
+
+    @Test
+    void writesChunkAtItsOffsetAndCommitsTheNewOffset() throws Exception {
+        Files.writeString(sessionDirectory().resolve("0"), "hello ");
+        UploadFile file = file(0, UploadFileKind.IMAGE, 11, 6);
+        when(uploadFileRepository.lock(eq(TOKEN), eq(LOGIN), eq(0), eq(6L), anyLong())).thenReturn(Mono.just(file));
+
+        Long offset = resumableUploadService.append(TOKEN, 0, LOGIN, 6, chunk("wor", "ld")).block(TIMEOUT);
+
+        assertThat(offset).isEqualTo(11);
+        assertThat(Files.readString(sessionDirectory().resolve("0"))).isEqualTo("hello world");
+        verify(uploadFileRepository).commit(file.getId(), 6, 11);
+        verify(uploadSessionRepository).touch(eq(file.getSessionId()), anyLong());
+    }
+
+    @Test
+    void rejectsChunkThatDoesNotStartAtTheCurrentOffset() {
+        when(uploadFileRepository.lock(anyString(), anyString(), anyInt(), anyLong(), anyLong())).thenReturn(Mono.empty());
+        when(uploadFileRepository.findOpen(TOKEN, LOGIN, 0)).thenReturn(Mono.just(file(0, UploadFileKind.IMAGE, 11, 6)));
+
+        assertThatThrownBy(() -> resumableUploadService.append(TOKEN, 0, LOGIN, 0, chunk("hello ")).block(TIMEOUT))
+            .isInstanceOfSatisfying(UploadConflictException.class, conflict -> assertThat(conflict.getOffset()).isEqualTo(6));
+        verify(uploadFileRepository, never()).commit(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void returnsEmptyWhenTheUploadIsNotOpen() {
+        when(uploadFileRepository.lock(anyString(), anyString(), anyInt(), anyLong(), anyLong())).thenReturn(Mono.empty());
+        when(uploadFileRepository.findOpen(TOKEN, LOGIN, 0)).thenReturn(Mono.empty());
+
+        assertThat(resumableUploadService.append(TOKEN, 0, LOGIN, 0, chunk("hello")).blockOptional(TIMEOUT)).isEmpty();
+    }
+
+    @Test
+    void keepsTheBytesWrittenBeforeAChunkOverflowsTheFile() throws Exception {
+        UploadFile file = file(0, UploadFileKind.AUDIO, 5, 0);
+        when(uploadFileRepository.lock(eq(TOKEN), eq(LOGIN), eq(0), eq(0L), anyLong())).thenReturn(Mono.just(file));
+
+        assertThatThrownBy(() -> resumableUploadService.append(TOKEN, 0, LOGIN, 0, chunk("abc", "def")).block(TIMEOUT)).isInstanceOf(
+            UploadConflictException.class
+        );
+
+        assertThat(Files.readString(sessionDirectory().resolve("0"))).isEqualTo("abc");
+        verify(uploadFileRepository).commit(file.getId(), 0, 3);
+    }
+
+    @Test
+    void refusesToFinalizeWhileAFileIsIncomplete() {
+        when(uploadSessionRepository.findOneByTokenAndUserLogin(TOKEN, LOGIN)).thenReturn(Mono.just(session(UploadStatus.OPEN)));
+        when(uploadFileRepository.findAllBySessionIdOrderByPosition(1L)).thenReturn(
+            Flux.just(file(0, UploadFileKind.IMAGE, 10, 10), file(1, UploadFileKind.IMAGE, 10, 4))
+        );
+
+        assertThatThrownBy(() -> resumableUploadService.finalizeUpload(TOKEN, LOGIN, List.of()).block(TIMEOUT))
+            .isInstanceOfSatisfying(UploadConflictException.class, conflict -> assertThat(conflict.getOffset()).isEqualTo(4));
+        verify(uploadSessionRepository, never()).claimForFinalize(any(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void finalizesIntoAVideoWithTheImagesInOrder() throws Exception {
+        UploadSession session = session(UploadStatus.OPEN);
+        when(uploadSessionRepository.findOneByTokenAndUserLogin(TOKEN, LOGIN)).thenReturn(Mono.just(session));
+        when(uploadFileRepository.findAllBySessionIdOrderByPosition(1L)).thenReturn(
+            Flux.just(file(0, UploadFileKind.IMAGE, 1, 1), file(1, UploadFileKind.AUDIO, 1, 1), file(2, UploadFileKind.IMAGE, 1, 1))
+        );
+        when(uploadSessionRepository.claimForFinalize(eq(1L), anyLong())).thenReturn(Mono.just(session));
+        VideoDTO video = new VideoDTO();
+        video.setId(42L);
+        when(videoSubmissionService.submit(any(), any(), any(), eq(LOGIN), eq(List.of("ROLE_USER")))).thenReturn(Mono.just(video));
+
+        assertThat(resumableUploadService.finalizeUpload(TOKEN, LOGIN, List.of("ROLE_USER")).block(TIMEOUT)).isSameAs(video);
+
+        ArgumentCaptor<List<FilePart>> images = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<FilePart> audio = ArgumentCaptor.forClass(FilePart.class);
+        verify(videoSubmissionService).submit(any(), images.capture(), audio.capture(), eq(LOGIN), any());
+        assertThat(images.getValue()).extracting(FilePart::filename).containsExactly("file-0", "file-2");
+        assertThat(((StagedFilePart) images.getValue().get(1)).file()).isEqualTo(sessionDirectory().resolve("2"));
+        assertThat(audio.getValue().filename()).isEqualTo("file-1");
+        verify(uploadSessionRepository).markFinalized(1L, 42L);
+        assertThat(sessionDirectory()).doesNotExist();
+    }
+
+    @Test
+    void finalizingAgainReturnsTheSameVideo() {
+        when(uploadSessionRepository.findOneByTokenAndUserLogin(TOKEN, LOGIN)).thenReturn(
+            Mono.just(session(UploadStatus.FINALIZED).videoId(42L))
+        );
+        VideoDTO video = new VideoDTO();
+        video.setId(42L);
+        when(videoService.findOne(42L)).thenReturn(Mono.just(video));
+
+        assertThat(resumableUploadService.finalizeUpload(TOKEN, LOGIN, List.of()).block(TIMEOUT)).isSameAs(video);
+        verify(videoSubmissionService, never()).submit(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void purgeDeletesExpiredUploadsInBatches() throws Exception {
+        String other = "7d1b8f52-93a4-4f1e-8a0e-5b3c2d1e0f99";
+        Files.createDirectories(stagingDirectory.resolve("resumable").resolve(other));
+        Files.writeString(sessionDirectory().resolve("0"), "orphan");
+        when(uploadSessionRepository.deleteExpired(2)).thenReturn(
+            Flux.just(session(UploadStatus.OPEN), new UploadSession().id(2L).token(other)),
+            Flux.empty()
+        );
+
+        assertThat(resumableUploadService.purge().block(TIMEOUT)).isEqualTo(2);
+
+        assertThat(sessionDirectory()).doesNotExist();
+        assertThat(stagingDirectory.resolve("resumable").resolve(other)).doesNotExist();
+    }
+
+    private Path sessionDirectory() {
+        return stagingDirectory.resolve("resumable").resolve(TOKEN);
+    }
+
+    private static UploadSession session(UploadStatus status) {
+        return new UploadSession()
+            .id(1L)
+            .token(TOKEN)
+            .userLogin(LOGIN)
+            .status(status)
+            .video("{\"formato\":null}")
+            .createdAt(Instant.now())
+            .expiresAt(Instant.now().plus(Duration.ofHours(1)));
+    }
+
+    private static UploadFile file(int position, UploadFileKind kind, long length, long offset) {
+        return new UploadFile()
+            .id(10L + position)
+            .sessionId(1L)
+            .position(position)
+            .kind(kind)
+            .filename("file-" + position)
+            .length(length)
+            .uploadOffset(offset);
+    }
+
+    private static Flux<DataBuffer> chunk(String... parts) {
+        return Flux.fromArray(parts).map(part -> DefaultDataBufferFactory.sharedInstance.wrap(part.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,493 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.RenderDeadLetter;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.service.dto.FileSystemPaths;
+import com.video.app.service.dto.PythonVideoResponse;
+import com.video.app.service.dto.RenderProgress;
+import com.video.app.service.dto.VideoDTO;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleConsumer;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for the non-blocking render pipeline of {@link VideoProcessingService}.
+ */
+class VideoProcessingServiceTest {
+
+    private static final int SIMULATED_RENDERS = 500;
+
+    private static final int IDENTICAL_RENDERS = 20;
+
+    private static final Duration SIMULATED_RENDER_TIME = Duration.ofMillis(200);
+
+    private VideoService videoService;
+
+    private PythonVideoService pythonVideoService;
+
+    private FileStorageService fileStorageService;
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    private RenderProgressRegistry renderProgressRegistry;
+
+    private RenderCostModel renderCostModel;
+
+    private RenderDeadlines renderDeadlines;
+
+    private RenderDeadLetterService renderDeadLetterService;
+
+    private VideoStatusBroadcaster videoStatusBroadcaster;
+
+    private final Set<String> renderThreads = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private VideoProcessingService videoProcessingService;
+
+    @BeforeEach
+    void setup() {
+        videoService = mock(VideoService.class);
+        pythonVideoService = mock(PythonVideoService.class);
+        fileStorageService = mock(FileStorageService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getRender().setMaxConcurrency(SIMULATED_RENDERS);
+        applicationProperties.getRender().getCache().setEnabled(false);
+        videoStatusBroadcaster = new VideoStatusBroadcaster(meterRegistry);
+        renderProgressRegistry = new RenderProgressRegistry(applicationProperties, videoStatusBroadcaster, meterRegistry);
+        renderCostModel = mock(RenderCostModel.class);
+        renderDeadlines = new RenderDeadlines(applicationProperties, meterRegistry);
+        when(renderCostModel.record(any(), anyInt(), anyBoolean(), any(), any())).thenReturn(Mono.empty());
+        renderDeadLetterService = mock(RenderDeadLetterService.class);
+        when(renderDeadLetterService.record(any(), any(), anyBoolean())).thenReturn(Mono.just(new RenderDeadLetter()));
+
+        videoProcessingService = new VideoProcessingService(
+            fileStorageService,
+            pythonVideoService,
+            videoService,
+            new RenderResultCache(applicationProperties, meterRegistry),
+            videoStatusBroadcaster,
+            renderProgressRegistry,
+            renderCostModel,
+            renderDeadlines,
+            renderDeadLetterService,
+            applicationProperties,
+            meterRegistry
+        );
+
+        when(videoService.findOne(anyLong())).thenAnswer(invocation -> Mono.just(videoDTO(invocation.getArgument(0))));
+        when(videoService.finishProcessing(any(VideoDTO.class))).thenAnswer(invocation -> {
+            renderThreads.add(Thread.currentThread().getName());
+            return Mono.just(invocation.getArgument(0));
+        });
+        when(fileStorageService.cleanupFiles(any())).thenReturn(Mono.empty());
+        when(fileStorageService.checkout(any(), any())).thenAnswer(invocation ->
+            Mono.just(paths(invocation.getArgument(0), invocation.getArgument(1)))
+        );
+        when(fileStorageService.publishOutput(any())).thenReturn(Mono.empty());
+        when(fileStorageService.countImages(any())).thenReturn(Mono.just(3));
+        when(fileStorageService.findFinishedOutput(any(), any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void shouldRunManyConcurrentRendersOnAHandfulOfThreads() {
+        // every simulated render waits until all of them have started, so this only completes
+        // if the 500 renders are really in flight at the same time
+        AtomicInteger started = new AtomicInteger();
+        Sinks.Empty<Void> allStarted = Sinks.empty();
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            peakInFlight.accumulateAndGet((int) meterRegistry.get(VideoProcessingService.IN_FLIGHT_METER_NAME).gauge().value(), Math::max);
+            if (started.incrementAndGet() == SIMULATED_RENDERS) {
+                allStarted.tryEmitEmpty();
+            }
+            return allStarted.asMono().then(Mono.delay(SIMULATED_RENDER_TIME)).map(tick -> pythonResponse());
+        });
+
+        List<VideoProcessingService.RenderOutcome> outcomes = videoProcessingService
+            .processAll(Flux.range(1, SIMULATED_RENDERS).map(Long::valueOf))
+            .collectList()
+            .block(Duration.ofSeconds(30));
+
+        assertThat(outcomes).hasSize(SIMULATED_RENDERS).allMatch(VideoProcessingService.RenderOutcome::completed);
+        assertThat(peakInFlight.get()).isEqualTo(SIMULATED_RENDERS);
+        assertThat(renderThreads).hasSizeLessThanOrEqualTo(Runtime.getRuntime().availableProcessors());
+        assertThat(meterRegistry.get(VideoProcessingService.IN_FLIGHT_METER_NAME).gauge().value()).isZero();
+    }
+
+    @Test
+    void shouldBoundConcurrencyWithConfiguredLimit() {
+        applicationProperties.getRender().setMaxConcurrency(5);
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenAnswer(invocation ->
+            Mono.delay(Duration.ofMillis(20))
+                .doOnSubscribe(subscription -> peakInFlight.accumulateAndGet(videoProcessingService.getInFlight(), Math::max))
+                .map(tick -> pythonResponse())
+        );
+
+        long completed = videoProcessingService.processAll(Flux.range(1, 50).map(Long::valueOf)).count().block(Duration.ofSeconds(10));
+
+        assertThat(completed).isEqualTo(50);
+        assertThat(peakInFlight.get()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldMarkVideoAsErrorWhenPythonFails() {
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenReturn(
+            Mono.error(new RuntimeException("Error 5xx en Python"))
+        );
+
+        Boolean completed = videoProcessingService.processVideo(1L).block(Duration.ofSeconds(5));
+
+        assertThat(completed).isFalse();
+        assertThat(videoProcessingService.getInFlight()).isZero();
+        // the files stay for a replay from the dead-letter store
+        verify(renderDeadLetterService).record(eq(1L), any(RuntimeException.class), eq(true));
+        verify(fileStorageService, never()).cleanupFiles(any());
+    }
+
+    @Test
+    void shouldCleanUpTheFilesWhenTheFailedRenderCannotBeKept() {
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenReturn(
+            Mono.error(new RuntimeException("Error 5xx en Python"))
+        );
+        when(renderDeadLetterService.record(any(), any(), anyBoolean())).thenReturn(Mono.error(new RuntimeException("BD caída")));
+
+        assertThat(videoProcessingService.processVideo(1L).block(Duration.ofSeconds(5))).isFalse();
+
+        verify(fileStorageService).cleanupFiles("1");
+    }
+
+    @Test
+    void shouldTrackProgressReportedByPythonUntilTheRenderEnds() {
+        AtomicReference<RenderProgress> whileRendering = new AtomicReference<>();
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenReturn(
+            Mono.deferContextual(context -> {
+                context.<DoubleConsumer>get(PythonVideoService.PROGRESS_CONTEXT_KEY).accept(40);
+                whileRendering.set(renderProgressRegistry.find(1L).orElseThrow());
+                return Mono.just(pythonResponse());
+            })
+        );
+
+        assertThat(videoProcessingService.processVideo(1L).block(Duration.ofSeconds(5))).isTrue();
+
+        assertThat(whileRendering.get().stage()).isEqualTo(RenderProgress.Stage.RENDERING);
+        assertThat(whileRendering.get().percent()).isEqualTo(40);
+        assertThat(whileRendering.get().estimated()).isFalse();
+        assertThat(renderProgressRegistry.find(1L)).isEmpty();
+        // the finished render replaces the initial guess of 5 s per image
+        assertThat(renderProgressRegistry.estimate(3, false)).isLessThan(Duration.ofSeconds(15));
+    }
+
+    @Test
+    void shouldRecordTheRenderTimeForTheCostModel() {
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenReturn(
+            Mono.delay(SIMULATED_RENDER_TIME).map(tick -> pythonResponse())
+        );
+
+        assertThat(videoProcessingService.processVideo(1L).block(Duration.ofSeconds(5))).isTrue();
+
+        // Python did not report the images it used, so the ones counted on disk are recorded
+        ArgumentCaptor<Duration> renderTime = ArgumentCaptor.forClass(Duration.class);
+        verify(renderCostModel).record(eq("v"), eq(3), eq(false), eq(12.0), renderTime.capture());
+        assertThat(renderTime.getValue()).isGreaterThanOrEqualTo(SIMULATED_RENDER_TIME);
+    }
+
+    @Test
+    void shouldReuseTheOutputOfAnAttemptHandedOverByAStoppingNode() {
+        Path output = Path.of("/app/shared-data/videos/1/output/video_1.mp4");
+        when(fileStorageService.findFinishedOutput(eq(1L), any())).thenReturn(Mono.just(output));
+
+        assertThat(videoProcessingService.processVideo(1L).block(Duration.ofSeconds(5))).isTrue();
+
+        ArgumentCaptor<VideoDTO> updated = ArgumentCaptor.forClass(VideoDTO.class);
+        verify(videoService).finishProcessing(updated.capture());
+        assertThat(updated.getValue().getEstado()).isEqualTo(EstadoVideo.COMPLETADO);
+        assertThat(updated.getValue().getOutputFilename()).isEqualTo("video_1.mp4");
+        verify(pythonVideoService, never()).generateVideoWithoutAudio(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldGiveEachRenderADeadlineFromItsSize() {
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenReturn(
+            Mono.just(pythonResponse())
+        );
+
+        assertThat(videoProcessingService.processVideo(1L).block(Duration.ofSeconds(5))).isTrue();
+
+        // 20 s + 3 images × 2 s + 9 s of video, times 3
+        verify(pythonVideoService).generateVideoWithoutAudio(
+            eq(1L),
+            any(),
+            any(),
+            eq("v"),
+            eq(3),
+            argThat(deadline -> deadline.expected().equals(Duration.ofSeconds(35)) && deadline.limit().equals(Duration.ofSeconds(105)))
+        );
+        assertThat(
+            meterRegistry.get(RenderDeadlines.OUTCOME_METER_NAME).tag("outcome", "within").tag("size", "1-5").counter().count()
+        ).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCoalesceIdenticalConcurrentRendersIntoOnePythonCall() {
+        VideoProcessingService coalescing = withIdenticalContent();
+        AtomicInteger pythonCalls = new AtomicInteger();
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            pythonCalls.incrementAndGet();
+            return Mono.delay(SIMULATED_RENDER_TIME).map(tick -> pythonResponse());
+        });
+
+        List<VideoProcessingService.RenderOutcome> outcomes = coalescing
+            .processAll(Flux.range(1, IDENTICAL_RENDERS).map(Long::valueOf))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(outcomes).hasSize(IDENTICAL_RENDERS).allMatch(VideoProcessingService.RenderOutcome::completed);
+        assertThat(pythonCalls.get()).isEqualTo(1);
+        assertThat(meterRegistry.get(VideoProcessingService.COALESCED_METER_NAME).counter().count()).isEqualTo(IDENTICAL_RENDERS - 1);
+        ArgumentCaptor<VideoDTO> updated = ArgumentCaptor.forClass(VideoDTO.class);
+        verify(videoService, times(IDENTICAL_RENDERS)).finishProcessing(updated.capture());
+        assertThat(updated.getAllValues())
+            .extracting(VideoDTO::getId, VideoDTO::getEstado, VideoDTO::getOutputFilename)
+            .containsExactlyInAnyOrderElementsOf(
+                LongStream.rangeClosed(1, IDENTICAL_RENDERS).mapToObj(id -> tuple(id, EstadoVideo.COMPLETADO, "video.mp4")).toList()
+            );
+
+        // once finished, the next identical render is not attached to the old one
+        assertThat(coalescing.processVideo(100L).block(Duration.ofSeconds(5))).isTrue();
+        assertThat(pythonCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCoalesceIdenticalConcurrentRendersWithTheCacheDisabled(@TempDir Path videos) throws IOException {
+        for (long id = 1; id <= 3; id++) {
+            Path images = Files.createDirectories(videos.resolve(id + "/images"));
+            Files.writeString(images.resolve("img_000.jpg"), "same image");
+            Files.createDirectories(videos.resolve(id + "/output"));
+        }
+        when(fileStorageService.checkout(any(), any())).thenAnswer(invocation -> {
+            Path video = videos.resolve(String.valueOf((Long) invocation.getArgument(0)));
+            return Mono.just(new FileSystemPaths(video.resolve("images").toString(), null, video.resolve("output").toString()));
+        });
+        AtomicInteger pythonCalls = new AtomicInteger();
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            pythonCalls.incrementAndGet();
+            Path output = Files.writeString(Path.of((String) invocation.getArgument(2), "video.mp4"), "rendered video");
+            PythonVideoResponse response = pythonResponse();
+            response.getMetadata().setFull_path(output.toString());
+            return Mono.delay(SIMULATED_RENDER_TIME).thenReturn(response);
+        });
+
+        List<VideoProcessingService.RenderOutcome> outcomes = videoProcessingService
+            .processAll(Flux.range(1, 3).map(Long::valueOf))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(outcomes).hasSize(3).allMatch(VideoProcessingService.RenderOutcome::completed);
+        assertThat(pythonCalls.get()).isEqualTo(1);
+        assertThat(meterRegistry.get(VideoProcessingService.COALESCED_METER_NAME).counter().count()).isEqualTo(2);
+        for (long id = 1; id <= 3; id++) {
+            assertThat(videos.resolve(id + "/output/video.mp4")).hasContent("rendered video");
+        }
+    }
+
+    @Test
+    void shouldMarkEveryCoalescedVideoAsErrorWhenTheSharedRenderFails() {
+        VideoProcessingService coalescing = withIdenticalContent();
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenReturn(
+            Mono.delay(SIMULATED_RENDER_TIME).then(Mono.error(new RuntimeException("Error 5xx en Python")))
+        );
+
+        List<VideoProcessingService.RenderOutcome> outcomes = coalescing
+            .processAll(Flux.range(1, IDENTICAL_RENDERS).map(Long::valueOf))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(outcomes).hasSize(IDENTICAL_RENDERS).noneMatch(VideoProcessingService.RenderOutcome::completed);
+        verify(pythonVideoService, times(1)).generateVideoWithoutAudio(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldStopAnInFlightRenderWhenItsVideoIsCancelled() throws Exception {
+        CountDownLatch pythonCancelled = new CountDownLatch(1);
+        Sinks.Empty<Void> pythonCalled = Sinks.empty();
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            pythonCalled.tryEmitEmpty();
+            return Mono.<PythonVideoResponse>never().doOnCancel(pythonCancelled::countDown);
+        });
+
+        CompletableFuture<Boolean> completed = videoProcessingService.processVideo(1L).toFuture();
+        pythonCalled.asMono().block(Duration.ofSeconds(5));
+        // the cancellation may come from any node: it arrives as a status change
+        videoStatusBroadcaster.publish(new VideoStatusEvent(1L, EstadoVideo.CANCELADO, null));
+
+        assertThat(completed.get(5, TimeUnit.SECONDS)).isFalse();
+        // the cancellation reaches Python asynchronously, possibly after the outcome
+        assertThat(pythonCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(videoProcessingService.getInFlight()).isZero();
+        assertThat(meterRegistry.get(VideoProcessingService.CANCELLED_METER_NAME).counter().count()).isEqualTo(1);
+        verify(fileStorageService).cleanupFiles("1");
+        verify(videoService, never()).finishProcessing(any(VideoDTO.class));
+        assertThat(videoProcessingService.cancel(1L)).isFalse();
+    }
+
+    @Test
+    void shouldKeepACancellationThatArrivesWhileTheOutputIsPublished() {
+        List<VideoStatusEvent> published = new CopyOnWriteArrayList<>();
+        videoStatusBroadcaster.changes().subscribe(published::add);
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenReturn(
+            Mono.just(pythonResponse())
+        );
+        // the video was EN_PROCESO before publishing, CANCELADO by the time it is marked COMPLETADO
+        doReturn(Mono.empty()).when(videoService).finishProcessing(any(VideoDTO.class));
+
+        assertThat(videoProcessingService.processVideo(1L).block(Duration.ofSeconds(5))).isFalse();
+
+        verify(fileStorageService).publishOutput(1L);
+        assertThat(published).extracting(VideoStatusEvent::estado).doesNotContain(EstadoVideo.COMPLETADO);
+        verify(fileStorageService).cleanupFiles("1");
+    }
+
+    @Test
+    void shouldNotRenderAVideoCancelledWhileQueued() {
+        VideoDTO cancelled = videoDTO(1L);
+        cancelled.setEstado(EstadoVideo.CANCELADO);
+        when(videoService.findOne(1L)).thenReturn(Mono.just(cancelled));
+
+        assertThat(videoProcessingService.processVideo(1L).block(Duration.ofSeconds(5))).isFalse();
+
+        verify(pythonVideoService, never()).generateVideoWithoutAudio(any(), any(), any(), any(), any(), any());
+        verify(fileStorageService).cleanupFiles("1");
+    }
+
+    @Test
+    void shouldKeepACoalescedRenderUntilEveryWaitingVideoIsCancelled() throws Exception {
+        VideoProcessingService coalescing = withIdenticalContent();
+        AtomicInteger pythonCancelled = new AtomicInteger();
+        Sinks.Many<Boolean> pythonCalls = Sinks.many().replay().all();
+        Sinks.One<PythonVideoResponse> pythonResult = Sinks.one();
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            pythonCalls.tryEmitNext(true);
+            return pythonResult.asMono().doOnCancel(pythonCancelled::incrementAndGet);
+        });
+
+        CompletableFuture<Boolean> first = coalescing.processVideo(1L).toFuture();
+        pythonCalls.asFlux().take(1).blockLast(Duration.ofSeconds(5));
+        CompletableFuture<Boolean> second = coalescing.processVideo(2L).toFuture();
+        CompletableFuture<Boolean> third = coalescing.processVideo(3L).toFuture();
+        assertThat(coalescing.cancel(1L)).isTrue();
+        assertThat(coalescing.cancel(2L)).isTrue();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(pythonCancelled.get()).isZero();
+        pythonResult.tryEmitValue(pythonResponse());
+        assertThat(third.get(5, TimeUnit.SECONDS)).isTrue();
+
+        // once every waiting video is cancelled, so is the shared render
+        Sinks.One<PythonVideoResponse> neverEnds = Sinks.one();
+        when(pythonVideoService.generateVideoWithoutAudio(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            pythonCalls.tryEmitNext(true);
+            return neverEnds.asMono().doOnCancel(pythonCancelled::incrementAndGet);
+        });
+        CompletableFuture<Boolean> lone = coalescing.processVideo(4L).toFuture();
+        pythonCalls.asFlux().take(2).blockLast(Duration.ofSeconds(5));
+        assertThat(coalescing.cancel(4L)).isTrue();
+        assertThat(lone.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(pythonCancelled.get()).isEqualTo(1);
+        assertThat(meterRegistry.get(VideoProcessingService.CANCELLED_METER_NAME).counter().count()).isEqualTo(3);
+    }
+
+    /**
+     * A service whose videos all hash to the same content, with an empty render cache.
+     */
+    private VideoProcessingService withIdenticalContent() {
+        RenderResultCache renderResultCache = mock(RenderResultCache.class);
+        when(renderResultCache.key(any(), any(), any(Object[].class))).thenReturn(Mono.just("same-content"));
+        when(renderResultCache.reuse(any(), any())).thenReturn(Mono.empty());
+        when(renderResultCache.store(any(), any(), any())).thenReturn(Mono.empty());
+        when(renderResultCache.linkInto(any(), any())).thenAnswer(invocation -> {
+            Path video = invocation.getArgument(0);
+            Path outputDir = invocation.getArgument(1);
+            return Mono.just(outputDir.resolve(video.getFileName()));
+        });
+        return new VideoProcessingService(
+            fileStorageService,
+            pythonVideoService,
+            videoService,
+            renderResultCache,
+            videoStatusBroadcaster,
+            renderProgressRegistry,
+            renderCostModel,
+            renderDeadlines,
+            renderDeadLetterService,
+            applicationProperties,
+            meterRegistry
+        );
+    }
+
+    private static VideoDTO videoDTO(Long id) {
+        VideoDTO videoDTO = new VideoDTO();
+        videoDTO.setId(id);
+        videoDTO.setTieneAudio(false);
+        videoDTO.setFormato("v");
+        videoDTO.setDuracionTransicion(3);
+        videoDTO.setEstado(EstadoVideo.EN_PROCESO);
+        return videoDTO;
+    }
+
+    private static FileSystemPaths paths(Long id, String audioFilename) {
+        String baseDir = "/app/shared-data/videos/" + id;
+        String audioPath = audioFilename != null ? baseDir + "/audio/" + audioFilename : null;
+        return new FileSystemPaths(baseDir + "/images", audioPath, baseDir + "/output");
+    }
+
+    private static PythonVideoResponse pythonResponse() {
+        PythonVideoResponse.VideoMetadata metadata = new PythonVideoResponse.VideoMetadata();
+        metadata.setFull_path("/app/shared-data/videos/1/output/video.mp4");
+        metadata.setDuration(12.0);
+        PythonVideoResponse response = new PythonVideoResponse();
+        response.setMetadata(metadata);
+        return response;
+    }
+}
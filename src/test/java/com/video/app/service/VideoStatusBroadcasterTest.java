@@ -0,0 +1,168 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests for {@link VideoStatusBroadcaster}.
+ */
+class VideoStatusBroadcasterTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VideoStatusBroadcasterTest.class);
+
+    private static final int WATCHERS = 10_000;
+
+    private static final int VIDEOS = 100;
+
+    /**
+     * Polls a waiting client made per minute with the former 3 second polling.
+     */
+    private static final int POLLS_PER_MINUTE = 20;
+
+    private VideoStatusBroadcaster broadcaster;
+
+    private final AtomicInteger databaseReads = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        broadcaster = new VideoStatusBroadcaster(new SimpleMeterRegistry());
+    }
+
+    @Test
+    void sendsCurrentStatusThenTransitionsAndCompletesOnFinalStatus() {
+        Watcher watcher = watch(1L, read(1L));
+        assertThat(watcher.events).containsExactly(event(1L, EstadoVideo.EN_PROCESO));
+
+        broadcaster.publish(event(1L, EstadoVideo.EN_PROCESO));
+        broadcaster.publish(event(2L, EstadoVideo.COMPLETADO));
+        broadcaster.publish(event(1L, EstadoVideo.COMPLETADO));
+
+        assertThat(watcher.events).containsExactly(event(1L, EstadoVideo.EN_PROCESO), event(1L, EstadoVideo.COMPLETADO));
+        assertThat(watcher.completed).isTrue();
+        assertThat(broadcaster.getTopics()).isZero();
+        assertThat(broadcaster.getWatchers()).isZero();
+    }
+
+    @Test
+    void latestPublishedStatusWinsOverAStaleRead() {
+        Sinks.One<VideoStatusEvent> slowRead = Sinks.one();
+        Watcher watcher = watch(1L, slowRead.asMono());
+
+        broadcaster.publish(event(1L, EstadoVideo.ERROR));
+        slowRead.tryEmitValue(event(1L, EstadoVideo.EN_PROCESO));
+
+        assertThat(watcher.events).containsExactly(event(1L, EstadoVideo.ERROR));
+        assertThat(watcher.completed).isTrue();
+    }
+
+    @Test
+    void failedReadIsNotCachedForLaterWatchers() {
+        Watcher failed = watch(1L, Mono.error(new IllegalStateException("db down")));
+        Watcher next = watch(1L, Mono.just(event(1L, EstadoVideo.COMPLETADO)));
+
+        assertThat(failed.error).isInstanceOf(IllegalStateException.class);
+        assertThat(next.events).containsExactly(event(1L, EstadoVideo.COMPLETADO));
+        assertThat(next.completed).isTrue();
+    }
+
+    @Test
+    void waitsForTransitionsWithoutReadingAgain() {
+        Watcher first = watch(1L, read(1L));
+        Watcher second = watch(1L, read(1L));
+
+        broadcaster.publish(event(1L, EstadoVideo.COMPLETADO));
+
+        assertThat(first.events).containsExactly(event(1L, EstadoVideo.EN_PROCESO), event(1L, EstadoVideo.COMPLETADO));
+        assertThat(second.events).isEqualTo(first.events);
+        assertThat(databaseReads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void relaysOnlyChangesPublishedOnThisNode() {
+        List<VideoStatusEvent> relayed = new ArrayList<>();
+        broadcaster.relayTo(relayed::add);
+        Watcher watcher = watch(1L, read(1L));
+
+        broadcaster.deliver(event(1L, EstadoVideo.ERROR));
+        broadcaster.publish(event(2L, EstadoVideo.COMPLETADO));
+
+        assertThat(watcher.events).containsExactly(event(1L, EstadoVideo.EN_PROCESO), event(1L, EstadoVideo.ERROR));
+        assertThat(relayed).containsExactly(event(2L, EstadoVideo.COMPLETADO));
+    }
+
+    @Test
+    void tenThousandWatchersCostOneReadPerVideo() {
+        List<Flux<VideoStatusEvent>> streams = new ArrayList<>();
+        for (int i = 0; i < WATCHERS; i++) {
+            long videoId = i % VIDEOS;
+            streams.add(broadcaster.watch(videoId, read(videoId)));
+        }
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger received = new AtomicInteger();
+        streams.forEach(stream ->
+            stream.doOnNext(event -> received.incrementAndGet()).doOnComplete(completed::incrementAndGet).subscribe()
+        );
+
+        assertThat(broadcaster.getWatchers()).isEqualTo(WATCHERS);
+        assertThat(broadcaster.getTopics()).isEqualTo(VIDEOS);
+        int readsAfterConnect = databaseReads.get();
+
+        for (long videoId = 0; videoId < VIDEOS; videoId++) {
+            broadcaster.publish(event(videoId, EstadoVideo.COMPLETADO));
+        }
+
+        LOG.info(
+            "{} watchers on {} videos: {} status reads in total; 3 s polling would make {} per minute",
+            WATCHERS,
+            VIDEOS,
+            databaseReads.get(),
+            WATCHERS * POLLS_PER_MINUTE
+        );
+        assertThat(readsAfterConnect).isEqualTo(VIDEOS);
+        assertThat(databaseReads.get()).isEqualTo(VIDEOS);
+        assertThat(received.get()).isEqualTo(WATCHERS * 2);
+        assertThat(completed.get()).isEqualTo(WATCHERS);
+        assertThat(broadcaster.getWatchers()).isZero();
+        assertThat(broadcaster.getTopics()).isZero();
+    }
+
+    private Watcher watch(long videoId, Mono<VideoStatusEvent> current) {
+        Watcher watcher = new Watcher();
+        broadcaster.watch(videoId, current).subscribe(watcher.events::add, error -> watcher.error = error, () -> watcher.completed = true);
+        return watcher;
+    }
+
+    private Mono<VideoStatusEvent> read(long videoId) {
+        return Mono.fromSupplier(() -> {
+            databaseReads.incrementAndGet();
+            return event(videoId, EstadoVideo.EN_PROCESO);
+        });
+    }
+
+    private static VideoStatusEvent event(long videoId, EstadoVideo estado) {
+        return new VideoStatusEvent(videoId, estado, estado == EstadoVideo.COMPLETADO ? "video_" + videoId + ".mp4" : null);
+    }
+
+    private static final class Watcher {
+
+        private final List<VideoStatusEvent> events = new CopyOnWriteArrayList<>();
+
+        private volatile Throwable error;
+
+        private volatile boolean completed;
+    }
+}
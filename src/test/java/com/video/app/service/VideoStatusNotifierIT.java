@@ -0,0 +1,180 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.video.app.IntegrationTest;
+import com.video.app.config.ApplicationProperties;
+import com.video.app.config.Constants;
+import com.video.app.domain.User;
+import com.video.app.domain.Video;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.repository.EntityManager;
+import com.video.app.repository.UserRepository;
+import com.video.app.repository.VideoRepository;
+import com.video.app.service.dto.VideoStatusEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for {@link VideoStatusNotifier}: a second notifier on the same database plays the other node.
+ */
+@IntegrationTest
+class VideoStatusNotifierIT {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private VideoStatusBroadcaster videoStatusBroadcaster;
+
+    @Autowired
+    private VideoStatusNotifier videoStatusNotifier;
+
+    @Autowired
+    private VideoService videoService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private VideoRepository videoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private VideoStatusBroadcaster otherNodeBroadcaster;
+
+    private VideoStatusNotifier otherNode;
+
+    private MeterRegistry otherNodeMeterRegistry;
+
+    private User user;
+
+    @BeforeEach
+    void init() throws InterruptedException {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getRender().getEvents().setReconnectDelay(Duration.ofSeconds(1));
+        otherNodeMeterRegistry = new SimpleMeterRegistry();
+        otherNodeBroadcaster = new VideoStatusBroadcaster(otherNodeMeterRegistry);
+        otherNode = new VideoStatusNotifier(
+            otherNodeBroadcaster,
+            videoService,
+            databaseClient,
+            connectionFactory,
+            objectMapper,
+            applicationProperties,
+            otherNodeMeterRegistry
+        );
+        otherNode.start();
+        awaitUntil(() -> otherNode.isListening() && videoStatusNotifier.isListening());
+
+        User newUser = new User();
+        newUser.setLogin("status-notifier-" + RandomStringUtils.insecure().nextAlphanumeric(5).toLowerCase());
+        newUser.setPassword(RandomStringUtils.insecure().nextAlphanumeric(60));
+        newUser.setActivated(true);
+        newUser.setEmail(newUser.getLogin() + "@localhost");
+        newUser.setLangKey("en");
+        newUser.setCreatedBy(Constants.SYSTEM);
+        user = em.insert(newUser).block();
+    }
+
+    @AfterEach
+    void cleanup() {
+        otherNode.stop();
+        em.deleteAll(Video.class).block();
+        userRepository.deleteAllUserAuthorities().block();
+        userRepository.deleteAll().block();
+    }
+
+    @Test
+    void statusPublishedOnOneNodeReachesWatchersOnTheOther() throws InterruptedException {
+        List<VideoStatusEvent> received = watch(otherNodeBroadcaster, 1L);
+
+        videoStatusBroadcaster.publish(new VideoStatusEvent(1L, EstadoVideo.COMPLETADO, "video_1.mp4"));
+
+        awaitUntil(() -> received.size() == 2);
+        assertThat(received).containsExactly(
+            new VideoStatusEvent(1L, EstadoVideo.EN_PROCESO, null),
+            new VideoStatusEvent(1L, EstadoVideo.COMPLETADO, "video_1.mp4")
+        );
+        assertThat(otherNodeBroadcaster.getWatchers()).isZero();
+    }
+
+    @Test
+    void nodeIgnoresItsOwnNotifications() throws InterruptedException {
+        List<VideoStatusEvent> local = watch(otherNodeBroadcaster, 2L);
+        List<VideoStatusEvent> remote = watch(videoStatusBroadcaster, 2L);
+
+        otherNodeBroadcaster.publish(new VideoStatusEvent(2L, EstadoVideo.ERROR, null));
+
+        awaitUntil(() -> remote.size() == 2);
+        assertThat(local).hasSize(2);
+        assertThat(
+            otherNodeMeterRegistry.get(VideoStatusNotifier.NOTIFICATIONS_METER_NAME).tag("direction", "sent").counter().count()
+        ).isEqualTo(1);
+        assertThat(
+            otherNodeMeterRegistry.get(VideoStatusNotifier.NOTIFICATIONS_METER_NAME).tag("direction", "received").counter().count()
+        ).isZero();
+    }
+
+    @Test
+    void changesMissedWhileDisconnectedAreReadAfterReconnecting() throws InterruptedException {
+        Video video = videoRepository
+            .save(
+                new Video().titulo("status-notifier").tieneAudio(false).estado(EstadoVideo.EN_PROCESO).fechaCreacion(Instant.now()).user(user)
+            )
+            .block();
+        List<VideoStatusEvent> received = watch(otherNodeBroadcaster, video.getId());
+
+        databaseClient
+            .sql("SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE pid <> pg_backend_pid() AND query = :query")
+            .bind("query", "LISTEN video_status")
+            .then()
+            .block(TIMEOUT);
+        awaitUntil(() -> !otherNode.isListening());
+        // changed while the other node could not hear it
+        video.setEstado(EstadoVideo.COMPLETADO);
+        video.setOutputFilename("video.mp4");
+        videoRepository.save(video).block(TIMEOUT);
+
+        awaitUntil(() -> received.size() == 2);
+        assertThat(received.get(1)).isEqualTo(new VideoStatusEvent(video.getId(), EstadoVideo.COMPLETADO, "video.mp4"));
+        awaitUntil(videoStatusNotifier::isListening);
+    }
+
+    private static List<VideoStatusEvent> watch(VideoStatusBroadcaster broadcaster, Long videoId) {
+        List<VideoStatusEvent> events = new CopyOnWriteArrayList<>();
+        broadcaster.watch(videoId, Mono.just(new VideoStatusEvent(videoId, EstadoVideo.EN_PROCESO, null))).subscribe(events::add);
+        return events;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within %s", TIMEOUT).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.video.app.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.domain.RenderJob;
+import com.video.app.domain.enumeration.EstadoVideo;
+import com.video.app.domain.enumeration.RenderJobStatus;
+import com.video.app.service.dto.VideoDTO;
+import com.video.app.service.storage.LocalVideoStorage;
+import com.video.app.service.storage.VideoStorage;
+import com.video.app.service.storage.VideoStorageKeys;
+import com.video.app.service.storage.VideoStorageResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for {@link VideoStorageMigrationService}.
+ */
+class VideoStorageMigrationServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @TempDir
+    Path root;
+
+    private VideoStorage videoStorage;
+
+    private VideoService videoService;
+
+    private RenderJobQueue renderJobQueue;
+
+    private MeterRegistry meterRegistry;
+
+    private VideoStorageMigrationService migrationService;
+
+    @BeforeEach
+    void setup() {
+        videoStorage = new LocalVideoStorage(root);
+        videoService = mock(VideoService.class);
+        renderJobQueue = mock(RenderJobQueue.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getStorage().getMigration().setBatchSize(2);
+        migrationService = new VideoStorageMigrationService(
+            applicationProperties,
+            videoStorage,
+            videoService,
+            renderJobQueue,
+            meterRegistry
+        );
+
+        when(videoService.findOne(any())).thenReturn(Mono.empty());
+        when(renderJobQueue.findByVideoId(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void movesFlatVideosIntoShardedDirectoriesInBatches() throws IOException {
+        for (long id = 1; id <= 3; id++) {
+            store(VideoStorageKeys.flat(id).output("video.mp4"));
+        }
+
+        assertThat(migrationService.migrateBatch().block(TIMEOUT)).isEqualTo(2);
+        assertThat(migrationService.isCompleted()).isFalse();
+        assertThat(migrationService.migrateBatch().block(TIMEOUT)).isEqualTo(1);
+        assertThat(migrationService.migrateBatch().block(TIMEOUT)).isZero();
+
+        assertThat(migrationService.isCompleted()).isTrue();
+        assertThat(migrated()).isEqualTo(3);
+        for (long id = 1; id <= 3; id++) {
+            assertThat(root.resolve(VideoStorageKeys.flat(id).video())).doesNotExist();
+            assertThat(root.resolve(VideoStorageKeys.sharded(id).output("video.mp4"))).hasContent("video");
+        }
+    }
+
+    @Test
+    void leavesVideosBeingRenderedForALaterBatch() throws IOException {
+        store(VideoStorageKeys.flat(1L).output("video.mp4"));
+        VideoDTO rendering = new VideoDTO();
+        rendering.setId(1L);
+        rendering.setEstado(EstadoVideo.EN_PROCESO);
+        when(videoService.findOne(1L)).thenReturn(Mono.just(rendering));
+
+        assertThat(migrationService.migrateBatch().block(TIMEOUT)).isZero();
+        assertThat(migrationService.isCompleted()).isFalse();
+        assertThat(root.resolve(VideoStorageKeys.flat(1L).output("video.mp4"))).exists();
+
+        rendering.setEstado(EstadoVideo.COMPLETADO);
+        assertThat(migrationService.migrateBatch().block(TIMEOUT)).isEqualTo(1);
+        assertThat(root.resolve(VideoStorageKeys.sharded(1L).output("video.mp4"))).exists();
+    }
+
+    @Test
+    void leavesAVideoWhoseRenderStartsDuringTheBatch() throws IOException {
+        store(VideoStorageKeys.flat(1L).output("video.mp4"));
+        store(VideoStorageKeys.flat(2L).output("video.mp4"));
+        VideoStorageResolver resolver = new VideoStorageResolver(videoStorage);
+        Map<Long, RenderJob> jobs = new ConcurrentHashMap<>();
+        // a dispatcher leases the other video once the first one has been moved
+        when(renderJobQueue.findByVideoId(any())).thenAnswer(invocation ->
+            Mono.justOrEmpty(migrated() > 0 ? jobs.computeIfAbsent(invocation.getArgument(0), this::leasedJob) : null)
+        );
+
+        assertThat(migrationService.migrateBatch().block(TIMEOUT)).isEqualTo(1);
+
+        assertThat(jobs).hasSize(1);
+        Long rendering = jobs.keySet().iterator().next();
+        assertThat(resolver.resolve(rendering).block(TIMEOUT)).isEqualTo(VideoStorageKeys.flat(rendering));
+        assertThat(root.resolve(VideoStorageKeys.flat(rendering).output("video.mp4"))).exists();
+        assertThat(migrationService.isCompleted()).isFalse();
+
+        jobs.get(rendering).setStatus(RenderJobStatus.DONE);
+        assertThat(migrationService.migrateBatch().block(TIMEOUT)).isEqualTo(1);
+        assertThat(resolver.resolve(rendering).block(TIMEOUT)).isEqualTo(VideoStorageKeys.sharded(rendering));
+    }
+
+    @Test
+    void resolvesVideosInEitherLayoutDuringTheMigration() throws IOException {
+        VideoStorageResolver resolver = new VideoStorageResolver(videoStorage);
+        store(VideoStorageKeys.flat(1L).output("video.mp4"));
+        store(VideoStorageKeys.flat(2L).output("video.mp4"));
+        store(resolver.forNewVideo(3L).output("video.mp4"));
+
+        assertThat(resolver.resolve(1L).block(TIMEOUT)).isEqualTo(VideoStorageKeys.flat(1L));
+        assertThat(resolver.resolve(3L).block(TIMEOUT)).isEqualTo(VideoStorageKeys.sharded(3L));
+
+        migrationService.migrateBatch().block(TIMEOUT);
+
+        for (long id = 1; id <= 3; id++) {
+            VideoStorageKeys keys = resolver.resolve(id).block(TIMEOUT);
+            assertThat(keys).isEqualTo(VideoStorageKeys.sharded(id));
+            assertThat(videoStorage.exists(keys.output("video.mp4")).block(TIMEOUT)).isTrue();
+        }
+    }
+
+    private double migrated() {
+        return meterRegistry.counter(VideoStorageMigrationService.MIGRATED_METER_NAME).count();
+    }
+
+    private RenderJob leasedJob(Long videoId) {
+        return new RenderJob().videoId(videoId).status(RenderJobStatus.LEASED);
+    }
+
+    private void store(String key) throws IOException {
+        Path file = root.resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "video");
+    }
+}
@@ -0,0 +1,126 @@
+package com.video.app.service.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Unit tests for {@link LocalVideoStorage}.
+ */
+class LocalVideoStorageTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @TempDir
+    Path root;
+
+    private LocalVideoStorage videoStorage;
+
+    @BeforeEach
+    void setup() {
+        videoStorage = new LocalVideoStorage(root);
+    }
+
+    @Test
+    void keepsTheSharedDataLayoutOfUnmigratedVideos() {
+        VideoStorageKeys video = VideoStorageKeys.flat(7L);
+
+        assertThat(videoStorage.workspace(video.image(3))).isEqualTo(root.resolve("videos/7/images/image_003.jpg"));
+        assertThat(videoStorage.workspace(video.audio("song.mp3"))).isEqualTo(root.resolve("videos/7/audio/song.mp3"));
+        assertThat(videoStorage.workspace(video.output())).isEqualTo(root.resolve("videos/7/output"));
+        assertThat(videoStorage.localFile(video.output("video.mp4"))).contains(root.resolve("videos/7/output/video.mp4"));
+    }
+
+    @Test
+    void spreadsConsecutiveVideosOverTwoLevelsOfSubdirectories() {
+        assertThat(VideoStorageKeys.sharded(7L).video()).matches("videos/sharded/[0-9a-f]{2}/[0-9a-f]{2}/7/");
+        assertThat(LongStream.rangeClosed(1, 1000).mapToObj(id -> VideoStorageKeys.shard(id).substring(0, 2)).distinct().count())
+            .isEqualTo(256);
+        assertThat(LongStream.rangeClosed(1, 1000).mapToObj(VideoStorageKeys::shard).distinct().count()).isEqualTo(1000);
+    }
+
+    @Test
+    void readsARangeOfAStoredFile() throws IOException {
+        String key = VideoStorageKeys.sharded(1L).output("video.mp4");
+        videoStorage.put(key, source("0123456789")).block(TIMEOUT);
+
+        assertThat(read(key, 2, 5)).isEqualTo("23456");
+        assertThat(read(key, 0, 100)).isEqualTo("0123456789");
+        assertThat(videoStorage.stat(key).block(TIMEOUT).size()).isEqualTo(10);
+    }
+
+    @Test
+    void linksWithoutCopyingAndListsByPrefix() throws IOException {
+        String source = VideoStorageKeys.sharded(1L).output("video.mp4");
+        String target = VideoStorageKeys.sharded(2L).output("video.mp4");
+        videoStorage.put(source, source("video")).block(TIMEOUT);
+        videoStorage.put(VideoStorageKeys.sharded(1L).image(0), source("image")).block(TIMEOUT);
+
+        videoStorage.link(source, target).block(TIMEOUT);
+
+        assertThat(Files.isSameFile(videoStorage.workspace(source), videoStorage.workspace(target))).isTrue();
+        assertThat(videoStorage.list(VideoStorageKeys.sharded(1L).video()).map(StoredObject::key).collectList().block(TIMEOUT))
+            .containsExactlyInAnyOrder(VideoStorageKeys.sharded(1L).output("video.mp4"), VideoStorageKeys.sharded(1L).image(0));
+        assertThat(videoStorage.list(VideoStorageKeys.sharded(3L).video()).collectList().block(TIMEOUT)).isEmpty();
+    }
+
+    @Test
+    void deletesAPrefixWithEverythingUnderIt() throws IOException {
+        videoStorage.put(VideoStorageKeys.sharded(1L).image(0), source("image")).block(TIMEOUT);
+        videoStorage.put(VideoStorageKeys.sharded(10L).image(0), source("image")).block(TIMEOUT);
+
+        videoStorage.delete(VideoStorageKeys.sharded(1L).video()).block(TIMEOUT);
+
+        assertThat(videoStorage.workspace(VideoStorageKeys.sharded(1L).video())).doesNotExist();
+        assertThat(videoStorage.stat(VideoStorageKeys.sharded(1L).image(0)).blockOptional(TIMEOUT)).isEmpty();
+        assertThat(videoStorage.stat(VideoStorageKeys.sharded(10L).image(0)).blockOptional(TIMEOUT)).isPresent();
+    }
+
+    @Test
+    void movesAVideoDirectoryAtOnce() throws IOException {
+        VideoStorageKeys flat = VideoStorageKeys.flat(5L);
+        VideoStorageKeys sharded = VideoStorageKeys.sharded(5L);
+        videoStorage.put(flat.image(0), source("image")).block(TIMEOUT);
+        videoStorage.put(flat.output("video.mp4"), source("video")).block(TIMEOUT);
+
+        assertThat(videoStorage.children(VideoStorageKeys.FLAT_ROOT).collectList().block(TIMEOUT)).containsExactly("5");
+
+        videoStorage.move(flat.video(), sharded.video()).block(TIMEOUT);
+
+        assertThat(videoStorage.exists(flat.video()).block(TIMEOUT)).isFalse();
+        assertThat(videoStorage.workspace(sharded.image(0))).hasContent("image");
+        assertThat(videoStorage.workspace(sharded.output("video.mp4"))).hasContent("video");
+        assertThat(videoStorage.children(VideoStorageKeys.FLAT_ROOT).collectList().block(TIMEOUT)).containsExactly("sharded");
+    }
+
+    @Test
+    void rejectsKeysOutsideTheRoot() {
+        assertThatThrownBy(() -> videoStorage.workspace(VideoStorageKeys.flat(1L).audio("../../../../etc/passwd"))).isInstanceOf(
+            IllegalArgumentException.class
+        );
+    }
+
+    private Path source(String content) throws IOException {
+        return Files.writeString(Files.createTempFile(root, "source", ".tmp"), content, StandardCharsets.UTF_8);
+    }
+
+    private String read(String key, long offset, long length) {
+        return DataBufferUtils.join(videoStorage.get(key, offset, length))
+            .map(buffer -> {
+                String content = buffer.toString(StandardCharsets.UTF_8);
+                DataBufferUtils.release(buffer);
+                return content;
+            })
+            .block(TIMEOUT);
+    }
+}
@@ -0,0 +1,176 @@
+package com.video.app.service.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.video.app.config.ApplicationProperties;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Integration tests for {@link S3VideoStorage} against a MinIO server.
+ */
+@Testcontainers
+class S3VideoStorageIT {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final String BUCKET = "videos";
+
+    @Container
+    private static final MinIOContainer MINIO = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+    @TempDir
+    Path apiNode;
+
+    @TempDir
+    Path workerNode;
+
+    private ApplicationProperties.Storage.S3 properties;
+
+    private S3VideoStorage api;
+
+    private S3VideoStorage worker;
+
+    @BeforeEach
+    void setup() {
+        properties = new ApplicationProperties().getStorage().getS3();
+        properties.setEndpoint(MINIO.getS3URL());
+        properties.setAccessKey(MINIO.getUserName());
+        properties.setSecretKey(MINIO.getPassword());
+        properties.setBucket(BUCKET);
+        properties.setPartSize(DataSize.ofMegabytes(5));
+        try (
+            S3Client client = S3Client.builder()
+                .endpointOverride(URI.create(MINIO.getS3URL()))
+                .region(Region.US_EAST_1)
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(MINIO.getUserName(), MINIO.getPassword())))
+                .build()
+        ) {
+            if (client.listBuckets().buckets().stream().noneMatch(bucket -> bucket.name().equals(BUCKET))) {
+                client.createBucket(request -> request.bucket(BUCKET));
+            }
+        }
+        api = S3VideoStorage.create(properties, apiNode);
+        worker = S3VideoStorage.create(properties, workerNode);
+    }
+
+    @AfterEach
+    void cleanup() {
+        api.delete("videos/").block(TIMEOUT);
+        api.close();
+        worker.close();
+    }
+
+    @Test
+    void filesPublishedByOneNodeAreFetchedByAnother() throws IOException {
+        byte[] video = randomBytes(12 * 1024 * 1024 + 17);
+        Files.createDirectories(api.workspace(VideoStorageKeys.sharded(1L).output()));
+        Files.write(api.workspace(VideoStorageKeys.sharded(1L).output("video.mp4")), video);
+        Files.createDirectories(api.workspace(VideoStorageKeys.sharded(1L).images()));
+        Files.writeString(api.workspace(VideoStorageKeys.sharded(1L).image(0)), "image");
+
+        // 12MB in parts of 5MB: multipart upload, then three ranged GETs
+        api.publish(VideoStorageKeys.sharded(1L).video()).block(TIMEOUT);
+        api.release(VideoStorageKeys.sharded(1L).video()).block(TIMEOUT);
+        worker.fetch(VideoStorageKeys.sharded(1L).video()).block(TIMEOUT);
+
+        assertThat(api.workspace(VideoStorageKeys.sharded(1L).video())).doesNotExist();
+        assertThat(Files.readAllBytes(worker.workspace(VideoStorageKeys.sharded(1L).output("video.mp4")))).isEqualTo(video);
+        assertThat(worker.workspace(VideoStorageKeys.sharded(1L).image(0))).hasContent("image");
+        assertThat(worker.stat(VideoStorageKeys.sharded(1L).output("video.mp4")).block(TIMEOUT).size()).isEqualTo(video.length);
+    }
+
+    @Test
+    void readsARangeOfAnObject() throws IOException {
+        String key = VideoStorageKeys.sharded(2L).output("video.mp4");
+        api.put(key, Files.writeString(apiNode.resolve("video.mp4"), "0123456789")).block(TIMEOUT);
+
+        String range = DataBufferUtils.join(api.get(key, 2, 5))
+            .map(buffer -> {
+                String content = buffer.toString(StandardCharsets.UTF_8);
+                DataBufferUtils.release(buffer);
+                return content;
+            })
+            .block(TIMEOUT);
+
+        assertThat(range).isEqualTo("23456");
+    }
+
+    @Test
+    void linksCopiesOnTheServerAndDeletesByPrefix() throws IOException {
+        String source = VideoStorageKeys.sharded(3L).output("video.mp4");
+        String target = VideoStorageKeys.sharded(30L).output("video.mp4");
+        api.put(source, Files.writeString(apiNode.resolve("video.mp4"), "video")).block(TIMEOUT);
+
+        api.link(source, target).block(TIMEOUT);
+        api.delete(VideoStorageKeys.sharded(3L).video()).block(TIMEOUT);
+
+        assertThat(api.stat(source).blockOptional(TIMEOUT)).isEmpty();
+        assertThat(api.list(VideoStorageKeys.sharded(30L).video()).map(StoredObject::key).collectList().block(TIMEOUT)).containsExactly(
+            target
+        );
+    }
+
+    @Test
+    void movesAVideoPrefixIntoItsShard() throws IOException {
+        VideoStorageKeys flat = VideoStorageKeys.flat(4L);
+        VideoStorageKeys sharded = VideoStorageKeys.sharded(4L);
+        api.put(flat.output("video.mp4"), Files.writeString(apiNode.resolve("video.mp4"), "video")).block(TIMEOUT);
+        api.put(flat.image(0), Files.writeString(apiNode.resolve("image.jpg"), "image")).block(TIMEOUT);
+
+        assertThat(api.children(VideoStorageKeys.FLAT_ROOT).collectList().block(TIMEOUT)).containsExactly("4");
+
+        api.move(flat.video(), sharded.video()).block(TIMEOUT);
+
+        assertThat(api.exists(flat.video()).block(TIMEOUT)).isFalse();
+        assertThat(api.list(sharded.video()).map(StoredObject::key).collectList().block(TIMEOUT)).containsExactlyInAnyOrder(
+            sharded.output("video.mp4"),
+            sharded.image(0)
+        );
+        assertThat(api.children(VideoStorageKeys.FLAT_ROOT).collectList().block(TIMEOUT)).containsExactly("sharded");
+    }
+
+    @Test
+    void downloadLinksServeRangesWithoutTheApplication() throws Exception {
+        String key = VideoStorageKeys.sharded(4L).output("video.mp4");
+        api.put(key, Files.writeString(apiNode.resolve("video.mp4"), "0123456789")).block(TIMEOUT);
+        URI url = api.downloadUrl(key, Duration.ofMinutes(1)).block(TIMEOUT);
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+            HttpRequest.newBuilder(url).header("Range", "bytes=5-").build(),
+            HttpResponse.BodyHandlers.ofString()
+        );
+
+        assertThat(response.statusCode()).isEqualTo(206);
+        assertThat(response.body()).isEqualTo("56789");
+        assertThat(response.headers().firstValue("Content-Disposition")).contains("attachment; filename=\"video.mp4\"");
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,309 @@
+package com.video.app.web.multipart;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.video.app.config.ApplicationProperties;
+import com.video.app.service.StagedFilePart;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.codec.multipart.DefaultPartHttpMessageReader;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.codec.multipart.FormFieldPart;
+import org.springframework.http.codec.multipart.MultipartHttpMessageReader;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.PayloadTooLargeException;
+import reactor.core.publisher.Flux;
+
+/**
+ * Unit tests for {@link StagingPartHttpMessageReader}.
+ */
+class StagingPartHttpMessageReaderTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StagingPartHttpMessageReaderTest.class);
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final String BOUNDARY = "video-upload-boundary";
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int BENCHMARK_IMAGES = 10;
+
+    private static final int BENCHMARK_IMAGE_SIZE = (int) DataSize.ofMegabytes(10).toBytes();
+
+    private static final int BENCHMARK_ROUNDS = 2;
+
+    @TempDir
+    private Path tempDir;
+
+    private Path stagingDirectory;
+
+    private Path videosDirectory;
+
+    private ApplicationProperties.Upload properties;
+
+    @BeforeEach
+    void setup() throws IOException {
+        stagingDirectory = tempDir.resolve("staging");
+        videosDirectory = Files.createDirectories(tempDir.resolve("videos"));
+        properties = new ApplicationProperties().getUpload();
+        properties.setStagingDirectory(stagingDirectory.toString());
+    }
+
+    @Test
+    void streamsFilePartsIntoTheStagingDirectoryAndMovesThemIntoPlace() throws Exception {
+        MultiValueMap<String, Part> parts = read(
+            new StagingPartHttpMessageReader(properties),
+            request(Flux.concat(field("titulo", "vacaciones"), file("image_000.jpg", 1000), file("image_001.jpg", 2000), end()))
+        );
+
+        assertThat(((FormFieldPart) parts.getFirst("titulo")).value()).isEqualTo("vacaciones");
+        List<Part> images = parts.get("images");
+        assertThat(images).hasSize(2).allMatch(StagedFilePart.class::isInstance);
+        Path staged = ((StagedFilePart) images.get(1)).file();
+        assertThat(staged.getParent()).isEqualTo(stagingDirectory);
+        Object stagedKey = Files.readAttributes(staged, "unix:ino").get("ino");
+        byte[] content = new byte[2000];
+        Arrays.fill(content, (byte) 'x');
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertThat(((StagedFilePart) images.get(1)).sha256()).isEqualTo(sha256);
+
+        Path image = videosDirectory.resolve("image_001.jpg");
+        ((FilePart) images.get(1)).transferTo(image).block(TIMEOUT);
+
+        assertThat(staged).doesNotExist();
+        assertThat(image).hasSize(2000);
+        // renamed, not copied: the file keeps its inode
+        assertThat(Files.readAttributes(image, "unix:ino").get("ino")).isEqualTo(stagedKey);
+    }
+
+    @Test
+    void deletesStagedFilesThatAreNotTransferred() {
+        MultiValueMap<String, Part> parts = read(
+            new StagingPartHttpMessageReader(properties),
+            request(Flux.concat(file("image_000.jpg", 1000), end()))
+        );
+        Path staged = ((StagedFilePart) parts.getFirst("images")).file();
+
+        parts.getFirst("images").delete().block(TIMEOUT);
+
+        assertThat(staged).doesNotExist();
+    }
+
+    @Test
+    void rejectsARequestWhoseContentLengthExceedsTheLimit() throws IOException {
+        properties.setMaxRequestSize(DataSize.ofMegabytes(1));
+        MockServerHttpRequest request = MockServerHttpRequest.post("/api/videos")
+            .contentType(multipart())
+            .contentLength(DataSize.ofMegabytes(2).toBytes())
+            .body(Flux.concat(file("image_000.jpg", 1000), end()));
+
+        assertThatThrownBy(() -> read(new StagingPartHttpMessageReader(properties), request)).isInstanceOf(PayloadTooLargeException.class);
+        assertThat(stagedFiles()).isEmpty();
+    }
+
+    @Test
+    void rejectsARequestThatWritesMoreThanTheLimitAndDeletesWhatItStaged() throws Exception {
+        properties.setMaxRequestSize(DataSize.ofKilobytes(1000));
+        MockServerHttpRequest request = request(
+            Flux.concat(file("image_000.jpg", 600 * 1024), file("image_001.jpg", 600 * 1024), end())
+        );
+
+        assertThatThrownBy(() -> read(new StagingPartHttpMessageReader(properties), request)).isInstanceOf(PayloadTooLargeException.class);
+        assertThat(waitForStagingToEmpty()).isEmpty();
+    }
+
+    @Test
+    void rejectsAFileLargerThanThePartLimit() throws Exception {
+        properties.setMaxPartSize(DataSize.ofKilobytes(100));
+        MockServerHttpRequest request = request(Flux.concat(file("image_000.jpg", 200 * 1024), end()));
+
+        assertThatThrownBy(() -> read(new StagingPartHttpMessageReader(properties), request)).isInstanceOf(PayloadTooLargeException.class);
+        assertThat(waitForStagingToEmpty()).isEmpty();
+    }
+
+    @Test
+    void rejectsTooManyParts() {
+        properties.setMaxParts(2);
+        MockServerHttpRequest request = request(
+            Flux.concat(file("image_000.jpg", 10), file("image_001.jpg", 10), file("image_002.jpg", 10), end())
+        );
+
+        assertThatThrownBy(() -> read(new StagingPartHttpMessageReader(properties), request)).isInstanceOf(PayloadTooLargeException.class);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @Timeout(value = 2, unit = TimeUnit.MINUTES)
+    void benchmarkUploadOfTenImagesOfTenMegabytes() throws Exception {
+        DefaultPartHttpMessageReader defaultReader = new DefaultPartHttpMessageReader();
+        defaultReader.setFileStorageDirectory(Files.createDirectories(tempDir.resolve("default")));
+        StagingPartHttpMessageReader stagingReader = new StagingPartHttpMessageReader(properties);
+        // alternate the readers and keep the best round of each, so JIT warm-up and noise do not favour either
+        Result staging = null;
+        Result copying = null;
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            staging = Result.best(staging, upload(stagingReader, "staging-" + round));
+            copying = Result.best(copying, upload(defaultReader, "default-" + round));
+        }
+
+        LOG.info(
+            "multipart {} x {} MB: staging reader {} MB/s, placed in {} ms, heap peak +{} MB; " +
+            "default reader {} MB/s, placed in {} ms, heap peak +{} MB",
+            BENCHMARK_IMAGES,
+            DataSize.ofBytes(BENCHMARK_IMAGE_SIZE).toMegabytes(),
+            staging.megabytesPerSecond(),
+            staging.placementMillis(),
+            staging.heapPeakMegabytes(),
+            copying.megabytesPerSecond(),
+            copying.placementMillis(),
+            copying.heapPeakMegabytes()
+        );
+        assertThat(stagedFiles()).isEmpty();
+    }
+
+    /**
+     * Uploads {@link #BENCHMARK_IMAGES} images of 10 MB and moves them into a video directory, as
+     * {@code FileStorageService} does.
+     */
+    private Result upload(HttpMessageReader<Part> partReader, String target) throws Exception {
+        Path imagesDirectory = Files.createDirectories(videosDirectory.resolve(target));
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong heapPeak = new AtomicLong(heapBefore);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(
+            () -> heapPeak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+            0,
+            5,
+            TimeUnit.MILLISECONDS
+        );
+        long start = System.nanoTime();
+        long placementStart;
+        try {
+            Flux<DataBuffer> body = Flux.concat(
+                Flux.range(0, BENCHMARK_IMAGES).concatMap(i -> file(String.format("image_%03d.jpg", i), BENCHMARK_IMAGE_SIZE)),
+                end()
+            );
+            List<Part> images = read(partReader, request(body)).get("images");
+            placementStart = System.nanoTime();
+            Flux.range(0, images.size())
+                .concatMap(i -> ((FilePart) images.get(i)).transferTo(imagesDirectory.resolve(String.format("image_%03d.jpg", i))))
+                .blockLast(TIMEOUT);
+            Flux.fromIterable(images).concatMap(Part::delete).blockLast(TIMEOUT);
+        } finally {
+            sampler.shutdownNow();
+        }
+        long end = System.nanoTime();
+
+        try (Stream<Path> images = Files.list(imagesDirectory)) {
+            List<Path> placed = images.toList();
+            assertThat(placed).hasSize(BENCHMARK_IMAGES).allMatch(image -> image.toFile().length() == BENCHMARK_IMAGE_SIZE);
+            for (Path image : placed) {
+                Files.delete(image);
+            }
+        }
+        double megabytes = (double) BENCHMARK_IMAGES * BENCHMARK_IMAGE_SIZE / DataSize.ofMegabytes(1).toBytes();
+        return new Result(
+            Math.round(megabytes / ((end - start) / 1_000_000_000.0)),
+            TimeUnit.NANOSECONDS.toMillis(end - placementStart),
+            DataSize.ofBytes(Math.max(heapPeak.get() - heapBefore, 0)).toMegabytes()
+        );
+    }
+
+    private static MultiValueMap<String, Part> read(HttpMessageReader<Part> partReader, MockServerHttpRequest request) {
+        return new MultipartHttpMessageReader(partReader)
+            .readMono(ResolvableType.forClassWithGenerics(MultiValueMap.class, String.class, Part.class), request, Map.of())
+            .block(TIMEOUT);
+    }
+
+    private static MockServerHttpRequest request(Flux<DataBuffer> body) {
+        return MockServerHttpRequest.post("/api/videos").contentType(multipart()).body(body);
+    }
+
+    private static MediaType multipart() {
+        return new MediaType(MediaType.MULTIPART_FORM_DATA, Map.of("boundary", BOUNDARY));
+    }
+
+    private static Flux<DataBuffer> field(String name, String value) {
+        return text("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n");
+    }
+
+    /**
+     * A file part of the given size, generated in chunks so the test itself does not hold it in memory.
+     */
+    private static Flux<DataBuffer> file(String filename, int size) {
+        String headers =
+            "--" +
+            BOUNDARY +
+            "\r\nContent-Disposition: form-data; name=\"images\"; filename=\"" +
+            filename +
+            "\"\r\nContent-Type: image/jpeg\r\n\r\n";
+        Flux<DataBuffer> content = Flux.range(0, (size + CHUNK_SIZE - 1) / CHUNK_SIZE).map(chunk -> {
+            byte[] bytes = new byte[Math.min(CHUNK_SIZE, size - chunk * CHUNK_SIZE)];
+            Arrays.fill(bytes, (byte) 'x');
+            return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+        });
+        return Flux.concat(text(headers), content, text("\r\n"));
+    }
+
+    private static Flux<DataBuffer> end() {
+        return text("--" + BOUNDARY + "--\r\n");
+    }
+
+    private static Flux<DataBuffer> text(String text) {
+        return Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    private List<Path> stagedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(stagingDirectory)) {
+            return files.toList();
+        }
+    }
+
+    private List<Path> waitForStagingToEmpty() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (!stagedFiles().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return stagedFiles();
+    }
+
+    private record Result(long megabytesPerSecond, long placementMillis, long heapPeakMegabytes) {
+        static Result best(Result current, Result candidate) {
+            return current == null || candidate.megabytesPerSecond() > current.megabytesPerSecond() ? candidate : current;
+        }
+    }
+}
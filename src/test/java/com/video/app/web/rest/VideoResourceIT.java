@@ -30,6 +30,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -601,6 +602,57 @@ class VideoResourceIT {
         assertSameRepositoryCount(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    void cancelVideo() {
+        // Initialize the database
+        insertedVideo = videoRepository.save(video).block();
+
+        // Cancel the render of the video
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL_ID + "/cancel", video.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isAccepted()
+            .expectBody()
+            .jsonPath("$.estado")
+            .isEqualTo(EstadoVideo.CANCELADO.toString());
+
+        assertThat(videoRepository.findById(video.getId()).block().getEstado()).isEqualTo(EstadoVideo.CANCELADO);
+
+        // Cancelling it again is idempotent
+        webTestClient.post().uri(ENTITY_API_URL_ID + "/cancel", video.getId()).exchange().expectStatus().isAccepted();
+    }
+
+    @Test
+    void cancelFinishedVideo() {
+        // Initialize the database
+        insertedVideo = videoRepository.save(video.estado(EstadoVideo.COMPLETADO)).block();
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL_ID + "/cancel", video.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.CONFLICT)
+            .expectBody()
+            .jsonPath("$.estado")
+            .isEqualTo(EstadoVideo.COMPLETADO.toString());
+    }
+
+    @Test
+    void cancelNonExistingVideo() {
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL_ID + "/cancel", Long.MAX_VALUE)
+            .accept(MediaType.APPLICATION_PROBLEM_JSON)
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
     @Test
     void deleteVideo() {
         // Initialize the database